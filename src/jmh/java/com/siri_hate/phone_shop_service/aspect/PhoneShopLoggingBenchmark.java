@@ -0,0 +1,89 @@
+package com.siri_hate.phone_shop_service.aspect;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.InMemoryPhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark of calls logged by the {@link PhoneShopMetricsAspect} from several threads, comparing the
+ * synchronous console configuration with the asynchronous rolling file configuration of the production profile.
+ * Each configuration runs in its own fork and writes under {@code target/jmh-logs}, the console one to
+ * {@code console.log} in place of the standard output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PhoneShopLoggingBenchmark {
+
+    private static final Path LOG_DIR = Path.of("target", "jmh-logs");
+
+    private PrintStream console;
+
+    private PhoneRepository loggedRepository;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Redirect the standard output before the first logger starts the console appender
+        Files.createDirectories(LOG_DIR);
+        console = new PrintStream(new FileOutputStream(LOG_DIR.resolve("console.log").toFile()), false);
+        System.setOut(console);
+        PhoneRepository phoneRepository = InMemoryPhoneRepository.create();
+        phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy S23",
+                256,
+                "Black",
+                90000,
+                12
+        ));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(phoneRepository);
+        proxyFactory.addInterface(PhoneRepository.class);
+        proxyFactory.addAspect(new PhoneShopMetricsAspect(new SimpleMeterRegistry(), Duration.ofSeconds(1), 1));
+        loggedRepository = proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-Dlog4j2.configurationFile=log4j2-spring.xml",
+            "-DLOG_PATH=target/jmh-logs"
+    })
+    public Optional<Phone> syncConsole() {
+        return loggedRepository.findById(1);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-Dlog4j2.configurationFile=log4j2-production.xml",
+            "-DLOG_PATH=target/jmh-logs"
+    })
+    public Optional<Phone> asyncRollingFile() {
+        return loggedRepository.findById(1);
+    }
+
+}
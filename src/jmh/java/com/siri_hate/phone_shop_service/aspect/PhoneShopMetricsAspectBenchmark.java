@@ -0,0 +1,89 @@
+package com.siri_hate.phone_shop_service.aspect;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.InMemoryPhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the overhead of the {@link PhoneShopMetricsAspect}, comparing a call through an AOP proxy without
+ * advice with the same call measured by the aspect, and with every call logged as well. Logged calls are written
+ * with the production logging configuration, to a log file under {@code target/jmh-logs}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneShopMetricsAspectBenchmark {
+
+    private PhoneRepository plainRepository;
+
+    private PhoneRepository measuredRepository;
+
+    private PhoneRepository loggedRepository;
+
+    @Setup
+    public void setUp() {
+        PhoneRepository phoneRepository = InMemoryPhoneRepository.create();
+        phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy S23",
+                256,
+                "Black",
+                90000,
+                12
+        ));
+        plainRepository = proxy(phoneRepository, null);
+        measuredRepository = proxy(phoneRepository,
+                new PhoneShopMetricsAspect(new SimpleMeterRegistry(), Duration.ofSeconds(1), 0));
+        loggedRepository = proxy(phoneRepository,
+                new PhoneShopMetricsAspect(new SimpleMeterRegistry(), Duration.ofSeconds(1), 1));
+    }
+
+    @Benchmark
+    public Optional<Phone> plain() {
+        return plainRepository.findById(1);
+    }
+
+    @Benchmark
+    public Optional<Phone> measured() {
+        return measuredRepository.findById(1);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-Dlog4j2.configurationFile=log4j2-production.xml",
+            "-DLOG_PATH=target/jmh-logs"
+    })
+    public Optional<Phone> measuredAndLogged() {
+        return loggedRepository.findById(1);
+    }
+
+    private static PhoneRepository proxy(PhoneRepository phoneRepository, PhoneShopMetricsAspect aspect) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(phoneRepository);
+        proxyFactory.addInterface(PhoneRepository.class);
+        if (aspect != null) {
+            proxyFactory.addAspect(aspect);
+        }
+        return proxyFactory.getProxy();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.siri_hate.phone_shop_service.dto;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of mapping a {@link PhoneRequest} to a {@link Phone} entity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneRequestMapperBenchmark {
+
+    private final PhoneRequest phoneRequest = new PhoneRequest(
+            null,
+            "Samsung",
+            "Galaxy S23",
+            256,
+            "Black",
+            90000,
+            12
+    );
+
+    @Benchmark
+    public Phone toPhoneEntity() {
+        return PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.siri_hate.phone_shop_service.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the bean validation of a valid and of an invalid {@link PhoneRequest},
+ * the latter building a constraint violation and interpolating its message for every invalid field.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneRequestValidationBenchmark {
+
+    private final PhoneRequest validRequest = new PhoneRequest(
+            null,
+            "Samsung",
+            "Galaxy S23",
+            256,
+            "Black",
+            90000,
+            12
+    );
+
+    private final PhoneRequest invalidRequest = new PhoneRequest(
+            null,
+            "",
+            "Galaxy S23",
+            256,
+            null,
+            -1,
+            12
+    );
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PhoneRequest>> validateValid() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PhoneRequest>> validateInvalid() {
+        return validator.validate(invalidRequest);
+    }
+
+}
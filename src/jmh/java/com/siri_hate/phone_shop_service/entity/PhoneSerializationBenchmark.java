@@ -0,0 +1,92 @@
+package com.siri_hate.phone_shop_service.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Jackson serialization of a single {@link Phone} and of a list of phones, as written in responses,
+ * using an object mapper configured with the same defaults as the one of the application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneSerializationBenchmark {
+
+    @Param({"100"})
+    public int listSize;
+
+    private ObjectWriter phoneWriter;
+
+    private ObjectWriter phoneListWriter;
+
+    private ObjectReader phoneReader;
+
+    private Phone phone;
+
+    private List<Phone> phones;
+
+    private byte[] phoneJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        phoneWriter = objectMapper.writerFor(Phone.class);
+        phoneListWriter = objectMapper.writerFor(new TypeReference<List<Phone>>() { });
+        phoneReader = objectMapper.readerFor(Phone.class);
+        phones = new ArrayList<>(listSize);
+        for (int id = 1; id <= listSize; id++) {
+            phones.add(new Phone(
+                    id,
+                    "Samsung",
+                    "Galaxy S" + id,
+                    256,
+                    "Black",
+                    90000 + id,
+                    id % 20,
+                    3,
+                    id
+            ));
+        }
+        phone = phones.get(0);
+        phoneJson = phoneWriter.writeValueAsBytes(phone);
+    }
+
+    @Benchmark
+    public byte[] writePhone() throws JsonProcessingException {
+        return phoneWriter.writeValueAsBytes(phone);
+    }
+
+    @Benchmark
+    public byte[] writePhoneList() throws JsonProcessingException {
+        return phoneListWriter.writeValueAsBytes(phones);
+    }
+
+    @Benchmark
+    public Phone readPhone() throws IOException {
+        return phoneReader.readValue(phoneJson);
+    }
+
+}
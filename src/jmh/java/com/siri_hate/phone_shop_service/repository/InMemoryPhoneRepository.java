@@ -0,0 +1,159 @@
+package com.siri_hate.phone_shop_service.repository;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * A {@link PhoneRepository} keeping phones in memory, so that benchmarks measure the code around the repository
+ * rather than the database. Only the methods used by the benchmarked paths are supported; the others throw
+ * {@link UnsupportedOperationException}.
+ */
+public final class InMemoryPhoneRepository implements InvocationHandler {
+
+    private final Map<Integer, Phone> phones = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private final AtomicLong changeVersions = new AtomicLong();
+
+    private InMemoryPhoneRepository() {
+    }
+
+    /**
+     * Creates an empty in-memory repository.
+     *
+     * @return The repository.
+     */
+    public static PhoneRepository create() {
+        return (PhoneRepository) Proxy.newProxyInstance(
+                PhoneRepository.class.getClassLoader(),
+                new Class<?>[]{PhoneRepository.class},
+                new InMemoryPhoneRepository()
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "save":
+                return save((Phone) args[0]);
+            case "saveAll":
+                return saveAll((Iterable<?>) args[0]);
+            case "findById":
+                return Optional.ofNullable(phones.get((Integer) args[0]));
+            case "findAllById":
+                return findAllById((Iterable<?>) args[0]);
+            case "existsById":
+                return phones.containsKey((Integer) args[0]);
+            case "findVersionById":
+                return Optional.ofNullable(phones.get((Integer) args[0])).map(Phone::getVersion);
+            case "findAll":
+                return new ArrayList<>(phones.values());
+            case "streamAllOrderById":
+                return new ArrayList<>(phones.values()).stream();
+            case "updateById":
+                return update((Integer) args[0], phone -> new Phone(
+                        phone.getId(),
+                        (String) args[1],
+                        (String) args[2],
+                        (Integer) args[3],
+                        (String) args[4],
+                        (Integer) args[5],
+                        (Integer) args[6],
+                        phone.getVersion() + 1,
+                        (Long) args[7]
+                ));
+            case "reserveStock":
+                return update((Integer) args[0], phone -> phone.getQuantity() < (Integer) args[1]
+                        ? null
+                        : withQuantity(phone, phone.getQuantity() - (Integer) args[1], (Long) args[2]));
+            case "releaseStock":
+                return update((Integer) args[0],
+                        phone -> withQuantity(phone, phone.getQuantity() + (Integer) args[1], (Long) args[2]));
+            case "count":
+                return (long) phones.size();
+            case "nextChangeVersion":
+                return changeVersions.incrementAndGet();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryPhoneRepository" + phones.keySet();
+            default:
+                throw new UnsupportedOperationException(method.getName() + " is not supported in memory");
+        }
+    }
+
+    private Phone save(Phone phone) {
+        if (phone.getId() == null) {
+            phone.setId(ids.incrementAndGet());
+        } else {
+            ids.accumulateAndGet(phone.getId(), Math::max);
+        }
+        phones.put(phone.getId(), phone);
+        return phone;
+    }
+
+    /**
+     * Replaces the phone with the given ID by an updated copy, so that phones already handed out stay unchanged.
+     *
+     * @param id      The ID of the phone to update.
+     * @param updater The function returning the updated copy, or {@code null} to leave the phone unchanged.
+     * @return The number of updated phones.
+     */
+    private int update(int id, UnaryOperator<Phone> updater) {
+        boolean[] updated = new boolean[1];
+        phones.computeIfPresent(id, (key, phone) -> {
+            Phone updatedPhone = updater.apply(phone);
+            updated[0] = updatedPhone != null;
+            return updated[0] ? updatedPhone : phone;
+        });
+        return updated[0] ? 1 : 0;
+    }
+
+    private static Phone withQuantity(Phone phone, int quantity, long changeVersion) {
+        return new Phone(
+                phone.getId(),
+                phone.getManufacturer(),
+                phone.getModel(),
+                phone.getStorageSize(),
+                phone.getColor(),
+                phone.getCost(),
+                quantity,
+                phone.getVersion() + 1,
+                changeVersion
+        );
+    }
+
+    private List<Phone> saveAll(Iterable<?> entities) {
+        List<Phone> saved = new ArrayList<>();
+        for (Object entity : entities) {
+            saved.add(save((Phone) entity));
+        }
+        return saved;
+    }
+
+    private List<Phone> findAllById(Iterable<?> ids) {
+        List<Phone> found = new ArrayList<>();
+        for (Object id : ids) {
+            Phone phone = phones.get((Integer) id);
+            if (phone != null) {
+                found.add(phone);
+            }
+        }
+        return found;
+    }
+
+}
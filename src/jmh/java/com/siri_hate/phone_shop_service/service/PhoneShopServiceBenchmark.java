@@ -0,0 +1,195 @@
+package com.siri_hate.phone_shop_service.service;
+
+import com.siri_hate.phone_shop_service.cache.CatalogSnapshotManager;
+import com.siri_hate.phone_shop_service.cache.CatalogVersion;
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.invalidation.InvalidationBus;
+import com.siri_hate.phone_shop_service.inventory.HotStockManager;
+import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+import com.siri_hate.phone_shop_service.repository.InMemoryPhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneTombstoneRepository;
+import com.siri_hate.phone_shop_service.search.PhoneSearchIndex;
+import com.siri_hate.phone_shop_service.stream.InventoryChangeStream;
+import com.siri_hate.phone_shop_service.sync.ChangeVersions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Benchmark of {@link PhoneShopServiceImpl} operations against an {@link InMemoryPhoneRepository}, measuring
+ * the service itself: the mapper, the phone cache, change version allocation, the search index and the
+ * after-commit actions. Writes run in transactions of a {@link NoOpTransactionManager}, so that their
+ * after-commit actions run as they do in the application. The collaborators not on these paths are stubs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneShopServiceBenchmark {
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    private PhoneCache phoneCache;
+
+    private PhoneShopServiceImpl phoneShopService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ValidatorFactory validatorFactory;
+
+    private List<Integer> batchIds;
+
+    private final PhoneRequest phoneRequest = new PhoneRequest(
+            null,
+            "Samsung",
+            "Galaxy S23",
+            256,
+            "Black",
+            90000,
+            12
+    );
+
+    @Setup
+    public void setUp() {
+        PhoneRepository phoneRepository = InMemoryPhoneRepository.create();
+        String[] manufacturers = {"Samsung", "Apple", "Xiaomi", "Google", "Nokia"};
+        for (int i = 0; i < catalogSize; i++) {
+            phoneRepository.save(new Phone(
+                    null,
+                    manufacturers[i % manufacturers.length],
+                    "Model " + i,
+                    128,
+                    i % 2 == 0 ? "Black" : "White",
+                    10000 + i,
+                    1000
+            ));
+        }
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CatalogVersion catalogVersion = new CatalogVersion(event -> { });
+        ChangeVersions changeVersions = new ChangeVersions(phoneRepository, true, true);
+        PhoneSearchIndex phoneSearchIndex = new PhoneSearchIndex(phoneRepository,
+                mock(EntityManager.class, withSettings().stubOnly()), meterRegistry);
+        phoneSearchIndex.rebuild();
+        phoneCache = new PhoneCache(catalogSize, Duration.ofMinutes(10), meterRegistry, "service");
+        InvalidationBus invalidationBus = mock(InvalidationBus.class, withSettings().stubOnly());
+        InventoryChangeStream inventoryChangeStream = mock(InventoryChangeStream.class, withSettings().stubOnly());
+        HotStockManager hotStockManager = new HotStockManager(phoneRepository, phoneCache, catalogVersion,
+                invalidationBus, changeVersions, inventoryChangeStream, meterRegistry, Set.of(), 100, 1,
+                Duration.ofSeconds(30));
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        phoneShopService = new PhoneShopServiceImpl(
+                phoneRepository,
+                mock(PhoneTombstoneRepository.class, withSettings().stubOnly()),
+                mock(EntityManager.class, withSettings().stubOnly()),
+                phoneCache,
+                Duration.ofSeconds(5),
+                catalogVersion,
+                mock(CatalogSnapshotManager.class, withSettings().stubOnly()),
+                changeVersions,
+                hotStockManager,
+                phoneSearchIndex,
+                inventoryChangeStream,
+                invalidationBus,
+                validatorFactory.getValidator(),
+                Jackson2ObjectMapperBuilder.json().build(),
+                20,
+                100,
+                1000,
+                50,
+                10000,
+                10,
+                50,
+                1000,
+                100
+        );
+        transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+        batchIds = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            batchIds.add(id * (catalogSize / 100));
+        }
+        for (int id = 1; id <= catalogSize; id++) {
+            phoneShopService.getPhoneFromShop(id);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Phone getPhoneCached() {
+        return phoneShopService.getPhoneFromShop(randomId());
+    }
+
+    @Benchmark
+    public Phone getPhoneUncached() {
+        int id = randomId();
+        phoneCache.invalidate(id);
+        return phoneShopService.getPhoneFromShop(id);
+    }
+
+    @Benchmark
+    public List<PhoneLookup> getPhonesBatch() {
+        return phoneShopService.getPhonesFromShop(batchIds);
+    }
+
+    @Benchmark
+    public List<PhoneSuggestion> suggestPhones() {
+        return phoneShopService.suggestPhonesInShop("sam mod", null);
+    }
+
+    @Benchmark
+    public Phone updatePhone() {
+        int id = randomId();
+        return transactionTemplate.execute(status -> phoneShopService.updatePhoneInfoInShop(id, phoneRequest));
+    }
+
+    @Benchmark
+    public Message reserveAndReleaseStock() {
+        int id = randomId();
+        phoneShopService.reservePhoneStockInShop(id, 1);
+        return phoneShopService.releasePhoneStockInShop(id, 1);
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(catalogSize) + 1;
+    }
+
+}
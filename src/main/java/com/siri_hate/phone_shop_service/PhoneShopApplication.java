@@ -3,17 +3,20 @@ package com.siri_hate.phone_shop_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The {@code PhoneShopApplication} class serves as the entry point for the Phone Shop Service application.
  * It uses Spring Boot to enable autoconfiguration and provides the necessary annotations for the application.
- * Additionally, it enables AspectJ AutoProxy for aspect-oriented programming support.
+ * Additionally, it enables AspectJ AutoProxy for aspect-oriented programming support
+ * and scheduling for periodic background tasks.
  *
  * <p>The main method within this class starts the Spring Boot application.
  *
  */
 @SpringBootApplication
 @EnableAspectJAutoProxy
+@EnableScheduling
 public class PhoneShopApplication {
 
     /**
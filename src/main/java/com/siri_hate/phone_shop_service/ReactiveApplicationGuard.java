@@ -0,0 +1,61 @@
+package com.siri_hate.phone_shop_service;
+
+import com.siri_hate.phone_shop_service.invalidation.InvalidationBus;
+import com.siri_hate.phone_shop_service.sync.ChangeVersions;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refuses to start the application while the reactive variant is connected to the same PostgreSQL database.
+ *
+ * <p>Writes of the reactive variant neither go through {@link ChangeVersions} nor through the {@link InvalidationBus},
+ * so nodes of this application sharing its database would keep serving the phones it changed from their caches,
+ * and the delta sync could skip its writes. The reactive variant names its sessions {@code phone-shop-reactive};
+ * at startup, the sessions of the database are looked up by that name in {@code pg_stat_activity}. Other databases
+ * are not checked.
+ *
+ * <p>This is a safeguard against mistakes, not a lock: the name is only the {@code applicationName} of the default
+ * reactive R2DBC URL. A reactive variant started with its URL or application name overridden, or connecting after
+ * this application has started, is not detected.
+ */
+@Component
+public class ReactiveApplicationGuard {
+
+    static final String REACTIVE_APPLICATION_NAME = "phone-shop-reactive";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new {@code ReactiveApplicationGuard}.
+     *
+     * @param jdbcTemplate The template the sessions of the database are looked up with.
+     */
+    @Autowired
+    public ReactiveApplicationGuard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Checks that no session of the reactive variant is connected to the database.
+     *
+     * @throws IllegalStateException if the reactive variant is connected to the database.
+     */
+    @PostConstruct
+    public void check() {
+        String databaseProduct = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(databaseProduct)) {
+            return;
+        }
+        Integer sessions = jdbcTemplate.queryForObject("select count(*) from pg_stat_activity "
+                + "where datname = current_database() and application_name = ?", Integer.class, REACTIVE_APPLICATION_NAME);
+        if (sessions != null && sessions > 0) {
+            throw new IllegalStateException("The reactive variant is connected to this database with " + sessions
+                    + " sessions; the servlet and reactive applications must not run against the same database");
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.siri_hate.phone_shop_service.aspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.util.Unbox;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aspect-oriented programming (AOP) component measuring method invocations in the Phone Shop service application.
+ * This aspect records the latency, call count and error count of every DAO, service and controller method as
+ * Micrometer meters, published through Actuator. The meters of a method are created on its first call and then
+ * looked up without locking, and recording only updates lock-free counters and histogram buckets.
+ * Only calls that take at least the slow call threshold, or fail, are logged, plus an optional random sample
+ * of all calls for tracing what the service does without logging every call. Meters are tagged with the type
+ * of the called bean, so methods inherited from Spring Data interfaces are attributed to the repository they
+ * were called on.
+ */
+@Component
+@Aspect
+@Log4j2
+public class PhoneShopMetricsAspect {
+
+    /**
+     * Name of the timer recording the latency and number of calls of each method.
+     */
+    public static final String CALLS_METRIC = "phone-shop.method.calls";
+
+    /**
+     * Name of the counter recording the number of failed calls of each method.
+     */
+    public static final String ERRORS_METRIC = "phone-shop.method.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    private final long slowCallThresholdNanos;
+
+    private final double callLogSampleRate;
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, MethodMeters>> meters = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<CallStack> callStack = ThreadLocal.withInitial(CallStack::new);
+
+    /**
+     * Constructs a new {@code PhoneShopMetricsAspect}.
+     *
+     * @param meterRegistry     The registry the method meters are published to.
+     * @param slowCallThreshold The duration from which a call is logged as slow.
+     * @param callLogSampleRate The fraction of all calls that are logged, from 0 (none) to 1 (every call).
+     */
+    @Autowired
+    public PhoneShopMetricsAspect(
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.metrics.slow-call-threshold:500ms}") Duration slowCallThreshold,
+            @Value("${phone-shop.metrics.call-log-sample-rate:0}") double callLogSampleRate
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+        this.callLogSampleRate = callLogSampleRate;
+    }
+
+    /**
+     * Pointcut definition for DAO methods.
+     */
+    @Pointcut("execution(* com.siri_hate.phone_shop_service.repository..*(..))")
+    private void daoMethods() {}
+
+    /**
+     * Pointcut definition for service methods.
+     */
+    @Pointcut("execution(* com.siri_hate.phone_shop_service.service..*(..))")
+    private void serviceMethods() {}
+
+    /**
+     * Pointcut definition for controller methods.
+     */
+    @Pointcut("execution(* com.siri_hate.phone_shop_service.controller..*(..))")
+    private void controllerMethods() {}
+
+    /**
+     * Advice around DAO methods for metrics.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     */
+    @Around("daoMethods()")
+    public Object aroundAllDAOMethodsAdvice(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        return measure(proceedingJoinPoint, "dao");
+    }
+
+    /**
+     * Advice around service methods for metrics.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     */
+    @Around("serviceMethods()")
+    public Object aroundAllServiceMethodsAdvice(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        return measure(proceedingJoinPoint, "service");
+    }
+
+    /**
+     * Advice around controller methods for metrics.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     */
+    @Around("controllerMethods()")
+    public Object aroundAllControllerMethodsAdvice(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        return measure(proceedingJoinPoint, "controller");
+    }
+
+    /**
+     * Runs the intercepted method and records its latency, and its failure if it throws.
+     * A failure propagating through several layers is logged only once, by the innermost method it fails;
+     * the logged failure is forgotten once the outermost measured call on the thread returns.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @param layer               The layer of the method, recorded as a tag.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     */
+    private Object measure(ProceedingJoinPoint proceedingJoinPoint, String layer) throws Throwable {
+        MethodMeters methodMeters = metersOf(proceedingJoinPoint, layer);
+        CallStack calls = callStack.get();
+        calls.depth++;
+        long startNanos = System.nanoTime();
+        try {
+            Object targetMethodResult = proceedingJoinPoint.proceed();
+            long elapsedNanos = System.nanoTime() - startNanos;
+            methodMeters.calls.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (elapsedNanos >= slowCallThresholdNanos) {
+                log.warn("Slow {} method: {} - took {} ms", layer, methodMeters.name,
+                        Unbox.box(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            } else if (callLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < callLogSampleRate) {
+                log.info("Sampled {} method: {} - took {} us", layer, methodMeters.name,
+                        Unbox.box(TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+            }
+            return targetMethodResult;
+        } catch (Throwable e) {
+            methodMeters.calls.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            methodMeters.errors.increment();
+            if (calls.loggedFailure != e) {
+                calls.loggedFailure = e;
+                log.warn("Failed {} method: {} - threw {}: {}", layer, methodMeters.name,
+                        e.getClass().getSimpleName(), e.getMessage());
+            }
+            throw e;
+        } finally {
+            if (--calls.depth == 0) {
+                calls.loggedFailure = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the meters of the intercepted method on the called bean, creating them on first use.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @param layer               The layer of the method, recorded as a tag.
+     * @return The meters of the method.
+     */
+    private MethodMeters metersOf(ProceedingJoinPoint proceedingJoinPoint, String layer) {
+        Method method = ((MethodSignature) proceedingJoinPoint.getSignature()).getMethod();
+        Object target = proceedingJoinPoint.getTarget();
+        Class<?> targetClass = target != null ? target.getClass() : method.getDeclaringClass();
+        ConcurrentMap<Method, MethodMeters> targetMeters = meters.get(targetClass);
+        if (targetMeters == null) {
+            targetMeters = meters.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>());
+        }
+        MethodMeters methodMeters = targetMeters.get(method);
+        if (methodMeters == null) {
+            methodMeters = targetMeters.computeIfAbsent(method,
+                    key -> new MethodMeters(meterRegistry, layer, measuredType(target, key), key));
+        }
+        return methodMeters;
+    }
+
+    /**
+     * Resolves the type a method call is attributed to: the bean class, or for a proxy such as a Spring Data
+     * repository, the first proxied application interface declaring or inheriting the method.
+     *
+     * @param target The called bean, or {@code null} for a static method.
+     * @param method The called method.
+     * @return The type the call is attributed to.
+     */
+    private static Class<?> measuredType(Object target, Method method) {
+        if (target == null) {
+            return method.getDeclaringClass();
+        }
+        if (AopUtils.isAopProxy(target)) {
+            for (Class<?> proxiedInterface : AopProxyUtils.proxiedUserInterfaces(target)) {
+                if (method.getDeclaringClass().isAssignableFrom(proxiedInterface)) {
+                    return proxiedInterface;
+                }
+            }
+        }
+        return ClassUtils.getUserClass(target);
+    }
+
+    /**
+     * The measured calls in progress on a thread, and the failure last logged by one of them.
+     */
+    private static final class CallStack {
+
+        private int depth;
+
+        private Throwable loggedFailure;
+
+    }
+
+    /**
+     * The meters of a single method, created once and shared by all its calls.
+     */
+    private static final class MethodMeters {
+
+        private final String name;
+
+        private final Timer calls;
+
+        private final Counter errors;
+
+        private MethodMeters(MeterRegistry meterRegistry, String layer, Class<?> type, Method method) {
+            String className = type.getSimpleName();
+            this.name = className + "." + method.getName();
+            this.calls = Timer.builder(CALLS_METRIC)
+                    .description("Latency and number of calls of a method")
+                    .tag("layer", layer)
+                    .tag("class", className)
+                    .tag("method", method.getName())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(1000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+            this.errors = Counter.builder(ERRORS_METRIC)
+                    .description("Number of calls of a method that threw an exception")
+                    .tag("layer", layer)
+                    .tag("class", className)
+                    .tag("method", method.getName())
+                    .register(meterRegistry);
+        }
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Event published by {@link CatalogVersion} once a write to the phone catalog has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogChangedEvent {
+
+    /**
+     * The catalog version after the write.
+     */
+    private final String version;
+
+}
@@ -0,0 +1,228 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.CatalogSnapshot;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds a pre-encoded {@link CatalogSnapshot} of all phones, so that the full catalog can be served
+ * without querying the database or serializing phones per request.
+ *
+ * <p>The snapshot is copy-on-write: it is never changed, but replaced as a whole. A rebuild is requested
+ * for every {@link CatalogChangedEvent}, that is after every committed write, including reservations and hot stock
+ * flushes, and runs on a single background thread, so writers never wait for it. Rebuilds start at most once per
+ * minimum rebuild interval, so that a stream of small writes does not re-encode the whole catalog for each of them:
+ * a request arriving sooner is delayed until the interval has passed, and requests arriving while a rebuild is
+ * queued are coalesced into it. Readers keep getting the previous snapshot, with its own catalog version as the
+ * {@code ETag}, until the new one is swapped in.
+ */
+@Component
+@Log4j2
+public class CatalogSnapshotManager {
+
+    private final PhoneRepository phoneRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CatalogVersion catalogVersion;
+
+    private final ObjectWriter phoneWriter;
+
+    private final boolean enabled;
+
+    private final Timer rebuildTimer;
+
+    private final long minRebuildIntervalNanos;
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private volatile long lastRebuildNanos;
+
+    private volatile boolean rebuilt;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Constructs a new {@code CatalogSnapshotManager} and publishes the snapshot size and rebuild times as metrics.
+     *
+     * @param phoneRepository    The repository the snapshot is built from.
+     * @param entityManager      The entity manager used to detach streamed phone entities.
+     * @param transactionManager The transaction manager used to read the catalog in a read-only transaction.
+     * @param catalogVersion     The version of the catalog, recorded with every snapshot.
+     * @param objectMapper       The object mapper used to serialize the phones.
+     * @param meterRegistry      The registry the snapshot metrics are published to.
+     * @param enabled            Whether snapshots are built at all; if not, {@link #current()} is always empty.
+     * @param minRebuildInterval The minimum time between the starts of two background rebuilds.
+     */
+    @Autowired
+    public CatalogSnapshotManager(
+            PhoneRepository phoneRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            CatalogVersion catalogVersion,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.snapshot.enabled:true}") boolean enabled,
+            @Value("${phone-shop.snapshot.min-rebuild-interval:1s}") Duration minRebuildInterval
+    ) {
+        this.phoneRepository = phoneRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.catalogVersion = catalogVersion;
+        this.phoneWriter = objectMapper.writerFor(Phone.class);
+        this.enabled = enabled;
+        this.minRebuildIntervalNanos = minRebuildInterval.toNanos();
+        this.rebuildTimer = Timer.builder("phone-shop.catalog-snapshot.rebuild")
+                .description("Time taken to rebuild the catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.catalog-snapshot.bytes", snapshot, reference -> reference.get() == null
+                        ? 0 : reference.get().getJson().length)
+                .description("Size of the JSON encoding of the catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the latest catalog snapshot.
+     *
+     * @return The latest snapshot, or an empty Optional if snapshots are disabled or the first one is not built yet.
+     */
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    /**
+     * Builds the first snapshot once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    /**
+     * Requests a rebuild of the snapshot after a committed write, started once the minimum rebuild interval
+     * since the previous rebuild has passed.
+     *
+     * @param event The event announcing the write.
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        requestRebuild();
+    }
+
+    /**
+     * Rebuilds the snapshot from the database on the calling thread and swaps it in.
+     * The catalog version is read before the catalog, so the snapshot never claims a version newer than its content.
+     *
+     * @return The new snapshot.
+     */
+    public CatalogSnapshot rebuild() {
+        long startNanos = System.nanoTime();
+        lastRebuildNanos = startNanos;
+        rebuilt = true;
+        String version = catalogVersion.current();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        Integer phoneCount = transactionTemplate.execute(status -> writeCatalog(json));
+        byte[] jsonBytes = json.toByteArray();
+        CatalogSnapshot rebuilt = new CatalogSnapshot(version, phoneCount, jsonBytes, gzip(jsonBytes));
+        snapshot.set(rebuilt);
+        rebuildTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return rebuilt;
+    }
+
+    /**
+     * Stops the rebuild thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void requestRebuild() {
+        if (!enabled || rebuildQueued.getAndSet(true)) {
+            return;
+        }
+        long delayNanos = rebuilt ? lastRebuildNanos + minRebuildIntervalNanos - System.nanoTime() : 0;
+        try {
+            rebuildExecutor.schedule(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Failed to rebuild the catalog snapshot", e);
+                }
+            }, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+        }
+    }
+
+    private int writeCatalog(ByteArrayOutputStream outputStream) {
+        int written = 0;
+        try (Stream<Phone> phoneStream = phoneRepository.streamAllOrderById();
+             JsonGenerator generator = phoneWriter.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            Iterator<Phone> phones = phoneStream.iterator();
+            while (phones.hasNext()) {
+                Phone phone = phones.next();
+                phoneWriter.writeValue(generator, phone);
+                entityManager.detach(phone);
+                written++;
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+}
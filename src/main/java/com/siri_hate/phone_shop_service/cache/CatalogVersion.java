@@ -0,0 +1,64 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.siri_hate.phone_shop_service.util.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the phone catalog as a whole, advanced whenever a write to any phone has committed.
+ * Used as the entity tag of phone listings, so that an unchanged listing can be confirmed without querying
+ * the database.
+ *
+ * <p>Every advance publishes a {@link CatalogChangedEvent}.
+ *
+ * <p>The version is held in memory and combined with an epoch taken when the application starts,
+ * so versions handed out before a restart never match versions handed out after it.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs a new {@code CatalogVersion} starting from a new epoch.
+     *
+     * @param eventPublisher The publisher of the events announcing catalog changes.
+     */
+    @Autowired
+    public CatalogVersion(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Returns the current catalog version. Must be read before the catalog is queried, so that the version
+     * returned with a listing is never newer than the listing itself.
+     *
+     * @return The current catalog version.
+     */
+    public String current() {
+        return epoch + "-" + counter.get();
+    }
+
+    /**
+     * Advances the catalog version after a committed write.
+     */
+    public void advance() {
+        long count = counter.incrementAndGet();
+        eventPublisher.publishEvent(new CatalogChangedEvent(epoch + "-" + count));
+    }
+
+    /**
+     * Advances the catalog version once the current transaction has committed.
+     */
+    public void advanceAfterCommit() {
+        TransactionCallbacks.afterCommit(this::advance);
+    }
+
+}
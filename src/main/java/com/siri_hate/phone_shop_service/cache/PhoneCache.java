@@ -0,0 +1,136 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.util.TransactionCallbacks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of {@link Phone} entities keyed by phone ID.
+ * Entries are evicted by size and by time since they were written, and hit, miss and eviction
+ * statistics are published as {@code cache.*} metrics under the {@code phones} cache name.
+ *
+ * <p>Writers invalidate entries only once their transaction has committed. To keep a reader that loaded
+ * a phone before such a commit from caching the old state afterwards, every invalidation advances a generation
+ * counter, and a loaded phone is only kept if no invalidation happened since the reader started loading it.
+ *
+ * <p>When {@code phone-shop.cache.provider} selects the Hibernate second-level cache instead
+ * (see {@link SecondLevelCacheConfiguration}), this cache stays empty and every lookup is a miss.
+ */
+@Component
+public class PhoneCache {
+
+    /**
+     * The name under which the cache statistics are published.
+     */
+    public static final String CACHE_NAME = "phones";
+
+    private final Cache<Integer, Phone> cache;
+
+    private final boolean enabled;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructs a new {@code PhoneCache} and registers its statistics with the provided {@link MeterRegistry}.
+     *
+     * @param maximumSize      The maximum number of phones held in the cache.
+     * @param expireAfterWrite The time after which a cached phone is evicted.
+     * @param meterRegistry    The registry the cache statistics are published to.
+     * @param provider         The cache provider, this cache being disabled if it is {@code hibernate}.
+     */
+    @Autowired
+    public PhoneCache(
+            @Value("${phone-shop.cache.maximum-size:10000}") long maximumSize,
+            @Value("${phone-shop.cache.expire-after-write:10m}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.cache.provider:service}") String provider
+    ) {
+        this.enabled = !SecondLevelCacheConfiguration.PROVIDER.equalsIgnoreCase(provider);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached phone with the given ID.
+     *
+     * @param id The ID of the phone.
+     * @return The cached phone, or an empty Optional on a cache miss or if this cache is disabled.
+     */
+    public Optional<Phone> get(int id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Returns the current invalidation generation. Must be read before loading a phone from the database
+     * and passed to {@link #put(int, Phone, long)} afterwards.
+     *
+     * @return The current invalidation generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a phone loaded from the database, unless an invalidation happened since the load started
+     * or this cache is disabled.
+     *
+     * @param id         The ID of the phone.
+     * @param phone      The loaded phone.
+     * @param generation The invalidation generation read before the phone was loaded.
+     */
+    public void put(int id, Phone phone, long generation) {
+        if (!enabled) {
+            return;
+        }
+        cache.put(id, phone);
+        if (this.generation.get() != generation) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Evicts the phone with the given ID once the current transaction has committed,
+     * or immediately if no transaction is active. Nothing is evicted if the transaction rolls back.
+     *
+     * @param id The ID of the phone.
+     */
+    public void invalidateAfterCommit(int id) {
+        TransactionCallbacks.afterCommit(() -> invalidate(id));
+    }
+
+    /**
+     * Evicts the phone with the given ID immediately.
+     *
+     * @param id The ID of the phone.
+     */
+    public void invalidate(int id) {
+        generation.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    /**
+     * Evicts all cached phones immediately.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Configuration of the Hibernate second-level and query caches, used instead of the {@link PhoneCache}
+ * when {@code phone-shop.cache.provider} is set to {@value #PROVIDER}.
+ *
+ * <p>Phones are cached by ID in the {@value Phone#CACHE_REGION} entity region with a read-write strategy, and the
+ * results of the phone list and search queries in the {@value PhoneRepository#QUERY_CACHE_REGION} query region.
+ * The regions are Caffeine caches created through JCache, holding entries by reference and bounded in size and time
+ * by the {@code phone-shop.second-level-cache.*} properties. Cached query results hold only the IDs of the phones,
+ * which are then read from the entity region, so query results should not outlive the entity region entries.
+ *
+ * <p>Unlike the service cache, which evicts a single phone per write, Hibernate empties the whole entity region
+ * on every UPDATE or DELETE statement, which is how the service writes phones by ID. Every write also invalidates
+ * all cached query results. The second-level cache therefore pays off for read-mostly catalogs only.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "phone-shop.cache.provider", havingValue = SecondLevelCacheConfiguration.PROVIDER)
+public class SecondLevelCacheConfiguration {
+
+    /**
+     * The value of {@code phone-shop.cache.provider} selecting the Hibernate second-level cache.
+     */
+    public static final String PROVIDER = "hibernate";
+
+    /**
+     * Creates the JCache cache manager holding the second-level cache regions. Every application context gets a
+     * cache manager of its own, so that contexts running side by side do not share regions.
+     *
+     * @param entityMaximumSize      The maximum number of phones held in the entity region.
+     * @param entityExpireAfterWrite The time after which a phone is evicted from the entity region.
+     * @param queryMaximumSize       The maximum number of query results held in each query region.
+     * @param queryExpireAfterWrite  The time after which a query result is evicted from its query region.
+     * @return The cache manager holding the second-level cache regions.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${phone-shop.second-level-cache.entity.maximum-size:10000}") long entityMaximumSize,
+            @Value("${phone-shop.second-level-cache.entity.expire-after-write:10m}") Duration entityExpireAfterWrite,
+            @Value("${phone-shop.second-level-cache.query.maximum-size:1000}") long queryMaximumSize,
+            @Value("${phone-shop.second-level-cache.query.expire-after-write:1m}") Duration queryExpireAfterWrite
+    ) {
+        CachingProvider cachingProvider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = cachingProvider.getCacheManager(
+                URI.create("phone-shop:second-level-cache:" + UUID.randomUUID()),
+                cachingProvider.getDefaultClassLoader()
+        );
+        cacheManager.createCache(Phone.CACHE_REGION, region(entityMaximumSize, entityExpireAfterWrite));
+        cacheManager.createCache(PhoneRepository.QUERY_CACHE_REGION, region(queryMaximumSize, queryExpireAfterWrite));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(queryMaximumSize, queryExpireAfterWrite));
+        // The update timestamps of the tables tell whether cached query results are stale, so they are never evicted
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStoreByValue(false);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+        return cacheManager;
+    }
+
+    /**
+     * Enables the second-level and query caches in Hibernate, backed by the regions of the given cache manager,
+     * and the Hibernate statistics published by {@link SecondLevelCacheMetrics}.
+     *
+     * @param secondLevelCacheManager The cache manager holding the second-level cache regions.
+     * @return The customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheHibernateProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    /**
+     * Builds the configuration of a region bounded in size and in time since its entries were written.
+     *
+     * @param maximumSize      The maximum number of entries held in the region.
+     * @param expireAfterWrite The time after which an entry is evicted.
+     * @return The configuration of the region.
+     */
+    private static CaffeineConfiguration<Object, Object> region(long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        configuration.setNativeStatisticsEnabled(true);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the Hibernate statistics of the entity and query cache regions as metrics tagged by {@code region}:
+ * hits and misses as {@code phone-shop.second-level-cache.requests}, their {@code hit-ratio}, {@code puts},
+ * and the {@code evictions} and {@code size} of the underlying Caffeine cache.
+ *
+ * <p>Query regions are created by Hibernate on first use, so their statistics read as zero until then.
+ */
+@Component
+@ConditionalOnProperty(name = "phone-shop.cache.provider", havingValue = SecondLevelCacheConfiguration.PROVIDER)
+public class SecondLevelCacheMetrics {
+
+    private final Statistics statistics;
+
+    /**
+     * Constructs a new {@code SecondLevelCacheMetrics} and registers the metrics of the regions held by
+     * the given cache manager with the provided {@link MeterRegistry}.
+     *
+     * @param entityManagerFactory    The entity manager factory whose Hibernate statistics are published.
+     * @param secondLevelCacheManager The cache manager holding the second-level cache regions.
+     * @param meterRegistry           The registry the metrics are published to.
+     */
+    @Autowired
+    public SecondLevelCacheMetrics(
+            EntityManagerFactory entityManagerFactory,
+            CacheManager secondLevelCacheManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : secondLevelCacheManager.getCacheNames()) {
+            Cache<?, ?> cache = secondLevelCacheManager.getCache(region).unwrap(Cache.class);
+            // Only the entity and query regions record statistics, not the update timestamps region
+            if (!cache.policy().isRecordingStats()) {
+                continue;
+            }
+            FunctionCounter.builder("phone-shop.second-level-cache.requests", this,
+                            metrics -> metrics.count(region, CacheRegionStatistics::getHitCount))
+                    .description("Number of lookups in a second-level cache region")
+                    .tag("region", region)
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter.builder("phone-shop.second-level-cache.requests", this,
+                            metrics -> metrics.count(region, CacheRegionStatistics::getMissCount))
+                    .description("Number of lookups in a second-level cache region")
+                    .tag("region", region)
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+            Gauge.builder("phone-shop.second-level-cache.hit-ratio", this, metrics -> metrics.hitRatio(region))
+                    .description("Fraction of the lookups in a second-level cache region that were hits")
+                    .tag("region", region)
+                    .register(meterRegistry);
+            FunctionCounter.builder("phone-shop.second-level-cache.puts", this,
+                            metrics -> metrics.count(region, CacheRegionStatistics::getPutCount))
+                    .description("Number of entries put into a second-level cache region")
+                    .tag("region", region)
+                    .register(meterRegistry);
+            FunctionCounter.builder("phone-shop.second-level-cache.evictions", cache,
+                            regionCache -> regionCache.stats().evictionCount())
+                    .description("Number of entries evicted from a second-level cache region by size or time")
+                    .tag("region", region)
+                    .register(meterRegistry);
+            Gauge.builder("phone-shop.second-level-cache.size", cache, Cache::estimatedSize)
+                    .description("Approximate number of entries in a second-level cache region")
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Returns the fraction of the lookups in the given region that were hits.
+     *
+     * @param region The name of the region.
+     * @return The hit ratio of the region, or NaN if it has not been looked up yet.
+     */
+    public double hitRatio(String region) {
+        long hits = count(region, CacheRegionStatistics::getHitCount);
+        long requests = hits + count(region, CacheRegionStatistics::getMissCount);
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+
+    private long count(String region, ToLongFunction<CacheRegionStatistics> counter) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics != null ? counter.applyAsLong(regionStatistics) : 0;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key into a single in-flight load.
+ * The first caller for a key runs the loader on its own thread; callers arriving while that load is in flight
+ * wait for its outcome instead of running the loader again. Waiters receive the same value, or the same
+ * exception, as the loading caller, and give up after the configured timeout.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the loaded values.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Duration timeout;
+
+    /**
+     * Constructs a new {@code SingleFlight} instance.
+     *
+     * @param timeout The maximum time a caller waits for a load started by another caller.
+     */
+    public SingleFlight(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Loads the value of the given key, sharing the load with any concurrent callers for the same key.
+     *
+     * @param key    The key to load.
+     * @param loader The loader run if no load of the key is in flight.
+     * @return The loaded value.
+     * @throws QueryTimeoutException if waiting for a load started by another caller timed out.
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existingFuture = inFlight.putIfAbsent(key, future);
+        if (existingFuture != null) {
+            return await(key, existingFuture);
+        }
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Waits for a load started by another caller.
+     *
+     * @param key    The key being loaded.
+     * @param future The future of the in-flight load.
+     * @return The loaded value.
+     */
+    private V await(K key, CompletableFuture<V> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Timed out waiting for the in-flight load of " + key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the in-flight load of " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("In-flight load of " + key + " failed", cause);
+        }
+    }
+
+}
@@ -1,17 +1,39 @@
 package com.siri_hate.phone_shop_service.controller;
 
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
 import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.dto.StockRequest;
 import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.limit.Bulkhead;
+import com.siri_hate.phone_shop_service.limit.EndpointClass;
+import com.siri_hate.phone_shop_service.model.CatalogSnapshot;
+import com.siri_hate.phone_shop_service.model.ImportReport;
 import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneChangePage;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
 import com.siri_hate.phone_shop_service.service.PhoneShopService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * RESTful API controller for managing phone-related operations in the Phone Shop service.
@@ -41,34 +63,263 @@ public class PhoneShopController {
      * @return ResponseEntity with the created phone and HTTP status 201 (Created).
      */
     @PostMapping("/phones")
+    @Bulkhead(EndpointClass.WRITES)
     public ResponseEntity<Phone> addNewPhoneToShop(@RequestBody @Valid PhoneRequest phoneRequest) {
         Phone createdPhone = phoneShopService.addNewPhoneToShop(phoneRequest);
         return new ResponseEntity<>(createdPhone, HttpStatus.CREATED);
     }
 
+    /**
+     * Endpoint for adding many new phones to the shop at once from a JSON array.
+     * Invalid phones are reported individually and do not prevent the valid ones from being added.
+     *
+     * @param phoneRequests The request body containing the details of the phones.
+     * @return ResponseEntity with the import report and HTTP status 200 (OK).
+     */
+    @PostMapping(value = "/phones/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Bulkhead(EndpointClass.WRITES)
+    public ResponseEntity<ImportReport> importPhonesToShop(@RequestBody List<PhoneRequest> phoneRequests) {
+        ImportReport importReport = phoneShopService.importPhonesToShop(phoneRequests);
+        return new ResponseEntity<>(importReport, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for adding many new phones to the shop at once from an uploaded CSV file.
+     * Invalid rows are reported individually and do not prevent the valid ones from being added.
+     *
+     * @param file The uploaded CSV file containing the details of the phones.
+     * @return ResponseEntity with the import report and HTTP status 200 (OK).
+     * @throws IOException if reading the uploaded file fails.
+     */
+    @PostMapping(value = "/phones/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Bulkhead(EndpointClass.WRITES)
+    public ResponseEntity<ImportReport> importPhonesToShopFromCsv(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            ImportReport importReport = phoneShopService.importPhonesToShopFromCsv(inputStream);
+            return new ResponseEntity<>(importReport, HttpStatus.OK);
+        }
+    }
+
+    /**
+     * Endpoint for retrieving many phones from the shop at once, such as the phones in a cart or comparison.
+     *
+     * @param ids The IDs of the phones to retrieve, as a comma-separated list or repeated parameters.
+     * @return ResponseEntity with one lookup result per requested ID, in request order, and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/batch")
+    @Bulkhead(EndpointClass.POINT_READS)
+    public ResponseEntity<List<PhoneLookup>> getPhonesFromShop(@RequestParam List<Integer> ids) {
+        List<PhoneLookup> lookups = phoneShopService.getPhonesFromShop(ids);
+        return new ResponseEntity<>(lookups, HttpStatus.OK);
+    }
+
     /**
      * Endpoint for retrieving information about a single phone from the shop.
+     * The response carries the version of the phone as its entity tag. Only a request with an {@code If-None-Match}
+     * header probes the version first: if the header holds that tag, HTTP status 304 (Not Modified) is returned
+     * without loading or serializing the phone. Other requests load the phone once and take the tag from it.
      *
-     * @param id The ID of the phone to retrieve.
-     * @return ResponseEntity with the phone details and HTTP status 200 (OK).
+     * @param id         The ID of the phone to retrieve.
+     * @param webRequest The current request, checked for a matching {@code If-None-Match} header.
+     * @return ResponseEntity with the phone details and HTTP status 200 (OK), or HTTP status 304 (Not Modified).
      */
     @GetMapping("/phones/{id}")
+    @Bulkhead(EndpointClass.POINT_READS)
     public ResponseEntity<Phone> getSinglePhoneFromShop(
-            @PathVariable @Positive(message = "ID should be greater than zero") int id
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            WebRequest webRequest
     ) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = toETag(Long.toString(phoneShopService.getPhoneVersionFromShop(id)));
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
         Phone phone = phoneShopService.getPhoneFromShop(id);
-        return new ResponseEntity<>(phone, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .eTag(toETag(Long.toString(phone.getVersion())))
+                .cacheControl(CacheControl.noCache())
+                .body(phone);
     }
 
     /**
-     * Endpoint for retrieving information about all phones from the shop.
+     * Endpoint for retrieving information about phones from the shop, one keyset-paginated page at a time.
      *
-     * @return ResponseEntity with a list of phones and HTTP status 200 (OK).
+     * @param cursor     The cursor of the page to retrieve, as returned with the previous page; omitted for the first page.
+     * @param size       The maximum number of phones on the page.
+     * @param sort       The property to sort by ({@code id}, {@code cost} or {@code storageSize}).
+     * @param direction  The sort direction ({@code asc} or {@code desc}).
+     * @param webRequest The current request, checked for a matching {@code If-None-Match} header.
+     * @return ResponseEntity with a page of phones and HTTP status 200 (OK), or HTTP status 304 (Not Modified)
+     *         if the catalog has not changed since the version given in the {@code If-None-Match} header.
      */
     @GetMapping("/phones")
-    public ResponseEntity<List<Phone>> getAllPhonesFromShop() {
-        List<Phone> phoneList = phoneShopService.getAllPhonesFromShop();
-        return new ResponseEntity<>(phoneList, HttpStatus.OK);
+    @Bulkhead(EndpointClass.SCANS)
+    public ResponseEntity<PhonePage> getAllPhonesFromShop(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            WebRequest webRequest
+    ) {
+        String eTag = toETag(phoneShopService.getCatalogVersionFromShop());
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        PhonePage phonePage = phoneShopService.getPhonesPageFromShop(cursor, size, sort, direction);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(phonePage);
+    }
+
+    /**
+     * Endpoint for retrieving all phones from the shop at once, as a JSON array ordered by ID.
+     * When the pre-encoded catalog snapshot is available, its bytes are written as they are, gzip-compressed
+     * if the client accepts it, and the catalog version of the snapshot is sent as the entity tag.
+     * Otherwise the phones are read from the database and serialized.
+     *
+     * @param acceptEncoding The encodings the client accepts, from the {@code Accept-Encoding} header.
+     * @param webRequest     The current request, checked for a matching {@code If-None-Match} header.
+     * @return ResponseEntity with all phones and HTTP status 200 (OK), or HTTP status 304 (Not Modified).
+     */
+    @GetMapping(value = "/phones/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Bulkhead(EndpointClass.SCANS)
+    public ResponseEntity<?> getAllPhonesFromShopAtOnce(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest
+    ) {
+        Optional<CatalogSnapshot> snapshot = phoneShopService.getCatalogSnapshotFromShop();
+        if (snapshot.isEmpty()) {
+            List<Phone> phoneList = phoneShopService.getAllPhonesFromShop();
+            return new ResponseEntity<>(phoneList, HttpStatus.OK);
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String eTag = toETag(snapshot.get().getVersion() + (gzip ? "-gzip" : ""));
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.get().getGzippedJson());
+        }
+        return response.body(snapshot.get().getJson());
+    }
+
+    /**
+     * Endpoint for retrieving lightweight summaries of the phones in the shop (ID, manufacturer, model, cost and
+     * whether the phone is in stock), one page at a time.
+     *
+     * @param afterId The ID of the last phone of the previous page; omitted for the first page.
+     * @param size    The maximum number of phone summaries on the page.
+     * @return ResponseEntity with a page of phone summaries and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/summaries")
+    @Bulkhead(EndpointClass.SCANS)
+    public ResponseEntity<PhoneSummaryPage> getPhoneSummariesFromShop(
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer size
+    ) {
+        PhoneSummaryPage phoneSummaryPage = phoneShopService.getPhoneSummariesFromShop(afterId, size);
+        return new ResponseEntity<>(phoneSummaryPage, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for searching phones in the shop by optional filters, one keyset-paginated page at a time.
+     *
+     * @param criteria  The filters bound from the query parameters: {@code manufacturer}, {@code model}, {@code color},
+     *                  {@code minStorageSize}, {@code maxStorageSize}, {@code minCost}, {@code maxCost} and {@code inStock}.
+     * @param cursor    The cursor of the page to retrieve, as returned with the previous page; omitted for the first page.
+     * @param size      The maximum number of phones on the page.
+     * @param sort      The property to sort by ({@code id}, {@code cost} or {@code storageSize}).
+     * @param direction The sort direction ({@code asc} or {@code desc}).
+     * @return ResponseEntity with a page of matching phones and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/search")
+    @Bulkhead(EndpointClass.SCANS)
+    public ResponseEntity<PhonePage> searchPhonesInShop(
+            @Valid PhoneSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction
+    ) {
+        PhonePage phonePage = phoneShopService.searchPhonesInShop(criteria, cursor, size, sort, direction);
+        return new ResponseEntity<>(phonePage, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for typeahead suggestions of phones in the shop, served from memory.
+     *
+     * @param q     The query typed so far; every word of it must start a word of the phone's manufacturer,
+     *              model or color.
+     * @param limit The maximum number of suggestions.
+     * @return ResponseEntity with the suggested phones, best match first, and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/suggest")
+    @Bulkhead(EndpointClass.POINT_READS)
+    public ResponseEntity<List<PhoneSuggestion>> suggestPhonesInShop(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit
+    ) {
+        List<PhoneSuggestion> suggestions = phoneShopService.suggestPhonesInShop(q, limit);
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for syncing a copy of the catalog: retrieves the phones created, updated or deleted after
+     * the given position in change version order, one page at a time.
+     *
+     * @param since   The change version of the last change already seen; omitted to start from the beginning.
+     * @param afterId The ID of the last change already seen at that version.
+     * @param size    The maximum number of changes on the page.
+     * @return ResponseEntity with a page of changes and HTTP status 200 (OK),
+     *         or HTTP status 501 (Not Implemented) if the delta sync is disabled.
+     */
+    @GetMapping("/phones/changes")
+    @Bulkhead(EndpointClass.SCANS)
+    public ResponseEntity<PhoneChangePage> getPhoneChangesFromShop(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer size
+    ) {
+        PhoneChangePage phoneChangePage = phoneShopService.getPhoneChangesFromShop(since, afterId, size);
+        return new ResponseEntity<>(phoneChangePage, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for subscribing to the stock and price changes of phones in the shop as Server-Sent Events.
+     * Each {@code inventory} event carries a JSON array of the latest quantity and cost of the changed phones;
+     * a {@code resync} event tells a subscriber that fell too far behind to fetch the phones again.
+     *
+     * @return The emitter the changes are sent through, keeping the response open.
+     */
+    @GetMapping(value = "/phones/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToInventoryChanges() {
+        return phoneShopService.subscribeToInventoryChanges();
+    }
+
+    /**
+     * Endpoint for exporting all phones from the shop as a newline-delimited JSON stream.
+     * Phones are written to the response as they are read from the database, so the response
+     * starts immediately and is never buffered as a whole.
+     *
+     * @return ResponseEntity with the streamed phones and HTTP status 200 (OK).
+     */
+    @GetMapping(value = "/phones/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Bulkhead(EndpointClass.SCANS)
+    public ResponseEntity<StreamingResponseBody> exportAllPhonesFromShop() {
+        StreamingResponseBody body = phoneShopService::exportAllPhonesFromShop;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -79,6 +330,7 @@ public class PhoneShopController {
      * @return ResponseEntity with the updated phone and HTTP status 200 (OK).
      */
     @PutMapping("/phones/{id}")
+    @Bulkhead(EndpointClass.WRITES)
     public ResponseEntity<Phone> updatePhoneInfoInShop(
             @PathVariable @Positive(message = "ID should be greater than zero") int id,
             @RequestBody @Valid PhoneRequest phoneRequest
@@ -87,6 +339,58 @@ public class PhoneShopController {
         return new ResponseEntity<>(updatedPhone, HttpStatus.OK);
     }
 
+    /**
+     * Endpoint for partially updating information about a phone in the shop.
+     * Only the attributes present in the request body are changed.
+     *
+     * @param id                 The ID of the phone to update.
+     * @param phonePatchRequest  The request body containing the attributes to change.
+     * @return ResponseEntity with the updated phone and HTTP status 200 (OK).
+     */
+    @PatchMapping("/phones/{id}")
+    @Bulkhead(EndpointClass.WRITES)
+    public ResponseEntity<Phone> patchPhoneInfoInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid PhonePatchRequest phonePatchRequest
+    ) {
+        Phone updatedPhone = phoneShopService.patchPhoneInfoInShop(id, phonePatchRequest);
+        return new ResponseEntity<>(updatedPhone, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for atomically reserving units of a phone, taking them out of its stock.
+     *
+     * @param id           The ID of the phone to reserve.
+     * @param stockRequest The request body containing the number of units to reserve.
+     * @return ResponseEntity with a message indicating the successful reservation and HTTP status 200 (OK).
+     */
+    @PostMapping("/phones/{id}/reserve")
+    @Bulkhead(EndpointClass.WRITES)
+    public ResponseEntity<Message> reservePhoneStockInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid StockRequest stockRequest
+    ) {
+        Message message = phoneShopService.reservePhoneStockInShop(id, stockRequest.getQuantity());
+        return new ResponseEntity<>(message, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for atomically releasing previously reserved units of a phone, putting them back into its stock.
+     *
+     * @param id           The ID of the phone to release.
+     * @param stockRequest The request body containing the number of units to release.
+     * @return ResponseEntity with a message indicating the successful release and HTTP status 200 (OK).
+     */
+    @PostMapping("/phones/{id}/release")
+    @Bulkhead(EndpointClass.WRITES)
+    public ResponseEntity<Message> releasePhoneStockInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid StockRequest stockRequest
+    ) {
+        Message message = phoneShopService.releasePhoneStockInShop(id, stockRequest.getQuantity());
+        return new ResponseEntity<>(message, HttpStatus.OK);
+    }
+
     /**
      * Endpoint for deleting a phone from the shop.
      *
@@ -94,6 +398,7 @@ public class PhoneShopController {
      * @return ResponseEntity with a message indicating the successful deletion and HTTP status 200 (OK).
      */
     @DeleteMapping("/phones/{id}")
+    @Bulkhead(EndpointClass.WRITES)
     public ResponseEntity<Message> deletePhoneFromShop(
             @PathVariable @Positive(message = "ID should be greater than zero") int id
     ) {
@@ -101,4 +406,33 @@ public class PhoneShopController {
         return new ResponseEntity<>(message, HttpStatus.OK);
     }
 
+    /**
+     * Tells whether an {@code Accept-Encoding} header accepts gzip.
+     *
+     * @param acceptEncoding The value of the header, or {@code null} if the request has none.
+     * @return {@code true} if gzip is listed without a zero quality value.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Formats a version as a strong entity tag.
+     *
+     * @param version The version to format.
+     * @return The quoted entity tag.
+     */
+    private static String toETag(String version) {
+        return "\"" + version + "\"";
+    }
+
 }
@@ -0,0 +1,129 @@
+package com.siri_hate.phone_shop_service.controller;
+
+import com.siri_hate.phone_shop_service.exception.BulkheadFullException;
+import com.siri_hate.phone_shop_service.exception.DeltaSyncDisabledException;
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.exception.RateLimitExceededException;
+import com.siri_hate.phone_shop_service.model.Message;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+
+/**
+ * Global exception handler translating exceptions thrown by the Phone Shop service into HTTP responses.
+ */
+@RestControllerAdvice
+public class PhoneShopExceptionHandler {
+
+    /**
+     * Handles invalid request arguments, such as malformed pagination cursors or unsupported sort properties.
+     *
+     * @param exception The exception describing the invalid argument.
+     * @return ResponseEntity with the error message and HTTP status 400 (Bad Request).
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Message> handleIllegalArgument(IllegalArgumentException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles requests for phones that do not exist.
+     *
+     * @param exception The exception describing the missing phone.
+     * @return ResponseEntity with the error message and HTTP status 404 (Not Found).
+     */
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Message> handleNoSuchElement(NoSuchElementException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles listings of an empty catalog.
+     *
+     * @param exception The exception describing the empty result.
+     * @return ResponseEntity with the error message and HTTP status 404 (Not Found).
+     */
+    @ExceptionHandler(EmptyResultDataAccessException.class)
+    public ResponseEntity<Message> handleEmptyResult(EmptyResultDataAccessException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles reservations of more units than a phone has in stock.
+     *
+     * @param exception The exception describing the shortage.
+     * @return ResponseEntity with the error message and HTTP status 409 (Conflict).
+     */
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Message> handleInsufficientStock(InsufficientStockException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles requests that could not get a database connection in time, so that clients retry later.
+     *
+     * @param exception The exception describing the unavailable connection.
+     * @return ResponseEntity with the error message and HTTP status 503 (Service Unavailable).
+     */
+    @ExceptionHandler(CannotGetJdbcConnectionException.class)
+    public ResponseEntity<Message> handleCannotGetConnection(CannotGetJdbcConnectionException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles requests for the delta sync of an instance on which it is disabled, such as one sharing the catalog
+     * with other writers.
+     *
+     * @param exception The exception describing the disabled sync.
+     * @return ResponseEntity with the error message and HTTP status 501 (Not Implemented).
+     */
+    @ExceptionHandler(DeltaSyncDisabledException.class)
+    public ResponseEntity<Message> handleDeltaSyncDisabled(DeltaSyncDisabledException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.NOT_IMPLEMENTED);
+    }
+
+    /**
+     * Handles requests rejected because too many requests of the same class of endpoints were running.
+     *
+     * @param exception The exception describing the full bulkhead.
+     * @return ResponseEntity with the error message, a {@code Retry-After} header and HTTP status 503 (Service Unavailable).
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Message> handleBulkheadFull(BulkheadFullException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, toRetryAfter(exception.getRetryAfter()))
+                .body(new Message(exception.getMessage()));
+    }
+
+    /**
+     * Handles requests rejected because their client exceeded its rate limit.
+     *
+     * @param exception The exception describing the exceeded limit.
+     * @return ResponseEntity with the error message, a {@code Retry-After} header and HTTP status 429 (Too Many Requests).
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Message> handleRateLimitExceeded(RateLimitExceededException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, toRetryAfter(exception.getRetryAfter()))
+                .body(new Message(exception.getMessage()));
+    }
+
+    /**
+     * Formats a delay as the value of a {@code Retry-After} header, in whole seconds rounded up.
+     *
+     * @param retryAfter The delay.
+     * @return The number of seconds, at least one.
+     */
+    private static String toRetryAfter(Duration retryAfter) {
+        long seconds = retryAfter.getSeconds() + (retryAfter.getNano() > 0 ? 1 : 0);
+        return Long.toString(Math.max(1, seconds));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.siri_hate.phone_shop_service.dto;
+
+import com.siri_hate.phone_shop_service.model.ImportRowError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader converting CSV data into {@link PhoneRequest} objects for bulk imports.
+ *
+ * <p>The data must start with the header line {@code manufacturer,model,storageSize,color,cost,quantity},
+ * followed by one phone per line with the values in the same order. Values are separated by commas and
+ * may not contain commas themselves; blank lines are ignored.
+ */
+public final class PhoneCsvReader {
+
+    /**
+     * The header line expected at the beginning of the CSV data.
+     */
+    public static final String HEADER = "manufacturer,model,storageSize,color,cost,quantity";
+
+    private static final int COLUMN_COUNT = 6;
+
+    private PhoneCsvReader() { }
+
+    /**
+     * Reads phone requests from CSV data.
+     * Every data line yields one element of the returned list; lines that cannot be parsed yield {@code null}
+     * and an {@link ImportRowError} carrying the 1-based row number is added to {@code errors}.
+     *
+     * @param inputStream The stream of UTF-8 encoded CSV data.
+     * @param errors      The list the parsing errors are added to.
+     * @return The phone requests read from the data, with {@code null} for the rows that could not be parsed.
+     * @throws IOException              if reading from the stream fails.
+     * @throws IllegalArgumentException if the header line is missing or does not match {@link #HEADER}.
+     */
+    public static List<PhoneRequest> read(InputStream inputStream, List<ImportRowError> errors) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null || !HEADER.equals(header.strip())) {
+            throw new IllegalArgumentException("CSV data should start with the header: " + HEADER);
+        }
+
+        List<PhoneRequest> phoneRequests = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int row = phoneRequests.size() + 1;
+            String[] values = line.split(",", -1);
+            if (values.length != COLUMN_COUNT) {
+                errors.add(new ImportRowError(row, List.of("Expected " + COLUMN_COUNT + " values but got " + values.length)));
+                phoneRequests.add(null);
+                continue;
+            }
+            try {
+                phoneRequests.add(new PhoneRequest(
+                        null,
+                        values[0].strip(),
+                        values[1].strip(),
+                        Integer.parseInt(values[2].strip()),
+                        values[3].strip(),
+                        Integer.parseInt(values[4].strip()),
+                        Integer.parseInt(values[5].strip())
+                ));
+            } catch (NumberFormatException e) {
+                errors.add(new ImportRowError(row, List.of("Storage size, cost and quantity should be integers")));
+                phoneRequests.add(null);
+            }
+        }
+        return phoneRequests;
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.siri_hate.phone_shop_service.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The {@code PhonePatchRequest} class represents a data transfer object (DTO) for partially updating phone information.
+ * Every attribute is optional: only the attributes that are present (non-null) are changed, the others keep their values.
+ *
+ * <p>The validation annotations apply only to the attributes that are present, enforcing the same constraints
+ * as {@link PhoneRequest}: non-blank text values and positive numeric values.
+ *
+ */
+@Data
+@AllArgsConstructor
+public class PhonePatchRequest {
+
+    /**
+     * The new manufacturer of the phone. Must not be blank if present.
+     */
+    @Pattern(regexp = ".*\\S.*", message = "Manufacturer should not be blank")
+    String manufacturer;
+
+    /**
+     * The new model of the phone. Must not be blank if present.
+     */
+    @Pattern(regexp = ".*\\S.*", message = "Model should not be blank")
+    String model;
+
+    /**
+     * The new storage size of the phone. Must be a positive value if present.
+     */
+    @Positive(message = "Storage size should be greater than zero")
+    Integer storageSize;
+
+    /**
+     * The new color of the phone. Must not be blank if present.
+     */
+    @Pattern(regexp = ".*\\S.*", message = "Color should not be blank")
+    String color;
+
+    /**
+     * The new cost of the phone. Must be a positive value if present.
+     */
+    @Positive(message = "Cost should be greater than zero")
+    Integer cost;
+
+    /**
+     * The new quantity of the phone. Must be a positive value if present.
+     */
+    @Positive(message = "Quantity should be greater than zero")
+    Integer quantity;
+
+}
@@ -2,6 +2,7 @@ package com.siri_hate.phone_shop_service.dto;
 
 import com.siri_hate.phone_shop_service.entity.Phone;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 /**
@@ -22,6 +23,8 @@ public interface PhoneRequestMapper {
      * @param phoneRequest The PhoneRequest object to be converted.
      * @return A Phone entity representing the converted data.
      */
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "changeVersion", ignore = true)
     Phone toPhoneEntity(PhoneRequest phoneRequest);
 
 }
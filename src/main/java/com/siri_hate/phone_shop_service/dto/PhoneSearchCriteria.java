@@ -0,0 +1,63 @@
+package com.siri_hate.phone_shop_service.dto;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The {@code PhoneSearchCriteria} class represents a data transfer object (DTO) holding the optional filters
+ * of a phone search. Every filter that is present ({@code non-null}) narrows down the result; absent filters are ignored.
+ *
+ * <p>The class is bound from the query parameters of a search request. Text filters match exactly,
+ * range filters are inclusive, and numeric bounds must be positive values.
+ *
+ */
+@Data
+@NoArgsConstructor
+public class PhoneSearchCriteria {
+
+    /**
+     * The manufacturer the phones must have.
+     */
+    String manufacturer;
+
+    /**
+     * The model the phones must have.
+     */
+    String model;
+
+    /**
+     * The color the phones must have.
+     */
+    String color;
+
+    /**
+     * The minimum storage size of the phones, inclusive.
+     */
+    @Positive(message = "Minimum storage size should be greater than zero")
+    Integer minStorageSize;
+
+    /**
+     * The maximum storage size of the phones, inclusive.
+     */
+    @Positive(message = "Maximum storage size should be greater than zero")
+    Integer maxStorageSize;
+
+    /**
+     * The minimum cost of the phones, inclusive.
+     */
+    @Positive(message = "Minimum cost should be greater than zero")
+    Integer minCost;
+
+    /**
+     * The maximum cost of the phones, inclusive.
+     */
+    @Positive(message = "Maximum cost should be greater than zero")
+    Integer maxCost;
+
+    /**
+     * Whether only phones with a positive quantity in stock should be found.
+     */
+    Boolean inStock;
+
+}
@@ -0,0 +1,32 @@
+package com.siri_hate.phone_shop_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * The {@code StockRequest} class represents a data transfer object (DTO) for reserving or releasing
+ * units of a phone in stock.
+ *
+ */
+@Data
+public class StockRequest {
+
+    /**
+     * The number of units to reserve or release. Must be a positive value.
+     */
+    @Positive(message = "Quantity should be greater than zero")
+    int quantity;
+
+    /**
+     * Constructs a new {@code StockRequest} with the provided number of units.
+     *
+     * @param quantity The number of units to reserve or release.
+     */
+    @JsonCreator
+    public StockRequest(@JsonProperty("quantity") int quantity) {
+        this.quantity = quantity;
+    }
+
+}
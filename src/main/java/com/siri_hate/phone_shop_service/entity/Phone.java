@@ -4,23 +4,35 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entity class representing a phone in the phone shop.
  * Each instance of this class corresponds to a record in the "phone_shop" table in the database.
+ * Phones are held in the {@value #CACHE_REGION} region of the Hibernate second-level cache when it is enabled.
  */
 @Entity
 @Table(name = "phone_shop")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Phone.CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Phone {
 
     /**
-     * Unique identifier for the phone entity. Automatically generated by the database.
+     * The name of the second-level cache region holding phones.
+     */
+    public static final String CACHE_REGION = "phone-shop.phones";
+
+    /**
+     * Unique identifier for the phone entity. Generated from the {@code phone_shop_id_seq} database sequence
+     * using a pooled optimizer, so that identifiers are allocated in blocks and inserts can be batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phone_shop_id_generator")
+    @SequenceGenerator(name = "phone_shop_id_generator", sequenceName = "phone_shop_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
@@ -60,4 +72,35 @@ public class Phone {
     @Column(name = "quantity")
     private int quantity;
 
+    /**
+     * Version of the phone, incremented by every update of its row. Used for optimistic locking
+     * and as the entity tag of the phone in HTTP responses.
+     */
+    @Version
+    @Column(name = "version")
+    private long version;
+
+    /**
+     * Change version of the last write to the phone, taken from the {@code phone_shop_change_seq} database sequence
+     * shared by all phones. Unlike {@link #version}, it increases across the whole catalog, so that replicas
+     * can fetch the phones written since the last change version they have seen.
+     */
+    @Column(name = "change_version")
+    private long changeVersion;
+
+    /**
+     * Constructs a new {@code Phone} with the given attributes, version 0 and change version 0.
+     *
+     * @param id           The ID of the phone, or {@code null} for a phone not stored yet.
+     * @param manufacturer The manufacturer of the phone.
+     * @param model        The model name of the phone.
+     * @param storageSize  The storage size of the phone in gigabytes.
+     * @param color        The color of the phone.
+     * @param cost         The cost of the phone in the shop.
+     * @param quantity     The quantity of the phone available in the shop.
+     */
+    public Phone(Integer id, String manufacturer, String model, int storageSize, String color, int cost, int quantity) {
+        this(id, manufacturer, model, storageSize, color, cost, quantity, 0, 0);
+    }
+
 }
@@ -0,0 +1,34 @@
+package com.siri_hate.phone_shop_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity class recording the deletion of a phone, so that replicas syncing the catalog by change version
+ * learn about deleted phones. Each instance of this class corresponds to a record
+ * in the "phone_shop_tombstone" table in the database.
+ */
+@Entity
+@Table(name = "phone_shop_tombstone")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhoneTombstone {
+
+    /**
+     * Change version of the deletion, taken from the {@code phone_shop_change_seq} database sequence
+     * that also versions every write to a phone, and assigned when the tombstone is inserted.
+     */
+    @Id
+    @Column(name = "change_version")
+    private Long changeVersion;
+
+    /**
+     * Identifier of the deleted phone. Phone identifiers are never reused, so a phone has at most one tombstone.
+     */
+    @Column(name = "phone_id", unique = true, nullable = false)
+    private int phoneId;
+
+}
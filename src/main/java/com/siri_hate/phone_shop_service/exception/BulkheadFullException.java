@@ -0,0 +1,33 @@
+package com.siri_hate.phone_shop_service.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a request is rejected because too many requests of the same class of endpoints
+ * are already running.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new {@code BulkheadFullException} with the provided detail message.
+     *
+     * @param message    The detail message.
+     * @param retryAfter The time after which the client may retry.
+     */
+    public BulkheadFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the time after which the client may retry.
+     *
+     * @return The time after which the client may retry.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.siri_hate.phone_shop_service.exception;
+
+/**
+ * Exception thrown when the delta sync is requested from an instance on which it is disabled.
+ */
+public class DeltaSyncDisabledException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code DeltaSyncDisabledException} with the provided detail message.
+     *
+     * @param message The detail message.
+     */
+    public DeltaSyncDisabledException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.siri_hate.phone_shop_service.exception;
+
+/**
+ * Exception thrown when a phone does not have enough units in stock to satisfy a reservation.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code InsufficientStockException} with the provided detail message.
+     *
+     * @param message The detail message.
+     */
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.siri_hate.phone_shop_service.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a request is rejected because its client has sent more requests than its rate limit allows.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new {@code RateLimitExceededException} with the provided detail message.
+     *
+     * @param message    The detail message.
+     * @param retryAfter The time after which the client is allowed another request.
+     */
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the time after which the client is allowed another request.
+     *
+     * @return The time after which the client is allowed another request.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.siri_hate.phone_shop_service.invalidation;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationTransport} between nodes running in the same JVM, such as several application contexts
+ * started by a test. Every transport joined to the same {@link Network} is a node; the Spring bean joins
+ * a network shared by the whole JVM.
+ *
+ * <p>Batches are delivered asynchronously, on a single thread per receiving node, like over a real network.
+ * A node can be {@link #setConnected(boolean) disconnected} to simulate a partition: while disconnected,
+ * the batches it sends and the batches sent to it are silently lost.
+ */
+@Component
+@ConditionalOnProperty(name = "phone-shop.invalidation.transport", havingValue = "in-process")
+public class InProcessInvalidationTransport implements InvalidationTransport {
+
+    private final Network network;
+
+    private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-in-process");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Consumer<InvalidationBatch> receiver;
+
+    private volatile boolean connected = true;
+
+    /**
+     * Constructs a new {@code InProcessInvalidationTransport} joined to the network shared by the whole JVM.
+     */
+    @Autowired
+    public InProcessInvalidationTransport() {
+        this(Network.SHARED);
+    }
+
+    /**
+     * Constructs a new {@code InProcessInvalidationTransport} joined to the given network.
+     *
+     * @param network The network of the nodes the batches are delivered to.
+     */
+    public InProcessInvalidationTransport(Network network) {
+        this.network = network;
+        network.nodes.add(this);
+    }
+
+    @Override
+    public void send(InvalidationBatch batch) {
+        if (!connected) {
+            return;
+        }
+        for (InProcessInvalidationTransport node : network.nodes) {
+            node.deliver(batch);
+        }
+    }
+
+    @Override
+    public void listen(Consumer<InvalidationBatch> receiver) {
+        this.receiver = receiver;
+    }
+
+    /**
+     * Connects or disconnects this node from the network.
+     *
+     * @param connected Whether batches are sent from and delivered to this node.
+     */
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    /**
+     * Leaves the network and stops the delivery thread.
+     */
+    @PreDestroy
+    public void close() {
+        network.nodes.remove(this);
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void deliver(InvalidationBatch batch) {
+        Consumer<InvalidationBatch> currentReceiver = receiver;
+        if (!connected || currentReceiver == null) {
+            return;
+        }
+        try {
+            deliveryExecutor.execute(() -> currentReceiver.accept(batch));
+        } catch (RejectedExecutionException e) {
+            // The node has left the network
+        }
+    }
+
+    /**
+     * A set of nodes exchanging batches.
+     */
+    public static class Network {
+
+        private static final Network SHARED = new Network();
+
+        private final Set<InProcessInvalidationTransport> nodes = ConcurrentHashMap.newKeySet();
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.siri_hate.phone_shop_service.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A batch of phone invalidations sent by one node of the service to all nodes through an {@link InvalidationTransport}.
+ * A batch without phone IDs is a heartbeat, telling the other nodes that the sender is alive and has sent everything
+ * up to its sequence number.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class InvalidationBatch {
+
+    /**
+     * The ID of the sending node, unique per start of the service.
+     */
+    private String node;
+
+    /**
+     * The sequence number of the batch, increasing by one with every batch of phone IDs of the sending node.
+     * A heartbeat carries the sequence number of the last batch of phone IDs sent before it, or zero if none was.
+     */
+    private long sequence;
+
+    /**
+     * The wall-clock time in milliseconds at which the earliest write of the batch committed,
+     * or at which the batch was sent for a heartbeat.
+     */
+    private long committedAtMillis;
+
+    /**
+     * The IDs of the phones written on the sending node.
+     */
+    private List<Integer> phoneIds;
+
+    /**
+     * Whether the sending node is shutting down and sends no further batches.
+     */
+    private boolean leaving;
+
+}
@@ -0,0 +1,500 @@
+package com.siri_hate.phone_shop_service.invalidation;
+
+import com.siri_hate.phone_shop_service.cache.CatalogVersion;
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.search.PhoneSearchIndex;
+import com.siri_hate.phone_shop_service.stream.InventoryChangeStream;
+import com.siri_hate.phone_shop_service.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the in-memory state of several nodes of the service sharing one database consistent, by telling every other
+ * node which phones a node has written. The in-memory state is the {@link PhoneCache}, the Hibernate second-level
+ * cache, the {@link PhoneSearchIndex}, the {@link CatalogVersion} and the {@link InventoryChangeStream}.
+ *
+ * <p>Writes report the IDs of written phones once their transaction has committed. The IDs are collected in a map,
+ * so bursts of writes to the same phone coalesce, and every flush interval they are sent in batches of bounded size
+ * through the configured {@link InvalidationTransport}. Every node applies the batches of the other nodes by evicting
+ * and reloading the phones. Without a transport ({@code phone-shop.invalidation.transport=none}, the default) the bus
+ * does nothing, which is correct for a single node.
+ *
+ * <p>A node whose state may have missed a batch drops all of it: the caches are cleared at once and the search index is
+ * rebuilt on a thread of its own, so that a long rebuild delays neither the heartbeats of the node nor the batches it
+ * applies; resyncs requested while a rebuild runs are coalesced into one more rebuild. Batches carry consecutive
+ * sequence numbers per node, so a lost batch is noticed from the next batch or from the next heartbeat, sent by every
+ * node every quarter of {@code phone-shop.invalidation.max-staleness}. A peer not heard from for half of
+ * {@code max-staleness} is forgotten. A node hearing nothing at all for that long, not even its own heartbeats, is cut
+ * off from the bus: it clears its caches every half of {@code max-staleness} until it hears from the bus again. Every
+ * read is therefore at most about half of {@code max-staleness} plus the flush interval and the transport latency
+ * behind the last committed write, as long as the transport keeps the order of the batches of a node. The propagation
+ * lag of applied batches is published as the {@code phone-shop.invalidation.lag} timer, measured against the wall clock
+ * of the writing node.
+ */
+@Component
+@Log4j2
+public class InvalidationBus {
+
+    private final InvalidationTransport transport;
+
+    private final PhoneCache phoneCache;
+
+    private final PhoneSearchIndex phoneSearchIndex;
+
+    private final InventoryChangeStream inventoryChangeStream;
+
+    private final CatalogVersion catalogVersion;
+
+    private final PhoneRepository phoneRepository;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final int maxBatchIds;
+
+    private final long heartbeatNanos;
+
+    private final long silenceNanos;
+
+    private final String node = UUID.randomUUID().toString();
+
+    private final Map<Integer, Long> pendingIds = new ConcurrentHashMap<>();
+
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+
+    private final Timer lag;
+
+    private final Counter sent;
+
+    private final Counter received;
+
+    private final Counter sendFailures;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-resync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private long sequence;
+
+    private long lastSentNanos;
+
+    private volatile long listeningSinceNanos;
+
+    private volatile long lastResyncNanos;
+
+    private volatile long lastHeardNanos;
+
+    private boolean cutOff;
+
+    private long lastClearedNanos;
+
+    /**
+     * Constructs a new {@code InvalidationBus} and publishes its propagation lag, traffic and resyncs as metrics.
+     *
+     * @param transport             The transport the batches are exchanged through, or none for a single node.
+     * @param phoneCache            The cache of phones read by ID, evicted for the phones written on other nodes.
+     * @param phoneSearchIndex      The typeahead index, updated with the phones written on other nodes.
+     * @param inventoryChangeStream The stream pushing the stock and price changes made on other nodes to subscribers.
+     * @param catalogVersion        The version of the catalog, advanced for the writes of other nodes.
+     * @param phoneRepository       The repository the phones written on other nodes are reloaded from.
+     * @param entityManagerFactory  The entity manager factory whose second-level cache is evicted.
+     * @param meterRegistry         The registry the bus metrics are published to.
+     * @param maxBatchIds           The maximum number of phone IDs sent in a single batch.
+     * @param maxStaleness          The time after which a node notices that it may have missed a batch.
+     */
+    @Autowired
+    public InvalidationBus(
+            Optional<InvalidationTransport> transport,
+            PhoneCache phoneCache,
+            PhoneSearchIndex phoneSearchIndex,
+            InventoryChangeStream inventoryChangeStream,
+            CatalogVersion catalogVersion,
+            PhoneRepository phoneRepository,
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.invalidation.max-batch-ids:500}") int maxBatchIds,
+            @Value("${phone-shop.invalidation.max-staleness:5s}") Duration maxStaleness
+    ) {
+        if (maxBatchIds <= 0) {
+            throw new IllegalArgumentException("Maximum batch size should be positive: " + maxBatchIds);
+        }
+        this.transport = transport.orElse(null);
+        this.phoneCache = phoneCache;
+        this.phoneSearchIndex = phoneSearchIndex;
+        this.inventoryChangeStream = inventoryChangeStream;
+        this.catalogVersion = catalogVersion;
+        this.phoneRepository = phoneRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchIds = maxBatchIds;
+        this.heartbeatNanos = maxStaleness.toNanos() / 4;
+        this.silenceNanos = maxStaleness.toNanos() / 2;
+        this.lag = Timer.builder("phone-shop.invalidation.lag")
+                .description("Time from the commit of a write on one node until another node applied it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sent = Counter.builder("phone-shop.invalidation.sent")
+                .description("Number of phone IDs sent to the other nodes")
+                .register(meterRegistry);
+        this.received = Counter.builder("phone-shop.invalidation.received")
+                .description("Number of phone IDs received from the other nodes")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("phone-shop.invalidation.send-failures")
+                .description("Number of batches that could not be sent and were retried")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.invalidation.peers", peers, Map::size)
+                .description("Number of other nodes heard from recently")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.invalidation.pending", pendingIds, Map::size)
+                .description("Number of written phone IDs waiting to be sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts receiving the batches of all nodes. Runs once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (transport == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        listeningSinceNanos = now;
+        lastResyncNanos = now;
+        lastHeardNanos = now;
+        lastSentNanos = now - heartbeatNanos;
+        transport.listen(this::receive);
+        log.info("Node {} joined the cache invalidation bus", node);
+    }
+
+    /**
+     * Reports a write of the phone with the given ID to the other nodes once the current transaction
+     * has committed, or immediately if no transaction is active.
+     *
+     * @param id The ID of the written phone.
+     */
+    public void publishAfterCommit(int id) {
+        if (transport != null) {
+            TransactionCallbacks.afterCommit(() -> publish(id));
+        }
+    }
+
+    /**
+     * Reports writes of the phones with the given IDs to the other nodes once the current transaction
+     * has committed, or immediately if no transaction is active. {@code null} IDs are skipped.
+     *
+     * @param ids The IDs of the written phones.
+     */
+    public void publishAfterCommit(Collection<Integer> ids) {
+        if (transport != null) {
+            TransactionCallbacks.afterCommit(() -> ids.stream().filter(Objects::nonNull).forEach(this::publish));
+        }
+    }
+
+    /**
+     * Reports a committed write of the phone with the given ID to the other nodes. The write is sent with
+     * the next flush.
+     *
+     * @param id The ID of the written phone.
+     */
+    public void publish(int id) {
+        if (transport != null) {
+            pendingIds.putIfAbsent(id, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Sends the phone IDs written since the last flush, sends a heartbeat if nothing was sent for a while,
+     * and drops the in-memory state if a peer or the whole bus has gone silent. Runs once per flush interval.
+     */
+    @Scheduled(fixedDelayString = "${phone-shop.invalidation.flush-interval:PT0.05S}")
+    public void flush() {
+        if (transport == null || listeningSinceNanos == 0) {
+            return;
+        }
+        synchronized (this) {
+            sendPending();
+            if (System.nanoTime() - lastSentNanos >= heartbeatNanos) {
+                send(new InvalidationBatch(node, sequence, System.currentTimeMillis(), List.of(), false));
+            }
+        }
+        checkSilence();
+    }
+
+    /**
+     * Sends the phone IDs not sent yet, tells the other nodes that this node is leaving,
+     * and stops any search index rebuild.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        rebuildExecutor.shutdownNow();
+        if (transport == null || listeningSinceNanos == 0) {
+            return;
+        }
+        sendPending();
+        send(new InvalidationBatch(node, sequence, System.currentTimeMillis(), List.of(), true));
+    }
+
+    /**
+     * Applies a batch received from the transport.
+     *
+     * @param batch The received batch.
+     */
+    void receive(InvalidationBatch batch) {
+        long now = System.nanoTime();
+        lastHeardNanos = now;
+        synchronized (peers) {
+            if (cutOff) {
+                cutOff = false;
+                resync("bus-recovered");
+            }
+        }
+        if (node.equals(batch.getNode())) {
+            return;
+        }
+
+        List<Integer> ids = batch.getPhoneIds() != null ? batch.getPhoneIds() : List.of();
+        if (!ids.isEmpty()) {
+            apply(ids);
+            received.increment(ids.size());
+            lag.record(Math.max(0, System.currentTimeMillis() - batch.getCommittedAtMillis()), TimeUnit.MILLISECONDS);
+        }
+
+        synchronized (peers) {
+            if (batch.isLeaving()) {
+                peers.remove(batch.getNode());
+                log.info("Node {} left the cache invalidation bus", batch.getNode());
+                return;
+            }
+            Peer peer = peers.get(batch.getNode());
+            long lastSequence;
+            if (peer == null) {
+                // Batches lost before the last full resync only concern state that resync dropped, so a node
+                // heard from for the first time shortly after one is taken at its word; later it may be a node
+                // forgotten while silent, whose earlier batches have to be accounted for
+                peer = new Peer();
+                peers.put(batch.getNode(), peer);
+                boolean adopted = now - lastResyncNanos < 2 * silenceNanos;
+                lastSequence = adopted ? batch.getSequence() - (ids.isEmpty() ? 0 : 1) : 0;
+            } else {
+                lastSequence = peer.sequence;
+            }
+            boolean gap = batch.getSequence() > lastSequence + (ids.isEmpty() ? 0 : 1);
+            peer.sequence = Math.max(lastSequence, batch.getSequence());
+            peer.lastHeardNanos = now;
+            if (gap) {
+                resync("gap");
+            }
+        }
+    }
+
+    /**
+     * Sends the pending phone IDs in batches of bounded size. IDs that could not be sent are put back and retried
+     * with the next flush, keeping their sequence numbers unused so that no other node sees a gap.
+     */
+    private void sendPending() {
+        List<Integer> ids = new ArrayList<>(Math.min(pendingIds.size(), maxBatchIds));
+        long committedAtMillis = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<Integer, Long>> iterator = pendingIds.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Integer, Long> entry = iterator.next();
+            ids.add(entry.getKey());
+            committedAtMillis = Math.min(committedAtMillis, entry.getValue());
+            iterator.remove();
+            if (ids.size() == maxBatchIds || !iterator.hasNext()) {
+                if (!send(new InvalidationBatch(node, sequence + 1, committedAtMillis, ids, false))) {
+                    for (int id : ids) {
+                        pendingIds.putIfAbsent(id, committedAtMillis);
+                    }
+                    return;
+                }
+                sent.increment(ids.size());
+                ids = new ArrayList<>(Math.min(pendingIds.size(), maxBatchIds));
+                committedAtMillis = Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Sends a batch, advancing the sequence number if it carries phone IDs.
+     *
+     * @param batch The batch to send.
+     * @return Whether the batch was handed to the transport.
+     */
+    private boolean send(InvalidationBatch batch) {
+        try {
+            transport.send(batch);
+        } catch (RuntimeException e) {
+            sendFailures.increment();
+            log.warn("Failed to send a batch of {} phone IDs to the cache invalidation bus: {}",
+                    batch.getPhoneIds().size(), e.getMessage());
+            return false;
+        }
+        sequence = batch.getSequence();
+        lastSentNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Forgets the peers not heard from for too long, and clears the caches periodically while nothing at all
+     * is heard from the bus.
+     */
+    private void checkSilence() {
+        long now = System.nanoTime();
+        synchronized (peers) {
+            if (now - lastHeardNanos > silenceNanos) {
+                peers.clear();
+                if (!cutOff) {
+                    cutOff = true;
+                    lastClearedNanos = now;
+                    log.warn("Heard nothing from the cache invalidation bus for {} ms, "
+                            + "clearing caches until it recovers", (now - lastHeardNanos) / 1_000_000);
+                    resync("bus-silent");
+                } else if (now - lastClearedNanos >= silenceNanos) {
+                    lastClearedNanos = now;
+                    clearCaches();
+                }
+                return;
+            }
+            Set<String> silentPeers = new HashSet<>();
+            peers.forEach((peerNode, peer) -> {
+                if (now - peer.lastHeardNanos > silenceNanos) {
+                    silentPeers.add(peerNode);
+                }
+            });
+            if (!silentPeers.isEmpty()) {
+                silentPeers.forEach(peers::remove);
+                log.warn("Heard nothing from nodes {} for over {} ms", silentPeers, silenceNanos / 1_000_000);
+                resync("peer-silent");
+            }
+        }
+    }
+
+    /**
+     * Evicts the written phones from the caches and reloads them into the search index
+     * and the inventory change stream.
+     *
+     * @param ids The IDs of the phones written on another node.
+     */
+    private void apply(List<Integer> ids) {
+        Cache secondLevelCache = secondLevelCache();
+        for (int id : ids) {
+            phoneCache.invalidate(id);
+            secondLevelCache.evictEntityData(Phone.class, id);
+        }
+        secondLevelCache.evictQueryRegions();
+
+        try {
+            Set<Integer> missingIds = new HashSet<>(ids);
+            for (Phone phone : phoneRepository.findAllById(ids)) {
+                phoneSearchIndex.put(phone);
+                missingIds.remove(phone.getId());
+            }
+            missingIds.forEach(phoneSearchIndex::remove);
+        } catch (RuntimeException e) {
+            log.error("Failed to reload {} phones written on another node into the search index", ids.size(), e);
+            resync("reload-failure");
+        }
+        ids.forEach(inventoryChangeStream::publish);
+        catalogVersion.advance();
+    }
+
+    /**
+     * Drops all in-memory state that may have missed a write: clears the caches and requests a rebuild
+     * of the search index, which runs on the rebuild thread.
+     *
+     * @param reason The reason, published as a tag of the {@code phone-shop.invalidation.resyncs} counter.
+     */
+    private void resync(String reason) {
+        meterRegistry.counter("phone-shop.invalidation.resyncs", "reason", reason).increment();
+        lastResyncNanos = System.nanoTime();
+        clearCaches();
+        requestRebuild(reason);
+    }
+
+    /**
+     * Queues a rebuild of the search index, unless one is already queued. A rebuild requested while another runs
+     * is queued after it, since the running one may have read the catalog before the missed write.
+     *
+     * @param reason The reason of the resync requesting the rebuild, logged if it fails.
+     */
+    private void requestRebuild(String reason) {
+        if (rebuildQueued.getAndSet(true)) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    phoneSearchIndex.rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Failed to rebuild the search index after a cache invalidation resync ({})", reason, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * Evicts all phones from the caches and advances the catalog version.
+     */
+    private void clearCaches() {
+        phoneCache.invalidateAll();
+        secondLevelCache().evictAllRegions();
+        catalogVersion.advance();
+    }
+
+    private Cache secondLevelCache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * What this node knows of another node.
+     */
+    private static class Peer {
+
+        private long sequence;
+
+        private long lastHeardNanos;
+
+    }
+
+}
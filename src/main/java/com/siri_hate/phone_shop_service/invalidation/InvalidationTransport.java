@@ -0,0 +1,29 @@
+package com.siri_hate.phone_shop_service.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link InvalidationBatch}es between the nodes of the service for the {@link InvalidationBus}.
+ *
+ * <p>A transport delivers every batch to every listening node, including its sender, and delivers the batches
+ * of a single sender in the order they were sent. It may lose batches, for example while a node is disconnected;
+ * the bus detects the loss from the sequence numbers and from missing heartbeats.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Sends a batch to all nodes.
+     *
+     * @param batch The batch to send.
+     * @throws RuntimeException if the batch could not be handed to the transport.
+     */
+    void send(InvalidationBatch batch);
+
+    /**
+     * Starts delivering the batches sent by all nodes to the given receiver, one at a time.
+     *
+     * @param receiver The receiver of the batches.
+     */
+    void listen(Consumer<InvalidationBatch> receiver);
+
+}
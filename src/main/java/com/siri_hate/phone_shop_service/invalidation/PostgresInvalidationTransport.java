@@ -0,0 +1,169 @@
+package com.siri_hate.phone_shop_service.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * {@link InvalidationTransport} over PostgreSQL {@code LISTEN}/{@code NOTIFY}, so that the nodes sharing
+ * the database need no other infrastructure.
+ *
+ * <p>Batches are sent as JSON payloads of {@code pg_notify} on a pooled connection; the bus keeps them under the
+ * 8000 byte payload limit of PostgreSQL by bounding the number of phone IDs per batch. Batches are received on a
+ * dedicated connection outside the pool, polled by a single listener thread. PostgreSQL delivers the notifications
+ * of a channel to every listening session, including the sender's, in commit order. Notifications sent while the
+ * listener connection is down are lost; the listener reconnects after a delay, and the bus notices the loss.
+ */
+@Component
+@ConditionalOnProperty(name = "phone-shop.invalidation.transport", havingValue = "postgres")
+@Log4j2
+public class PostgresInvalidationTransport implements InvalidationTransport {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final String channel;
+
+    private final Duration pollTimeout;
+
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+
+    private Thread listener;
+
+    /**
+     * Constructs a new {@code PostgresInvalidationTransport}.
+     *
+     * @param jdbcTemplate         The template of the pooled connections the batches are sent on.
+     * @param dataSourceProperties The properties of the data source the listener connection is opened to.
+     * @param objectMapper         The object mapper encoding and decoding the batches.
+     * @param channel              The name of the notification channel.
+     * @param pollTimeout          The maximum time the listener waits for notifications before checking for shutdown.
+     * @param reconnectDelay       The time the listener waits before reconnecting after losing its connection.
+     * @throws IllegalArgumentException if the channel name is not a lowercase SQL identifier.
+     */
+    @Autowired
+    public PostgresInvalidationTransport(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            ObjectMapper objectMapper,
+            @Value("${phone-shop.invalidation.postgres.channel:phone_shop_invalidation}") String channel,
+            @Value("${phone-shop.invalidation.postgres.poll-timeout:1s}") Duration pollTimeout,
+            @Value("${phone-shop.invalidation.postgres.reconnect-delay:1s}") Duration reconnectDelay
+    ) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Channel name should be a lowercase SQL identifier: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public void send(InvalidationBatch batch) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        jdbcTemplate.queryForRowSet("select pg_notify(?, ?)", channel, payload);
+    }
+
+    @Override
+    public synchronized void listen(Consumer<InvalidationBatch> receiver) {
+        if (listener != null) {
+            throw new IllegalStateException("Already listening");
+        }
+        running = true;
+        listener = new Thread(() -> listenUntilClosed(receiver), "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Stops the listener thread and closes its connection.
+     */
+    @PreDestroy
+    public void close() {
+        running = false;
+        Thread currentListener = listener;
+        if (currentListener != null) {
+            currentListener.interrupt();
+        }
+    }
+
+    private void listenUntilClosed(Consumer<InvalidationBatch> receiver) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword()
+            )) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for cache invalidations on channel {}", channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter(), receiver);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the connection listening for cache invalidations, reconnecting in {} ms: {}",
+                        reconnectDelay.toMillis(), e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload, Consumer<InvalidationBatch> receiver) {
+        InvalidationBatch batch;
+        try {
+            batch = objectMapper.readValue(payload, InvalidationBatch.class);
+        } catch (JsonProcessingException e) {
+            log.error("Ignored an undecodable cache invalidation: {}", payload, e);
+            return;
+        }
+        receiver.accept(batch);
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.siri_hate.phone_shop_service.inventory;
+
+import com.siri_hate.phone_shop_service.cache.CatalogVersion;
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.invalidation.InvalidationBus;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.stream.InventoryChangeStream;
+import com.siri_hate.phone_shop_service.sync.ChangeVersions;
+import com.siri_hate.phone_shop_service.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Serves stock reservations of configured "hot" phones from memory, for flash sales where a single
+ * {@code phone_shop} row would otherwise become a lock hotspot.
+ *
+ * <p>For every hot phone, blocks of units are claimed from its row with the same conditional UPDATE used by
+ * regular reservations, and are then held in a {@link StripedStock}. Reservations and releases only touch the
+ * in-memory stock; the database is hit again only when the claimed units run out. Because units are taken out
+ * of the row before they are handed out, and the in-memory stock never goes below zero, a phone can never be
+ * oversold. While units are claimed, the row quantity does not include them. Unreserved units are given back
+ * to the row when a hot phone has been idle for the flush interval, and on shutdown, unless the row quantity has
+ * been overwritten since they were claimed, in which case they are discarded. Once a row has no units left,
+ * further claims are skipped for a second, so a sold-out phone does not send every rejected buyer to the database.
+ * Claims and give-backs change the row quantity and are reported to the inventory change stream; reservations
+ * served from memory are not.
+ */
+@Component
+@Log4j2
+public class HotStockManager {
+
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private static final long SOLD_OUT_BACKOFF_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private static final String UNITS_GAUGE = "phone-shop.hot-stock.units";
+
+    private final PhoneRepository phoneRepository;
+
+    private final PhoneCache phoneCache;
+
+    private final CatalogVersion catalogVersion;
+
+    private final InvalidationBus invalidationBus;
+
+    private final ChangeVersions changeVersions;
+
+    private final InventoryChangeStream inventoryChangeStream;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Integer> hotPhoneIds;
+
+    private final int blockSize;
+
+    private final int stripes;
+
+    private final Duration idleTimeout;
+
+    private final ConcurrentMap<Integer, StripedStock> stocks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code HotStockManager} instance.
+     *
+     * @param phoneRepository       The repository the units are claimed from and given back to.
+     * @param phoneCache            The cache of phones read by ID, evicted whenever a row quantity changes.
+     * @param catalogVersion        The version of the catalog, advanced whenever a row quantity changes.
+     * @param invalidationBus       The bus telling the other nodes whenever a row quantity changes.
+     * @param changeVersions        The allocator of the change versions stamped on the row whenever its quantity changes.
+     * @param inventoryChangeStream The stream told whenever a row quantity changes.
+     * @param meterRegistry         The registry the in-memory stock levels are published to.
+     * @param hotPhoneIds           The IDs of the phones whose reservations are served from memory.
+     * @param blockSize             The number of units claimed from a row at once.
+     * @param stripes               The number of slots the in-memory stock of a phone is split over.
+     * @param idleTimeout           The time without reservations after which unreserved units are given back.
+     */
+    @Autowired
+    public HotStockManager(
+            PhoneRepository phoneRepository,
+            PhoneCache phoneCache,
+            CatalogVersion catalogVersion,
+            InvalidationBus invalidationBus,
+            ChangeVersions changeVersions,
+            InventoryChangeStream inventoryChangeStream,
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.hot-stock.phone-ids:}") Set<Integer> hotPhoneIds,
+            @Value("${phone-shop.hot-stock.block-size:100}") int blockSize,
+            @Value("${phone-shop.hot-stock.stripes:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int stripes,
+            @Value("${phone-shop.hot-stock.flush-interval:PT30S}") Duration idleTimeout
+    ) {
+        this.phoneRepository = phoneRepository;
+        this.phoneCache = phoneCache;
+        this.catalogVersion = catalogVersion;
+        this.invalidationBus = invalidationBus;
+        this.changeVersions = changeVersions;
+        this.inventoryChangeStream = inventoryChangeStream;
+        this.meterRegistry = meterRegistry;
+        this.hotPhoneIds = Set.copyOf(hotPhoneIds);
+        this.blockSize = blockSize;
+        this.stripes = stripes;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Tells whether reservations of the phone with the given ID are served from memory.
+     *
+     * @param id The ID of the phone.
+     * @return {@code true} if the phone is hot.
+     */
+    public boolean isHot(int id) {
+        return hotPhoneIds.contains(id);
+    }
+
+    /**
+     * Reserves units of a hot phone from its in-memory stock, claiming a new block of units from the
+     * database when the in-memory stock cannot satisfy the reservation.
+     *
+     * @param id       The ID of the hot phone.
+     * @param quantity The number of units to reserve.
+     * @throws NoSuchElementException     if no phone is found with the specified ID.
+     * @throws InsufficientStockException if the in-memory and database stock together have too few units.
+     */
+    public void reserve(int id, int quantity) {
+        StripedStock stock = stockOf(id);
+        if (stock.tryTake(quantity)) {
+            return;
+        }
+        stock.getRefillLock().lock();
+        try {
+            if (stock.tryTake(quantity)) {
+                return;
+            }
+            int available = stock.drain();
+            if (available >= quantity) {
+                stock.add(available - quantity);
+                return;
+            }
+            if (stock.isSoldOut()) {
+                stock.add(available);
+                throw new InsufficientStockException("Phone with ID " + id + " has fewer than " + quantity + " units in stock");
+            }
+            try {
+                int claimed = claim(id, quantity - available, stock);
+                stock.add(available + claimed - quantity);
+            } catch (RuntimeException e) {
+                stock.add(available);
+                throw e;
+            }
+        } finally {
+            stock.getRefillLock().unlock();
+        }
+    }
+
+    /**
+     * Releases previously reserved units of a hot phone into its in-memory stock.
+     *
+     * @param id       The ID of the hot phone.
+     * @param quantity The number of units to release.
+     */
+    public void release(int id, int quantity) {
+        stockOf(id).add(quantity);
+    }
+
+    /**
+     * Runs a write setting the row quantity of a phone to an absolute value, discarding the in-memory stock
+     * of the phone if it is hot, so that units claimed before the write are not given back on top of the new
+     * quantity. The write runs under the refill lock, so no block is claimed or given back while it overwrites
+     * the row, and a phone marked as sold out may be claimed from again at once. The discarded units are put back
+     * if the current transaction rolls back.
+     *
+     * @param id    The ID of the phone.
+     * @param write The write setting the quantity, returning the number of updated rows.
+     * @return The number of updated rows.
+     */
+    public int overwriteStock(int id, IntSupplier write) {
+        if (!isHot(id)) {
+            return write.getAsInt();
+        }
+        StripedStock stock = stockOf(id);
+        stock.getRefillLock().lock();
+        try {
+            int updatedRows = write.getAsInt();
+            if (updatedRows > 0) {
+                int discarded = stock.drain();
+                stock.clearSoldOut();
+                TransactionCallbacks.afterRollback(() -> stock.add(discarded));
+            }
+            return updatedRows;
+        } finally {
+            stock.getRefillLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the in-memory stock of a phone once the current transaction has committed, or immediately if no
+     * transaction is active, together with its stock level gauge. Used when the phone is deleted, so no more
+     * units of it are handed out.
+     *
+     * @param id The ID of the phone.
+     */
+    public void discardAfterCommit(int id) {
+        TransactionCallbacks.afterCommit(() -> stocks.computeIfPresent(id, (key, stock) -> {
+            Gauge gauge = meterRegistry.find(UNITS_GAUGE).tag("phone", String.valueOf(key)).gauge();
+            if (gauge != null) {
+                meterRegistry.remove(gauge);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Gives the unreserved units of idle hot phones back to their rows.
+     */
+    @Scheduled(fixedDelayString = "${phone-shop.hot-stock.flush-interval:PT30S}")
+    public void flushIdleStock() {
+        long now = System.nanoTime();
+        for (Map.Entry<Integer, StripedStock> entry : stocks.entrySet()) {
+            if (now - entry.getValue().getLastReservationNanos() >= idleTimeout.toNanos()) {
+                flush(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gives the unreserved units of all hot phones back to their rows on shutdown.
+     */
+    @PreDestroy
+    public void flushAllStock() {
+        stocks.forEach(this::flush);
+    }
+
+    /**
+     * Returns the in-memory stock of a hot phone, creating it and its stock level gauge on first use.
+     *
+     * @param id The ID of the hot phone.
+     * @return The in-memory stock of the phone.
+     */
+    private StripedStock stockOf(int id) {
+        return stocks.computeIfAbsent(id, key -> {
+            StripedStock stock = new StripedStock(stripes);
+            Gauge.builder(UNITS_GAUGE, stock, StripedStock::available)
+                    .description("Units of a hot phone claimed from the database and not yet reserved")
+                    .tag("phone", String.valueOf(key))
+                    .register(meterRegistry);
+            return stock;
+        });
+    }
+
+    /**
+     * Claims units from the row of a phone: a whole block if the row has enough units,
+     * otherwise everything left in the row, as long as that covers the units needed.
+     *
+     * If the row has no units left at all, the in-memory stock is marked as sold out.
+     *
+     * @param id     The ID of the phone.
+     * @param needed The minimum number of units to claim.
+     * @param stock  The in-memory stock of the phone.
+     * @return The number of units claimed.
+     * @throws NoSuchElementException     if no phone is found with the specified ID.
+     * @throws InsufficientStockException if the row has fewer units than needed.
+     */
+    private int claim(int id, int needed, StripedStock stock) {
+        int units = Math.max(blockSize, needed);
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            int claimed = units;
+            if (changeVersions.write(changeVersion -> phoneRepository.reserveStock(id, claimed, changeVersion)) == 1) {
+                phoneCache.invalidate(id);
+                catalogVersion.advance();
+                invalidationBus.publish(id);
+                inventoryChangeStream.publish(id);
+                return claimed;
+            }
+            int remaining = phoneRepository.findQuantityById(id)
+                    .orElseThrow(() -> new NoSuchElementException("Phone with ID " + id + " not found"));
+            if (remaining == 0) {
+                stock.markSoldOut(SOLD_OUT_BACKOFF_NANOS);
+            }
+            if (remaining < needed) {
+                break;
+            }
+            units = remaining;
+        }
+        throw new InsufficientStockException("Phone with ID " + id + " has fewer than " + needed + " units in stock");
+    }
+
+    /**
+     * Gives the unreserved units of a hot phone back to its row.
+     *
+     * @param id    The ID of the hot phone.
+     * @param stock The in-memory stock of the phone.
+     */
+    private void flush(int id, StripedStock stock) {
+        stock.getRefillLock().lock();
+        try {
+            int units = stock.drain();
+            if (units == 0) {
+                return;
+            }
+            try {
+                if (changeVersions.write(changeVersion -> phoneRepository.releaseStock(id, units, changeVersion)) == 0) {
+                    log.warn("Dropped {} unreserved units of the deleted phone with ID {}", units, id);
+                } else {
+                    phoneCache.invalidate(id);
+                    catalogVersion.advance();
+                    invalidationBus.publish(id);
+                    inventoryChangeStream.publish(id);
+                }
+            } catch (RuntimeException e) {
+                stock.add(units);
+                log.error("Failed to give {} unreserved units back to the phone with ID {}", units, id, e);
+            }
+        } finally {
+            stock.getRefillLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.siri_hate.phone_shop_service.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counter of in-memory stock units split over several independently updated slots, so that concurrent
+ * reservations mostly touch different cache lines instead of contending on a single counter.
+ * Units are only ever moved between slots with compare-and-set, so no slot goes below zero and the total
+ * number of units never exceeds what was added.
+ */
+class StripedStock {
+
+    /**
+     * Distance between two slots in the backing array, in ints; keeps every slot on its own 64-byte cache line.
+     */
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray slots;
+
+    private final int stripes;
+
+    private final Lock refillLock = new ReentrantLock();
+
+    private volatile long lastReservationNanos = System.nanoTime();
+
+    private volatile long soldOutUntilNanos = System.nanoTime();
+
+    /**
+     * Constructs a new, empty {@code StripedStock}.
+     *
+     * @param stripes The number of slots.
+     */
+    StripedStock(int stripes) {
+        this.stripes = stripes;
+        this.slots = new AtomicIntegerArray(stripes * PADDING);
+    }
+
+    /**
+     * Tries to take the given number of units, starting from a random slot and moving on to the next slots
+     * while the units taken so far are not enough. If all slots together cannot provide the units,
+     * the units taken are put back.
+     *
+     * @param quantity The number of units to take.
+     * @return {@code true} if the units were taken, {@code false} otherwise.
+     */
+    boolean tryTake(int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        int taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            int index = ((start + i) % stripes) * PADDING;
+            int available;
+            int take;
+            do {
+                available = slots.get(index);
+                take = Math.min(available, quantity - taken);
+            } while (take > 0 && !slots.compareAndSet(index, available, available - take));
+            taken += take;
+        }
+        if (taken < quantity) {
+            add(taken);
+            return false;
+        }
+        lastReservationNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Adds units, spreading them evenly over the slots.
+     *
+     * @param quantity The number of units to add.
+     */
+    void add(int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        int share = quantity / stripes;
+        int remainder = quantity % stripes;
+        for (int i = 0; i < stripes; i++) {
+            int units = share + (i < remainder ? 1 : 0);
+            if (units > 0) {
+                slots.addAndGet(i * PADDING, units);
+            }
+        }
+    }
+
+    /**
+     * Takes all units out of every slot.
+     *
+     * @return The number of units taken.
+     */
+    int drain() {
+        int drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += slots.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of units currently held. The value is a snapshot and may be stale under concurrent updates.
+     *
+     * @return The number of units held.
+     */
+    int available() {
+        int available = 0;
+        for (int i = 0; i < stripes; i++) {
+            available += slots.get(i * PADDING);
+        }
+        return available;
+    }
+
+    /**
+     * Returns the lock serializing the moves of units between this counter and the database. It is a
+     * {@link ReentrantLock} rather than a monitor, so that a virtual thread waiting on the database while holding it
+     * unmounts from its carrier thread instead of pinning it.
+     *
+     * @return The refill lock.
+     */
+    Lock getRefillLock() {
+        return refillLock;
+    }
+
+    /**
+     * Returns the time of the last successful reservation, as given by {@link System#nanoTime()}.
+     *
+     * @return The time of the last successful reservation.
+     */
+    long getLastReservationNanos() {
+        return lastReservationNanos;
+    }
+
+    /**
+     * Marks the database stock behind this counter as sold out for the given time, so that reservations
+     * the in-memory units cannot satisfy are rejected without querying the database again.
+     *
+     * @param backoffNanos The time to treat the database stock as sold out, in nanoseconds.
+     */
+    void markSoldOut(long backoffNanos) {
+        soldOutUntilNanos = System.nanoTime() + backoffNanos;
+    }
+
+    /**
+     * Stops treating the database stock behind this counter as sold out, once its quantity has been overwritten.
+     */
+    void clearSoldOut() {
+        soldOutUntilNanos = System.nanoTime();
+    }
+
+    /**
+     * Tells whether the database stock behind this counter is currently treated as sold out.
+     *
+     * @return {@code true} if the database stock is treated as sold out.
+     */
+    boolean isSoldOut() {
+        return System.nanoTime() - soldOutUntilNanos < 0;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint method whose requests run in the bulkhead of the given {@link EndpointClass},
+ * enforced by the {@link EndpointBulkheads}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * The class of the endpoint.
+     *
+     * @return The class of the endpoint.
+     */
+    EndpointClass value();
+
+}
@@ -0,0 +1,128 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.siri_hate.phone_shop_service.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Aspect limiting the rate of requests of every client with a token bucket, so that a single client cannot
+ * take the capacity of the service from all others.
+ *
+ * <p>Every client may send a burst of requests at once and then requests at a steady rate. Clients are identified
+ * by the configured request header, typically set by a gateway, or by their remote address if the header is not
+ * configured or missing. A request over the limit is rejected before reaching the controller with a
+ * {@link RateLimitExceededException}, answered with 429 (Too Many Requests) and a {@code Retry-After} header
+ * telling when the client's next request will be allowed. The buckets of at most the configured number of clients
+ * are kept; a bucket idle long enough to be full again is dropped.
+ */
+@Component
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "phone-shop.rate-limit.enabled", havingValue = "true")
+public class ClientRateLimiter {
+
+    private final double requestsPerSecond;
+
+    private final double burst;
+
+    private final String clientHeader;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final Counter rejections;
+
+    /**
+     * Constructs a new {@code ClientRateLimiter} and publishes its rejections and number of tracked clients as metrics.
+     *
+     * @param meterRegistry     The registry the rate limiter metrics are published to.
+     * @param requestsPerSecond The sustained number of requests per second allowed per client.
+     * @param burst             The number of requests a client may send at once.
+     * @param clientHeader      The request header identifying the client, or empty to use the remote address.
+     * @param maxClients        The maximum number of clients whose buckets are kept.
+     */
+    @Autowired
+    public ClientRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.rate-limit.requests-per-second:20}") double requestsPerSecond,
+            @Value("${phone-shop.rate-limit.burst:40}") int burst,
+            @Value("${phone-shop.rate-limit.client-header:}") String clientHeader,
+            @Value("${phone-shop.rate-limit.max-clients:100000}") long maxClients
+    ) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit should allow at least one request, got "
+                    + requestsPerSecond + " requests per second with a burst of " + burst);
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.clientHeader = clientHeader;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos((long) Math.ceil(burst / requestsPerSecond * 1e9)))
+                .build();
+        this.rejections = Counter.builder("phone-shop.rate-limit.rejections")
+                .description("Number of requests rejected because their client exceeded its rate limit")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.rate-limit.clients", buckets, Cache::estimatedSize)
+                .description("Number of clients whose request rate is tracked")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pointcut definition for controller methods.
+     */
+    @Pointcut("@within(org.springframework.web.bind.annotation.RestController)")
+    private void controllerMethods() {}
+
+    /**
+     * Advice around controller methods, running each only if its client has a token left.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     * @throws RateLimitExceededException if the client has exceeded its rate limit.
+     */
+    @Around("controllerMethods()")
+    public Object aroundAllControllerMethodsAdvice(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String client = clientOf(attributes.getRequest());
+            long nowNanos = System.nanoTime();
+            long waitNanos = buckets.get(client, key -> new TokenBucket(burst, requestsPerSecond, nowNanos))
+                    .tryTake(nowNanos);
+            if (waitNanos > 0) {
+                rejections.increment();
+                throw new RateLimitExceededException("Rate limit of " + requestsPerSecond
+                        + " requests per second exceeded", Duration.ofNanos(waitNanos));
+            }
+        }
+        return proceedingJoinPoint.proceed();
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aspect limiting the number of service calls running at once to the size of the database connection pool.
+ *
+ * <p>With platform threads, the request thread pool bounds the number of requests waiting for a database connection.
+ * With virtual threads every request gets a thread of its own, so a slow database would otherwise let any number of
+ * requests pile up in the connection pool, each holding its request resources until the pool times it out. Service
+ * calls are therefore admitted by a fair semaphore with one permit per pooled connection, taken before the transaction
+ * starts and so before a connection is requested. Calls that wait for a permit longer than the configured time are
+ * rejected with a {@link CannotGetJdbcConnectionException}, answered with 503 (Service Unavailable).
+ *
+ * <p>The limit is active whenever virtual threads are enabled, unless {@code phone-shop.db-limit.enabled}
+ * says otherwise.
+ */
+@Component
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnExpression("${phone-shop.db-limit.enabled:${spring.threads.virtual.enabled:false}}")
+public class DatabaseConcurrencyLimiter {
+
+    private final Semaphore permits;
+
+    private final int maxPermits;
+
+    private final long maxWaitNanos;
+
+    private final Counter rejections;
+
+    /**
+     * Constructs a new {@code DatabaseConcurrencyLimiter} and publishes its usage as metrics.
+     *
+     * @param meterRegistry The registry the limiter metrics are published to.
+     * @param maxPermits    The maximum number of service calls running at once.
+     * @param maxWait       The maximum time a service call waits to be admitted.
+     */
+    @Autowired
+    public DatabaseConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.db-limit.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int maxPermits,
+            @Value("${phone-shop.db-limit.max-wait:${spring.datasource.hikari.connection-timeout:30s}}") Duration maxWait
+    ) {
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejections = Counter.builder("phone-shop.db-limit.rejections")
+                .description("Number of service calls rejected after waiting too long for a database permit")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.db-limit.in-use", this, DatabaseConcurrencyLimiter::inUse)
+                .description("Number of service calls holding a database permit")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.db-limit.waiting", permits, Semaphore::getQueueLength)
+                .description("Number of service calls waiting for a database permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Pointcut definition for service methods.
+     */
+    @Pointcut("execution(* com.siri_hate.phone_shop_service.service..*(..))")
+    private void serviceMethods() {}
+
+    /**
+     * Advice around service methods, running each only once it holds a permit.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     * @throws CannotGetJdbcConnectionException if no permit was available within the maximum wait.
+     */
+    @Around("serviceMethods()")
+    public Object aroundAllServiceMethodsAdvice(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+            rejections.increment();
+            throw new CannotGetJdbcConnectionException("Timed out waiting for one of " + maxPermits
+                    + " database permits");
+        }
+        try {
+            return proceedingJoinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns the number of service calls holding a permit.
+     *
+     * @return The number of permits in use.
+     */
+    public int inUse() {
+        return maxPermits - permits.availablePermits();
+    }
+
+}
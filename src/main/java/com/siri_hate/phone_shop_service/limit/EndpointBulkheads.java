@@ -0,0 +1,250 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import com.siri_hate.phone_shop_service.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aspect limiting the number of requests running at once per {@link EndpointClass}, so that one class of endpoints
+ * cannot take all database connections from the others. Without it, a burst of listings or writes fills the
+ * connection pool and point reads queue behind them until they time out.
+ *
+ * <p>Every endpoint method marked with {@link Bulkhead} runs only once it holds a permit of its class. A request that
+ * cannot get one within the maximum wait of its class is rejected at once with a {@link BulkheadFullException},
+ * answered with 503 (Service Unavailable) and a {@code Retry-After} header, instead of waiting for a connection.
+ * Streamed responses hold their permit until they have been written, or until their request ends without writing
+ * them. The permits of all classes together stay below the connection pool, so that the classes never wait for each
+ * other and the reserved connections remain for the scheduled flushers, the snapshot rebuild and the invalidation
+ * listener: unless configured, a fifth of the connections goes to scans, three tenths to writes and the rest, less
+ * the reserved ones, to point reads, and a configuration leaving fewer connections free is rejected at startup.
+ */
+@Component
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "phone-shop.bulkhead.enabled", havingValue = "true")
+public class EndpointBulkheads {
+
+    private static final int SCAN_SHARE_PERCENT = 20;
+
+    private static final int WRITE_SHARE_PERCENT = 30;
+
+    private static final String RELEASE_KEY = EndpointBulkheads.class.getName() + ".release";
+
+    private final Map<EndpointClass, Compartment> compartments = new EnumMap<>(EndpointClass.class);
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new {@code EndpointBulkheads} and publishes the limits and usage of every class as metrics.
+     *
+     * @param meterRegistry       The registry the bulkhead metrics are published to.
+     * @param connections         The number of database connections shared by all classes.
+     * @param reservedConnections The number of connections kept free of all classes for background work.
+     * @param pointReadPermits    The maximum number of point reads running at once, or {@code null} for the
+     *                            connections left over by the other classes and the reserved ones.
+     * @param pointReadMaxWait    The maximum time a point read waits to be admitted.
+     * @param scanPermits         The maximum number of scans running at once, or {@code null} for a fifth
+     *                            of the connections.
+     * @param scanMaxWait         The maximum time a scan waits to be admitted.
+     * @param writePermits        The maximum number of writes running at once, or {@code null} for three tenths
+     *                            of the connections.
+     * @param writeMaxWait        The maximum time a write waits to be admitted.
+     * @param retryAfter          The time after which rejected clients are told to retry.
+     * @throws IllegalArgumentException if the permits of all classes together leave fewer than the reserved
+     *                                  connections free, or if no connection is reserved.
+     */
+    @Autowired
+    public EndpointBulkheads(
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.bulkhead.connections:${spring.datasource.hikari.maximum-pool-size:10}}") int connections,
+            @Value("${phone-shop.bulkhead.reserved-connections:2}") int reservedConnections,
+            @Value("${phone-shop.bulkhead.point-reads.max-concurrent:#{null}}") Integer pointReadPermits,
+            @Value("${phone-shop.bulkhead.point-reads.max-wait:100ms}") Duration pointReadMaxWait,
+            @Value("${phone-shop.bulkhead.scans.max-concurrent:#{null}}") Integer scanPermits,
+            @Value("${phone-shop.bulkhead.scans.max-wait:50ms}") Duration scanMaxWait,
+            @Value("${phone-shop.bulkhead.writes.max-concurrent:#{null}}") Integer writePermits,
+            @Value("${phone-shop.bulkhead.writes.max-wait:250ms}") Duration writeMaxWait,
+            @Value("${phone-shop.bulkhead.retry-after:1s}") Duration retryAfter
+    ) {
+        int scans = scanPermits != null ? scanPermits : Math.max(1, connections * SCAN_SHARE_PERCENT / 100);
+        int writes = writePermits != null ? writePermits : Math.max(1, connections * WRITE_SHARE_PERCENT / 100);
+        int pointReads = pointReadPermits != null
+                ? pointReadPermits : connections - reservedConnections - scans - writes;
+        if (reservedConnections <= 0) {
+            throw new IllegalArgumentException("Reserved database connections should be positive: "
+                    + reservedConnections);
+        }
+        if (pointReads + scans + writes > connections - reservedConnections) {
+            throw new IllegalArgumentException("Bulkhead permits should stay below the " + connections
+                    + " database connections, leaving " + reservedConnections + " for background work, got "
+                    + pointReads + " point reads, " + scans + " scans and " + writes + " writes");
+        }
+        this.retryAfter = retryAfter;
+        compartments.put(EndpointClass.POINT_READS,
+                new Compartment(EndpointClass.POINT_READS, pointReads, pointReadMaxWait, meterRegistry));
+        compartments.put(EndpointClass.SCANS,
+                new Compartment(EndpointClass.SCANS, scans, scanMaxWait, meterRegistry));
+        compartments.put(EndpointClass.WRITES,
+                new Compartment(EndpointClass.WRITES, writes, writeMaxWait, meterRegistry));
+    }
+
+    /**
+     * Advice around endpoint methods marked with {@link Bulkhead}, running each only once it holds a permit
+     * of its class. The permit of a streamed response is handed over to the stream and released once it is written,
+     * or once the asynchronous processing of the request completes, times out or fails, whichever comes first.
+     *
+     * @param proceedingJoinPoint ProceedingJoinPoint for the intercepted method.
+     * @param bulkhead            The annotation naming the class of the endpoint.
+     * @return The result of the intercepted method.
+     * @throws Throwable If an error occurs during method execution.
+     * @throws BulkheadFullException if no permit was available within the maximum wait of the class.
+     */
+    @Around("@annotation(bulkhead)")
+    public Object aroundBulkheadEndpointsAdvice(ProceedingJoinPoint proceedingJoinPoint, Bulkhead bulkhead)
+            throws Throwable {
+        Compartment compartment = compartments.get(bulkhead.value());
+        if (!compartment.permits.tryAcquire(compartment.maxWaitNanos, TimeUnit.NANOSECONDS)) {
+            compartment.rejections.increment();
+            throw new BulkheadFullException("Too many " + bulkhead.value().getTag() + " requests running, at most "
+                    + compartment.maxPermits + " are allowed at once", retryAfter);
+        }
+        boolean handedOver = false;
+        try {
+            Object result = proceedingJoinPoint.proceed();
+            if (result instanceof ResponseEntity<?> response && response.getBody() instanceof StreamingResponseBody body) {
+                Runnable release = compartment.releaseOnce();
+                StreamingResponseBody guardedBody = outputStream -> {
+                    try {
+                        body.writeTo(outputStream);
+                    } finally {
+                        release.run();
+                    }
+                };
+                releaseWhenRequestEnds(release);
+                handedOver = true;
+                return new ResponseEntity<>(guardedBody, response.getHeaders(), response.getStatusCode());
+            }
+            return result;
+        } finally {
+            if (!handedOver) {
+                compartment.permits.release();
+            }
+        }
+    }
+
+    /**
+     * Releases the permit handed over to a stream when the request ends, in case the stream is never written: when
+     * the asynchronous processing of the request completes, times out or fails, or when the request ends without
+     * starting it, such as when the response was replaced by an error. Outside a request the stream alone releases it.
+     *
+     * @param release Releases the permit, at most once.
+     */
+    private static void releaseWhenRequestEnds(Runnable release) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(attributes.getRequest());
+        asyncManager.registerCallableInterceptor(RELEASE_KEY, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                release.run();
+            }
+        });
+        attributes.registerDestructionCallback(RELEASE_KEY, () -> {
+            if (!asyncManager.isConcurrentHandlingStarted()) {
+                release.run();
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Returns the number of requests of the given class holding a permit.
+     *
+     * @param endpointClass The class of endpoints.
+     * @return The number of permits in use.
+     */
+    public int inUse(EndpointClass endpointClass) {
+        Compartment compartment = compartments.get(endpointClass);
+        return compartment.maxPermits - compartment.permits.availablePermits();
+    }
+
+    /**
+     * The permits and metrics of a single class of endpoints.
+     */
+    private static final class Compartment {
+
+        private final Semaphore permits;
+
+        private final int maxPermits;
+
+        private final long maxWaitNanos;
+
+        private final Counter rejections;
+
+        private Compartment(EndpointClass endpointClass, int maxPermits, Duration maxWait, MeterRegistry meterRegistry) {
+            if (maxPermits <= 0) {
+                throw new IllegalArgumentException("Maximum number of concurrent " + endpointClass.getTag()
+                        + " requests should be positive: " + maxPermits);
+            }
+            this.permits = new Semaphore(maxPermits);
+            this.maxPermits = maxPermits;
+            this.maxWaitNanos = maxWait.toNanos();
+            this.rejections = Counter.builder("phone-shop.bulkhead.rejections")
+                    .description("Number of requests rejected because too many requests of their class were running")
+                    .tag("class", endpointClass.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("phone-shop.bulkhead.limit", this, compartment -> compartment.maxPermits)
+                    .description("Maximum number of requests of a class running at once")
+                    .tag("class", endpointClass.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("phone-shop.bulkhead.in-use", this,
+                            compartment -> compartment.maxPermits - compartment.permits.availablePermits())
+                    .description("Number of requests of a class holding a permit")
+                    .tag("class", endpointClass.getTag())
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Returns a task releasing one permit of this class the first time it runs and doing nothing afterwards.
+         *
+         * @return The task releasing the permit.
+         */
+        private Runnable releaseOnce() {
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Enumeration of the classes of endpoints isolated from each other by the {@link EndpointBulkheads},
+ * grouped by how long their requests hold a database connection.
+ */
+@Getter
+@AllArgsConstructor
+public enum EndpointClass {
+
+    /**
+     * Lookups of single phones or small sets of phones by ID or prefix, mostly served from memory.
+     */
+    POINT_READS("point-reads"),
+
+    /**
+     * Listings, searches, exports and syncs reading many rows.
+     */
+    SCANS("scans"),
+
+    /**
+     * Creations, updates, deletions, imports and stock reservations.
+     */
+    WRITES("writes");
+
+    /**
+     * The name of the class in configuration properties and metric tags.
+     */
+    private final String tag;
+
+}
@@ -0,0 +1,47 @@
+package com.siri_hate.phone_shop_service.limit;
+
+/**
+ * Token bucket of a single client of the {@link ClientRateLimiter}. The bucket holds up to a burst of tokens and is
+ * refilled at a steady rate; every request takes one token.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+
+    private final double nanosPerToken;
+
+    private double tokens;
+
+    private long refilledAtNanos;
+
+    /**
+     * Constructs a new, full {@code TokenBucket}.
+     *
+     * @param capacity        The maximum number of tokens, which is the largest burst of requests allowed.
+     * @param tokensPerSecond The number of tokens added per second, which is the sustained request rate allowed.
+     * @param nowNanos        The current value of {@link System#nanoTime()}.
+     */
+    TokenBucket(double capacity, double tokensPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.nanosPerToken = 1e9 / tokensPerSecond;
+        this.tokens = capacity;
+        this.refilledAtNanos = nowNanos;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param nowNanos The current value of {@link System#nanoTime()}.
+     * @return Zero if a token was taken, otherwise the number of nanoseconds until the next token is available.
+     */
+    synchronized long tryTake(long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - refilledAtNanos) / nanosPerToken);
+        refilledAtNanos = nowNanos;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * nanosPerToken);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An immutable snapshot of the whole phone catalog, held already encoded as a JSON array
+ * and as the gzip compression of that array. The byte arrays are shared and must not be modified.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogSnapshot {
+
+    /**
+     * The catalog version the snapshot was taken at. The snapshot contains every write up to this version.
+     */
+    private final String version;
+
+    /**
+     * The number of phones in the snapshot.
+     */
+    private final int phoneCount;
+
+    /**
+     * The phones of the catalog ordered by ID, encoded as a JSON array.
+     */
+    private final byte[] json;
+
+    /**
+     * The gzip compression of {@link #json}.
+     */
+    private final byte[] gzippedJson;
+
+}
@@ -0,0 +1,32 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A data class summarizing the outcome of a bulk import of phones.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ImportReport {
+
+    /**
+     * The number of rows received in the import.
+     */
+    int received;
+
+    /**
+     * The number of phones that were stored in the shop.
+     */
+    int imported;
+
+    /**
+     * The rows that were rejected, together with the reasons.
+     */
+    List<ImportRowError> errors;
+
+}
@@ -0,0 +1,27 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A data class describing why a single row of a bulk import was rejected.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ImportRowError {
+
+    /**
+     * The 1-based position of the rejected row in the imported data.
+     */
+    int row;
+
+    /**
+     * The validation or parsing messages explaining the rejection.
+     */
+    List<String> messages;
+
+}
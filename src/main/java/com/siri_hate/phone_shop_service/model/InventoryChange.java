@@ -0,0 +1,36 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The latest stock and price of a phone pushed to the subscribers of the inventory change stream,
+ * or the deletion of the phone.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class InventoryChange {
+
+    /**
+     * The ID of the changed phone.
+     */
+    int id;
+
+    /**
+     * The quantity of the phone available in the shop, or {@code null} if the phone has been deleted.
+     */
+    Integer quantity;
+
+    /**
+     * The cost of the phone, or {@code null} if the phone has been deleted.
+     */
+    Integer cost;
+
+    /**
+     * Whether the phone has been deleted.
+     */
+    boolean deleted;
+
+}
@@ -0,0 +1,37 @@
+package com.siri_hate.phone_shop_service.model;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single change of the phone catalog returned by the delta sync: either the current state of a phone
+ * created or updated at the given change version, or the deletion of a phone at that version.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PhoneChange {
+
+    /**
+     * The change version of the write.
+     */
+    long changeVersion;
+
+    /**
+     * The ID of the written phone.
+     */
+    int id;
+
+    /**
+     * Whether the phone has been deleted.
+     */
+    boolean deleted;
+
+    /**
+     * The current state of the phone, or {@code null} if it has been deleted.
+     */
+    Phone phone;
+
+}
@@ -0,0 +1,39 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single page of catalog changes returned by the delta sync, ordered by change version and ID.
+ * The {@code since} and {@code afterId} are to be passed back to fetch the following changes; once
+ * {@code hasMore} is {@code false}, they should be kept and passed back on the next sync cycle.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PhoneChangePage {
+
+    /**
+     * The changes on this page, ordered by change version and ID.
+     */
+    List<PhoneChange> changes;
+
+    /**
+     * The change version of the last change on this page, or the requested one if the page is empty.
+     */
+    long since;
+
+    /**
+     * The ID of the last change on this page, or the requested one if the page is empty.
+     */
+    int afterId;
+
+    /**
+     * Whether more changes are available right away.
+     */
+    boolean hasMore;
+
+}
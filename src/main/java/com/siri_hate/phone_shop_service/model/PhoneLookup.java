@@ -0,0 +1,31 @@
+package com.siri_hate.phone_shop_service.model;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The result of looking up a single ID in a batch lookup of phones.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PhoneLookup {
+
+    /**
+     * The requested ID.
+     */
+    int id;
+
+    /**
+     * Whether a phone with the requested ID exists.
+     */
+    boolean found;
+
+    /**
+     * The phone with the requested ID, or {@code null} if it does not exist.
+     */
+    Phone phone;
+
+}
@@ -0,0 +1,35 @@
+package com.siri_hate.phone_shop_service.model;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single page of phones returned by the keyset-paginated catalog listing.
+ * The {@code nextCursor} is an opaque token to be passed back to fetch the following page,
+ * or {@code null} if this is the last page.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PhonePage {
+
+    /**
+     * The phones on this page, in the requested sort order.
+     */
+    List<Phone> content;
+
+    /**
+     * The number of phones on this page.
+     */
+    int size;
+
+    /**
+     * The cursor pointing right after the last phone on this page, or {@code null} if there are no more phones.
+     */
+    String nextCursor;
+
+}
@@ -0,0 +1,58 @@
+package com.siri_hate.phone_shop_service.model;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Enumeration of the {@link Phone} attributes that the catalog listing can be sorted by.
+ * Only indexed, non-null integer columns are allowed, so that keyset pagination on
+ * {@code (sort column, id)} can always be served by an index range scan.
+ */
+@Getter
+@AllArgsConstructor
+public enum PhoneSortField {
+
+    /**
+     * Sort by the phone identifier.
+     */
+    ID("id", Phone::getId),
+
+    /**
+     * Sort by the phone cost.
+     */
+    COST("cost", Phone::getCost),
+
+    /**
+     * Sort by the phone storage size.
+     */
+    STORAGE_SIZE("storageSize", Phone::getStorageSize);
+
+    /**
+     * The name of the entity property backing this sort field.
+     */
+    private final String property;
+
+    /**
+     * Function extracting the value of the sort property from a phone.
+     */
+    private final ToIntFunction<Phone> extractor;
+
+    /**
+     * Resolves a sort field by its entity property name.
+     *
+     * @param property The entity property name, e.g. {@code cost}.
+     * @return The matching sort field.
+     * @throws IllegalArgumentException if the property is not sortable.
+     */
+    public static PhoneSortField fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(field -> field.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Sorting by '" + property + "' is not supported"));
+    }
+
+}
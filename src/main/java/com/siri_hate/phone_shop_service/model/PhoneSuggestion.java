@@ -0,0 +1,35 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A data class representing a phone suggested by the catalog typeahead search.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PhoneSuggestion {
+
+    /**
+     * The ID of the suggested phone.
+     */
+    int id;
+
+    /**
+     * The manufacturer of the suggested phone.
+     */
+    String manufacturer;
+
+    /**
+     * The model of the suggested phone.
+     */
+    String model;
+
+    /**
+     * The color of the suggested phone.
+     */
+    String color;
+
+}
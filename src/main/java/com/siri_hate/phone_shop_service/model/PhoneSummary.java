@@ -0,0 +1,43 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A read-only summary of a phone for listings, selected directly into this class by a JPQL constructor expression
+ * so that no {@link com.siri_hate.phone_shop_service.entity.Phone} entity is hydrated or tracked.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class PhoneSummary {
+
+    /**
+     * The ID of the phone.
+     */
+    private final int id;
+
+    /**
+     * The manufacturer of the phone.
+     */
+    private final String manufacturer;
+
+    /**
+     * The model name of the phone.
+     */
+    private final String model;
+
+    /**
+     * The cost of the phone.
+     */
+    private final int cost;
+
+    /**
+     * Whether at least one unit of the phone is available in the shop.
+     */
+    private final boolean inStock;
+
+}
@@ -0,0 +1,33 @@
+package com.siri_hate.phone_shop_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single page of phone summaries ordered by ID. The {@code nextAfterId} is to be passed back as {@code afterId}
+ * to fetch the following page, or {@code null} if this is the last page.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PhoneSummaryPage {
+
+    /**
+     * The phone summaries on this page, ordered by ID.
+     */
+    List<PhoneSummary> content;
+
+    /**
+     * The number of phone summaries on this page.
+     */
+    int size;
+
+    /**
+     * The ID of the last phone on this page, or {@code null} if there are no more phones.
+     */
+    Integer nextAfterId;
+
+}
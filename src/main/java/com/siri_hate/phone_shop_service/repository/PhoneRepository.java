@@ -1,12 +1,221 @@
 package com.siri_hate.phone_shop_service.repository;
 
 import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.PhoneSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for accessing and managing Phone entities in the database.
- * Extends JpaRepository, providing CRUD (Create, Read, Update, Delete) operations for the Phone entity.
+ * Extends JpaRepository, providing CRUD (Create, Read, Update, Delete) operations for the Phone entity,
+ * JpaSpecificationExecutor, providing dynamic queries and keyset scrolling over the Phone entity,
+ * and PhoneRepositoryCustom, providing partial updates.
+ *
+ * <p>The phone list and search queries are cacheable in the {@value #QUERY_CACHE_REGION} region of the Hibernate
+ * query cache, which is only used when the query cache is enabled.
  */
 @Repository
-public interface PhoneRepository extends JpaRepository<Phone, Integer> { }
+public interface PhoneRepository extends JpaRepository<Phone, Integer>, JpaSpecificationExecutor<Phone>, PhoneRepositoryCustom {
+
+    /**
+     * The name of the query cache region holding the results of the phone list and search queries.
+     */
+    String QUERY_CACHE_REGION = "phone-shop.phone-queries";
+
+    /**
+     * Runs a query built from the given specification, such as a page of the phone list or of a search.
+     * The results are cached in the {@value #QUERY_CACHE_REGION} query cache region when the query cache is enabled.
+     *
+     * @param spec          The specification the phones must match.
+     * @param queryFunction The function defining the sorting, limit and fetching of the query.
+     * @return The result of the query function.
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    <S extends Phone, R> R findBy(Specification<Phone> spec, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction);
+
+    /**
+     * Streams all phones ordered by ID through a forward-only JDBC cursor.
+     * Rows are fetched from the database in chunks of the configured fetch size and loaded as read-only entities,
+     * so the whole table is never materialized at once. Must be called within a transaction, and the returned
+     * stream must be closed by the caller.
+     *
+     * @return A stream of all Phone entities ordered by ID.
+     */
+    @Query("select p from Phone p order by p.id")
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Phone> streamAllOrderById();
+
+    /**
+     * Replaces all attributes of the phone with the given ID using a single UPDATE statement,
+     * without loading the phone first. The version of the phone is incremented and its change version is set.
+     *
+     * @param id            The ID of the phone to update.
+     * @param manufacturer  The new manufacturer of the phone.
+     * @param model         The new model of the phone.
+     * @param storageSize   The new storage size of the phone.
+     * @param color         The new color of the phone.
+     * @param cost          The new cost of the phone.
+     * @param quantity      The new quantity of the phone.
+     * @param changeVersion The change version of the update.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Phone p set p.manufacturer = :manufacturer, p.model = :model, p.storageSize = :storageSize, "
+            + "p.color = :color, p.cost = :cost, p.quantity = :quantity, p.version = p.version + 1, "
+            + "p.changeVersion = :changeVersion where p.id = :id")
+    int updateById(
+            @Param("id") int id,
+            @Param("manufacturer") String manufacturer,
+            @Param("model") String model,
+            @Param("storageSize") int storageSize,
+            @Param("color") String color,
+            @Param("cost") int cost,
+            @Param("quantity") int quantity,
+            @Param("changeVersion") long changeVersion
+    );
+
+    /**
+     * Deletes the phone with the given ID using a single DELETE statement, without loading the phone first.
+     *
+     * @param id The ID of the phone to delete.
+     * @return The number of deleted rows: 1 if the phone existed, 0 otherwise.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Phone p where p.id = :id")
+    int deletePhoneById(@Param("id") int id);
+
+    /**
+     * Atomically takes the given number of units out of the stock of the phone with the given ID,
+     * using a single conditional UPDATE statement that never lets the quantity go below zero.
+     * The version of the phone is incremented and its change version is set.
+     *
+     * @param id            The ID of the phone.
+     * @param quantity      The number of units to reserve.
+     * @param changeVersion The change version of the reservation.
+     * @return The number of updated rows: 1 if the phone exists and had enough units in stock, 0 otherwise.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Phone p set p.quantity = p.quantity - :quantity, p.version = p.version + 1, "
+            + "p.changeVersion = :changeVersion where p.id = :id and p.quantity >= :quantity")
+    int reserveStock(@Param("id") int id, @Param("quantity") int quantity, @Param("changeVersion") long changeVersion);
+
+    /**
+     * Atomically puts the given number of units back into the stock of the phone with the given ID,
+     * using a single UPDATE statement. The version of the phone is incremented and its change version is set.
+     *
+     * @param id            The ID of the phone.
+     * @param quantity      The number of units to release.
+     * @param changeVersion The change version of the release.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Phone p set p.quantity = p.quantity + :quantity, p.version = p.version + 1, "
+            + "p.changeVersion = :changeVersion where p.id = :id")
+    int releaseStock(@Param("id") int id, @Param("quantity") int quantity, @Param("changeVersion") long changeVersion);
+
+    /**
+     * Reads the phone with the given ID from the database, bypassing the second-level cache. Hibernate empties the
+     * cached phones only once the transaction of an UPDATE statement has completed, so a phone read back within that
+     * transaction has to come from the database, and is not cached since it is not committed yet.
+     *
+     * @param id The ID of the phone.
+     * @return The phone, or an empty Optional if no phone is found with the specified ID.
+     */
+    @Query("select p from Phone p where p.id = :id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_SPEC_CACHE_STORE_MODE, value = "BYPASS"))
+    Optional<Phone> findUncachedById(@Param("id") int id);
+
+    /**
+     * Reads only the quantity in stock of the phone with the given ID.
+     *
+     * @param id The ID of the phone.
+     * @return The quantity in stock, or an empty Optional if no phone is found with the specified ID.
+     */
+    @Query("select p.quantity from Phone p where p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") int id);
+
+    /**
+     * Takes the next change version from the {@code phone_shop_change_seq} database sequence.
+     *
+     * @return The next change version.
+     */
+    @Query(value = "select nextval('phone_shop_change_seq')", nativeQuery = true)
+    long nextChangeVersion();
+
+    /**
+     * Finds the phones written after the given position in change version order and up to the given change version,
+     * ordered by {@code (change version, id)}. The position is a change version together with the last ID
+     * already seen at that version, so that a single write of many phones can span several pages.
+     *
+     * @param since    The change version of the position.
+     * @param afterId  The last ID already seen at the change version of the position.
+     * @param upTo     The highest change version to include.
+     * @param pageable The maximum number of phones to find, as the size of the first page.
+     * @return The phones written after the position.
+     */
+    @Transactional(readOnly = true)
+    @Query("select p from Phone p where p.changeVersion <= :upTo "
+            + "and (p.changeVersion > :since or (p.changeVersion = :since and p.id > :afterId)) "
+            + "order by p.changeVersion, p.id")
+    List<Phone> findChangedSince(
+            @Param("since") long since,
+            @Param("afterId") int afterId,
+            @Param("upTo") long upTo,
+            Pageable pageable
+    );
+
+    /**
+     * Finds the summaries of the phones with an ID greater than the given one, ordered by ID.
+     * Only the summarized columns are selected, straight into {@link PhoneSummary} instances,
+     * so no entity is hydrated or tracked by the persistence context. The summaries are cached in the
+     * {@value #QUERY_CACHE_REGION} query cache region when the query cache is enabled.
+     *
+     * @param afterId  The ID after which summaries are found.
+     * @param pageable The maximum number of summaries to find, as the size of the first page.
+     * @return The summaries of the phones after the given ID.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query("select new com.siri_hate.phone_shop_service.model.PhoneSummary("
+            + "p.id, p.manufacturer, p.model, p.cost, case when p.quantity > 0 then true else false end) "
+            + "from Phone p where p.id > :afterId order by p.id")
+    List<PhoneSummary> findSummariesAfter(@Param("afterId") int afterId, Pageable pageable);
+
+    /**
+     * Reads only the version of the phone with the given ID.
+     *
+     * @param id The ID of the phone.
+     * @return The version of the phone, or an empty Optional if no phone is found with the specified ID.
+     */
+    @Query("select p.version from Phone p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") int id);
+
+}
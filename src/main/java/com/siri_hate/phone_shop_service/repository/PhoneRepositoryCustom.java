@@ -0,0 +1,21 @@
+package com.siri_hate.phone_shop_service.repository;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+
+/**
+ * Custom repository fragment for Phone entity operations that need dynamically built queries.
+ */
+public interface PhoneRepositoryCustom {
+
+    /**
+     * Updates only the attributes present in the given patch of the phone with the given ID,
+     * using a single UPDATE statement.
+     *
+     * @param id            The ID of the phone to update.
+     * @param patch         The attributes to change; {@code null} attributes are left unchanged.
+     * @param changeVersion The change version of the update.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    int patchById(int id, PhonePatchRequest patch, long changeVersion);
+
+}
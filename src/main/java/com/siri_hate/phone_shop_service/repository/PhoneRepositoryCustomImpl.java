@@ -0,0 +1,83 @@
+package com.siri_hate.phone_shop_service.repository;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Implementation of {@link PhoneRepositoryCustom} based on the JPA Criteria API.
+ */
+class PhoneRepositoryCustomImpl implements PhoneRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a new {@code PhoneRepositoryCustomImpl} instance with the provided {@link EntityManager}.
+     *
+     * @param entityManager The entity manager used to run the queries.
+     */
+    @Autowired
+    PhoneRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Updates only the attributes present in the given patch of the phone with the given ID.
+     * The UPDATE statement sets only the columns of the present attributes, increments the version of the phone
+     * and sets its change version. If no attribute is present, nothing is updated and the existence of the phone
+     * is checked instead.
+     *
+     * @param id            The ID of the phone to update.
+     * @param patch         The attributes to change; {@code null} attributes are left unchanged.
+     * @param changeVersion The change version of the update.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    @Override
+    public int patchById(int id, PhonePatchRequest patch, long changeVersion) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Phone> update = criteriaBuilder.createCriteriaUpdate(Phone.class);
+        Root<Phone> root = update.from(Phone.class);
+        boolean changed = false;
+        if (patch.getManufacturer() != null) {
+            update.set(root.<String>get("manufacturer"), patch.getManufacturer());
+            changed = true;
+        }
+        if (patch.getModel() != null) {
+            update.set(root.<String>get("model"), patch.getModel());
+            changed = true;
+        }
+        if (patch.getStorageSize() != null) {
+            update.set(root.<Integer>get("storageSize"), patch.getStorageSize());
+            changed = true;
+        }
+        if (patch.getColor() != null) {
+            update.set(root.<String>get("color"), patch.getColor());
+            changed = true;
+        }
+        if (patch.getCost() != null) {
+            update.set(root.<Integer>get("cost"), patch.getCost());
+            changed = true;
+        }
+        if (patch.getQuantity() != null) {
+            update.set(root.<Integer>get("quantity"), patch.getQuantity());
+            changed = true;
+        }
+
+        if (!changed) {
+            CriteriaQuery<Long> count = criteriaBuilder.createQuery(Long.class);
+            Root<Phone> countRoot = count.from(Phone.class);
+            count.select(criteriaBuilder.count(countRoot)).where(criteriaBuilder.equal(countRoot.get("id"), id));
+            return entityManager.createQuery(count).getSingleResult().intValue();
+        }
+        update.set(root.<Long>get("version"), criteriaBuilder.sum(root.<Long>get("version"), 1L));
+        update.set(root.<Long>get("changeVersion"), changeVersion);
+        update.where(criteriaBuilder.equal(root.get("id"), id));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.siri_hate.phone_shop_service.repository;
+
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory of {@link Specification}s used to query {@link Phone} entities through the {@link PhoneRepository}.
+ */
+public final class PhoneSpecifications {
+
+    private PhoneSpecifications() { }
+
+    /**
+     * Creates a specification matching all phones.
+     *
+     * @return The specification matching all phones.
+     */
+    public static Specification<Phone> all() {
+        return (root, query, criteriaBuilder) -> null;
+    }
+
+    /**
+     * Creates a specification matching the phones that satisfy every filter present in the given criteria.
+     * The filters are combined into a single WHERE clause of equality and range predicates, so that the query
+     * can be served by the composite indexes on {@code phone_shop}.
+     *
+     * @param criteria The search criteria.
+     * @return The specification matching the phones that satisfy the criteria.
+     */
+    public static Specification<Phone> matching(PhoneSearchCriteria criteria) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.getManufacturer() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("manufacturer"), criteria.getManufacturer()));
+            }
+            if (criteria.getModel() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("model"), criteria.getModel()));
+            }
+            if (criteria.getColor() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("color"), criteria.getColor()));
+            }
+            if (criteria.getMinStorageSize() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("storageSize"), criteria.getMinStorageSize()));
+            }
+            if (criteria.getMaxStorageSize() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("storageSize"), criteria.getMaxStorageSize()));
+            }
+            if (criteria.getMinCost() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("cost"), criteria.getMinCost()));
+            }
+            if (criteria.getMaxCost() != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("cost"), criteria.getMaxCost()));
+            }
+            if (Boolean.TRUE.equals(criteria.getInStock())) {
+                predicates.add(criteriaBuilder.greaterThan(root.get("quantity"), 0));
+            }
+            return predicates.isEmpty() ? null : criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.siri_hate.phone_shop_service.repository;
+
+import com.siri_hate.phone_shop_service.entity.PhoneTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository interface for accessing and managing PhoneTombstone entities in the database.
+ * Extends JpaRepository, providing CRUD (Create, Read, Update, Delete) operations for the PhoneTombstone entity.
+ */
+@Repository
+public interface PhoneTombstoneRepository extends JpaRepository<PhoneTombstone, Long> {
+
+    /**
+     * Records the deletion of the phone with the given ID at the given change version,
+     * using a single INSERT statement.
+     *
+     * @param phoneId       The ID of the deleted phone.
+     * @param changeVersion The change version of the deletion.
+     * @return The number of inserted rows.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into phone_shop_tombstone (change_version, phone_id) values (:changeVersion, :phoneId)",
+            nativeQuery = true)
+    int insertTombstone(@Param("phoneId") int phoneId, @Param("changeVersion") long changeVersion);
+
+    /**
+     * Finds the tombstones recorded after the given position in change version order and up to the given
+     * change version, ordered by {@code (change version, phone ID)}.
+     *
+     * @param since    The change version of the position.
+     * @param afterId  The last phone ID already seen at the change version of the position.
+     * @param upTo     The highest change version to include.
+     * @param pageable The maximum number of tombstones to find, as the size of the first page.
+     * @return The tombstones recorded after the position.
+     * @see PhoneRepository#findChangedSince(long, int, long, Pageable)
+     */
+    @Transactional(readOnly = true)
+    @Query("select t from PhoneTombstone t where t.changeVersion <= :upTo "
+            + "and (t.changeVersion > :since or (t.changeVersion = :since and t.phoneId > :afterId)) "
+            + "order by t.changeVersion, t.phoneId")
+    List<PhoneTombstone> findRecordedSince(
+            @Param("since") long since,
+            @Param("afterId") int afterId,
+            @Param("upTo") long upTo,
+            Pageable pageable
+    );
+
+}
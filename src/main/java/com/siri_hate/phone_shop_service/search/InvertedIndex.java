@@ -0,0 +1,278 @@
+package com.siri_hate.phone_shop_service.search;
+
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index mapping every lower-case word of a phone's manufacturer, model and color to the phones
+ * containing it. Not thread-safe.
+ *
+ * <p>Every indexed phone occupies a dense slot, reused once the phone is removed. Postings lists hold slots
+ * rather than phone IDs, so that a query can turn them into bit sets over all slots and intersect those
+ * a machine word at a time, and ranks its matches from per-slot arrays without any lookup by ID.
+ */
+class InvertedIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int INITIAL_SLOTS = 16;
+
+    /**
+     * How many times more phones than the rarest query token a token must match to be checked
+     * against the candidates' words rather than intersected as a bit set.
+     */
+    private static final int VERIFY_RATIO = 4;
+
+    /**
+     * Orders matches from the worst to the best, so that the head of a bounded queue is the one to drop.
+     */
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingInt(Match::score)
+            .thenComparing(Comparator.comparingInt(Match::termCount).reversed())
+            .thenComparing(Comparator.comparingInt(Match::id).reversed());
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+
+    private final Map<Integer, Integer> slotsById = new HashMap<>();
+
+    private int[] ids = new int[INITIAL_SLOTS];
+
+    private String[][] termsBySlot = new String[INITIAL_SLOTS][];
+
+    private int[] termCounts = new int[INITIAL_SLOTS];
+
+    private PhoneSuggestion[] phonesBySlot = new PhoneSuggestion[INITIAL_SLOTS];
+
+    private int slotCount;
+
+    private int[] freeSlots = new int[INITIAL_SLOTS];
+
+    private int freeSlotCount;
+
+    /**
+     * Adds a phone to the index, or replaces it if it is already indexed.
+     *
+     * @param phone The phone to index.
+     */
+    void put(PhoneSuggestion phone) {
+        remove(phone.getId());
+        int slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : newSlot();
+        String[] phoneTerms = tokenize(phone.getManufacturer() + " " + phone.getModel() + " " + phone.getColor());
+        ids[slot] = phone.getId();
+        termsBySlot[slot] = phoneTerms;
+        termCounts[slot] = phoneTerms.length;
+        phonesBySlot[slot] = phone;
+        slotsById.put(phone.getId(), slot);
+        for (String term : phoneTerms) {
+            terms.computeIfAbsent(term, t -> new Postings()).add(slot);
+        }
+    }
+
+    /**
+     * Removes a phone from the index.
+     *
+     * @param id The ID of the phone to remove.
+     */
+    void remove(int id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (String term : termsBySlot[slot]) {
+            Postings postings = terms.get(term);
+            postings.remove(slot);
+            if (postings.size() == 0) {
+                terms.remove(term);
+            }
+        }
+        termsBySlot[slot] = null;
+        phonesBySlot[slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Returns the best phones for which every query token is a prefix of one of their words. Phones matching
+     * more tokens exactly come first, then phones described by fewer words, then phones with lower IDs.
+     *
+     * <p>The candidates are the phones matching the rarest token. Tokens of similar frequency are applied
+     * by intersecting bit sets of their phones; tokens matching many more phones than the rarest one are
+     * checked against each candidate's own words instead, which is cheaper than collecting all their phones.
+     *
+     * @param query The query typed so far.
+     * @param limit The maximum number of phones to return.
+     * @return The matching phones, best first; empty if the query has no tokens.
+     */
+    List<PhoneSuggestion> suggest(String query, int limit) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Collection<Postings>> matchingPostings = new ArrayList<>(queryTokens.length);
+        int[] matchCounts = new int[queryTokens.length];
+        int driver = 0;
+        for (int t = 0; t < queryTokens.length; t++) {
+            Collection<Postings> postings =
+                    terms.subMap(queryTokens[t], true, queryTokens[t] + Character.MAX_VALUE, false).values();
+            for (Postings termPostings : postings) {
+                matchCounts[t] += termPostings.size();
+            }
+            if (matchCounts[t] == 0) {
+                return Collections.emptyList();
+            }
+            if (matchCounts[t] < matchCounts[driver]) {
+                driver = t;
+            }
+            matchingPostings.add(postings);
+        }
+
+        BitSet candidates = new BitSet(slotCount);
+        matchingPostings.get(driver).forEach(postings -> postings.addTo(candidates));
+        BitSet[] exactMatches = new BitSet[queryTokens.length];
+        boolean[] verified = new boolean[queryTokens.length];
+        for (int t = 0; t < queryTokens.length; t++) {
+            if (matchCounts[t] > matchCounts[driver] * VERIFY_RATIO) {
+                verified[t] = true;
+                continue;
+            }
+            if (t != driver) {
+                BitSet prefixMatches = new BitSet(slotCount);
+                matchingPostings.get(t).forEach(postings -> postings.addTo(prefixMatches));
+                candidates.and(prefixMatches);
+            }
+            Postings exact = terms.get(queryTokens[t]);
+            if (exact != null) {
+                exactMatches[t] = new BitSet(slotCount);
+                exact.addTo(exactMatches[t]);
+            }
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        candidates:
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            int score = queryTokens.length;
+            for (int t = 0; t < queryTokens.length; t++) {
+                if (verified[t]) {
+                    int tokenScore = matchWord(queryTokens[t], termsBySlot[slot]);
+                    if (tokenScore < 0) {
+                        continue candidates;
+                    }
+                    score += tokenScore;
+                } else if (exactMatches[t] != null && exactMatches[t].get(slot)) {
+                    score++;
+                }
+            }
+            int termCount = termCounts[slot];
+            if (best.size() == limit) {
+                Match worst = best.peek();
+                if (score < worst.score() || score == worst.score() && (termCount > worst.termCount()
+                        || termCount == worst.termCount() && ids[slot] > worst.id())) {
+                    continue;
+                }
+                best.poll();
+            }
+            best.add(new Match(ids[slot], score, termCount));
+        }
+        PhoneSuggestion[] suggestions = new PhoneSuggestion[best.size()];
+        for (int i = suggestions.length - 1; i >= 0; i--) {
+            suggestions[i] = phonesBySlot[slotsById.get(best.poll().id())];
+        }
+        return Arrays.asList(suggestions);
+    }
+
+    /**
+     * Shrinks every postings list to its size. Called once a bulk build is complete.
+     */
+    void trim() {
+        terms.values().forEach(Postings::trim);
+    }
+
+    int phoneCount() {
+        return slotsById.size();
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Returns the approximate heap size of the postings lists, in bytes, excluding the words and phones.
+     *
+     * @return The approximate heap size of the postings lists, in bytes.
+     */
+    long postingsSizeInBytes() {
+        return terms.values().stream().mapToLong(Postings::sizeInBytes).sum();
+    }
+
+    /**
+     * Splits text into lower-case words, dropping duplicates.
+     *
+     * @param text The text to split, possibly null.
+     * @return The distinct words of the text, in order of first appearance.
+     */
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Matches a query token against the words of a phone.
+     *
+     * @return 1 if the token equals one of the words, 0 if it is only a prefix of one, or -1 if it matches none.
+     */
+    private static int matchWord(String token, String[] phoneTerms) {
+        int match = -1;
+        for (String term : phoneTerms) {
+            if (term.equals(token)) {
+                return 1;
+            }
+            if (term.startsWith(token)) {
+                match = 0;
+            }
+        }
+        return match;
+    }
+
+    private int newSlot() {
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            termsBySlot = Arrays.copyOf(termsBySlot, capacity);
+            termCounts = Arrays.copyOf(termCounts, capacity);
+            phonesBySlot = Arrays.copyOf(phonesBySlot, capacity);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * A matching phone with its score: one point for each query token that is a prefix of one of its words,
+     * plus one for each query token equal to one of its words.
+     */
+    private record Match(int id, int score, int termCount) { }
+
+}
@@ -0,0 +1,230 @@
+package com.siri_hate.phone_shop_service.search;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory typeahead index over the manufacturer, model and color of every phone, serving suggestions
+ * without touching the database.
+ *
+ * <p>The index is built from the database once the application is ready and is then kept current by
+ * the service, which applies every committed insert, update and delete. Changes applied while a rebuild
+ * is running are replayed onto the rebuilt index before it replaces the current one. Rebuilds run one at a time,
+ * and detach every streamed phone once indexed, so the persistence context does not grow with the catalog.
+ */
+@Component
+@Log4j2
+public class PhoneSearchIndex {
+
+    private final PhoneRepository phoneRepository;
+
+    private final EntityManager entityManager;
+
+    private final Object rebuildLock = new Object();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    /**
+     * Changes applied while a rebuild is running; null when no rebuild runs.
+     */
+    private List<Consumer<InvertedIndex>> pendingChanges;
+
+    /**
+     * Constructs a new, empty {@code PhoneSearchIndex} and publishes its size and memory footprint as metrics.
+     *
+     * @param phoneRepository The repository the index is built from.
+     * @param entityManager   The entity manager used to detach streamed phone entities.
+     * @param meterRegistry   The registry the index size is published to.
+     */
+    @Autowired
+    public PhoneSearchIndex(PhoneRepository phoneRepository, EntityManager entityManager, MeterRegistry meterRegistry) {
+        this.phoneRepository = phoneRepository;
+        this.entityManager = entityManager;
+        Gauge.builder("phone-shop.search-index.phones", this, PhoneSearchIndex::phoneCount)
+                .description("Number of phones in the typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.search-index.terms", this, PhoneSearchIndex::termCount)
+                .description("Number of distinct words in the typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.search-index.postings", this, PhoneSearchIndex::postingsSizeInBytes)
+                .description("Approximate heap size of the postings lists of the typeahead index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuilds the index from all phones in the database. Runs once the application is ready, and waits for
+     * a rebuild already running, such as one requested by the invalidation bus during startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            withWriteLock(() -> pendingChanges = new ArrayList<>());
+            long startNanos = System.nanoTime();
+            InvertedIndex rebuilt = new InvertedIndex();
+            try (Stream<Phone> phones = phoneRepository.streamAllOrderById()) {
+                phones.forEach(phone -> {
+                    rebuilt.put(toSuggestion(phone));
+                    entityManager.detach(phone);
+                });
+            } catch (RuntimeException e) {
+                withWriteLock(() -> pendingChanges = null);
+                throw e;
+            }
+            withWriteLock(() -> {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                pendingChanges = null;
+                rebuilt.trim();
+                index = rebuilt;
+            });
+            log.info("Indexed {} phones and {} words for typeahead in {} ms",
+                    rebuilt.phoneCount(), rebuilt.termCount(), (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    /**
+     * Adds a phone to the index, or replaces it if it is already indexed.
+     *
+     * @param phone The phone to index.
+     */
+    public void put(Phone phone) {
+        PhoneSuggestion suggestion = toSuggestion(phone);
+        change(index -> index.put(suggestion));
+    }
+
+    /**
+     * Removes a phone from the index.
+     *
+     * @param id The ID of the phone to remove.
+     */
+    public void remove(int id) {
+        change(index -> index.remove(id));
+    }
+
+    /**
+     * Adds phones to the index, or replaces them if they are already indexed, once the current transaction
+     * has committed. Phones that have not been assigned an ID are skipped.
+     *
+     * @param phones The phones to index.
+     */
+    public void putAfterCommit(List<Phone> phones) {
+        List<PhoneSuggestion> suggestions = phones.stream()
+                .filter(phone -> phone.getId() != null)
+                .map(PhoneSearchIndex::toSuggestion)
+                .toList();
+        TransactionCallbacks.afterCommit(() -> change(index -> suggestions.forEach(index::put)));
+    }
+
+    /**
+     * Removes a phone from the index once the current transaction has committed.
+     *
+     * @param id The ID of the phone to remove.
+     */
+    public void removeAfterCommit(int id) {
+        TransactionCallbacks.afterCommit(() -> remove(id));
+    }
+
+    /**
+     * Returns the best phones matching a typeahead query. Every word of the query must be a prefix of
+     * a word of the phone's manufacturer, model or color. Phones matching more words exactly come first,
+     * then phones described by fewer words, then phones with lower IDs.
+     *
+     * @param query The query typed so far.
+     * @param limit The maximum number of suggestions to return.
+     * @return The matching phones, best first; empty if the query has no words.
+     */
+    public List<PhoneSuggestion> suggest(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.suggest(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed phones.
+     *
+     * @return The number of indexed phones.
+     */
+    public int phoneCount() {
+        lock.readLock().lock();
+        try {
+            return index.phoneCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct indexed words.
+     *
+     * @return The number of distinct indexed words.
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return index.termCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the approximate heap size of the postings lists, in bytes, excluding the words and phones.
+     *
+     * @return The approximate heap size of the postings lists, in bytes.
+     */
+    public long postingsSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return index.postingsSizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(Consumer<InvertedIndex> change) {
+        withWriteLock(() -> {
+            change.accept(index);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static PhoneSuggestion toSuggestion(Phone phone) {
+        return new PhoneSuggestion(phone.getId(), phone.getManufacturer(), phone.getModel(), phone.getColor());
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.siri_hate.phone_shop_service.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Postings list of a single term: the sorted index slots of the phones containing the term,
+ * held in a primitive int array.
+ */
+class Postings {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] slots = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Adds a slot, keeping the slots sorted. Appending a slot greater than all others takes constant time.
+     *
+     * @param slot The slot to add.
+     */
+    void add(int slot) {
+        int index = size == 0 || slots[size - 1] < slot ? size : Arrays.binarySearch(slots, 0, size, slot);
+        if (index >= 0 && index < size) {
+            return;
+        }
+        int insertAt = index >= 0 ? index : -index - 1;
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        System.arraycopy(slots, insertAt, slots, insertAt + 1, size - insertAt);
+        slots[insertAt] = slot;
+        size++;
+    }
+
+    /**
+     * Removes a slot.
+     *
+     * @param slot The slot to remove.
+     */
+    void remove(int slot) {
+        int index = Arrays.binarySearch(slots, 0, size, slot);
+        if (index >= 0) {
+            System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return The number of slots.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sets the bits of all slots in the given bit set.
+     *
+     * @param bits The bit set to add the slots to.
+     */
+    void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(slots[i]);
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the number of slots.
+     */
+    void trim() {
+        if (slots.length > size) {
+            slots = Arrays.copyOf(slots, Math.max(size, 1));
+        }
+    }
+
+    /**
+     * Returns the approximate heap size of this postings list, in bytes.
+     *
+     * @return The approximate heap size, in bytes.
+     */
+    long sizeInBytes() {
+        return 16L + 16L + 4L * slots.length;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.siri_hate.phone_shop_service.service;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.PhoneSortField;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Keyset cursor of the catalog listing. Holds the sort field and direction together with the
+ * {@code (sort value, id)} key of the last phone returned, and encodes them into an opaque URL-safe token.
+ * The reactive variant of the service pages with the same cursors.
+ */
+@Getter
+@AllArgsConstructor
+public class PhonePageCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final PhoneSortField sortField;
+
+    private final Sort.Direction direction;
+
+    private final int sortValue;
+
+    private final int lastId;
+
+    /**
+     * Creates a cursor positioned right after the given phone.
+     *
+     * @param sortField The sort field of the listing.
+     * @param direction The sort direction of the listing.
+     * @param phone     The last phone of the current page.
+     * @return The cursor for the next page.
+     */
+    public static PhonePageCursor after(PhoneSortField sortField, Sort.Direction direction, Phone phone) {
+        return new PhonePageCursor(sortField, direction, sortField.getExtractor().applyAsInt(phone), phone.getId());
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param token The opaque cursor token.
+     * @return The decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static PhonePageCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new PhonePageCursor(
+                    PhoneSortField.valueOf(parts[0]),
+                    Sort.Direction.valueOf(parts[1]),
+                    Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3])
+            );
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Encodes this cursor into an opaque URL-safe token.
+     *
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String raw = sortField.name() + SEPARATOR + direction.name() + SEPARATOR + sortValue + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Converts this cursor into the keyset scroll position understood by Spring Data.
+     *
+     * @return The keyset scroll position.
+     */
+    ScrollPosition toScrollPosition() {
+        if (sortField == PhoneSortField.ID) {
+            return ScrollPosition.forward(Map.of("id", lastId));
+        }
+        return ScrollPosition.forward(Map.of(sortField.getProperty(), sortValue, "id", lastId));
+    }
+
+}
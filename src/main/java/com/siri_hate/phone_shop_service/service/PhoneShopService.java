@@ -1,10 +1,25 @@
 package com.siri_hate.phone_shop_service.service;
 
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
 import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
 import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.exception.DeltaSyncDisabledException;
+import com.siri_hate.phone_shop_service.model.CatalogSnapshot;
+import com.siri_hate.phone_shop_service.model.ImportReport;
 import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneChangePage;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface defining operations for managing phones in the phone shop.
@@ -20,6 +35,25 @@ public interface PhoneShopService {
      */
     Phone addNewPhoneToShop(PhoneRequest phoneRequest);
 
+    /**
+     * Adds many new phones to the shop at once. Invalid phone requests are rejected individually,
+     * while all valid ones are stored.
+     *
+     * @param phoneRequests The PhoneRequests containing details of the phones to be added.
+     * @return The report of the import, listing the rejected rows.
+     */
+    ImportReport importPhonesToShop(List<PhoneRequest> phoneRequests);
+
+    /**
+     * Adds many new phones to the shop at once from CSV data. Rows that cannot be parsed or are invalid
+     * are rejected individually, while all valid ones are stored.
+     *
+     * @param inputStream The stream of CSV data containing details of the phones to be added.
+     * @return The report of the import, listing the rejected rows.
+     * @throws IOException if reading from the stream fails.
+     */
+    ImportReport importPhonesToShopFromCsv(InputStream inputStream) throws IOException;
+
     /**
      * Retrieves information about a phone from the shop based on the provided ID.
      *
@@ -28,6 +62,29 @@ public interface PhoneShopService {
      */
     Phone getPhoneFromShop(int id);
 
+    /**
+     * Retrieves many phones from the shop at once based on the provided IDs.
+     *
+     * @param ids The IDs of the phones to retrieve.
+     * @return One lookup result per requested ID, in request order, telling whether the phone was found.
+     */
+    List<PhoneLookup> getPhonesFromShop(List<Integer> ids);
+
+    /**
+     * Retrieves only the version of a phone from the shop based on the provided ID.
+     *
+     * @param id The ID of the phone.
+     * @return The version of the phone with the specified ID.
+     */
+    long getPhoneVersionFromShop(int id);
+
+    /**
+     * Retrieves the version of the catalog as a whole, which changes whenever any phone is added, changed or deleted.
+     *
+     * @return The current catalog version.
+     */
+    String getCatalogVersionFromShop();
+
     /**
      * Retrieves information about all phones available in the shop.
      *
@@ -35,6 +92,83 @@ public interface PhoneShopService {
      */
     List<Phone> getAllPhonesFromShop();
 
+    /**
+     * Retrieves the pre-encoded snapshot of all phones in the shop, which reflects every committed write
+     * shortly after it has committed.
+     *
+     * @return The latest snapshot, or an empty Optional if snapshots are disabled or not built yet.
+     */
+    Optional<CatalogSnapshot> getCatalogSnapshotFromShop();
+
+    /**
+     * Retrieves a single page of phones from the shop using keyset pagination.
+     *
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     *                  Ignored when a cursor is given.
+     * @return The page of phones together with the cursor of the next page.
+     */
+    PhonePage getPhonesPageFromShop(String cursor, Integer size, String sort, String direction);
+
+    /**
+     * Searches the shop for phones matching the provided PhoneSearchCriteria, one keyset-paginated page at a time.
+     *
+     * @param criteria  The filters the phones must satisfy.
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     *                  Ignored when a cursor is given.
+     * @return The page of matching phones together with the cursor of the next page.
+     */
+    PhonePage searchPhonesInShop(PhoneSearchCriteria criteria, String cursor, Integer size, String sort, String direction);
+
+    /**
+     * Retrieves a single page of lightweight phone summaries from the shop, ordered by ID.
+     *
+     * @param afterId The ID of the last phone of the previous page, or {@code null} for the first page.
+     * @param size    The maximum number of phone summaries on the page, or {@code null} for the default page size.
+     * @return The page of phone summaries together with the ID to continue after.
+     */
+    PhoneSummaryPage getPhoneSummariesFromShop(Integer afterId, Integer size);
+
+    /**
+     * Suggests phones from the shop whose manufacturer, model or color words start with the words typed so far.
+     *
+     * @param query The query typed so far.
+     * @param limit The maximum number of suggestions, or {@code null} for the default number.
+     * @return The suggested phones, best match first.
+     */
+    List<PhoneSuggestion> suggestPhonesInShop(String query, Integer limit);
+
+    /**
+     * Retrieves the phones created, updated or deleted in the shop after the given position in change version order.
+     *
+     * @param since   The change version of the last change already seen, or {@code null} to start from the beginning.
+     * @param afterId The ID of the last change already seen at that version, or {@code null} for none.
+     * @param size    The maximum number of changes on the page, or {@code null} for the default page size.
+     * @return The page of changes together with the position of the next page.
+     * @throws DeltaSyncDisabledException if the delta sync is disabled.
+     */
+    PhoneChangePage getPhoneChangesFromShop(Long since, Integer afterId, Integer size);
+
+    /**
+     * Subscribes to the stock and price changes of phones in the shop, pushed as Server-Sent Events.
+     *
+     * @return The emitter the changes are sent through.
+     */
+    SseEmitter subscribeToInventoryChanges();
+
+    /**
+     * Exports all phones available in the shop as newline-delimited JSON, one phone per line.
+     *
+     * @param outputStream The stream the exported phones are written to.
+     * @throws IOException if writing to the stream fails.
+     */
+    void exportAllPhonesFromShop(OutputStream outputStream) throws IOException;
+
     /**
      * Updates information about a phone in the shop based on the provided ID and PhoneRequest.
      *
@@ -44,6 +178,34 @@ public interface PhoneShopService {
      */
     Phone updatePhoneInfoInShop(int id, PhoneRequest phoneRequest);
 
+    /**
+     * Partially updates information about a phone in the shop based on the provided ID and PhonePatchRequest.
+     * Only the attributes present in the request are changed.
+     *
+     * @param id                The ID of the phone to update.
+     * @param phonePatchRequest The PhonePatchRequest containing the attributes to change.
+     * @return The Phone entity representing the updated information of the phone.
+     */
+    Phone patchPhoneInfoInShop(int id, PhonePatchRequest phonePatchRequest);
+
+    /**
+     * Reserves units of a phone in the shop, taking them out of its stock.
+     *
+     * @param id       The ID of the phone to reserve.
+     * @param quantity The number of units to reserve.
+     * @return A message indicating the result of the reservation.
+     */
+    Message reservePhoneStockInShop(int id, int quantity);
+
+    /**
+     * Releases previously reserved units of a phone in the shop, putting them back into its stock.
+     *
+     * @param id       The ID of the phone to release.
+     * @param quantity The number of units to release.
+     * @return A message indicating the result of the release.
+     */
+    Message releasePhoneStockInShop(int id, int quantity);
+
     /**
      * Deletes a phone from the shop based on the provided ID.
      *
@@ -1,17 +1,72 @@
 package com.siri_hate.phone_shop_service.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.siri_hate.phone_shop_service.cache.CatalogSnapshotManager;
+import com.siri_hate.phone_shop_service.cache.CatalogVersion;
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.cache.SingleFlight;
+import com.siri_hate.phone_shop_service.dto.PhoneCsvReader;
+import com.siri_hate.phone_shop_service.model.CatalogSnapshot;
+import com.siri_hate.phone_shop_service.model.ImportReport;
+import com.siri_hate.phone_shop_service.model.ImportRowError;
 import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneChange;
+import com.siri_hate.phone_shop_service.model.PhoneChangePage;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSortField;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+import com.siri_hate.phone_shop_service.model.PhoneSummary;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
 import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneSpecifications;
+import com.siri_hate.phone_shop_service.repository.PhoneTombstoneRepository;
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
 import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
 import com.siri_hate.phone_shop_service.dto.PhoneRequestMapper;
 import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.entity.PhoneTombstone;
+import com.siri_hate.phone_shop_service.exception.DeltaSyncDisabledException;
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.invalidation.InvalidationBus;
+import com.siri_hate.phone_shop_service.inventory.HotStockManager;
+import com.siri_hate.phone_shop_service.search.PhoneSearchIndex;
+import com.siri_hate.phone_shop_service.stream.InventoryChangeStream;
+import com.siri_hate.phone_shop_service.sync.ChangeVersions;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * The {@code PhoneShopServiceImpl} class implements the {@link PhoneShopService} interface
@@ -23,14 +78,126 @@ public class PhoneShopServiceImpl implements PhoneShopService {
 
     private final PhoneRepository phoneRepository;
 
+    private final PhoneTombstoneRepository phoneTombstoneRepository;
+
+    private final EntityManager entityManager;
+
+    private final PhoneCache phoneCache;
+
+    private final SingleFlight<Integer, Optional<Phone>> phoneLoads;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CatalogSnapshotManager catalogSnapshotManager;
+
+    private final ChangeVersions changeVersions;
+
+    private final HotStockManager hotStockManager;
+
+    private final PhoneSearchIndex phoneSearchIndex;
+
+    private final InventoryChangeStream inventoryChangeStream;
+
+    private final InvalidationBus invalidationBus;
+
+    private final Validator validator;
+
+    private final ObjectWriter exportWriter;
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    private final int exportFlushRows;
+
+    private final int importBatchSize;
+
+    private final int importMaxRows;
+
+    private final int defaultSuggestLimit;
+
+    private final int maxSuggestLimit;
+
+    private final int batchMaxIds;
+
+    private final int batchChunkSize;
+
     /**
      * Constructs a new {@code PhoneShopServiceImpl} instance with the provided {@link PhoneRepository}.
      *
-     * @param phoneRepository The repository for managing phone entities.
+     * @param phoneRepository          The repository for managing phone entities.
+     * @param phoneTombstoneRepository The repository recording the deletions of phones.
+     * @param entityManager            The entity manager used to detach streamed phone entities.
+     * @param phoneCache               The cache of phones read by ID.
+     * @param loadTimeout              The maximum time a lookup waits for a concurrent load of the same phone.
+     * @param catalogVersion           The version of the catalog, advanced by every committed write.
+     * @param catalogSnapshotManager   The holder of the pre-encoded snapshot of all phones.
+     * @param changeVersions           The allocator of the change versions stamped on every write.
+     * @param hotStockManager          The manager serving stock reservations of hot phones from memory.
+     * @param phoneSearchIndex         The in-memory index serving typeahead suggestions.
+     * @param inventoryChangeStream    The stream pushing stock and price changes to subscribers.
+     * @param invalidationBus          The bus telling the other nodes of the service about every committed write.
+     * @param validator                The validator used to check imported phone requests.
+     * @param objectMapper             The object mapper used to serialize exported phones.
+     * @param defaultPageSize          The page size used when a listing request does not specify one.
+     * @param maxPageSize              The upper bound of the page size a listing request may ask for.
+     * @param exportFlushRows          The number of exported phones after which the output is flushed to the client.
+     * @param importBatchSize          The number of imported phones written to the database in a single JDBC batch.
+     * @param importMaxRows            The maximum number of rows accepted in a single import.
+     * @param defaultSuggestLimit      The number of suggestions returned when a typeahead request does not specify one.
+     * @param maxSuggestLimit          The upper bound of the number of suggestions a typeahead request may ask for.
+     * @param batchMaxIds              The maximum number of IDs accepted in a single batch lookup.
+     * @param batchChunkSize           The maximum number of IDs looked up in a single {@code IN} query.
      */
     @Autowired
-    PhoneShopServiceImpl(PhoneRepository phoneRepository) {
+    PhoneShopServiceImpl(
+            PhoneRepository phoneRepository,
+            PhoneTombstoneRepository phoneTombstoneRepository,
+            EntityManager entityManager,
+            PhoneCache phoneCache,
+            @Value("${phone-shop.cache.load-timeout:5s}") Duration loadTimeout,
+            CatalogVersion catalogVersion,
+            CatalogSnapshotManager catalogSnapshotManager,
+            ChangeVersions changeVersions,
+            HotStockManager hotStockManager,
+            PhoneSearchIndex phoneSearchIndex,
+            InventoryChangeStream inventoryChangeStream,
+            InvalidationBus invalidationBus,
+            Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${phone-shop.pagination.default-size:20}") int defaultPageSize,
+            @Value("${phone-shop.pagination.max-size:100}") int maxPageSize,
+            @Value("${phone-shop.export.flush-rows:1000}") int exportFlushRows,
+            @Value("${phone-shop.import.batch-size:50}") int importBatchSize,
+            @Value("${phone-shop.import.max-rows:10000}") int importMaxRows,
+            @Value("${phone-shop.suggest.default-limit:10}") int defaultSuggestLimit,
+            @Value("${phone-shop.suggest.max-limit:50}") int maxSuggestLimit,
+            @Value("${phone-shop.batch.max-ids:1000}") int batchMaxIds,
+            @Value("${phone-shop.batch.chunk-size:100}") int batchChunkSize
+    ) {
         this.phoneRepository = phoneRepository;
+        this.phoneTombstoneRepository = phoneTombstoneRepository;
+        this.entityManager = entityManager;
+        this.phoneCache = phoneCache;
+        this.phoneLoads = new SingleFlight<>(loadTimeout);
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshotManager = catalogSnapshotManager;
+        this.changeVersions = changeVersions;
+        this.hotStockManager = hotStockManager;
+        this.phoneSearchIndex = phoneSearchIndex;
+        this.inventoryChangeStream = inventoryChangeStream;
+        this.invalidationBus = invalidationBus;
+        this.validator = validator;
+        this.exportWriter = objectMapper.writerFor(Phone.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportFlushRows = exportFlushRows;
+        this.importBatchSize = importBatchSize;
+        this.importMaxRows = importMaxRows;
+        this.defaultSuggestLimit = defaultSuggestLimit;
+        this.maxSuggestLimit = maxSuggestLimit;
+        this.batchMaxIds = batchMaxIds;
+        this.batchChunkSize = batchChunkSize;
     }
 
     /**
@@ -43,31 +210,161 @@ public class PhoneShopServiceImpl implements PhoneShopService {
     @Transactional
     public Phone addNewPhoneToShop(PhoneRequest phoneRequest) {
         Phone phone = PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest);
-        return phoneRepository.save(phone);
+        phone.setChangeVersion(changeVersions.forCurrentTransaction());
+        phone = phoneRepository.save(phone);
+        phoneSearchIndex.putAfterCommit(List.of(phone));
+        inventoryChangeStream.publishAfterCommit(phone.getId());
+        invalidationBus.publishAfterCommit(phone.getId());
+        catalogVersion.advanceAfterCommit();
+        return phone;
+    }
+
+    /**
+     * Adds many new phones to the shop at once based on the provided {@link PhoneRequest}s.
+     * All requests are validated in a single pass first; the valid ones are then written with JDBC batch inserts,
+     * flushing and clearing the persistence context after every batch.
+     *
+     * @param phoneRequests The requests containing information to create new phones.
+     * @return The report of the import, listing the rejected rows with their 1-based positions.
+     * @throws IllegalArgumentException if the number of requests exceeds the configured maximum.
+     */
+    @Override
+    @Transactional
+    public ImportReport importPhonesToShop(List<PhoneRequest> phoneRequests) {
+        return importValidPhones(phoneRequests, new ArrayList<>());
+    }
+
+    /**
+     * Adds many new phones to the shop at once based on CSV data in the format described by {@link PhoneCsvReader}.
+     * Rows that cannot be parsed are rejected alongside the invalid ones; the valid rows are written
+     * with JDBC batch inserts, flushing and clearing the persistence context after every batch.
+     *
+     * @param inputStream The stream of CSV data containing information to create new phones.
+     * @return The report of the import, listing the rejected rows with their 1-based positions.
+     * @throws IOException              if reading from the stream fails.
+     * @throws IllegalArgumentException if the CSV header is invalid or the number of rows exceeds the configured maximum.
+     */
+    @Override
+    @Transactional
+    public ImportReport importPhonesToShopFromCsv(InputStream inputStream) throws IOException {
+        List<ImportRowError> errors = new ArrayList<>();
+        List<PhoneRequest> phoneRequests = PhoneCsvReader.read(inputStream, errors);
+        return importValidPhones(phoneRequests, errors);
     }
 
     /**
      * Retrieves a phone from the shop based on the provided ID.
+     * Phones are served from the {@link PhoneCache} when present; otherwise they are loaded from the repository
+     * and cached. Concurrent cache misses for the same ID share a single repository load. No transaction is opened,
+     * so cache hits do not touch the connection pool.
      *
      * @param id The ID of the phone to retrieve.
      * @return The retrieved {@link Phone} entity.
      * @throws NoSuchElementException if no phone is found with the specified ID.
+     * @throws org.springframework.dao.QueryTimeoutException if waiting for a concurrent load of the phone timed out.
      */
     @Override
-    @Transactional
     public Phone getPhoneFromShop(int id) {
-        Optional<Phone> phone = phoneRepository.findById(id);
+        Optional<Phone> cachedPhone = phoneCache.get(id);
+        if (cachedPhone.isPresent()) {
+            return cachedPhone.get();
+        }
+        Optional<Phone> phone = phoneLoads.load(id, () -> {
+            long generation = phoneCache.generation();
+            Optional<Phone> loadedPhone = phoneRepository.findById(id);
+            loadedPhone.ifPresent(value -> phoneCache.put(id, value, generation));
+            return loadedPhone;
+        });
         return phone.orElseThrow(() -> new NoSuchElementException("Phone with ID " + id + " not found"));
     }
 
     /**
-     * Retrieves all phones from the shop.
+     * Retrieves many phones from the shop at once based on the provided IDs.
+     * Phones held by the {@link PhoneCache} are served from it; the other IDs are deduplicated and loaded
+     * with {@code IN} queries of at most the configured chunk size each, and the loaded phones are cached.
+     * No transaction is opened around the queries.
+     *
+     * @param ids The IDs of the phones to retrieve.
+     * @return One lookup result per requested ID, in request order, telling whether the phone was found.
+     * @throws IllegalArgumentException if no ID, a {@code null} ID or more than the configured maximum of IDs is given.
+     */
+    @Override
+    public List<PhoneLookup> getPhonesFromShop(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one ID should be given");
+        }
+        if (ids.size() > batchMaxIds) {
+            throw new IllegalArgumentException("No more than " + batchMaxIds + " IDs should be given");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("IDs should not be null");
+        }
+
+        Map<Integer, Phone> phones = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+        for (int id : new LinkedHashSet<>(ids)) {
+            Optional<Phone> cachedPhone = phoneCache.get(id);
+            if (cachedPhone.isPresent()) {
+                phones.put(id, cachedPhone.get());
+            } else {
+                missingIds.add(id);
+            }
+        }
+        for (int from = 0; from < missingIds.size(); from += batchChunkSize) {
+            List<Integer> chunk = missingIds.subList(from, Math.min(from + batchChunkSize, missingIds.size()));
+            long generation = phoneCache.generation();
+            for (Phone phone : phoneRepository.findAllById(chunk)) {
+                phoneCache.put(phone.getId(), phone, generation);
+                phones.put(phone.getId(), phone);
+            }
+        }
+
+        List<PhoneLookup> lookups = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Phone phone = phones.get(id);
+            lookups.add(new PhoneLookup(id, phone != null, phone));
+        }
+        return lookups;
+    }
+
+    /**
+     * Retrieves only the version of a phone from the shop based on the provided ID.
+     * The version of a cached phone is returned without querying the database; otherwise only the version
+     * column is read, without loading the phone.
+     *
+     * @param id The ID of the phone.
+     * @return The version of the phone with the specified ID.
+     * @throws NoSuchElementException if no phone is found with the specified ID.
+     */
+    @Override
+    public long getPhoneVersionFromShop(int id) {
+        Optional<Phone> cachedPhone = phoneCache.get(id);
+        if (cachedPhone.isPresent()) {
+            return cachedPhone.get().getVersion();
+        }
+        return phoneRepository.findVersionById(id)
+                .orElseThrow(() -> new NoSuchElementException("Phone with ID " + id + " not found"));
+    }
+
+    /**
+     * Retrieves the version of the catalog as a whole, which is held in memory and never queries the database.
+     *
+     * @return The current catalog version.
+     */
+    @Override
+    public String getCatalogVersionFromShop() {
+        return catalogVersion.current();
+    }
+
+    /**
+     * Retrieves all phones from the shop in a read-only transaction, so that the loaded phones are neither
+     * snapshotted for dirty checking nor flushed.
      *
      * @return A list of all {@link Phone} entities in the shop.
      * @throws EmptyResultDataAccessException if no phones are found in the shop.
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Phone> getAllPhonesFromShop() {
         List<Phone> phoneList = phoneRepository.findAll();
         if (!phoneList.isEmpty()) {
@@ -77,8 +374,216 @@ public class PhoneShopServiceImpl implements PhoneShopService {
         }
     }
 
+    /**
+     * Retrieves the pre-encoded snapshot of all phones in the shop, held by the {@link CatalogSnapshotManager}
+     * and rebuilt in the background after every committed write. Serving it neither queries the database
+     * nor serializes any phone.
+     *
+     * @return The latest snapshot, or an empty Optional if snapshots are disabled or not built yet.
+     * @throws EmptyResultDataAccessException if the snapshot contains no phones.
+     */
+    @Override
+    public Optional<CatalogSnapshot> getCatalogSnapshotFromShop() {
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotManager.current();
+        if (snapshot.isPresent() && snapshot.get().getPhoneCount() == 0) {
+            throw new EmptyResultDataAccessException("No phones found", 1);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Retrieves a single page of phones from the shop using keyset pagination on {@code (sort property, id)}.
+     * Each page is fetched with a bounded index range query, so its cost does not depend on the page position
+     * or on the size of the catalog. The page is read in a read-only transaction.
+     *
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     *                  Ignored when a cursor is given.
+     * @return The page of phones together with the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor, page size, sort property or direction is invalid.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PhonePage getPhonesPageFromShop(String cursor, Integer size, String sort, String direction) {
+        return findPhonesPage(PhoneSpecifications.all(), cursor, size, sort, direction);
+    }
+
+    /**
+     * Searches the shop for phones matching the provided {@link PhoneSearchCriteria}, one keyset-paginated page
+     * at a time. All present filters are combined into a single dynamic query, run in a read-only transaction.
+     *
+     * @param criteria  The filters the phones must satisfy.
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     *                  Ignored when a cursor is given.
+     * @return The page of matching phones together with the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor, page size, sort property or direction is invalid.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PhonePage searchPhonesInShop(
+            PhoneSearchCriteria criteria,
+            String cursor,
+            Integer size,
+            String sort,
+            String direction
+    ) {
+        return findPhonesPage(PhoneSpecifications.matching(criteria), cursor, size, sort, direction);
+    }
+
+    /**
+     * Retrieves a single page of phone summaries from the shop, ordered by ID and paginated by the last ID seen.
+     * Only the summarized columns are selected, straight into {@link PhoneSummary} instances, in a read-only
+     * transaction, so no {@link Phone} entity is hydrated, snapshotted for dirty checking or flushed.
+     *
+     * @param afterId The ID of the last phone of the previous page, or {@code null} for the first page.
+     * @param size    The maximum number of phone summaries on the page, or {@code null} for the default page size.
+     * @return The page of phone summaries together with the ID to continue after.
+     * @throws IllegalArgumentException if the page size is invalid.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PhoneSummaryPage getPhoneSummariesFromShop(Integer afterId, Integer size) {
+        int pageSize = resolvePageSize(size);
+        List<PhoneSummary> summaries = phoneRepository.findSummariesAfter(
+                afterId != null ? afterId : 0,
+                PageRequest.of(0, pageSize + 1)
+        );
+        boolean hasMore = summaries.size() > pageSize;
+        List<PhoneSummary> content = hasMore ? summaries.subList(0, pageSize) : summaries;
+        Integer nextAfterId = hasMore ? content.get(content.size() - 1).getId() : null;
+        return new PhoneSummaryPage(content, content.size(), nextAfterId);
+    }
+
+    /**
+     * Suggests phones from the shop whose manufacturer, model or color words start with the words typed so far.
+     * Suggestions are served from the in-memory {@link PhoneSearchIndex} without querying the database.
+     *
+     * @param query The query typed so far.
+     * @param limit The maximum number of suggestions, or {@code null} for the default number.
+     * @return The suggested phones, best match first.
+     * @throws IllegalArgumentException if the limit is not positive.
+     */
+    @Override
+    public List<PhoneSuggestion> suggestPhonesInShop(String query, Integer limit) {
+        if (limit == null) {
+            return phoneSearchIndex.suggest(query, defaultSuggestLimit);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit should be greater than zero");
+        }
+        return phoneSearchIndex.suggest(query, Math.min(limit, maxSuggestLimit));
+    }
+
+    /**
+     * Retrieves the phones created, updated or deleted in the shop after the given position in change version order,
+     * so that a replica can keep its copy of the catalog in sync at a cost proportional to the number of changes.
+     * Written phones and tombstones of deleted phones are each read with a bounded index range query on
+     * {@code (change version, id)} and merged. Changes are returned only up to the change version below which every
+     * write has completed, so that a write committed late is never skipped; see {@link ChangeVersions}.
+     * No transaction is opened around the queries, which run in read-only transactions of their own: the bound
+     * already keeps them consistent, and reading it may take a value from the change version sequence,
+     * which a read-only transaction does not allow.
+     *
+     * @param since   The change version of the last change already seen, or {@code null} to start from the beginning.
+     * @param afterId The ID of the last change already seen at that version, or {@code null} for none.
+     * @param size    The maximum number of changes on the page, or {@code null} for the default page size.
+     * @return The page of changes together with the position of the next page.
+     * @throws IllegalArgumentException   if the change version or page size is invalid.
+     * @throws DeltaSyncDisabledException if the delta sync is disabled.
+     */
+    @Override
+    public PhoneChangePage getPhoneChangesFromShop(Long since, Integer afterId, Integer size) {
+        if (since != null && since < 0) {
+            throw new IllegalArgumentException("Change version should not be negative");
+        }
+        int pageSize = resolvePageSize(size);
+        long fromVersion = since != null ? since : 0;
+        int fromId = afterId != null ? afterId : 0;
+        long upTo = changeVersions.safeVersion();
+
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        Iterator<Phone> phones = phoneRepository.findChangedSince(fromVersion, fromId, upTo, limit).iterator();
+        Iterator<PhoneTombstone> tombstones =
+                phoneTombstoneRepository.findRecordedSince(fromVersion, fromId, upTo, limit).iterator();
+        Phone phone = phones.hasNext() ? phones.next() : null;
+        PhoneTombstone tombstone = tombstones.hasNext() ? tombstones.next() : null;
+        List<PhoneChange> changes = new ArrayList<>(pageSize);
+        while (changes.size() <= pageSize && (phone != null || tombstone != null)) {
+            if (tombstone == null || (phone != null && (phone.getChangeVersion() < tombstone.getChangeVersion()
+                    || phone.getChangeVersion() == tombstone.getChangeVersion() && phone.getId() < tombstone.getPhoneId()))) {
+                changes.add(new PhoneChange(phone.getChangeVersion(), phone.getId(), false, phone));
+                phone = phones.hasNext() ? phones.next() : null;
+            } else {
+                changes.add(new PhoneChange(tombstone.getChangeVersion(), tombstone.getPhoneId(), true, null));
+                tombstone = tombstones.hasNext() ? tombstones.next() : null;
+            }
+        }
+
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes.remove(pageSize);
+        }
+        if (changes.isEmpty()) {
+            return new PhoneChangePage(changes, fromVersion, fromId, false);
+        }
+        PhoneChange last = changes.get(changes.size() - 1);
+        return new PhoneChangePage(changes, last.getChangeVersion(), last.getId(), hasMore);
+    }
+
+    /**
+     * Subscribes to the stock and price changes of phones in the shop, pushed as Server-Sent Events by the
+     * {@link InventoryChangeStream}. Changes of the same phone within a coalescing window are sent once.
+     *
+     * @return The emitter the changes are sent through.
+     */
+    @Override
+    public SseEmitter subscribeToInventoryChanges() {
+        return inventoryChangeStream.subscribe();
+    }
+
+    /**
+     * Exports all phones from the shop as newline-delimited JSON.
+     * Phones are read through a forward-only database cursor and each one is detached from the persistence
+     * context as soon as it has been written, so memory usage stays flat regardless of the catalog size.
+     * The output is flushed after the first phone and then every configured number of phones.
+     *
+     * @param outputStream The stream the exported phones are written to.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAllPhonesFromShop(OutputStream outputStream) throws IOException {
+        try (Stream<Phone> phoneStream = phoneRepository.streamAllOrderById();
+             JsonGenerator generator = exportWriter.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            long written = 0;
+            Iterator<Phone> phones = phoneStream.iterator();
+            while (phones.hasNext()) {
+                Phone phone = phones.next();
+                exportWriter.writeValue(generator, phone);
+                generator.writeRaw('\n');
+                entityManager.detach(phone);
+                written++;
+                if (written == 1 || written % exportFlushRows == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+    }
+
     /**
      * Updates the information of a phone in the shop based on the provided ID and {@link PhoneRequest}.
+     * The phone is updated with a single UPDATE statement, whose affected row count tells whether it exists.
+     * Any in-memory stock of a hot phone is discarded, since the request sets its quantity. The updated phone
+     * is then read back from the database, so it carries the version bumped by the UPDATE.
+     * The cached phone is evicted once the transaction has committed.
      *
      * @param id            The ID of the phone to update.
      * @param phoneRequest  The request containing updated information for the phone.
@@ -89,18 +594,124 @@ public class PhoneShopServiceImpl implements PhoneShopService {
     @Transactional
     public Phone updatePhoneInfoInShop(int id, PhoneRequest phoneRequest) {
         Phone phone = PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest);
-        Optional<Phone> previousPhone = phoneRepository.findById(id);
-        if (previousPhone.isPresent()) {
-            phone.setId(id);
-            phoneRepository.save(phone);
-            return phone;
+        phone.setId(id);
+        phone.setChangeVersion(changeVersions.forCurrentTransaction());
+        int updatedRows = hotStockManager.overwriteStock(id, () -> phoneRepository.updateById(
+                id,
+                phone.getManufacturer(),
+                phone.getModel(),
+                phone.getStorageSize(),
+                phone.getColor(),
+                phone.getCost(),
+                phone.getQuantity(),
+                phone.getChangeVersion()
+        ));
+        if (updatedRows == 0) {
+            throw new NoSuchElementException("Phone with ID " + id + " not found");
+        }
+        phoneCache.invalidateAfterCommit(id);
+        Phone updatedPhone = phoneRepository.findUncachedById(id)
+                .orElseThrow(() -> new NoSuchElementException("Phone with ID " + id + " not found"));
+        phoneSearchIndex.putAfterCommit(List.of(updatedPhone));
+        inventoryChangeStream.publishAfterCommit(id);
+        invalidationBus.publishAfterCommit(id);
+        catalogVersion.advanceAfterCommit();
+        return updatedPhone;
+    }
+
+    /**
+     * Partially updates the information of a phone in the shop based on the provided ID and {@link PhonePatchRequest}.
+     * Only the columns of the attributes present in the request are updated, with a single UPDATE statement;
+     * the updated phone is then read back from the database. If the request sets the quantity, any in-memory stock
+     * of a hot phone is discarded. The cached phone is evicted once the transaction has committed.
+     *
+     * @param id                The ID of the phone to update.
+     * @param phonePatchRequest The request containing the attributes to change.
+     * @return The updated {@link Phone} entity.
+     * @throws NoSuchElementException if no phone is found with the specified ID.
+     */
+    @Override
+    @Transactional
+    public Phone patchPhoneInfoInShop(int id, PhonePatchRequest phonePatchRequest) {
+        long changeVersion = changeVersions.forCurrentTransaction();
+        int updatedRows = phonePatchRequest.getQuantity() != null
+                ? hotStockManager.overwriteStock(id, () -> phoneRepository.patchById(id, phonePatchRequest, changeVersion))
+                : phoneRepository.patchById(id, phonePatchRequest, changeVersion);
+        if (updatedRows == 0) {
+            throw new NoSuchElementException("Phone with ID " + id + " not found");
+        }
+        phoneCache.invalidateAfterCommit(id);
+        Phone phone = phoneRepository.findUncachedById(id)
+                .orElseThrow(() -> new NoSuchElementException("Phone with ID " + id + " not found"));
+        phoneSearchIndex.putAfterCommit(List.of(phone));
+        if (phonePatchRequest.getQuantity() != null || phonePatchRequest.getCost() != null) {
+            inventoryChangeStream.publishAfterCommit(id);
+        }
+        invalidationBus.publishAfterCommit(id);
+        catalogVersion.advanceAfterCommit();
+        return phone;
+    }
+
+    /**
+     * Reserves units of a phone in the shop with a single conditional UPDATE statement, which decrements
+     * the quantity only if enough units are in stock. Concurrent reservations are serialized by the database
+     * row lock, so no update is lost and the quantity never goes below zero. The cached phone is then evicted.
+     * Reservations of hot phones are served from memory by the {@link HotStockManager} instead.
+     *
+     * @param id       The ID of the phone to reserve.
+     * @param quantity The number of units to reserve.
+     * @return A message indicating the successful reservation.
+     * @throws NoSuchElementException     if no phone is found with the specified ID.
+     * @throws InsufficientStockException if the phone does not have enough units in stock.
+     */
+    @Override
+    public Message reservePhoneStockInShop(int id, int quantity) {
+        if (hotStockManager.isHot(id)) {
+            hotStockManager.reserve(id, quantity);
+        } else if (changeVersions.write(changeVersion -> phoneRepository.reserveStock(id, quantity, changeVersion)) == 0) {
+            if (!phoneRepository.existsById(id)) {
+                throw new NoSuchElementException("Phone with ID " + id + " not found");
+            }
+            throw new InsufficientStockException("Phone with ID " + id + " has fewer than " + quantity + " units in stock");
         } else {
+            phoneCache.invalidate(id);
+            inventoryChangeStream.publish(id);
+            invalidationBus.publish(id);
+            catalogVersion.advance();
+        }
+        return new Message(quantity + " units of the phone with the id = " + id + " have been successfully reserved!");
+    }
+
+    /**
+     * Releases previously reserved units of a phone in the shop with a single UPDATE statement,
+     * which increments the quantity. The cached phone is then evicted.
+     * Units of hot phones are released into their in-memory stock by the {@link HotStockManager} instead.
+     *
+     * @param id       The ID of the phone to release.
+     * @param quantity The number of units to release.
+     * @return A message indicating the successful release.
+     * @throws NoSuchElementException if no phone is found with the specified ID.
+     */
+    @Override
+    public Message releasePhoneStockInShop(int id, int quantity) {
+        if (hotStockManager.isHot(id)) {
+            hotStockManager.release(id, quantity);
+        } else if (changeVersions.write(changeVersion -> phoneRepository.releaseStock(id, quantity, changeVersion)) == 0) {
             throw new NoSuchElementException("Phone with ID " + id + " not found");
+        } else {
+            phoneCache.invalidate(id);
+            inventoryChangeStream.publish(id);
+            invalidationBus.publish(id);
+            catalogVersion.advance();
         }
+        return new Message(quantity + " units of the phone with the id = " + id + " have been successfully released!");
     }
 
     /**
      * Deletes a phone from the shop based on the provided ID.
+     * The phone is deleted with a single DELETE statement, whose affected row count tells whether it existed,
+     * and a tombstone recording the deletion is inserted for the delta sync. The cached phone and any in-memory
+     * stock of it are dropped once the transaction has committed.
      *
      * @param id The ID of the phone to delete.
      * @return A message indicating the successful deletion of the phone.
@@ -109,13 +720,144 @@ public class PhoneShopServiceImpl implements PhoneShopService {
     @Override
     @Transactional
     public Message deletePhoneFromShop(int id) {
-        Optional<Phone> phone = phoneRepository.findById(id);
-        if (phone.isPresent()) {
-            phoneRepository.deleteById(id);
-            return new Message("The phone with the id = " + id + " has been successfully deleted!");
-        } else {
+        if (phoneRepository.deletePhoneById(id) == 0) {
             throw new NoSuchElementException("Phone with ID " + id + " not found");
         }
+        phoneTombstoneRepository.insertTombstone(id, changeVersions.forCurrentTransaction());
+        phoneCache.invalidateAfterCommit(id);
+        hotStockManager.discardAfterCommit(id);
+        phoneSearchIndex.removeAfterCommit(id);
+        inventoryChangeStream.publishAfterCommit(id);
+        invalidationBus.publishAfterCommit(id);
+        catalogVersion.advanceAfterCommit();
+        return new Message("The phone with the id = " + id + " has been successfully deleted!");
+    }
+
+    /**
+     * Resolves the effective page size of a listing request.
+     *
+     * @param size The requested page size, or {@code null} for the default page size.
+     * @return The requested page size capped at the configured maximum.
+     * @throws IllegalArgumentException if the requested page size is not positive.
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size should be greater than zero");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    /**
+     * Validates the given phone requests and stores the valid ones in JDBC batches.
+     *
+     * @param phoneRequests The requests to import; {@code null} elements stand for rows already rejected.
+     * @param errors        The rows already rejected; validation errors are added to this list.
+     * @return The report of the import.
+     * @throws IllegalArgumentException if the number of requests exceeds the configured maximum.
+     */
+    private ImportReport importValidPhones(List<PhoneRequest> phoneRequests, List<ImportRowError> errors) {
+        if (phoneRequests.size() > importMaxRows) {
+            throw new IllegalArgumentException("Import should not contain more than " + importMaxRows + " rows");
+        }
+
+        List<Phone> batch = new ArrayList<>(importBatchSize);
+        int imported = 0;
+        for (int i = 0; i < phoneRequests.size(); i++) {
+            PhoneRequest phoneRequest = phoneRequests.get(i);
+            if (phoneRequest == null) {
+                continue;
+            }
+            Set<ConstraintViolation<PhoneRequest>> violations = validator.validate(phoneRequest);
+            if (!violations.isEmpty()) {
+                errors.add(new ImportRowError(i + 1, violations.stream().map(ConstraintViolation::getMessage).sorted().toList()));
+                continue;
+            }
+            batch.add(PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest));
+            if (batch.size() == importBatchSize) {
+                imported += writeBatch(batch);
+            }
+        }
+        imported += writeBatch(batch);
+
+        errors.sort(Comparator.comparingInt(ImportRowError::getRow));
+        return new ImportReport(phoneRequests.size(), imported, errors);
+    }
+
+    /**
+     * Writes a batch of new phones, flushes it to the database and clears the persistence context.
+     *
+     * @param batch The phones to write; emptied afterwards.
+     * @return The number of phones written.
+     */
+    private int writeBatch(List<Phone> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int written = batch.size();
+        long changeVersion = changeVersions.forCurrentTransaction();
+        batch.forEach(phone -> phone.setChangeVersion(changeVersion));
+        phoneRepository.saveAll(batch);
+        phoneRepository.flush();
+        List<Integer> ids = batch.stream().map(Phone::getId).toList();
+        phoneSearchIndex.putAfterCommit(batch);
+        inventoryChangeStream.publishAfterCommit(ids);
+        invalidationBus.publishAfterCommit(ids);
+        catalogVersion.advanceAfterCommit();
+        entityManager.clear();
+        batch.clear();
+        return written;
+    }
+
+    /**
+     * Retrieves a single page of the phones matching a specification using keyset pagination
+     * on {@code (sort property, id)}.
+     *
+     * @param specification The specification the phones must match.
+     * @param cursor        The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size          The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort          The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction     The sort direction, or {@code null} for ascending. Ignored when a cursor is given.
+     * @return The page of phones together with the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor, page size, sort property or direction is invalid.
+     */
+    private PhonePage findPhonesPage(
+            Specification<Phone> specification,
+            String cursor,
+            Integer size,
+            String sort,
+            String direction
+    ) {
+        int pageSize = resolvePageSize(size);
+        PhoneSortField sortField;
+        Sort.Direction sortDirection;
+        ScrollPosition position;
+        if (cursor != null) {
+            PhonePageCursor pageCursor = PhonePageCursor.decode(cursor);
+            sortField = pageCursor.getSortField();
+            sortDirection = pageCursor.getDirection();
+            position = pageCursor.toScrollPosition();
+        } else {
+            sortField = sort != null ? PhoneSortField.fromProperty(sort) : PhoneSortField.ID;
+            sortDirection = direction != null ? Sort.Direction.fromString(direction) : Sort.Direction.ASC;
+            position = ScrollPosition.keyset();
+        }
+
+        Sort keysetSort = sortField == PhoneSortField.ID
+                ? Sort.by(sortDirection, "id")
+                : Sort.by(sortDirection, sortField.getProperty(), "id");
+        Window<Phone> window = phoneRepository.findBy(
+                specification,
+                query -> query.sortBy(keysetSort).limit(pageSize).scroll(position)
+        );
+
+        List<Phone> content = window.getContent();
+        String nextCursor = window.hasNext() && !content.isEmpty()
+                ? PhonePageCursor.after(sortField, sortDirection, content.get(content.size() - 1)).encode()
+                : null;
+        return new PhonePage(content, content.size(), nextCursor);
     }
 
 }
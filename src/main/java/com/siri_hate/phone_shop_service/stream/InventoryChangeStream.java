@@ -0,0 +1,340 @@
+package com.siri_hate.phone_shop_service.stream;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.InventoryChange;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes the stock and price changes of phones to subscribers as Server-Sent Events.
+ *
+ * <p>Writes report the IDs of changed phones once their transaction has committed. The IDs are collected in a set,
+ * so bursts of writes to the same phone coalesce, and every coalescing window the latest state of all collected
+ * phones is loaded with a single query and offered to every subscriber. Each subscriber buffers its pending changes
+ * in an {@link InventorySubscription} of bounded size and is sent to by a shared pool of threads, so a slow
+ * subscriber holds up at most one sending thread and never the writes or the flush. The pool keeps a few threads
+ * and starts more while all of them are busy, up to a fixed maximum; a subscriber that finds no thread free is
+ * dropped. A subscriber whose send has not returned within the send timeout is dropped too, and its sending thread
+ * is interrupted. Containers whose blocking writes are interruptible release the thread at once; Tomcat ignores the
+ * interrupt and releases it when the write times out after {@code server.tomcat.connection-timeout}, which the
+ * maximum pool size bounds the cost of. Idle subscribers hold no thread at all: the response is kept open
+ * asynchronously by the servlet container, and a heartbeat comment is sent periodically to detect closed
+ * connections. When virtual threads are enabled and available, every subscriber being sent to gets a virtual thread
+ * of its own instead.
+ */
+@Component
+@Log4j2
+public class InventoryChangeStream {
+
+    private final PhoneRepository phoneRepository;
+
+    private final int bufferSize;
+
+    private final Duration timeout;
+
+    private final Duration sendTimeout;
+
+    private final Set<Integer> changedIds = ConcurrentHashMap.newKeySet();
+
+    private final Set<InventorySubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final Executor sendExecutor;
+
+    private final int maxSendThreads;
+
+    private final Counter overflows;
+
+    private final Counter sendTimeouts;
+
+    private final Counter sendRejections;
+
+    /**
+     * Constructs a new {@code InventoryChangeStream} and publishes the number of subscribers, overflows and dropped
+     * subscribers as metrics.
+     *
+     * @param phoneRepository The repository the latest state of the changed phones is loaded from.
+     * @param meterRegistry   The registry the stream metrics are published to.
+     * @param bufferSize      The maximum number of distinct phones with changes pending for a single subscriber.
+     * @param timeout         The time after which a subscription is closed, to be reopened by the client.
+     * @param sendTimeout     The time after which a subscriber whose send has not returned is dropped.
+     * @param sendThreads     The number of platform threads kept for sending events to subscribers.
+     * @param maxSendThreads  The maximum number of platform threads sending events to subscribers at once.
+     * @param virtualThreads  Whether to send events on virtual threads instead, if the Java runtime supports them.
+     */
+    @Autowired
+    public InventoryChangeStream(
+            PhoneRepository phoneRepository,
+            MeterRegistry meterRegistry,
+            @Value("${phone-shop.inventory-stream.buffer-size:1000}") int bufferSize,
+            @Value("${phone-shop.inventory-stream.timeout:30m}") Duration timeout,
+            @Value("${phone-shop.inventory-stream.send-timeout:PT5S}") Duration sendTimeout,
+            @Value("${phone-shop.inventory-stream.send-threads:2}") int sendThreads,
+            @Value("${phone-shop.inventory-stream.max-send-threads:16}") int maxSendThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.phoneRepository = phoneRepository;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+        this.maxSendThreads = maxSendThreads;
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            this.sendExecutor = new VirtualThreadTaskExecutor("inventory-stream-");
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.sendExecutor = new ThreadPoolExecutor(sendThreads, maxSendThreads, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "inventory-stream-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        this.overflows = Counter.builder("phone-shop.inventory-stream.overflows")
+                .description("Number of times a slow subscriber fell behind and was told to resync")
+                .register(meterRegistry);
+        this.sendTimeouts = Counter.builder("phone-shop.inventory-stream.dropped")
+                .description("Number of subscribers dropped because they did not take an event in time")
+                .tag("reason", "send-timeout")
+                .register(meterRegistry);
+        this.sendRejections = Counter.builder("phone-shop.inventory-stream.dropped")
+                .description("Number of subscribers dropped because they did not take an event in time")
+                .tag("reason", "no-send-thread")
+                .register(meterRegistry);
+        Gauge.builder("phone-shop.inventory-stream.subscribers", subscriptions, Set::size)
+                .description("Number of open inventory change stream subscriptions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a new subscription to the stream.
+     *
+     * @return The emitter the changes are sent through.
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout.toMillis()));
+    }
+
+    /**
+     * Opens a new subscription to the stream through the given emitter. The subscription is closed when the emitter
+     * completes, times out or fails.
+     *
+     * @param emitter The emitter the changes are sent through.
+     * @return The given emitter.
+     */
+    public SseEmitter subscribe(SseEmitter emitter) {
+        InventorySubscription subscription = new InventorySubscription(emitter, bufferSize);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        return emitter;
+    }
+
+    /**
+     * Reports a change of the stock or price of the phone with the given ID once the current transaction
+     * has committed, or immediately if no transaction is active.
+     *
+     * @param id The ID of the changed phone.
+     */
+    public void publishAfterCommit(int id) {
+        TransactionCallbacks.afterCommit(() -> publish(id));
+    }
+
+    /**
+     * Reports changes of the stock or price of the phones with the given IDs once the current transaction
+     * has committed, or immediately if no transaction is active. {@code null} IDs are skipped.
+     *
+     * @param ids The IDs of the changed phones.
+     */
+    public void publishAfterCommit(Collection<Integer> ids) {
+        TransactionCallbacks.afterCommit(() -> ids.stream().filter(Objects::nonNull).forEach(this::publish));
+    }
+
+    /**
+     * Reports a change of the stock or price of the phone with the given ID. The change is sent with the next flush.
+     *
+     * @param id The ID of the changed phone.
+     */
+    public void publish(int id) {
+        if (!subscriptions.isEmpty()) {
+            changedIds.add(id);
+        }
+    }
+
+    /**
+     * Loads the latest state of the phones changed since the last flush with a single query and offers it
+     * to every subscriber. Runs once per coalescing window.
+     */
+    @Scheduled(fixedDelayString = "${phone-shop.inventory-stream.coalesce-window:PT0.25S}")
+    public void flush() {
+        dropStalled();
+        if (subscriptions.isEmpty()) {
+            changedIds.clear();
+            return;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (Iterator<Integer> iterator = changedIds.iterator(); iterator.hasNext(); ) {
+            ids.add(iterator.next());
+            iterator.remove();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Phone> phones;
+        try {
+            phones = phoneRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Phone::getId, Function.identity()));
+        } catch (RuntimeException e) {
+            changedIds.addAll(ids);
+            log.error("Failed to load {} changed phones for the inventory change stream", ids.size(), e);
+            return;
+        }
+        List<InventoryChange> changes = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Phone phone = phones.get(id);
+            changes.add(phone != null
+                    ? new InventoryChange(id, phone.getQuantity(), phone.getCost(), false)
+                    : new InventoryChange(id, null, null, true));
+        }
+
+        for (InventorySubscription subscription : subscriptions) {
+            if (!subscription.offer(changes)) {
+                overflows.increment();
+            }
+            send(subscription);
+        }
+    }
+
+    /**
+     * Sends a heartbeat comment to every subscriber that has not been sent anything since the last heartbeat,
+     * so that closed connections are detected and intermediaries do not drop idle ones.
+     */
+    @Scheduled(fixedDelayString = "${phone-shop.inventory-stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        dropStalled();
+        for (InventorySubscription subscription : subscriptions) {
+            subscription.requestHeartbeat();
+            send(subscription);
+        }
+    }
+
+    /**
+     * Closes all subscriptions and stops the sending threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(subscription -> subscription.getEmitter().complete());
+        subscriptions.clear();
+        if (sendExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Drops every subscriber that has been sent to for longer than the send timeout, so no more events are
+     * buffered for it, and interrupts the thread sending to it. The emitter stays locked until the stalled write
+     * returns or fails; the sending thread then completes it.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (InventorySubscription subscription : subscriptions) {
+            if (subscription.dropIfSendingLongerThan(now, sendTimeout.toNanos())) {
+                subscriptions.remove(subscription);
+                sendTimeouts.increment();
+                log.warn("Dropped an inventory change stream subscriber that did not take an event within {}",
+                        sendTimeout);
+            }
+        }
+    }
+
+    /**
+     * Sends the pending events of a subscriber on the sending threads, unless another thread is already doing so.
+     * If every sending thread is busy, the subscriber is dropped rather than queued behind the stalled ones; nothing
+     * is being sent to it, so its emitter is completed at once.
+     *
+     * @param subscription The subscriber.
+     */
+    private void send(InventorySubscription subscription) {
+        if (!subscription.startSending()) {
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException e) {
+            if (subscriptions.remove(subscription)) {
+                sendRejections.increment();
+                log.warn("Dropped an inventory change stream subscriber, all {} sending threads are busy",
+                        Unbox.box(maxSendThreads));
+            }
+            subscription.getEmitter().complete();
+            subscription.stopSending();
+        }
+    }
+
+    /**
+     * Sends all pending events of a subscriber, dropping the subscription if sending fails, and completing it
+     * if it was dropped for not taking an event in time. The servlet container completes the response of a failed
+     * connection itself.
+     *
+     * @param subscription The subscriber.
+     */
+    private void drain(InventorySubscription subscription) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!subscription.isDropped() && (event = subscription.poll()) != null) {
+                subscription.markSendStarted();
+                try {
+                    subscription.getEmitter().send(event);
+                } finally {
+                    subscription.markSendFinished();
+                }
+            }
+            if (subscription.isDropped()) {
+                subscription.getEmitter().complete();
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscriptions.remove(subscription);
+            return;
+        } finally {
+            subscription.stopSending();
+        }
+        if (subscription.hasPending()) {
+            send(subscription);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.siri_hate.phone_shop_service.stream;
+
+import com.siri_hate.phone_shop_service.model.InventoryChange;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single subscriber of the {@link InventoryChangeStream}, holding the changes not sent to it yet.
+ *
+ * <p>Pending changes are kept in a buffer of bounded size, keyed by phone ID, so a newer change of a phone replaces
+ * an older one still waiting to be sent. If a slow subscriber falls so far behind that more distinct phones are
+ * pending than the buffer holds, the buffer is dropped and the subscriber is told to resync instead. At most one
+ * thread sends to the subscriber at a time, and the thread and start of the send in progress are recorded so a
+ * subscriber that stops taking events can be dropped and its sending thread interrupted.
+ */
+final class InventorySubscription {
+
+    private final SseEmitter emitter;
+
+    private final int capacity;
+
+    private final Map<Integer, InventoryChange> pending = new LinkedHashMap<>();
+
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    private long sendStartedNanos;
+
+    private Thread sender;
+
+    private volatile boolean dropped;
+
+    private boolean overflowed;
+
+    private boolean heartbeatDue;
+
+    /**
+     * Constructs a new {@code InventorySubscription}.
+     *
+     * @param emitter  The emitter the changes are sent through.
+     * @param capacity The maximum number of distinct phones with pending changes.
+     */
+    InventorySubscription(SseEmitter emitter, int capacity) {
+        this.emitter = emitter;
+        this.capacity = capacity;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Adds changes to the buffer, replacing the pending changes of the same phones.
+     * Changes are ignored while a resync request is pending, since the subscriber fetches all phones again anyway.
+     *
+     * @param changes The changes to add.
+     * @return {@code false} if these changes overflowed the buffer, which was then dropped; {@code true} otherwise.
+     */
+    synchronized boolean offer(List<InventoryChange> changes) {
+        if (overflowed) {
+            return true;
+        }
+        for (InventoryChange change : changes) {
+            pending.put(change.getId(), change);
+            if (pending.size() > capacity) {
+                pending.clear();
+                overflowed = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asks for a heartbeat comment to be sent if nothing else is sent first.
+     */
+    synchronized void requestHeartbeat() {
+        heartbeatDue = true;
+    }
+
+    /**
+     * Takes the next event to send: a resync request after an overflow, otherwise all pending changes at once,
+     * otherwise a due heartbeat.
+     *
+     * @return The next event, or {@code null} if there is nothing to send.
+     */
+    synchronized SseEmitter.SseEventBuilder poll() {
+        if (overflowed) {
+            overflowed = false;
+            heartbeatDue = false;
+            return SseEmitter.event().name("resync").data("Too many changes pending, fetch the changed phones again");
+        }
+        if (!pending.isEmpty()) {
+            List<InventoryChange> changes = new ArrayList<>(pending.values());
+            pending.clear();
+            heartbeatDue = false;
+            return SseEmitter.event().name("inventory").data(changes, MediaType.APPLICATION_JSON);
+        }
+        if (heartbeatDue) {
+            heartbeatDue = false;
+            return SseEmitter.event().comment("heartbeat");
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether an event is waiting to be sent.
+     *
+     * @return {@code true} if {@link #poll()} would return an event.
+     */
+    synchronized boolean hasPending() {
+        return overflowed || !pending.isEmpty() || heartbeatDue;
+    }
+
+    /**
+     * Claims the right to send to the subscriber.
+     *
+     * @return {@code true} if no other thread is sending to the subscriber.
+     */
+    boolean startSending() {
+        return sending.compareAndSet(false, true);
+    }
+
+    /**
+     * Releases the right to send to the subscriber.
+     */
+    void stopSending() {
+        sending.set(false);
+    }
+
+    /**
+     * Records that an event is being written to the subscriber by the current thread.
+     */
+    synchronized void markSendStarted() {
+        sendStartedNanos = System.nanoTime();
+        sender = Thread.currentThread();
+    }
+
+    /**
+     * Records that the event being written to the subscriber has been written, or that writing it failed,
+     * and clears an interrupt aimed at the write, so it does not reach the next task of the sending thread.
+     */
+    synchronized void markSendFinished() {
+        sender = null;
+        Thread.interrupted();
+    }
+
+    /**
+     * Marks the subscriber as dropped, so nothing more is sent to it, if an event has been written to it for longer
+     * than the given time, and interrupts the thread writing it.
+     *
+     * @param nowNanos     The current {@link System#nanoTime()}.
+     * @param timeoutNanos The longest time a single event may take to write.
+     * @return {@code true} if the subscriber was dropped.
+     */
+    synchronized boolean dropIfSendingLongerThan(long nowNanos, long timeoutNanos) {
+        if (dropped || sender == null || nowNanos - sendStartedNanos <= timeoutNanos) {
+            return false;
+        }
+        dropped = true;
+        sender.interrupt();
+        return true;
+    }
+
+    /**
+     * Tells whether the subscriber has been dropped for not taking events in time.
+     *
+     * @return {@code true} if the subscriber has been dropped.
+     */
+    boolean isDropped() {
+        return dropped;
+    }
+
+}
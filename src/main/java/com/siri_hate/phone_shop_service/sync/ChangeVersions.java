@@ -0,0 +1,148 @@
+package com.siri_hate.phone_shop_service.sync;
+
+import com.siri_hate.phone_shop_service.exception.DeltaSyncDisabledException;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Allocates the change versions stamped on written phones and tombstones, and tells up to which change version
+ * the catalog can be synced without missing a write.
+ *
+ * <p>Change versions are taken from the {@code phone_shop_change_seq} database sequence, one per write transaction,
+ * so they increase across the whole catalog. Because transactions do not commit in the order they took their
+ * versions, a reader that has seen version {@code n} may still miss a lower version committed later. Every version
+ * is therefore tracked as in flight until its write has completed, and a sync only returns changes up to
+ * {@link #safeVersion()}, below the oldest write still in flight. Only the writes of this instance are tracked,
+ * so every write to the catalog must go through a single instance for the sync to be gapless. An instance sharing
+ * the catalog with other writers is configured with {@code phone-shop.sync.single-writer=false}; the sync then
+ * refuses to start, and has to be disabled with {@code phone-shop.sync.enabled=false}.
+ */
+@Component
+public class ChangeVersions {
+
+    private final PhoneRepository phoneRepository;
+
+    private final boolean syncEnabled;
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong highestAllocated = new AtomicLong();
+
+    /**
+     * Constructs a new {@code ChangeVersions} instance.
+     *
+     * @param phoneRepository The repository used to read the change version sequence.
+     * @param syncEnabled     Whether the delta sync is served, which needs {@link #safeVersion()}.
+     * @param singleWriter    Whether every write to the catalog goes through this instance.
+     * @throws IllegalStateException if the delta sync is enabled while other instances may write to the catalog.
+     */
+    @Autowired
+    public ChangeVersions(
+            PhoneRepository phoneRepository,
+            @Value("${phone-shop.sync.enabled:true}") boolean syncEnabled,
+            @Value("${phone-shop.sync.single-writer:true}") boolean singleWriter
+    ) {
+        if (syncEnabled && !singleWriter) {
+            throw new IllegalStateException("The delta sync only tracks the writes of this instance, so it cannot "
+                    + "run with phone-shop.sync.single-writer=false; set phone-shop.sync.enabled=false "
+                    + "when several instances write to the catalog");
+        }
+        this.phoneRepository = phoneRepository;
+        this.syncEnabled = syncEnabled;
+    }
+
+    /**
+     * Returns the change version of the current transaction, allocating it on first use.
+     * The version stays in flight until the transaction has committed or rolled back.
+     *
+     * @return The change version of the current transaction.
+     * @throws IllegalStateException if no transaction is active.
+     */
+    public long forCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("No transaction is active");
+        }
+        Long bound = (Long) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return bound;
+        }
+        long version = allocate();
+        TransactionSynchronizationManager.bindResource(this, version);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeVersions.this);
+                inFlight.remove(version);
+            }
+        });
+        return version;
+    }
+
+    /**
+     * Runs a self-committing write with a newly allocated change version, which stays in flight until it returns.
+     *
+     * @param write The write, given the change version and returning the number of written rows.
+     * @return The number of written rows.
+     */
+    public int write(LongToIntFunction write) {
+        long version = allocate();
+        try {
+            return write.applyAsInt(version);
+        } finally {
+            inFlight.remove(version);
+        }
+    }
+
+    /**
+     * Returns the highest change version up to which every write of this instance has completed.
+     * The first call reads the sequence, so that writes committed before this instance started are included.
+     *
+     * @return The highest change version that can be synced without missing a write.
+     * @throws DeltaSyncDisabledException if the delta sync is disabled.
+     */
+    public long safeVersion() {
+        if (!syncEnabled) {
+            throw new DeltaSyncDisabledException("The delta sync is disabled");
+        }
+        lock.writeLock().lock();
+        try {
+            if (highestAllocated.get() == 0) {
+                highestAllocated.set(phoneRepository.nextChangeVersion());
+            }
+            return inFlight.isEmpty() ? highestAllocated.get() : inFlight.first() - 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes the next change version from the sequence and marks it in flight. Allocations run concurrently
+     * under the read lock, so that {@link #safeVersion()} never observes a version taken but not yet in flight.
+     *
+     * @return The allocated change version.
+     */
+    private long allocate() {
+        lock.readLock().lock();
+        try {
+            long version = phoneRepository.nextChangeVersion();
+            inFlight.add(version);
+            highestAllocated.accumulateAndGet(version, Math::max);
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.siri_hate.phone_shop_service.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility methods for running code at transaction boundaries.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() { }
+
+    /**
+     * Runs the given action once the current transaction has committed, or immediately if no transaction
+     * is active. The action is not run if the transaction rolls back.
+     *
+     * @param action The action to run.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the given action if the current transaction rolls back. Nothing is run if no transaction is active,
+     * since there is nothing to roll back.
+     *
+     * @param action The action to run.
+     */
+    public static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+}
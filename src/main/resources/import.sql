@@ -0,0 +1 @@
+CREATE SEQUENCE IF NOT EXISTS phone_shop_change_seq;
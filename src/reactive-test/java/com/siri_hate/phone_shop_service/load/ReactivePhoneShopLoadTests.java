@@ -0,0 +1,94 @@
+package com.siri_hate.phone_shop_service.load;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.reactive.ReactivePhoneShopApplication;
+import com.siri_hate.phone_shop_service.reactive.repository.ReactivePhoneRepository;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The end-to-end load test of {@link PhoneShopLoadTests}, run against the reactive application with the same
+ * settings and the same seeded catalog, reached through R2DBC. Only {@link Workload#CATALOG_READS} is limited to
+ * endpoints the reactive application serves, so the workloads are usually narrowed to it on the command line:
+ * {@code mvn -Preactive,load-test test -Dtest=ReactivePhoneShopLoadTests
+ * -Dphone-shop.load-test.workloads=CATALOG_READS}.
+ *
+ * <p>The R2DBC driver of H2 runs every query synchronously on the calling thread. With a connection pool, a released
+ * connection is handed to the next waiting request on the same event loop thread, which runs its query and releases
+ * the connection again, so that under saturation one event loop keeps serving the pool and stops reading its own
+ * connections. The pool is therefore disabled here; in-memory H2 connections are cheap to open.
+ */
+@SpringBootTest(
+        classes = ReactivePhoneShopApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "spring.r2dbc.url=r2dbc:h2:mem:///phone-shop-load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.r2dbc.username=sa",
+                "spring.r2dbc.password=",
+                "spring.r2dbc.pool.enabled=false"
+        }
+)
+@ActiveProfiles({"loadtest", "reactive"})
+@Import(ReactivePhoneShopLoadTests.ReactiveCatalogSeeding.class)
+@EnabledIfSystemProperty(named = "phone-shop.load-test.enabled", matches = "true")
+class ReactivePhoneShopLoadTests extends PhoneShopLoadTests {
+
+    /**
+     * Seeds the catalog with the same phones as {@link PhoneShopLoadTests.CatalogSeeding}, while the application
+     * starts and once the schema has been created.
+     */
+    @TestConfiguration
+    static class ReactiveCatalogSeeding {
+
+        private static final int SEED_BATCH_SIZE = 1000;
+
+        @Bean
+        @DependsOnDatabaseInitialization
+        SeededCatalog seededCatalog(
+                ReactivePhoneRepository phoneRepository,
+                @Value("${phone-shop.load-test.catalog-size}") int catalogSize
+        ) {
+            Random random = new Random(42);
+            int seeded = 0;
+            while (seeded < catalogSize) {
+                List<Phone> batch = new ArrayList<>(SEED_BATCH_SIZE);
+                for (int i = seeded; i < Math.min(seeded + SEED_BATCH_SIZE, catalogSize); i++) {
+                    batch.add(new Phone(
+                            null,
+                            Workload.MANUFACTURERS[random.nextInt(Workload.MANUFACTURERS.length)],
+                            "Model " + i,
+                            64 << random.nextInt(4),
+                            random.nextBoolean() ? "Black" : "White",
+                            10000 + random.nextInt(90000),
+                            i % 10 == 9 ? 0 : 1000
+                    ));
+                }
+                long changeVersion = phoneRepository.nextChangeVersion().block();
+                phoneRepository.insertAll(batch, changeVersion).block();
+                seeded += batch.size();
+            }
+            int[] phoneIds = phoneRepository.streamAllOrderById()
+                    .map(Phone::getId)
+                    .collectList()
+                    .block()
+                    .stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            return new SeededCatalog(phoneIds);
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.siri_hate.phone_shop_service.reactive;
+
+import com.siri_hate.phone_shop_service.contract.PhoneApiContractTests;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the {@link PhoneApiContractTests} against the reactive application, on a random local port
+ * with an in-memory H2 database in PostgreSQL mode reached through R2DBC.
+ */
+@SpringBootTest(
+        classes = ReactivePhoneShopApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "spring.r2dbc.url=r2dbc:h2:mem:///phone-shop-contract;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.r2dbc.username=sa",
+                "spring.r2dbc.password="
+        }
+)
+@ActiveProfiles("reactive")
+class ReactivePhoneApiContractTests extends PhoneApiContractTests {
+}
@@ -0,0 +1,45 @@
+package com.siri_hate.phone_shop_service.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The {@code ReactivePhoneShopApplication} class is the entry point of the reactive variant of the Phone Shop Service,
+ * serving the phone API on WebFlux with R2DBC database access. It is built with the {@code reactive} Maven profile
+ * and always starts with the {@code reactive} Spring profile, which switches the database access from JDBC to R2DBC.
+ *
+ * <p>Only the {@code reactive} package is scanned. Its beans are conditional on a reactive web application,
+ * so that the servlet {@code PhoneShopApplication} skips them when both are on the classpath.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePhoneShopApplication {
+
+    /**
+     * Serves the application with Reactor Netty. Without it, Spring Boot would pick the Tomcat server
+     * the servlet application brings onto the classpath.
+     *
+     * @return The factory of the Netty web server.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * The main method to start the reactive Phone Shop Service application.
+     *
+     * @param args Command line arguments passed to the application.
+     */
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactivePhoneShopApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+
+}
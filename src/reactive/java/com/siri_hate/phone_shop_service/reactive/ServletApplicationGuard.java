@@ -0,0 +1,66 @@
+package com.siri_hate.phone_shop_service.reactive;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Refuses to start the reactive variant while the servlet application is connected to the same PostgreSQL database.
+ *
+ * <p>The servlet application keeps phones, the typeahead index and the inventory stream in memory, and tracks the
+ * change versions in flight to serve a gapless delta sync. Writes of the reactive variant bypass all of these, so
+ * servlet nodes sharing its database would keep serving stale phones. The servlet application names its sessions
+ * {@code phone-shop-servlet}; at startup, the sessions of the database are looked up by that name in
+ * {@code pg_stat_activity}. Other databases are not checked.
+ *
+ * <p>This is a safeguard against mistakes, not a lock: the name is only the {@code ApplicationName} of the default
+ * servlet JDBC URL. A servlet application started with its URL or application name overridden, or connecting after
+ * this application has started, is not detected.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ServletApplicationGuard {
+
+    private static final String SERVLET_APPLICATION_NAME = "phone-shop-servlet";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Constructs a new {@code ServletApplicationGuard}.
+     *
+     * @param databaseClient The client the sessions of the database are looked up with.
+     */
+    @Autowired
+    public ServletApplicationGuard(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Checks that no session of the servlet application is connected to the database. Blocks, since it runs
+     * once at startup, before the application serves any request.
+     *
+     * @throws IllegalStateException if the servlet application is connected to the database.
+     */
+    @PostConstruct
+    public void check() {
+        String databaseProduct = databaseClient.inConnection(connection ->
+                Mono.just(connection.getMetadata().getDatabaseProductName())).block();
+        if (!"PostgreSQL".equals(databaseProduct)) {
+            return;
+        }
+        Long sessions = databaseClient.sql("select count(*) from pg_stat_activity "
+                        + "where datname = current_database() and application_name = :name")
+                .bind("name", SERVLET_APPLICATION_NAME)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+        if (sessions != null && sessions > 0) {
+            throw new IllegalStateException("The servlet application is connected to this database with " + sessions
+                    + " sessions; the servlet and reactive applications must not run against the same database");
+        }
+    }
+
+}
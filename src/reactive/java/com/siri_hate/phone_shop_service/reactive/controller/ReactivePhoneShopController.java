@@ -0,0 +1,333 @@
+package com.siri_hate.phone_shop_service.reactive.controller;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.dto.StockRequest;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.ImportReport;
+import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
+import com.siri_hate.phone_shop_service.reactive.service.ReactivePhoneShopService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of the {@code PhoneShopController}, serving the same {@code /api/v1/phones} contract
+ * on WebFlux. Listings and exports are written as the phones are read from the database, at the pace the client
+ * reads them.
+ *
+ * <p>The endpoints served from the in-memory state of the servlet application, namely {@code /phones/suggest},
+ * {@code /phones/changes} and {@code /phones/stream}, are not available here.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePhoneShopController {
+
+    private final ReactivePhoneShopService phoneShopService;
+
+    /**
+     * Constructor for ReactivePhoneShopController.
+     *
+     * @param phoneShopService The service responsible for handling phone-related operations.
+     */
+    @Autowired
+    ReactivePhoneShopController(ReactivePhoneShopService phoneShopService) {
+        this.phoneShopService = phoneShopService;
+    }
+
+    /**
+     * Endpoint for adding a new phone to the shop.
+     *
+     * @param phoneRequest The request body containing phone details.
+     * @return ResponseEntity with the created phone and HTTP status 201 (Created).
+     */
+    @PostMapping("/phones")
+    public Mono<ResponseEntity<Phone>> addNewPhoneToShop(@RequestBody @Valid PhoneRequest phoneRequest) {
+        return phoneShopService.addNewPhoneToShop(phoneRequest)
+                .map(createdPhone -> new ResponseEntity<>(createdPhone, HttpStatus.CREATED));
+    }
+
+    /**
+     * Endpoint for adding many new phones to the shop at once from a JSON array.
+     * Invalid phones are reported individually and do not prevent the valid ones from being added.
+     *
+     * @param phoneRequests The request body containing the details of the phones.
+     * @return ResponseEntity with the import report and HTTP status 200 (OK).
+     */
+    @PostMapping(value = "/phones/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ImportReport>> importPhonesToShop(@RequestBody List<PhoneRequest> phoneRequests) {
+        return phoneShopService.importPhonesToShop(phoneRequests)
+                .map(importReport -> new ResponseEntity<>(importReport, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for adding many new phones to the shop at once from an uploaded CSV file.
+     * The file is gathered in memory before it is parsed; its size is bounded by
+     * {@code spring.webflux.multipart.max-disk-usage-per-part}.
+     *
+     * @param file The uploaded CSV file containing the details of the phones.
+     * @return ResponseEntity with the import report and HTTP status 200 (OK).
+     */
+    @PostMapping(value = "/phones/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<ImportReport>> importPhonesToShopFromCsv(@RequestPart("file") Mono<FilePart> file) {
+        return file.flatMap(part -> DataBufferUtils.join(part.content()))
+                .flatMap(content -> Mono.using(
+                        () -> content.asInputStream(true),
+                        phoneShopService::importPhonesToShopFromCsv,
+                        ReactivePhoneShopController::close
+                ))
+                .map(importReport -> new ResponseEntity<>(importReport, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for retrieving many phones from the shop at once, such as the phones in a cart or comparison.
+     *
+     * @param ids The IDs of the phones to retrieve, as a comma-separated list or repeated parameters.
+     * @return ResponseEntity with one lookup result per requested ID, in request order, and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/batch")
+    public Mono<ResponseEntity<List<PhoneLookup>>> getPhonesFromShop(@RequestParam List<Integer> ids) {
+        return phoneShopService.getPhonesFromShop(ids)
+                .map(lookups -> new ResponseEntity<>(lookups, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for retrieving information about a single phone from the shop.
+     * The response carries the version of the phone as its entity tag. If the request's {@code If-None-Match}
+     * header holds that tag, HTTP status 304 (Not Modified) is returned without serializing the phone.
+     *
+     * @param id       The ID of the phone to retrieve.
+     * @param exchange The current exchange, checked for a matching {@code If-None-Match} header.
+     * @return ResponseEntity with the phone details and HTTP status 200 (OK), or HTTP status 304 (Not Modified).
+     */
+    @GetMapping("/phones/{id}")
+    public Mono<ResponseEntity<Phone>> getSinglePhoneFromShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            ServerWebExchange exchange
+    ) {
+        return phoneShopService.getPhoneFromShop(id).map(phone -> {
+            String eTag = toETag(Long.toString(phone.getVersion()));
+            if (exchange.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(phone);
+        });
+    }
+
+    /**
+     * Endpoint for retrieving information about phones from the shop, one keyset-paginated page at a time.
+     *
+     * @param cursor    The cursor of the page to retrieve, as returned with the previous page; omitted for the first page.
+     * @param size      The maximum number of phones on the page.
+     * @param sort      The property to sort by ({@code id}, {@code cost} or {@code storageSize}).
+     * @param direction The sort direction ({@code asc} or {@code desc}).
+     * @return ResponseEntity with a page of phones and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones")
+    public Mono<ResponseEntity<PhonePage>> getAllPhonesFromShop(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction
+    ) {
+        return phoneShopService.getPhonesPageFromShop(cursor, size, sort, direction)
+                .map(phonePage -> new ResponseEntity<>(phonePage, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for retrieving all phones from the shop at once, as a JSON array ordered by ID.
+     * The array is encoded one phone at a time as the phones are read from the database.
+     *
+     * @return All phones, written with HTTP status 200 (OK).
+     */
+    @GetMapping(value = "/phones/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Phone> getAllPhonesFromShopAtOnce() {
+        return phoneShopService.getAllPhonesFromShop();
+    }
+
+    /**
+     * Endpoint for retrieving lightweight summaries of the phones in the shop (ID, manufacturer, model, cost and
+     * whether the phone is in stock), one page at a time.
+     *
+     * @param afterId The ID of the last phone of the previous page; omitted for the first page.
+     * @param size    The maximum number of phone summaries on the page.
+     * @return ResponseEntity with a page of phone summaries and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/summaries")
+    public Mono<ResponseEntity<PhoneSummaryPage>> getPhoneSummariesFromShop(
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(required = false) Integer size
+    ) {
+        return phoneShopService.getPhoneSummariesFromShop(afterId, size)
+                .map(phoneSummaryPage -> new ResponseEntity<>(phoneSummaryPage, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for searching phones in the shop by optional filters, one keyset-paginated page at a time.
+     *
+     * @param criteria  The filters bound from the query parameters: {@code manufacturer}, {@code model}, {@code color},
+     *                  {@code minStorageSize}, {@code maxStorageSize}, {@code minCost}, {@code maxCost} and {@code inStock}.
+     * @param cursor    The cursor of the page to retrieve, as returned with the previous page; omitted for the first page.
+     * @param size      The maximum number of phones on the page.
+     * @param sort      The property to sort by ({@code id}, {@code cost} or {@code storageSize}).
+     * @param direction The sort direction ({@code asc} or {@code desc}).
+     * @return ResponseEntity with a page of matching phones and HTTP status 200 (OK).
+     */
+    @GetMapping("/phones/search")
+    public Mono<ResponseEntity<PhonePage>> searchPhonesInShop(
+            @Valid PhoneSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction
+    ) {
+        return phoneShopService.searchPhonesInShop(criteria, cursor, size, sort, direction)
+                .map(phonePage -> new ResponseEntity<>(phonePage, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for exporting all phones from the shop as a newline-delimited JSON stream.
+     * Phones are written to the response as they are read from the database, and reading slows down
+     * to the pace of the client, so the response is never buffered as a whole.
+     *
+     * @param exchange The current exchange, providing the buffers of the response.
+     * @return ResponseEntity with the streamed phones and HTTP status 200 (OK).
+     */
+    @GetMapping(value = "/phones/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> exportAllPhonesFromShop(ServerWebExchange exchange) {
+        Flux<DataBuffer> body = phoneShopService.exportAllPhonesFromShop(exchange.getResponse().bufferFactory());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Endpoint for updating information about a phone in the shop.
+     *
+     * @param id           The ID of the phone to update.
+     * @param phoneRequest The request body containing updated phone details.
+     * @return ResponseEntity with the updated phone and HTTP status 200 (OK).
+     */
+    @PutMapping("/phones/{id}")
+    public Mono<ResponseEntity<Phone>> updatePhoneInfoInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid PhoneRequest phoneRequest
+    ) {
+        return phoneShopService.updatePhoneInfoInShop(id, phoneRequest)
+                .map(updatedPhone -> new ResponseEntity<>(updatedPhone, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for partially updating information about a phone in the shop.
+     * Only the attributes present in the request body are changed.
+     *
+     * @param id                The ID of the phone to update.
+     * @param phonePatchRequest The request body containing the attributes to change.
+     * @return ResponseEntity with the updated phone and HTTP status 200 (OK).
+     */
+    @PatchMapping("/phones/{id}")
+    public Mono<ResponseEntity<Phone>> patchPhoneInfoInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid PhonePatchRequest phonePatchRequest
+    ) {
+        return phoneShopService.patchPhoneInfoInShop(id, phonePatchRequest)
+                .map(updatedPhone -> new ResponseEntity<>(updatedPhone, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for atomically reserving units of a phone, taking them out of its stock.
+     *
+     * @param id           The ID of the phone to reserve.
+     * @param stockRequest The request body containing the number of units to reserve.
+     * @return ResponseEntity with a message indicating the successful reservation and HTTP status 200 (OK).
+     */
+    @PostMapping("/phones/{id}/reserve")
+    public Mono<ResponseEntity<Message>> reservePhoneStockInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid StockRequest stockRequest
+    ) {
+        return phoneShopService.reservePhoneStockInShop(id, stockRequest.getQuantity())
+                .map(message -> new ResponseEntity<>(message, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for atomically releasing previously reserved units of a phone, putting them back into its stock.
+     *
+     * @param id           The ID of the phone to release.
+     * @param stockRequest The request body containing the number of units to release.
+     * @return ResponseEntity with a message indicating the successful release and HTTP status 200 (OK).
+     */
+    @PostMapping("/phones/{id}/release")
+    public Mono<ResponseEntity<Message>> releasePhoneStockInShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id,
+            @RequestBody @Valid StockRequest stockRequest
+    ) {
+        return phoneShopService.releasePhoneStockInShop(id, stockRequest.getQuantity())
+                .map(message -> new ResponseEntity<>(message, HttpStatus.OK));
+    }
+
+    /**
+     * Endpoint for deleting a phone from the shop.
+     *
+     * @param id The ID of the phone to delete.
+     * @return ResponseEntity with a message indicating the successful deletion and HTTP status 200 (OK).
+     */
+    @DeleteMapping("/phones/{id}")
+    public Mono<ResponseEntity<Message>> deletePhoneFromShop(
+            @PathVariable @Positive(message = "ID should be greater than zero") int id
+    ) {
+        return phoneShopService.deletePhoneFromShop(id)
+                .map(message -> new ResponseEntity<>(message, HttpStatus.OK));
+    }
+
+    /**
+     * Closes an in-memory stream, releasing the buffer it reads from.
+     *
+     * @param inputStream The stream to close.
+     */
+    private static void close(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Formats a version as a strong entity tag.
+     *
+     * @param version The version to format.
+     * @return The quoted entity tag.
+     */
+    private static String toETag(String version) {
+        return "\"" + version + "\"";
+    }
+
+}
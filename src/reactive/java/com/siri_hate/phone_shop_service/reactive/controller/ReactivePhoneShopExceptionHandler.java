@@ -0,0 +1,66 @@
+package com.siri_hate.phone_shop_service.reactive.controller;
+
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.model.Message;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Global exception handler of the reactive controller, answering the same exceptions with the same
+ * HTTP statuses and messages as the {@code PhoneShopExceptionHandler} of the servlet application.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePhoneShopExceptionHandler {
+
+    /**
+     * Handles invalid arguments, such as an invalid cursor, page size or sort property.
+     *
+     * @param exception The exception describing the invalid argument.
+     * @return ResponseEntity with the error message and HTTP status 400 (Bad Request).
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Message> handleIllegalArgument(IllegalArgumentException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles requests for phones that do not exist.
+     *
+     * @param exception The exception describing the missing phone.
+     * @return ResponseEntity with the error message and HTTP status 404 (Not Found).
+     */
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Message> handleNoSuchElement(NoSuchElementException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles requests for all phones when the shop has none.
+     *
+     * @param exception The exception describing the empty result.
+     * @return ResponseEntity with the error message and HTTP status 404 (Not Found).
+     */
+    @ExceptionHandler(EmptyResultDataAccessException.class)
+    public ResponseEntity<Message> handleEmptyResult(EmptyResultDataAccessException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles reservations of more units than a phone has in stock.
+     *
+     * @param exception The exception describing the insufficient stock.
+     * @return ResponseEntity with the error message and HTTP status 409 (Conflict).
+     */
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Message> handleInsufficientStock(InsufficientStockException exception) {
+        return new ResponseEntity<>(new Message(exception.getMessage()), HttpStatus.CONFLICT);
+    }
+
+}
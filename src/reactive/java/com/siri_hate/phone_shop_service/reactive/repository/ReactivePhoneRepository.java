@@ -0,0 +1,410 @@
+package com.siri_hate.phone_shop_service.reactive.repository;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.PhoneSortField;
+import com.siri_hate.phone_shop_service.model.PhoneSummary;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Non-blocking counterpart of the {@code PhoneRepository}, reading and writing the {@code phone_shop} and
+ * {@code phone_shop_tombstone} tables through R2DBC. Every method issues a single SQL statement, mirroring the
+ * statements the JPA repository runs, so that a database can be handed over from one stack to the other. The stacks
+ * must not run against the same database at once, which the {@code ServletApplicationGuard} checks at startup.
+ *
+ * <p>New phones take their ID straight from the {@code phone_shop_id_seq} sequence. Hibernate allocates IDs from
+ * the same sequence in blocks of 50, each block bounded by a value it took from the sequence, so a value taken
+ * here never falls inside a block of the servlet application.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePhoneRepository {
+
+    private static final String COLUMNS = "id, manufacturer, model, storage_size, color, cost, quantity, version, change_version";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Constructs a new {@code ReactivePhoneRepository}.
+     *
+     * @param databaseClient The client the SQL statements are run with.
+     */
+    @Autowired
+    public ReactivePhoneRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Finds the phone with the given ID.
+     *
+     * @param id The ID of the phone.
+     * @return The phone, or an empty Mono if no phone is found with the specified ID.
+     */
+    public Mono<Phone> findById(int id) {
+        return databaseClient.sql("select " + COLUMNS + " from phone_shop where id = :id")
+                .bind("id", id)
+                .map(ReactivePhoneRepository::toPhone)
+                .one();
+    }
+
+    /**
+     * Finds the phones with the given IDs with a single {@code IN} query.
+     *
+     * @param ids The IDs of the phones.
+     * @return The phones found, in no particular order.
+     */
+    public Flux<Phone> findAllById(Collection<Integer> ids) {
+        return databaseClient.sql("select " + COLUMNS + " from phone_shop where id in (:ids)")
+                .bind("ids", ids)
+                .map(ReactivePhoneRepository::toPhone)
+                .all();
+    }
+
+    /**
+     * Finds a single page of the phones matching the given criteria using keyset pagination on
+     * {@code (sort column, id)}, so that the page is read with a bounded index range query.
+     *
+     * @param criteria   The filters the phones must satisfy; an empty criteria object matches all phones.
+     * @param sortField  The field to sort by.
+     * @param direction  The sort direction, applied to both the sort column and the ID.
+     * @param afterValue The sort value of the last phone of the previous page, or {@code null} for the first page.
+     * @param afterId    The ID of the last phone of the previous page, or {@code null} for the first page.
+     * @param limit      The maximum number of phones to find.
+     * @return The phones of the page, in sort order.
+     */
+    public Flux<Phone> findPage(
+            PhoneSearchCriteria criteria,
+            PhoneSortField sortField,
+            Sort.Direction direction,
+            Integer afterValue,
+            Integer afterId,
+            int limit
+    ) {
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        addClause(where, bindings, "manufacturer = :manufacturer", "manufacturer", criteria.getManufacturer());
+        addClause(where, bindings, "model = :model", "model", criteria.getModel());
+        addClause(where, bindings, "color = :color", "color", criteria.getColor());
+        addClause(where, bindings, "storage_size >= :minStorageSize", "minStorageSize", criteria.getMinStorageSize());
+        addClause(where, bindings, "storage_size <= :maxStorageSize", "maxStorageSize", criteria.getMaxStorageSize());
+        addClause(where, bindings, "cost >= :minCost", "minCost", criteria.getMinCost());
+        addClause(where, bindings, "cost <= :maxCost", "maxCost", criteria.getMaxCost());
+        if (Boolean.TRUE.equals(criteria.getInStock())) {
+            where.add("quantity > 0");
+        }
+
+        String column = columnOf(sortField);
+        String comparison = direction.isAscending() ? ">" : "<";
+        if (afterId != null) {
+            if (sortField == PhoneSortField.ID) {
+                where.add("id " + comparison + " :afterId");
+            } else {
+                where.add("(" + column + " " + comparison + " :afterValue or (" + column + " = :afterValue and id "
+                        + comparison + " :afterId))");
+                bindings.put("afterValue", afterValue);
+            }
+            bindings.put("afterId", afterId);
+        }
+        String order = sortField == PhoneSortField.ID
+                ? "id " + direction.name()
+                : column + " " + direction.name() + ", id " + direction.name();
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                "select " + COLUMNS + " from phone_shop" + where + " order by " + order + " limit " + limit);
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec.map(ReactivePhoneRepository::toPhone).all();
+    }
+
+    /**
+     * Streams all phones ordered by ID. Rows are fetched from the database in chunks as the subscriber requests
+     * them, so a slow subscriber holds back the query instead of letting the rows pile up in memory.
+     *
+     * @return All phones, ordered by ID.
+     */
+    public Flux<Phone> streamAllOrderById() {
+        return databaseClient.sql("select " + COLUMNS + " from phone_shop order by id")
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(ReactivePhoneRepository::toPhone)
+                .all();
+    }
+
+    /**
+     * Finds the summaries of the phones with an ID greater than the given one, ordered by ID,
+     * selecting only the summarized columns.
+     *
+     * @param afterId The ID to continue after.
+     * @param limit   The maximum number of summaries to find.
+     * @return The phone summaries, ordered by ID.
+     */
+    public Flux<PhoneSummary> findSummariesAfter(int afterId, int limit) {
+        return databaseClient.sql("select id, manufacturer, model, cost, quantity from phone_shop "
+                        + "where id > :afterId order by id limit " + limit)
+                .bind("afterId", afterId)
+                .map(row -> new PhoneSummary(
+                        row.get("id", Integer.class),
+                        row.get("manufacturer", String.class),
+                        row.get("model", String.class),
+                        row.get("cost", Integer.class),
+                        row.get("quantity", Integer.class) > 0
+                ))
+                .all();
+    }
+
+    /**
+     * Inserts a new phone, with an ID taken from the {@code phone_shop_id_seq} sequence in the same statement.
+     *
+     * @param phone         The phone to insert; its ID is ignored.
+     * @param changeVersion The change version of the insertion.
+     * @return The inserted phone, with its ID, version and change version set.
+     */
+    public Mono<Phone> insert(Phone phone, long changeVersion) {
+        return databaseClient.sql("insert into phone_shop (" + COLUMNS + ") values (nextval('phone_shop_id_seq'), "
+                        + ":manufacturer, :model, :storageSize, :color, :cost, :quantity, 0, :changeVersion)")
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .bind("manufacturer", phone.getManufacturer())
+                .bind("model", phone.getModel())
+                .bind("storageSize", phone.getStorageSize())
+                .bind("color", phone.getColor())
+                .bind("cost", phone.getCost())
+                .bind("quantity", phone.getQuantity())
+                .bind("changeVersion", changeVersion)
+                .map(row -> row.get("id", Integer.class))
+                .one()
+                .map(id -> new Phone(id, phone.getManufacturer(), phone.getModel(), phone.getStorageSize(),
+                        phone.getColor(), phone.getCost(), phone.getQuantity(), 0, changeVersion));
+    }
+
+    /**
+     * Inserts many new phones with a single multi-row INSERT statement, each with an ID taken from the
+     * {@code phone_shop_id_seq} sequence.
+     *
+     * @param phones        The phones to insert; their IDs are ignored.
+     * @param changeVersion The change version of the insertion.
+     * @return The number of inserted rows.
+     */
+    public Mono<Long> insertAll(List<Phone> phones, long changeVersion) {
+        if (phones.isEmpty()) {
+            return Mono.just(0L);
+        }
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < phones.size(); i++) {
+            values.add("(nextval('phone_shop_id_seq'), :manufacturer" + i + ", :model" + i + ", :storageSize" + i
+                    + ", :color" + i + ", :cost" + i + ", :quantity" + i + ", 0, :changeVersion)");
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                "insert into phone_shop (" + COLUMNS + ") values " + values);
+        for (int i = 0; i < phones.size(); i++) {
+            Phone phone = phones.get(i);
+            spec = spec.bind("manufacturer" + i, phone.getManufacturer())
+                    .bind("model" + i, phone.getModel())
+                    .bind("storageSize" + i, phone.getStorageSize())
+                    .bind("color" + i, phone.getColor())
+                    .bind("cost" + i, phone.getCost())
+                    .bind("quantity" + i, phone.getQuantity());
+        }
+        return spec.bind("changeVersion", changeVersion).fetch().rowsUpdated();
+    }
+
+    /**
+     * Replaces every attribute of the phone with the given ID using a single UPDATE statement,
+     * incrementing its version and setting its change version.
+     *
+     * @param id            The ID of the phone to update.
+     * @param phone         The new attributes of the phone.
+     * @param changeVersion The change version of the update.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    public Mono<Long> updateById(int id, Phone phone, long changeVersion) {
+        return databaseClient.sql("update phone_shop set manufacturer = :manufacturer, model = :model, "
+                        + "storage_size = :storageSize, color = :color, cost = :cost, quantity = :quantity, "
+                        + "version = version + 1, change_version = :changeVersion where id = :id")
+                .bind("manufacturer", phone.getManufacturer())
+                .bind("model", phone.getModel())
+                .bind("storageSize", phone.getStorageSize())
+                .bind("color", phone.getColor())
+                .bind("cost", phone.getCost())
+                .bind("quantity", phone.getQuantity())
+                .bind("changeVersion", changeVersion)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Updates only the attributes present in the given patch of the phone with the given ID using a single UPDATE
+     * statement, incrementing its version and setting its change version. A patch without attributes only counts
+     * the phone.
+     *
+     * @param id            The ID of the phone to update.
+     * @param patch         The attributes to change.
+     * @param changeVersion The change version of the update.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    public Mono<Long> patchById(int id, PhonePatchRequest patch, long changeVersion) {
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        StringJoiner set = new StringJoiner(", ");
+        addClause(set, bindings, "manufacturer = :manufacturer", "manufacturer", patch.getManufacturer());
+        addClause(set, bindings, "model = :model", "model", patch.getModel());
+        addClause(set, bindings, "storage_size = :storageSize", "storageSize", patch.getStorageSize());
+        addClause(set, bindings, "color = :color", "color", patch.getColor());
+        addClause(set, bindings, "cost = :cost", "cost", patch.getCost());
+        addClause(set, bindings, "quantity = :quantity", "quantity", patch.getQuantity());
+        if (bindings.isEmpty()) {
+            return databaseClient.sql("select count(*) from phone_shop where id = :id")
+                    .bind("id", id)
+                    .map(row -> row.get(0, Long.class))
+                    .one();
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("update phone_shop set " + set
+                + ", version = version + 1, change_version = :changeVersion where id = :id");
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        return spec.bind("changeVersion", changeVersion)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Deletes the phone with the given ID using a single DELETE statement.
+     *
+     * @param id The ID of the phone to delete.
+     * @return The number of deleted rows: 1 if the phone existed, 0 otherwise.
+     */
+    public Mono<Long> deleteById(int id) {
+        return databaseClient.sql("delete from phone_shop where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Records the deletion of the phone with the given ID at the given change version.
+     *
+     * @param phoneId       The ID of the deleted phone.
+     * @param changeVersion The change version of the deletion.
+     * @return The number of inserted rows.
+     */
+    public Mono<Long> insertTombstone(int phoneId, long changeVersion) {
+        return databaseClient.sql("insert into phone_shop_tombstone (change_version, phone_id) "
+                        + "values (:changeVersion, :phoneId)")
+                .bind("changeVersion", changeVersion)
+                .bind("phoneId", phoneId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Atomically takes the given number of units out of the stock of the phone with the given ID,
+     * using a single conditional UPDATE statement that never lets the quantity go below zero.
+     *
+     * @param id            The ID of the phone.
+     * @param quantity      The number of units to reserve.
+     * @param changeVersion The change version of the reservation.
+     * @return The number of updated rows: 1 if the phone exists and had enough units in stock, 0 otherwise.
+     */
+    public Mono<Long> reserveStock(int id, int quantity, long changeVersion) {
+        return databaseClient.sql("update phone_shop set quantity = quantity - :quantity, version = version + 1, "
+                        + "change_version = :changeVersion where id = :id and quantity >= :quantity")
+                .bind("quantity", quantity)
+                .bind("changeVersion", changeVersion)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Atomically puts the given number of units back into the stock of the phone with the given ID,
+     * using a single UPDATE statement.
+     *
+     * @param id            The ID of the phone.
+     * @param quantity      The number of units to release.
+     * @param changeVersion The change version of the release.
+     * @return The number of updated rows: 1 if the phone exists, 0 otherwise.
+     */
+    public Mono<Long> releaseStock(int id, int quantity, long changeVersion) {
+        return databaseClient.sql("update phone_shop set quantity = quantity + :quantity, version = version + 1, "
+                        + "change_version = :changeVersion where id = :id")
+                .bind("quantity", quantity)
+                .bind("changeVersion", changeVersion)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Tells whether a phone with the given ID exists.
+     *
+     * @param id The ID of the phone.
+     * @return {@code true} if the phone exists.
+     */
+    public Mono<Boolean> existsById(int id) {
+        return databaseClient.sql("select id from phone_shop where id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .first()
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Takes the next change version from the {@code phone_shop_change_seq} database sequence.
+     *
+     * @return The next change version.
+     */
+    public Mono<Long> nextChangeVersion() {
+        return databaseClient.sql("select nextval('phone_shop_change_seq')")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static void addClause(StringJoiner clause, Map<String, Object> bindings, String condition,
+                                  String name, Object value) {
+        if (value != null) {
+            clause.add(condition);
+            bindings.put(name, value);
+        }
+    }
+
+    private static String columnOf(PhoneSortField sortField) {
+        return switch (sortField) {
+            case ID -> "id";
+            case COST -> "cost";
+            case STORAGE_SIZE -> "storage_size";
+        };
+    }
+
+    private static Phone toPhone(Readable row) {
+        return new Phone(
+                row.get("id", Integer.class),
+                row.get("manufacturer", String.class),
+                row.get("model", String.class),
+                row.get("storage_size", Integer.class),
+                row.get("color", String.class),
+                row.get("cost", Integer.class),
+                row.get("quantity", Integer.class),
+                row.get("version", Long.class),
+                row.get("change_version", Long.class)
+        );
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.siri_hate.phone_shop_service.reactive.service;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.ImportReport;
+import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of the {@code PhoneShopService}, defining the same operations on phones in the phone
+ * shop with results delivered as {@link Mono}s and {@link Flux}es. Operations that fail signal the same exceptions
+ * as their servlet counterparts.
+ */
+public interface ReactivePhoneShopService {
+
+    /**
+     * Adds a new phone to the shop based on the provided PhoneRequest.
+     *
+     * @param phoneRequest The PhoneRequest containing details of the phone to be added.
+     * @return The Phone entity representing the newly added phone.
+     */
+    Mono<Phone> addNewPhoneToShop(PhoneRequest phoneRequest);
+
+    /**
+     * Adds many new phones to the shop at once. Invalid phone requests are rejected individually,
+     * while all valid ones are stored.
+     *
+     * @param phoneRequests The PhoneRequests containing details of the phones to be added.
+     * @return The report of the import, listing the rejected rows.
+     */
+    Mono<ImportReport> importPhonesToShop(List<PhoneRequest> phoneRequests);
+
+    /**
+     * Adds many new phones to the shop at once from CSV data. Rows that cannot be parsed or are invalid
+     * are rejected individually, while all valid ones are stored.
+     *
+     * The stream is read once the returned Mono is subscribed to, and must stay open until it completes.
+     *
+     * @param inputStream The stream of CSV data containing details of the phones to be added, already in memory.
+     * @return The report of the import listing the rejected rows, or an {@link java.io.IOException}
+     *         if reading from the stream fails.
+     */
+    Mono<ImportReport> importPhonesToShopFromCsv(InputStream inputStream);
+
+    /**
+     * Retrieves information about a phone from the shop based on the provided ID.
+     *
+     * @param id The ID of the phone to retrieve.
+     * @return The Phone entity representing the phone with the specified ID.
+     */
+    Mono<Phone> getPhoneFromShop(int id);
+
+    /**
+     * Retrieves many phones from the shop at once based on the provided IDs.
+     *
+     * @param ids The IDs of the phones to retrieve.
+     * @return One lookup result per requested ID, in request order, telling whether the phone was found.
+     */
+    Mono<List<PhoneLookup>> getPhonesFromShop(List<Integer> ids);
+
+    /**
+     * Retrieves all phones from the shop, ordered by ID, as they are read from the database.
+     *
+     * @return All Phone entities in the shop.
+     */
+    Flux<Phone> getAllPhonesFromShop();
+
+    /**
+     * Retrieves a single page of phones from the shop.
+     *
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     * @return The page of phones together with the cursor of the next page.
+     */
+    Mono<PhonePage> getPhonesPageFromShop(String cursor, Integer size, String sort, String direction);
+
+    /**
+     * Searches the shop for phones matching the provided criteria, one page at a time.
+     *
+     * @param criteria  The filters the phones must satisfy.
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     * @return The page of matching phones together with the cursor of the next page.
+     */
+    Mono<PhonePage> searchPhonesInShop(
+            PhoneSearchCriteria criteria,
+            String cursor,
+            Integer size,
+            String sort,
+            String direction
+    );
+
+    /**
+     * Retrieves a single page of lightweight phone summaries from the shop.
+     *
+     * @param afterId The ID of the last phone of the previous page, or {@code null} for the first page.
+     * @param size    The maximum number of phone summaries on the page, or {@code null} for the default page size.
+     * @return The page of phone summaries together with the ID to continue after.
+     */
+    Mono<PhoneSummaryPage> getPhoneSummariesFromShop(Integer afterId, Integer size);
+
+    /**
+     * Exports all phones from the shop as newline-delimited JSON, encoded as it is read from the database.
+     *
+     * @param bufferFactory The factory of the buffers the exported phones are written to.
+     * @return The exported phones, in buffers of one or more lines.
+     */
+    Flux<DataBuffer> exportAllPhonesFromShop(DataBufferFactory bufferFactory);
+
+    /**
+     * Updates information about a phone in the shop based on the provided ID and PhoneRequest.
+     *
+     * @param id           The ID of the phone to update.
+     * @param phoneRequest The PhoneRequest containing updated details of the phone.
+     * @return The Phone entity representing the updated phone.
+     */
+    Mono<Phone> updatePhoneInfoInShop(int id, PhoneRequest phoneRequest);
+
+    /**
+     * Partially updates information about a phone in the shop; only the attributes present in the request change.
+     *
+     * @param id                The ID of the phone to update.
+     * @param phonePatchRequest The PhonePatchRequest containing the attributes to change.
+     * @return The Phone entity representing the updated phone.
+     */
+    Mono<Phone> patchPhoneInfoInShop(int id, PhonePatchRequest phonePatchRequest);
+
+    /**
+     * Atomically reserves units of a phone in the shop, taking them out of its stock.
+     *
+     * @param id       The ID of the phone to reserve.
+     * @param quantity The number of units to reserve.
+     * @return A Message indicating the successful reservation.
+     */
+    Mono<Message> reservePhoneStockInShop(int id, int quantity);
+
+    /**
+     * Atomically releases previously reserved units of a phone in the shop, putting them back into its stock.
+     *
+     * @param id       The ID of the phone to release.
+     * @param quantity The number of units to release.
+     * @return A Message indicating the successful release.
+     */
+    Mono<Message> releasePhoneStockInShop(int id, int quantity);
+
+    /**
+     * Deletes a phone from the shop based on the provided ID.
+     *
+     * @param id The ID of the phone to delete.
+     * @return A Message indicating the successful deletion of the phone.
+     */
+    Mono<Message> deletePhoneFromShop(int id);
+
+}
@@ -0,0 +1,574 @@
+package com.siri_hate.phone_shop_service.reactive.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.siri_hate.phone_shop_service.dto.PhoneCsvReader;
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneRequestMapper;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.model.ImportReport;
+import com.siri_hate.phone_shop_service.model.ImportRowError;
+import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSortField;
+import com.siri_hate.phone_shop_service.model.PhoneSummary;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
+import com.siri_hate.phone_shop_service.reactive.repository.ReactivePhoneRepository;
+import com.siri_hate.phone_shop_service.service.PhonePageCursor;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code ReactivePhoneShopServiceImpl} class implements the {@link ReactivePhoneShopService} interface
+ * on top of the {@link ReactivePhoneRepository}, following the servlet {@code PhoneShopServiceImpl} statement
+ * for statement. Writes run in reactive transactions and stamp the same change versions and tombstones, so a
+ * database can be handed over from one stack to the other.
+ *
+ * <p>The in-memory parts of the servlet service have no counterpart here: phones are not cached, and writes
+ * neither feed a search index, a catalog snapshot or an inventory stream, nor are tracked as in flight for
+ * the delta sync of the servlet application, nor are announced on its invalidation bus. Both stacks must
+ * therefore not run against the same database at once.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePhoneShopServiceImpl implements ReactivePhoneShopService {
+
+    private final ReactivePhoneRepository phoneRepository;
+
+    private final Validator validator;
+
+    private final ObjectWriter exportWriter;
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    private final int exportFlushRows;
+
+    private final int importBatchSize;
+
+    private final int importMaxRows;
+
+    private final int batchMaxIds;
+
+    private final int batchChunkSize;
+
+    /**
+     * Constructs a new {@code ReactivePhoneShopServiceImpl} with the same settings as the servlet service.
+     *
+     * @param phoneRepository The repository used to access phone data.
+     * @param validator       The validator used to check imported phones.
+     * @param objectMapper    The object mapper used to encode exported phones.
+     * @param defaultPageSize The number of phones returned when a listing request does not specify a page size.
+     * @param maxPageSize     The upper bound of the page size a listing request may ask for.
+     * @param exportFlushRows The number of exported phones written to the response in a single buffer.
+     * @param importBatchSize The number of imported phones written to the database in a single INSERT statement.
+     * @param importMaxRows   The maximum number of rows accepted in a single import.
+     * @param batchMaxIds     The maximum number of IDs accepted in a single batch lookup.
+     * @param batchChunkSize  The maximum number of IDs looked up in a single {@code IN} query.
+     */
+    @Autowired
+    ReactivePhoneShopServiceImpl(
+            ReactivePhoneRepository phoneRepository,
+            Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${phone-shop.pagination.default-size:20}") int defaultPageSize,
+            @Value("${phone-shop.pagination.max-size:100}") int maxPageSize,
+            @Value("${phone-shop.export.flush-rows:1000}") int exportFlushRows,
+            @Value("${phone-shop.import.batch-size:50}") int importBatchSize,
+            @Value("${phone-shop.import.max-rows:10000}") int importMaxRows,
+            @Value("${phone-shop.batch.max-ids:1000}") int batchMaxIds,
+            @Value("${phone-shop.batch.chunk-size:100}") int batchChunkSize
+    ) {
+        this.phoneRepository = phoneRepository;
+        this.validator = validator;
+        this.exportWriter = objectMapper.writerFor(Phone.class);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.exportFlushRows = exportFlushRows;
+        this.importBatchSize = importBatchSize;
+        this.importMaxRows = importMaxRows;
+        this.batchMaxIds = batchMaxIds;
+        this.batchChunkSize = batchChunkSize;
+    }
+
+    /**
+     * Adds a new phone to the shop based on the provided {@link PhoneRequest}, with a single INSERT statement.
+     *
+     * @param phoneRequest The request containing information to create a new phone.
+     * @return The created {@link Phone} entity.
+     */
+    @Override
+    @Transactional
+    public Mono<Phone> addNewPhoneToShop(PhoneRequest phoneRequest) {
+        Phone phone = PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest);
+        return phoneRepository.nextChangeVersion()
+                .flatMap(changeVersion -> phoneRepository.insert(phone, changeVersion));
+    }
+
+    /**
+     * Adds many new phones to the shop at once based on the provided {@link PhoneRequest}s.
+     * All requests are validated first; the valid ones are then written with multi-row INSERT statements
+     * of the configured batch size, one after the other.
+     *
+     * @param phoneRequests The requests containing information to create new phones.
+     * @return The report of the import, listing the rejected rows with their 1-based positions.
+     * @throws IllegalArgumentException if the number of requests exceeds the configured maximum.
+     */
+    @Override
+    @Transactional
+    public Mono<ImportReport> importPhonesToShop(List<PhoneRequest> phoneRequests) {
+        return importValidPhones(phoneRequests, new ArrayList<>());
+    }
+
+    /**
+     * Adds many new phones to the shop at once based on CSV data in the format described by {@link PhoneCsvReader}.
+     * The data is parsed within the transaction, once the returned Mono is subscribed to, so it must already
+     * be in memory; the valid rows are then written like those of {@link #importPhonesToShop(List)}.
+     *
+     * @param inputStream The stream of CSV data containing information to create new phones, already in memory.
+     * @return The report of the import listing the rejected rows with their 1-based positions,
+     *         or an {@link IOException} if reading from the stream fails.
+     */
+    @Override
+    @Transactional
+    public Mono<ImportReport> importPhonesToShopFromCsv(InputStream inputStream) {
+        List<ImportRowError> errors = new ArrayList<>();
+        try {
+            List<PhoneRequest> phoneRequests = PhoneCsvReader.read(inputStream, errors);
+            return importValidPhones(phoneRequests, errors);
+        } catch (IllegalArgumentException | IOException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Retrieves a phone from the shop based on the provided ID.
+     *
+     * @param id The ID of the phone to retrieve.
+     * @return The retrieved {@link Phone} entity, or a {@link NoSuchElementException} if no phone is found
+     *         with the specified ID.
+     */
+    @Override
+    public Mono<Phone> getPhoneFromShop(int id) {
+        return phoneRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Phone with ID " + id + " not found")));
+    }
+
+    /**
+     * Retrieves many phones from the shop at once based on the provided IDs.
+     * The IDs are deduplicated and loaded with {@code IN} queries of at most the configured chunk size each.
+     *
+     * @param ids The IDs of the phones to retrieve.
+     * @return One lookup result per requested ID, in request order, telling whether the phone was found,
+     *         or an {@link IllegalArgumentException} if no ID, a {@code null} ID or more than the configured
+     *         maximum of IDs is given.
+     */
+    @Override
+    public Mono<List<PhoneLookup>> getPhonesFromShop(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("At least one ID should be given"));
+        }
+        if (ids.size() > batchMaxIds) {
+            return Mono.error(new IllegalArgumentException("No more than " + batchMaxIds + " IDs should be given"));
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            return Mono.error(new IllegalArgumentException("IDs should not be null"));
+        }
+
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        return Flux.range(0, (distinctIds.size() + batchChunkSize - 1) / batchChunkSize)
+                .map(chunk -> distinctIds.subList(chunk * batchChunkSize,
+                        Math.min((chunk + 1) * batchChunkSize, distinctIds.size())))
+                .concatMap(phoneRepository::findAllById)
+                .collectMap(Phone::getId)
+                .map(phones -> lookUp(ids, phones));
+    }
+
+    /**
+     * Retrieves all phones from the shop, ordered by ID, in a read-only transaction. Phones are streamed
+     * from the database as the subscriber requests them, so the catalog is never held in memory as a whole.
+     *
+     * @return All {@link Phone} entities in the shop, or an {@link EmptyResultDataAccessException}
+     *         if no phones are found in the shop.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<Phone> getAllPhonesFromShop() {
+        return phoneRepository.streamAllOrderById()
+                .switchOnFirst((first, phones) -> first.hasValue() || first.isOnError()
+                        ? phones
+                        : Flux.error(new EmptyResultDataAccessException("No phones found", 1)));
+    }
+
+    /**
+     * Retrieves a single page of phones from the shop using keyset pagination on {@code (sort property, id)},
+     * in a read-only transaction.
+     *
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     *                  Ignored when a cursor is given.
+     * @return The page of phones together with the cursor of the next page, or an {@link IllegalArgumentException}
+     *         if the cursor, page size, sort property or direction is invalid.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Mono<PhonePage> getPhonesPageFromShop(String cursor, Integer size, String sort, String direction) {
+        return Mono.defer(() -> findPhonesPage(new PhoneSearchCriteria(), cursor, size, sort, direction));
+    }
+
+    /**
+     * Searches the shop for phones matching the provided {@link PhoneSearchCriteria}, one keyset-paginated page
+     * at a time. All present filters are combined into the WHERE clause of a single query, run in a read-only
+     * transaction.
+     *
+     * @param criteria  The filters the phones must satisfy.
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction ({@code asc} or {@code desc}), or {@code null} for ascending.
+     *                  Ignored when a cursor is given.
+     * @return The page of matching phones together with the cursor of the next page, or an
+     *         {@link IllegalArgumentException} if the cursor, page size, sort property or direction is invalid.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Mono<PhonePage> searchPhonesInShop(
+            PhoneSearchCriteria criteria,
+            String cursor,
+            Integer size,
+            String sort,
+            String direction
+    ) {
+        return Mono.defer(() -> findPhonesPage(criteria, cursor, size, sort, direction));
+    }
+
+    /**
+     * Retrieves a single page of phone summaries from the shop, ordered by ID and paginated by the last ID seen.
+     * Only the summarized columns are selected.
+     *
+     * @param afterId The ID of the last phone of the previous page, or {@code null} for the first page.
+     * @param size    The maximum number of phone summaries on the page, or {@code null} for the default page size.
+     * @return The page of phone summaries together with the ID to continue after, or an
+     *         {@link IllegalArgumentException} if the page size is invalid.
+     */
+    @Override
+    public Mono<PhoneSummaryPage> getPhoneSummariesFromShop(Integer afterId, Integer size) {
+        return Mono.defer(() -> {
+            int pageSize = resolvePageSize(size);
+            return phoneRepository.findSummariesAfter(afterId != null ? afterId : 0, pageSize + 1)
+                    .collectList()
+                    .map(summaries -> {
+                        boolean hasMore = summaries.size() > pageSize;
+                        List<PhoneSummary> content = hasMore ? summaries.subList(0, pageSize) : summaries;
+                        Integer nextAfterId = hasMore ? content.get(content.size() - 1).getId() : null;
+                        return new PhoneSummaryPage(content, content.size(), nextAfterId);
+                    });
+        });
+    }
+
+    /**
+     * Exports all phones from the shop as newline-delimited JSON, in a read-only transaction.
+     * Phones are encoded as they are streamed from the database, and the lines are handed on in buffers:
+     * the first phone alone, so the response starts immediately, and then every configured number of phones.
+     * Each buffer is written and flushed as the client reads, so memory usage stays flat regardless of
+     * the catalog size.
+     *
+     * @param bufferFactory The factory of the buffers the exported phones are written to.
+     * @return The exported phones, in buffers of one or more lines.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Flux<DataBuffer> exportAllPhonesFromShop(DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            AtomicLong written = new AtomicLong();
+            return phoneRepository.streamAllOrderById()
+                    .map(this::toExportLine)
+                    .bufferUntil(line -> {
+                        long count = written.incrementAndGet();
+                        return count == 1 || count % exportFlushRows == 0;
+                    })
+                    .map(lines -> {
+                        DataBuffer buffer = bufferFactory.allocateBuffer(lines.stream().mapToInt(line -> line.length).sum());
+                        lines.forEach(buffer::write);
+                        return buffer;
+                    });
+        });
+    }
+
+    /**
+     * Updates the information of a phone in the shop based on the provided ID and {@link PhoneRequest}.
+     * The phone is updated with a single UPDATE statement, whose affected row count tells whether it exists;
+     * the updated phone is then read back, so it carries the version bumped by the UPDATE.
+     *
+     * @param id           The ID of the phone to update.
+     * @param phoneRequest The request containing updated information for the phone.
+     * @return The updated {@link Phone} entity, or a {@link NoSuchElementException} if no phone is found
+     *         with the specified ID.
+     */
+    @Override
+    @Transactional
+    public Mono<Phone> updatePhoneInfoInShop(int id, PhoneRequest phoneRequest) {
+        Phone phone = PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest);
+        return phoneRepository.nextChangeVersion()
+                .flatMap(changeVersion -> phoneRepository.updateById(id, phone, changeVersion))
+                .flatMap(updatedRows -> updatedRows == 0
+                        ? Mono.error(new NoSuchElementException("Phone with ID " + id + " not found"))
+                        : getPhoneFromShop(id));
+    }
+
+    /**
+     * Partially updates the information of a phone in the shop based on the provided ID and {@link PhonePatchRequest}.
+     * Only the columns of the attributes present in the request are updated, with a single UPDATE statement;
+     * the updated phone is then read back.
+     *
+     * @param id                The ID of the phone to update.
+     * @param phonePatchRequest The request containing the attributes to change.
+     * @return The updated {@link Phone} entity, or a {@link NoSuchElementException} if no phone is found
+     *         with the specified ID.
+     */
+    @Override
+    @Transactional
+    public Mono<Phone> patchPhoneInfoInShop(int id, PhonePatchRequest phonePatchRequest) {
+        return phoneRepository.nextChangeVersion()
+                .flatMap(changeVersion -> phoneRepository.patchById(id, phonePatchRequest, changeVersion))
+                .flatMap(updatedRows -> updatedRows == 0
+                        ? Mono.error(new NoSuchElementException("Phone with ID " + id + " not found"))
+                        : getPhoneFromShop(id));
+    }
+
+    /**
+     * Reserves units of a phone in the shop with a single conditional UPDATE statement, which decrements
+     * the quantity only if enough units are in stock. Concurrent reservations are serialized by the database
+     * row lock, so no update is lost and the quantity never goes below zero.
+     *
+     * @param id       The ID of the phone to reserve.
+     * @param quantity The number of units to reserve.
+     * @return A message indicating the successful reservation, or a {@link NoSuchElementException} if no phone
+     *         is found with the specified ID, or an {@link InsufficientStockException} if the phone does not have
+     *         enough units in stock.
+     */
+    @Override
+    public Mono<Message> reservePhoneStockInShop(int id, int quantity) {
+        return phoneRepository.nextChangeVersion()
+                .flatMap(changeVersion -> phoneRepository.reserveStock(id, quantity, changeVersion))
+                .flatMap(updatedRows -> {
+                    if (updatedRows > 0) {
+                        return Mono.just(new Message(
+                                quantity + " units of the phone with the id = " + id + " have been successfully reserved!"));
+                    }
+                    return phoneRepository.existsById(id).flatMap(exists -> Mono.error(exists
+                            ? new InsufficientStockException("Phone with ID " + id + " has fewer than " + quantity
+                                    + " units in stock")
+                            : new NoSuchElementException("Phone with ID " + id + " not found")));
+                });
+    }
+
+    /**
+     * Releases previously reserved units of a phone in the shop with a single UPDATE statement,
+     * which increments the quantity.
+     *
+     * @param id       The ID of the phone to release.
+     * @param quantity The number of units to release.
+     * @return A message indicating the successful release, or a {@link NoSuchElementException} if no phone
+     *         is found with the specified ID.
+     */
+    @Override
+    public Mono<Message> releasePhoneStockInShop(int id, int quantity) {
+        return phoneRepository.nextChangeVersion()
+                .flatMap(changeVersion -> phoneRepository.releaseStock(id, quantity, changeVersion))
+                .flatMap(updatedRows -> updatedRows == 0
+                        ? Mono.error(new NoSuchElementException("Phone with ID " + id + " not found"))
+                        : Mono.just(new Message(
+                                quantity + " units of the phone with the id = " + id + " have been successfully released!")));
+    }
+
+    /**
+     * Deletes a phone from the shop based on the provided ID.
+     * The phone is deleted with a single DELETE statement, whose affected row count tells whether it existed,
+     * and a tombstone recording the deletion is inserted for the delta sync.
+     *
+     * @param id The ID of the phone to delete.
+     * @return A message indicating the successful deletion of the phone, or a {@link NoSuchElementException}
+     *         if no phone is found with the specified ID.
+     */
+    @Override
+    @Transactional
+    public Mono<Message> deletePhoneFromShop(int id) {
+        return phoneRepository.deleteById(id)
+                .flatMap(deletedRows -> deletedRows == 0
+                        ? Mono.error(new NoSuchElementException("Phone with ID " + id + " not found"))
+                        : phoneRepository.nextChangeVersion())
+                .flatMap(changeVersion -> phoneRepository.insertTombstone(id, changeVersion))
+                .thenReturn(new Message("The phone with the id = " + id + " has been successfully deleted!"));
+    }
+
+    /**
+     * Resolves the effective page size of a listing request.
+     *
+     * @param size The requested page size, or {@code null} for the default page size.
+     * @return The requested page size capped at the configured maximum.
+     * @throws IllegalArgumentException if the requested page size is not positive.
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size should be greater than zero");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    /**
+     * Validates the given phone requests and stores the valid ones with multi-row INSERT statements.
+     *
+     * @param phoneRequests The requests to import; {@code null} elements stand for rows already rejected.
+     * @param errors        The rows already rejected; validation errors are added to this list.
+     * @return The report of the import, or an {@link IllegalArgumentException} if the number of requests exceeds
+     *         the configured maximum.
+     */
+    private Mono<ImportReport> importValidPhones(List<PhoneRequest> phoneRequests, List<ImportRowError> errors) {
+        if (phoneRequests.size() > importMaxRows) {
+            return Mono.error(new IllegalArgumentException(
+                    "Import should not contain more than " + importMaxRows + " rows"));
+        }
+
+        List<Phone> phones = new ArrayList<>(phoneRequests.size());
+        for (int i = 0; i < phoneRequests.size(); i++) {
+            PhoneRequest phoneRequest = phoneRequests.get(i);
+            if (phoneRequest == null) {
+                continue;
+            }
+            Set<ConstraintViolation<PhoneRequest>> violations = validator.validate(phoneRequest);
+            if (!violations.isEmpty()) {
+                errors.add(new ImportRowError(i + 1, violations.stream().map(ConstraintViolation::getMessage).sorted().toList()));
+                continue;
+            }
+            phones.add(PhoneRequestMapper.INSTANCE.toPhoneEntity(phoneRequest));
+        }
+        errors.sort(Comparator.comparingInt(ImportRowError::getRow));
+        if (phones.isEmpty()) {
+            return Mono.just(new ImportReport(phoneRequests.size(), 0, errors));
+        }
+
+        return phoneRepository.nextChangeVersion()
+                .flatMapMany(changeVersion -> Flux.range(0, (phones.size() + importBatchSize - 1) / importBatchSize)
+                        .concatMap(batch -> phoneRepository.insertAll(phones.subList(batch * importBatchSize,
+                                Math.min((batch + 1) * importBatchSize, phones.size())), changeVersion)))
+                .reduce(0L, Long::sum)
+                .map(imported -> new ImportReport(phoneRequests.size(), imported.intValue(), errors));
+    }
+
+    /**
+     * Retrieves a single page of the phones matching the given criteria using keyset pagination
+     * on {@code (sort property, id)}.
+     *
+     * @param criteria  The filters the phones must satisfy.
+     * @param cursor    The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size      The maximum number of phones on the page, or {@code null} for the default page size.
+     * @param sort      The property to sort by, or {@code null} to sort by ID. Ignored when a cursor is given.
+     * @param direction The sort direction, or {@code null} for ascending. Ignored when a cursor is given.
+     * @return The page of phones together with the cursor of the next page.
+     * @throws IllegalArgumentException if the cursor, page size, sort property or direction is invalid.
+     */
+    private Mono<PhonePage> findPhonesPage(
+            PhoneSearchCriteria criteria,
+            String cursor,
+            Integer size,
+            String sort,
+            String direction
+    ) {
+        int pageSize = resolvePageSize(size);
+        PhoneSortField sortField;
+        Sort.Direction sortDirection;
+        Integer afterValue = null;
+        Integer afterId = null;
+        if (cursor != null) {
+            PhonePageCursor pageCursor = PhonePageCursor.decode(cursor);
+            sortField = pageCursor.getSortField();
+            sortDirection = pageCursor.getDirection();
+            afterValue = pageCursor.getSortValue();
+            afterId = pageCursor.getLastId();
+        } else {
+            sortField = sort != null ? PhoneSortField.fromProperty(sort) : PhoneSortField.ID;
+            sortDirection = direction != null ? Sort.Direction.fromString(direction) : Sort.Direction.ASC;
+        }
+
+        return phoneRepository.findPage(criteria, sortField, sortDirection, afterValue, afterId, pageSize + 1)
+                .collectList()
+                .map(phones -> {
+                    boolean hasMore = phones.size() > pageSize;
+                    List<Phone> content = hasMore ? phones.subList(0, pageSize) : phones;
+                    String nextCursor = hasMore
+                            ? PhonePageCursor.after(sortField, sortDirection, content.get(content.size() - 1)).encode()
+                            : null;
+                    return new PhonePage(content, content.size(), nextCursor);
+                });
+    }
+
+    /**
+     * Builds the lookup results of a batch lookup.
+     *
+     * @param ids    The requested IDs, in request order.
+     * @param phones The phones found, by ID.
+     * @return One lookup result per requested ID, in request order.
+     */
+    private static List<PhoneLookup> lookUp(List<Integer> ids, Map<Integer, Phone> phones) {
+        List<PhoneLookup> lookups = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Phone phone = phones.get(id);
+            lookups.add(new PhoneLookup(id, phone != null, phone));
+        }
+        return lookups;
+    }
+
+    /**
+     * Encodes a phone as a line of newline-delimited JSON.
+     *
+     * @param phone The phone to encode.
+     * @return The UTF-8 encoded line, including the newline.
+     */
+    private byte[] toExportLine(Phone phone) {
+        try {
+            byte[] json = exportWriter.writeValueAsBytes(phone);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode phone " + phone.getId(), e);
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+-- Schema of the phone catalog, matching the one Hibernate generates from the Phone and PhoneTombstone entities.
+-- Only applied to embedded databases; a real database is expected to have it already.
+create sequence if not exists phone_shop_id_seq start with 1 increment by 50;
+create sequence if not exists phone_shop_change_seq start with 1 increment by 1;
+
+create table if not exists phone_shop (
+    id integer not null primary key,
+    manufacturer varchar(255),
+    model varchar(255),
+    storage_size integer not null,
+    color varchar(255),
+    cost integer not null,
+    quantity integer not null,
+    version bigint not null,
+    change_version bigint not null
+);
+
+create table if not exists phone_shop_tombstone (
+    change_version bigint not null primary key,
+    phone_id integer not null unique
+);
@@ -1,27 +1,67 @@
 package com.siri_hate.phone_shop_service;
 
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.controller.PhoneShopController;
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
 import com.siri_hate.phone_shop_service.dto.PhoneRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
 import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.entity.PhoneTombstone;
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.model.ImportReport;
 import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneChange;
+import com.siri_hate.phone_shop_service.model.PhoneChangePage;
+import com.siri_hate.phone_shop_service.model.PhoneLookup;
+import com.siri_hate.phone_shop_service.model.PhonePage;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
 import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneTombstoneRepository;
 import com.siri_hate.phone_shop_service.service.PhoneShopService;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
  * Integration tests for the PhoneShopService using Mockito to mock the PhoneRepository.
+ * Catalog snapshots are disabled, so that no background rebuild reads from the mocked repository.
  */
-@SpringBootTest
+@SpringBootTest(properties = "phone-shop.snapshot.enabled=false")
 class PhoneShopApplicationTests {
 
     /**
@@ -31,6 +71,12 @@ class PhoneShopApplicationTests {
     @MockBean
     PhoneRepository phoneRepository;
 
+    /**
+     * MockBean for simulating the behavior of the PhoneTombstoneRepository in integration tests.
+     */
+    @MockBean
+    PhoneTombstoneRepository phoneTombstoneRepository;
+
     /**
      * Autowired instance of the PhoneShopService to be used in integration tests.
      * The service is injected with the mocked PhoneRepository for controlled testing.
@@ -38,6 +84,27 @@ class PhoneShopApplicationTests {
     @Autowired
     PhoneShopService phoneShopService;
 
+    /**
+     * Autowired instance of the PhoneShopController, used to check the entity tags of single phone lookups.
+     */
+    @Autowired
+    PhoneShopController phoneShopController;
+
+    /**
+     * Autowired instance of the PhoneCache, cleared before every test so that
+     * phones cached by one test do not leak into another.
+     */
+    @Autowired
+    PhoneCache phoneCache;
+
+    /**
+     * Clears the phone cache before every test.
+     */
+    @BeforeEach
+    void clearCache() {
+        phoneCache.invalidateAll();
+    }
+
     /**
      * Test the addition of a new phone to the shop.
      */
@@ -72,6 +139,89 @@ class PhoneShopApplicationTests {
         Assertions.assertEquals(phone, phoneShopService.addNewPhoneToShop(phoneRequest));
     }
 
+    /**
+     * Test adding many phones to the shop at once, with invalid phones reported per row.
+     */
+    @Test
+    void importPhonesTest() {
+
+        // Test data setup
+        PhoneRequest validPhoneRequest = new PhoneRequest(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        PhoneRequest invalidPhoneRequest = new PhoneRequest(
+                null,
+                "",
+                "Galaxy",
+                10,
+                "Black",
+                -1,
+                5
+        );
+
+        List<PhoneRequest> phoneRequests = List.of(validPhoneRequest, invalidPhoneRequest, validPhoneRequest);
+
+        // Perform the test and assert the result
+        ImportReport importReport = phoneShopService.importPhonesToShop(phoneRequests);
+        Assertions.assertEquals(3, importReport.getReceived());
+        Assertions.assertEquals(2, importReport.getImported());
+        Assertions.assertEquals(1, importReport.getErrors().size());
+        Assertions.assertEquals(2, importReport.getErrors().get(0).getRow());
+        Assertions.assertEquals(
+                List.of("Cost should be greater than zero", "Manufacturer should not be null"),
+                importReport.getErrors().get(0).getMessages()
+        );
+
+    }
+
+    /**
+     * Test adding many phones to the shop at once from CSV data, with unparseable rows reported per row.
+     */
+    @Test
+    void importPhonesFromCsvTest() throws IOException {
+
+        // Test data setup
+        String csv = """
+                manufacturer,model,storageSize,color,cost,quantity
+                Samsung,Galaxy,10,Black,15000,5
+                Samsung,Galaxy,ten,Black,15000,5
+                Apple,Iphone 13,512,Black,1250,5
+                """;
+
+        // Perform the test and assert the result
+        ImportReport importReport = phoneShopService.importPhonesToShopFromCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))
+        );
+        Assertions.assertEquals(3, importReport.getReceived());
+        Assertions.assertEquals(2, importReport.getImported());
+        Assertions.assertEquals(2, importReport.getErrors().get(0).getRow());
+
+    }
+
+    /**
+     * Test adding phones from CSV data without the expected header (throws exception).
+     */
+    @Test
+    void importPhonesFromCsvExceptionTest() {
+
+        // Test data setup
+        String csv = "Samsung,Galaxy,10,Black,15000,5\n";
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> phoneShopService.importPhonesToShopFromCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))
+        );
+
+    }
+
     /**
      * Test retrieving a phone by its ID.
      */
@@ -116,6 +266,312 @@ class PhoneShopApplicationTests {
 
     }
 
+    /**
+     * Test retrieving a phone by its ID twice, with the second lookup served from the cache.
+     */
+    @Test
+    void getPhoneByIdCacheTest() {
+
+        // Test data setup
+        int id = 5;
+
+        Phone phone = new Phone(
+                id,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.findById(id)).thenReturn(Optional.of(phone));
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(phone, phoneShopService.getPhoneFromShop(id));
+        Assertions.assertEquals(phone, phoneShopService.getPhoneFromShop(id));
+        verify(phoneRepository, times(1)).findById(id);
+
+    }
+
+    /**
+     * Test retrieving many phones at once: results come back in request order with not-found markers,
+     * cached phones are not loaded again, and the other IDs are loaded with chunked queries.
+     */
+    @Test
+    void getPhonesBatchTest() {
+
+        // Test data setup
+        Phone phone1 = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        Phone phone2 = new Phone(
+                2,
+                "Apple",
+                "Iphone",
+                12,
+                "White",
+                20000,
+                3
+        );
+
+        List<Integer> manyIds = new ArrayList<>();
+        for (int id = 1000; id < 1250; id++) {
+            manyIds.add(id);
+        }
+
+        // Mock repository behavior
+        when(phoneRepository.findById(1)).thenReturn(Optional.of(phone1));
+        when(phoneRepository.findAllById(List.of(2, 3))).thenReturn(List.of(phone2));
+
+        // Perform the test and assert the result
+        phoneShopService.getPhoneFromShop(1);
+        Assertions.assertEquals(
+                List.of(
+                        new PhoneLookup(2, true, phone2),
+                        new PhoneLookup(1, true, phone1),
+                        new PhoneLookup(3, false, null),
+                        new PhoneLookup(2, true, phone2)
+                ),
+                phoneShopService.getPhonesFromShop(List.of(2, 1, 3, 2))
+        );
+        verify(phoneRepository, times(1)).findAllById(List.of(2, 3));
+        Assertions.assertEquals(new PhoneLookup(2, true, phone2), phoneShopService.getPhonesFromShop(List.of(2)).get(0));
+        verify(phoneRepository, times(1)).findAllById(any());
+
+        Assertions.assertEquals(250, phoneShopService.getPhonesFromShop(manyIds).size());
+        verify(phoneRepository, times(4)).findAllById(any());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> phoneShopService.getPhonesFromShop(List.of()));
+
+    }
+
+    /**
+     * Test reading the version of a phone, from the cache when the phone is cached and without loading
+     * the phone otherwise, and that the catalog version changes once a phone is deleted.
+     */
+    @Test
+    void getPhoneVersionTest() {
+
+        // Test data setup
+        int id = 5;
+
+        Phone phone = new Phone(
+                id,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5,
+                7,
+                0
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.findVersionById(id)).thenReturn(Optional.of(7L));
+        when(phoneRepository.findById(id)).thenReturn(Optional.of(phone));
+        when(phoneRepository.deletePhoneById(id)).thenReturn(1);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(7L, phoneShopService.getPhoneVersionFromShop(id));
+        phoneShopService.getPhoneFromShop(id);
+        Assertions.assertEquals(7L, phoneShopService.getPhoneVersionFromShop(id));
+        verify(phoneRepository, times(1)).findVersionById(id);
+        Assertions.assertThrows(NoSuchElementException.class, () -> phoneShopService.getPhoneVersionFromShop(id + 1));
+
+        String catalogVersion = phoneShopService.getCatalogVersionFromShop();
+        Assertions.assertEquals(catalogVersion, phoneShopService.getCatalogVersionFromShop());
+        phoneShopService.deletePhoneFromShop(id);
+        Assertions.assertNotEquals(catalogVersion, phoneShopService.getCatalogVersionFromShop());
+
+    }
+
+    /**
+     * Test that a plain lookup of a phone loads it once and takes the entity tag from it, while a conditional
+     * lookup probes the version first and is answered with 304 (Not Modified) without loading the phone.
+     */
+    @Test
+    void getPhoneETagTest() {
+
+        // Test data setup
+        int id = 5;
+        Phone phone = new Phone(id, "Samsung", "Galaxy", 10, "Black", 15000, 5, 7, 0);
+        MockHttpServletRequest conditionalRequest = new MockHttpServletRequest();
+        conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"7\"");
+
+        // Mock repository behavior
+        when(phoneRepository.findById(id)).thenReturn(Optional.of(phone));
+        when(phoneRepository.findVersionById(id)).thenReturn(Optional.of(7L));
+
+        // Perform the test and assert the result
+        ResponseEntity<Phone> found = phoneShopController.getSinglePhoneFromShop(id,
+                new ServletWebRequest(new MockHttpServletRequest()));
+        Assertions.assertEquals(HttpStatus.OK, found.getStatusCode());
+        Assertions.assertEquals("\"7\"", found.getHeaders().getETag());
+        verify(phoneRepository, never()).findVersionById(id);
+        verify(phoneRepository, times(1)).findById(id);
+
+        phoneCache.invalidateAll();
+        ResponseEntity<Phone> notModified = phoneShopController.getSinglePhoneFromShop(id,
+                new ServletWebRequest(conditionalRequest));
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        verify(phoneRepository, times(1)).findVersionById(id);
+        verify(phoneRepository, times(1)).findById(id);
+
+    }
+
+    /**
+     * Test that many concurrent lookups of the same uncached phone share a single repository call.
+     */
+    @Test
+    void getPhoneByIdConcurrentTest() throws Exception {
+
+        // Test data setup
+        int id = 5;
+        int callers = 50;
+
+        Phone phone = new Phone(
+                id,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        CountDownLatch allCallersStarted = new CountDownLatch(callers);
+
+        // Mock repository behavior: hold the load until every caller has started and had time to join it
+        when(phoneRepository.findById(id)).thenAnswer(invocation -> {
+            allCallersStarted.await(5, TimeUnit.SECONDS);
+            Thread.sleep(200);
+            return Optional.of(phone);
+        });
+
+        // Perform the test and assert the result
+        ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Phone>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executorService.submit(() -> {
+                    allCallersStarted.countDown();
+                    return phoneShopService.getPhoneFromShop(id);
+                }));
+            }
+            for (Future<Phone> result : results) {
+                Assertions.assertEquals(phone, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        verify(phoneRepository, times(1)).findById(id);
+
+    }
+
+    /**
+     * Test that a failed load shared by many concurrent lookups propagates the failure to every caller.
+     */
+    @Test
+    void getPhoneByIdConcurrentExceptionTest() throws Exception {
+
+        // Test data setup
+        int id = 5;
+        int callers = 20;
+
+        CountDownLatch allCallersStarted = new CountDownLatch(callers);
+
+        // Mock repository behavior: fail the load once every caller has started and had time to join it
+        when(phoneRepository.findById(id)).thenAnswer(invocation -> {
+            allCallersStarted.await(5, TimeUnit.SECONDS);
+            Thread.sleep(200);
+            throw new DataAccessResourceFailureException("Database is unavailable");
+        });
+
+        // Perform the test and assert the result
+        ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Phone>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executorService.submit(() -> {
+                    allCallersStarted.countDown();
+                    return phoneShopService.getPhoneFromShop(id);
+                }));
+            }
+            for (Future<Phone> result : results) {
+                ExecutionException exception = Assertions.assertThrows(
+                        ExecutionException.class,
+                        () -> result.get(10, TimeUnit.SECONDS)
+                );
+                Assertions.assertInstanceOf(DataAccessResourceFailureException.class, exception.getCause());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        verify(phoneRepository, times(1)).findById(id);
+
+    }
+
+    /**
+     * Test that updating a phone evicts it from the cache, so the next lookup sees the updated phone.
+     */
+    @Test
+    void updatePhoneInfoCacheTest() {
+
+        // Test data setup
+        int id = 5;
+
+        Phone phone = new Phone(
+                id,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        PhoneRequest phoneRequest = new PhoneRequest(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "White",
+                14000,
+                5
+        );
+
+        Phone updatedPhone = new Phone(
+                id,
+                "Samsung",
+                "Galaxy",
+                10,
+                "White",
+                14000,
+                5
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.findById(id)).thenReturn(Optional.of(phone));
+        Assertions.assertEquals(phone, phoneShopService.getPhoneFromShop(id));
+        when(phoneRepository.updateById(id, "Samsung", "Galaxy", 10, "White", 14000, 5, 0)).thenReturn(1);
+        when(phoneRepository.findUncachedById(id)).thenReturn(Optional.of(updatedPhone));
+        phoneShopService.updatePhoneInfoInShop(id, phoneRequest);
+        when(phoneRepository.findById(id)).thenReturn(Optional.of(updatedPhone));
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(updatedPhone, phoneShopService.getPhoneFromShop(id));
+
+    }
+
     /**
      * Test retrieving all phones from the shop.
      */
@@ -183,6 +639,237 @@ class PhoneShopApplicationTests {
 
     }
 
+    /**
+     * Test retrieving a page of phones from the shop when more phones follow it.
+     */
+    @Test
+    void getPhonesPageTest() {
+
+        // Test data setup
+        Phone phone1 = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        Phone phone2 = new Phone(
+                2,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                16000,
+                5
+        );
+
+        List<Phone> phoneList = List.of(phone1, phone2);
+
+        // Mock repository behavior
+        when(phoneRepository.findBy(any(Specification.class), any()))
+                .thenReturn(Window.from(phoneList, ScrollPosition::offset, true));
+
+        // Perform the test and assert the result
+        PhonePage firstPage = phoneShopService.getPhonesPageFromShop(null, 2, "cost", "asc");
+        Assertions.assertEquals(phoneList, firstPage.getContent());
+        Assertions.assertEquals(2, firstPage.getSize());
+        Assertions.assertNotNull(firstPage.getNextCursor());
+
+        // The cursor of the first page must be accepted for the next page
+        when(phoneRepository.findBy(any(Specification.class), any()))
+                .thenReturn(Window.from(List.of(), ScrollPosition::offset, false));
+        PhonePage lastPage = phoneShopService.getPhonesPageFromShop(firstPage.getNextCursor(), 2, null, null);
+        Assertions.assertEquals(0, lastPage.getSize());
+        Assertions.assertNull(lastPage.getNextCursor());
+
+    }
+
+    /**
+     * Test retrieving a page of phones with an invalid cursor or sort property (throws exception).
+     */
+    @Test
+    void getPhonesPageExceptionTest() {
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> phoneShopService.getPhonesPageFromShop("not-a-cursor", 10, null, null)
+        );
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> phoneShopService.getPhonesPageFromShop(null, 10, "color", null)
+        );
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> phoneShopService.getPhonesPageFromShop(null, 0, null, null)
+        );
+
+    }
+
+    /**
+     * Test searching phones in the shop by filters.
+     */
+    @Test
+    void searchPhonesTest() {
+
+        // Test data setup
+        Phone phone = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                128,
+                "Black",
+                45000,
+                5
+        );
+
+        PhoneSearchCriteria criteria = new PhoneSearchCriteria();
+        criteria.setManufacturer("Samsung");
+        criteria.setMaxCost(50000);
+
+        // Mock repository behavior
+        when(phoneRepository.findBy(any(Specification.class), any()))
+                .thenReturn(Window.from(List.of(phone), ScrollPosition::offset, false));
+
+        // Perform the test and assert the result
+        PhonePage phonePage = phoneShopService.searchPhonesInShop(criteria, null, 10, "cost", "asc");
+        Assertions.assertEquals(List.of(phone), phonePage.getContent());
+        Assertions.assertNull(phonePage.getNextCursor());
+
+    }
+
+    /**
+     * Test typeahead suggestions for a phone added to the shop, and their limit validation.
+     */
+    @Test
+    void suggestPhonesTest() {
+
+        // Test data setup
+        Phone phone = new Phone(
+                1,
+                "Samsung",
+                "Galaxy Fold",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        PhoneRequest phoneRequest = new PhoneRequest(
+                null,
+                "Samsung",
+                "Galaxy Fold",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.save(any(Phone.class))).thenReturn(phone);
+
+        // Perform the test and assert the result
+        phoneShopService.addNewPhoneToShop(phoneRequest);
+        List<PhoneSuggestion> suggestions = phoneShopService.suggestPhonesInShop("sams fol", null);
+        Assertions.assertEquals(1, suggestions.size());
+        Assertions.assertEquals("Galaxy Fold", suggestions.get(0).getModel());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> phoneShopService.suggestPhonesInShop("sams", 0));
+        verify(phoneRepository, never()).findAll();
+    }
+
+    /**
+     * Test that phone changes and tombstones are merged in change version order into a page of changes,
+     * positioned for the next request.
+     */
+    @Test
+    void getPhoneChangesTest() {
+
+        // Test data setup
+        Phone phone1 = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5,
+                0,
+                2
+        );
+
+        Phone phone3 = new Phone(
+                3,
+                "Apple",
+                "Iphone",
+                12,
+                "White",
+                20000,
+                3,
+                0,
+                3
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.findChangedSince(eq(0L), eq(0), anyLong(), any())).thenReturn(List.of(phone1, phone3));
+        when(phoneTombstoneRepository.findRecordedSince(eq(0L), eq(0), anyLong(), any()))
+                .thenReturn(List.of(new PhoneTombstone(3L, 2)));
+
+        // Perform the test and assert the result
+        PhoneChangePage page = phoneShopService.getPhoneChangesFromShop(null, null, 2);
+        Assertions.assertEquals(
+                List.of(new PhoneChange(2, 1, false, phone1), new PhoneChange(3, 2, true, null)),
+                page.getChanges()
+        );
+        Assertions.assertEquals(3, page.getSince());
+        Assertions.assertEquals(2, page.getAfterId());
+        Assertions.assertTrue(page.isHasMore());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> phoneShopService.getPhoneChangesFromShop(-1L, null, null));
+    }
+
+    /**
+     * Test exporting all phones from the shop as newline-delimited JSON.
+     */
+    @Test
+    void exportAllPhonesTest() throws IOException {
+
+        // Test data setup
+        Phone phone1 = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        );
+
+        Phone phone2 = new Phone(
+                2,
+                "Apple",
+                "Iphone 13",
+                512,
+                "Black",
+                1250,
+                5
+        );
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Mock repository behavior
+        when(phoneRepository.streamAllOrderById()).thenReturn(Stream.of(phone1, phone2));
+
+        // Perform the test and assert the result
+        phoneShopService.exportAllPhonesFromShop(outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("{\"id\":1,"));
+        Assertions.assertTrue(lines[1].startsWith("{\"id\":2,"));
+
+    }
+
     /**
      * Test updating phone information in the shop.
      */
@@ -199,7 +886,9 @@ class PhoneShopApplicationTests {
                 10,
                 "Black",
                 15000,
-                5
+                5,
+                1,
+                7
         );
 
         PhoneRequest phoneRequest = new PhoneRequest(
@@ -213,11 +902,13 @@ class PhoneShopApplicationTests {
         );
 
         // Mock repository behavior
-        when(phoneRepository.findById(id)).thenReturn(Optional.of(phone));
-        when(phoneRepository.save(any(Phone.class))).thenReturn(phone);
+        when(phoneRepository.nextChangeVersion()).thenReturn(7L);
+        when(phoneRepository.updateById(id, "Samsung", "Galaxy", 10, "Black", 15000, 5, 7)).thenReturn(1);
+        when(phoneRepository.findUncachedById(id)).thenReturn(Optional.of(phone));
 
         // Perform the test and assert the result
         Assertions.assertEquals(phone, phoneShopService.updatePhoneInfoInShop(id, phoneRequest));
+        verify(phoneRepository, never()).findById(id);
 
     }
 
@@ -241,7 +932,7 @@ class PhoneShopApplicationTests {
         );
 
         // Mock repository behavior
-        when(phoneRepository.findById(id)).thenReturn(Optional.empty());
+        when(phoneRepository.updateById(id, "Samsung", "Galaxy", 10, "Black", 15000, 5, 0)).thenReturn(0);
 
         // Perform the test and assert the result
         Assertions.assertThrows(
@@ -252,31 +943,144 @@ class PhoneShopApplicationTests {
     }
 
     /**
-     * Test deleting a phone from the shop.
+     * Test partially updating phone information in the shop.
      */
     @Test
-    void deletePhoneTest() {
+    void patchPhoneInfoTest() {
 
         // Test data setup
         int id = 5;
 
-        Message message = new Message("The phone with the id = " + id + " has been successfully deleted!");
-
         Phone phone = new Phone(
-                5,
+                id,
                 "Samsung",
                 "Galaxy",
                 10,
                 "Black",
-                15000,
+                12000,
                 5
         );
 
+        PhonePatchRequest phonePatchRequest = new PhonePatchRequest(
+                null,
+                null,
+                null,
+                null,
+                12000,
+                null
+        );
+
         // Mock repository behavior
-        when(phoneRepository.findById(id)).thenReturn(Optional.of(phone));
+        when(phoneRepository.nextChangeVersion()).thenReturn(7L);
+        when(phoneRepository.patchById(id, phonePatchRequest, 7)).thenReturn(1);
+        when(phoneRepository.findUncachedById(id)).thenReturn(Optional.of(phone));
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(phone, phoneShopService.patchPhoneInfoInShop(id, phonePatchRequest));
+
+    }
+
+    /**
+     * Test partially updating phone information in the shop when the phone does not exist (throws exception).
+     */
+    @Test
+    void patchPhoneInfoExceptionTest() {
+
+        // Test data setup
+        int id = 100;
+
+        PhonePatchRequest phonePatchRequest = new PhonePatchRequest(
+                null,
+                null,
+                null,
+                null,
+                12000,
+                null
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.patchById(id, phonePatchRequest, 0)).thenReturn(0);
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(
+                NoSuchElementException.class,
+                () -> phoneShopService.patchPhoneInfoInShop(id, phonePatchRequest)
+        );
+
+    }
+
+    /**
+     * Test reserving and releasing units of a phone in the shop.
+     */
+    @Test
+    void reserveAndReleasePhoneStockTest() {
+
+        // Test data setup
+        int id = 5;
+
+        // Mock repository behavior
+        when(phoneRepository.nextChangeVersion()).thenReturn(7L, 8L);
+        when(phoneRepository.reserveStock(id, 2, 7)).thenReturn(1);
+        when(phoneRepository.releaseStock(id, 2, 8)).thenReturn(1);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(
+                new Message("2 units of the phone with the id = 5 have been successfully reserved!"),
+                phoneShopService.reservePhoneStockInShop(id, 2)
+        );
+        Assertions.assertEquals(
+                new Message("2 units of the phone with the id = 5 have been successfully released!"),
+                phoneShopService.releasePhoneStockInShop(id, 2)
+        );
+
+    }
+
+    /**
+     * Test reserving units of a phone that does not exist or has too few units in stock (throws exception).
+     */
+    @Test
+    void reservePhoneStockExceptionTest() {
+
+        // Test data setup
+        int missingId = 100;
+        int existingId = 5;
+
+        // Mock repository behavior
+        when(phoneRepository.reserveStock(missingId, 2, 0)).thenReturn(0);
+        when(phoneRepository.existsById(missingId)).thenReturn(false);
+        when(phoneRepository.reserveStock(existingId, 2, 0)).thenReturn(0);
+        when(phoneRepository.existsById(existingId)).thenReturn(true);
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(
+                NoSuchElementException.class,
+                () -> phoneShopService.reservePhoneStockInShop(missingId, 2)
+        );
+        Assertions.assertThrows(
+                InsufficientStockException.class,
+                () -> phoneShopService.reservePhoneStockInShop(existingId, 2)
+        );
+
+    }
+
+    /**
+     * Test deleting a phone from the shop.
+     */
+    @Test
+    void deletePhoneTest() {
+
+        // Test data setup
+        int id = 5;
+
+        Message message = new Message("The phone with the id = " + id + " has been successfully deleted!");
+
+        // Mock repository behavior
+        when(phoneRepository.nextChangeVersion()).thenReturn(7L);
+        when(phoneRepository.deletePhoneById(id)).thenReturn(1);
 
         // Perform the test and assert the result
         Assertions.assertEquals(message, phoneShopService.deletePhoneFromShop(id));
+        verify(phoneTombstoneRepository).insertTombstone(id, 7);
     }
 
     /**
@@ -289,7 +1093,7 @@ class PhoneShopApplicationTests {
         int id = 100;
 
         // Mock repository behavior
-        when(phoneRepository.findById(id)).thenReturn(Optional.empty());
+        when(phoneRepository.deletePhoneById(id)).thenReturn(0);
 
         // Perform the test and assert the result
         Assertions.assertThrows(NoSuchElementException.class, () -> phoneShopService.deletePhoneFromShop(id));
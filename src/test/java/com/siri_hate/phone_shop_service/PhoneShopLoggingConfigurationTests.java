@@ -0,0 +1,71 @@
+package com.siri_hate.phone_shop_service;
+
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.RollingRandomAccessFileAppender;
+import org.apache.logging.log4j.core.async.AsyncLoggerConfig;
+import org.apache.logging.log4j.core.config.ConfigurationSource;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.xml.XmlConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Unit tests for the production logging configuration, reading log4j2-production.xml without starting it,
+ * so that neither the global logging configuration nor the file system is touched.
+ */
+class PhoneShopLoggingConfigurationTests {
+
+    /**
+     * Test that every logger of the production configuration, including the root logger, is asynchronous,
+     * and that they all write to a rolling file appender.
+     */
+    @Test
+    void productionConfigurationTest() throws IOException {
+
+        // Test data setup
+        Node configuration = parse("/log4j2-production.xml");
+
+        // Perform the test and assert the result
+        List<Node> loggers = child(configuration, "Loggers").getChildren();
+        Assertions.assertFalse(loggers.isEmpty());
+        for (Node logger : loggers) {
+            Class<?> loggerClass = logger.getType().getPluginClass();
+            Assertions.assertTrue(
+                    loggerClass == AsyncLoggerConfig.class || loggerClass == AsyncLoggerConfig.RootLogger.class,
+                    () -> logger.getName() + " " + logger.getAttributes() + " should be asynchronous");
+        }
+        Node root = child(child(configuration, "Loggers"), "AsyncRoot");
+
+        Node appender = child(configuration, "Appenders").getChildren().get(0);
+        Assertions.assertEquals(RollingRandomAccessFileAppender.class, appender.getType().getPluginClass());
+        Assertions.assertTrue(appender.getAttributes().get("fileName").endsWith("/phone-shop.log"));
+        Assertions.assertEquals(appender.getAttributes().get("name"),
+                child(root, "AppenderRef").getAttributes().get("ref"));
+        Node policies = child(appender, "Policies");
+        Assertions.assertEquals(List.of("TimeBasedTriggeringPolicy", "SizeBasedTriggeringPolicy"),
+                policies.getChildren().stream().map(Node::getName).toList());
+
+    }
+
+    private static Node parse(String resource) throws IOException {
+        try (InputStream input = PhoneShopLoggingConfigurationTests.class.getResourceAsStream(resource)) {
+            XmlConfiguration configuration = new XmlConfiguration(new LoggerContext(resource),
+                    new ConfigurationSource(input));
+            configuration.getPluginManager().collectPlugins();
+            configuration.setup();
+            return configuration.getRootNode();
+        }
+    }
+
+    private static Node child(Node node, String name) {
+        return node.getChildren().stream()
+                .filter(child -> child.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(node.getName() + " has no " + name));
+    }
+
+}
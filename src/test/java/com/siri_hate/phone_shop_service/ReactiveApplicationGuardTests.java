@@ -0,0 +1,59 @@
+package com.siri_hate.phone_shop_service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ReactiveApplicationGuard, checking that the application refuses to start only while
+ * the reactive variant is connected to the same PostgreSQL database.
+ */
+class ReactiveApplicationGuardTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final ReactiveApplicationGuard guard = new ReactiveApplicationGuard(jdbcTemplate);
+
+    /**
+     * Test that the startup fails while sessions of the reactive variant are connected, and succeeds once they are gone.
+     */
+    @Test
+    void postgresTest() {
+
+        // Mock database behavior
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(ReactiveApplicationGuard.REACTIVE_APPLICATION_NAME)))
+                .thenReturn(3, 0);
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(IllegalStateException.class, guard::check);
+        Assertions.assertDoesNotThrow(guard::check);
+
+    }
+
+    /**
+     * Test that databases other than PostgreSQL are not checked.
+     */
+    @Test
+    void otherDatabaseTest() {
+
+        // Mock database behavior
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("H2");
+
+        // Perform the test and assert the result
+        Assertions.assertDoesNotThrow(guard::check);
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Integer.class), any(Object[].class));
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.siri_hate.phone_shop_service.aspect;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.Property;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Unit tests for the PhoneShopMetricsAspect, checking the recorded meters and that failures are logged once per call.
+ * The cost of recording is measured by {@code PhoneShopMetricsAspectBenchmark}.
+ */
+class PhoneShopMetricsAspectTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PhoneRepository phoneRepository = mock(PhoneRepository.class, withSettings().stubOnly());
+
+    private final PhoneShopMetricsAspect aspect = new PhoneShopMetricsAspect(meterRegistry, Duration.ofSeconds(1), 0);
+
+    private final PhoneRepository measuredRepository = proxy(repositoryProxy(phoneRepository), aspect);
+
+    /**
+     * Test that every call is counted and timed per method, attributed to the repository even for methods
+     * inherited from Spring Data interfaces, and that failed calls are counted as errors.
+     */
+    @Test
+    void recordCallsTest() {
+
+        // Test data setup
+        Phone phone = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                4
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.findById(1)).thenReturn(Optional.of(phone));
+        when(phoneRepository.count()).thenThrow(new IllegalStateException("Database is down"));
+
+        // Perform the test and assert the result
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(Optional.of(phone), measuredRepository.findById(1));
+        }
+        Assertions.assertThrows(IllegalStateException.class, measuredRepository::count);
+
+        Timer findById = meterRegistry.get(PhoneShopMetricsAspect.CALLS_METRIC)
+                .tags("layer", "dao", "class", "PhoneRepository", "method", "findById")
+                .timer();
+        Assertions.assertEquals(3, findById.count());
+        Assertions.assertEquals(0.0, meterRegistry.get(PhoneShopMetricsAspect.ERRORS_METRIC)
+                .tags("method", "findById")
+                .counter()
+                .count());
+        Assertions.assertEquals(1, meterRegistry.get(PhoneShopMetricsAspect.CALLS_METRIC)
+                .tags("method", "count")
+                .timer()
+                .count());
+        Assertions.assertEquals(1.0, meterRegistry.get(PhoneShopMetricsAspect.ERRORS_METRIC)
+                .tags("method", "count")
+                .counter()
+                .count());
+
+    }
+
+    /**
+     * Test that a failure propagating through nested measured calls is logged once, by the innermost call,
+     * and that the same failure thrown again by a later call is logged again.
+     */
+    @Test
+    void logFailureOnceTest() {
+
+        // Test data setup
+        IllegalStateException failure = new IllegalStateException("Database is down");
+        PhoneRepository nestedRepository = proxy(measuredRepository, aspect);
+        RecordingAppender appender = new RecordingAppender();
+        Logger logger = (Logger) LogManager.getLogger(PhoneShopMetricsAspect.class);
+        Level originalLevel = logger.getLevel();
+        appender.start();
+        Configurator.setLevel(logger.getName(), Level.WARN);
+        logger.addAppender(appender);
+
+        // Mock repository behavior
+        when(phoneRepository.count()).thenThrow(failure);
+
+        // Perform the test and assert the result
+        try {
+            Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, nestedRepository::count));
+            Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, nestedRepository::count));
+        } finally {
+            logger.removeAppender(appender);
+            Configurator.setLevel(logger.getName(), originalLevel);
+            appender.stop();
+        }
+        Assertions.assertEquals(List.of(
+                "Failed dao method: PhoneRepository.count - threw IllegalStateException: Database is down",
+                "Failed dao method: PhoneRepository.count - threw IllegalStateException: Database is down"
+        ), appender.messages);
+        Assertions.assertEquals(4.0, meterRegistry.get(PhoneShopMetricsAspect.ERRORS_METRIC)
+                .tags("method", "count")
+                .counter()
+                .count());
+
+    }
+
+    /**
+     * Wraps a repository in a JDK proxy, as Spring Data exposes repositories.
+     */
+    private static PhoneRepository repositoryProxy(PhoneRepository repository) {
+        ProxyFactory proxyFactory = new ProxyFactory(repository);
+        proxyFactory.addInterface(PhoneRepository.class);
+        return (PhoneRepository) proxyFactory.getProxy();
+    }
+
+    private static PhoneRepository proxy(PhoneRepository repository, PhoneShopMetricsAspect aspect) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(repository);
+        proxyFactory.addInterface(PhoneRepository.class);
+        proxyFactory.addAspect(aspect);
+        return proxyFactory.getProxy();
+    }
+
+    /**
+     * An appender recording the messages logged through it.
+     */
+    private static class RecordingAppender extends AbstractAppender {
+
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        RecordingAppender() {
+            super("recording", null, null, true, Property.EMPTY_ARRAY);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            messages.add(event.getMessage().getFormattedMessage());
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.CatalogSnapshot;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Integration tests for the CatalogSnapshotManager against an embedded database, comparing the snapshot
+ * with reading and serializing the catalog on every request.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogSnapshotManagerTests {
+
+    private static final int CATALOG_SIZE = 5_000;
+
+    private static final int REQUESTS = 200;
+
+    /**
+     * Autowired instance of the PhoneRepository, backed by the embedded database.
+     */
+    @Autowired
+    PhoneRepository phoneRepository;
+
+    /**
+     * Autowired entity manager of the embedded database.
+     */
+    @Autowired
+    EntityManager entityManager;
+
+    /**
+     * Autowired transaction manager, used to read the catalog in a transaction.
+     */
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Removes the phones stored by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        phoneRepository.deleteAll();
+    }
+
+    /**
+     * Test that the snapshot holds all phones ordered by ID in both encodings, with the catalog version
+     * read before the rebuild, and that a rebuild picks up a change.
+     */
+    @Test
+    void rebuildTest() throws IOException {
+
+        // Test data setup
+        List<Phone> phones = phoneRepository.saveAll(List.of(
+                new Phone(null, "Samsung", "Galaxy S23", 128, "Black", 45000, 3),
+                new Phone(null, "Apple", "Iphone 13", 128, "Black", 40000, 2)
+        ));
+        CatalogVersion catalogVersion = new CatalogVersion(event -> { });
+        CatalogSnapshotManager manager = newManager(catalogVersion);
+
+        // Perform the test and assert the result
+        Assertions.assertTrue(manager.current().isEmpty());
+        CatalogSnapshot snapshot = manager.rebuild();
+        Assertions.assertSame(snapshot, manager.current().orElseThrow());
+        Assertions.assertEquals(catalogVersion.current(), snapshot.getVersion());
+        Assertions.assertEquals(2, snapshot.getPhoneCount());
+        Assertions.assertEquals(phones, readPhones(snapshot.getJson()));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzippedJson()))) {
+            Assertions.assertArrayEquals(snapshot.getJson(), gzip.readAllBytes());
+        }
+
+        phoneRepository.deleteById(phones.get(0).getId());
+        catalogVersion.advance();
+        CatalogSnapshot rebuilt = manager.rebuild();
+        Assertions.assertNotEquals(snapshot.getVersion(), rebuilt.getVersion());
+        Assertions.assertEquals(List.of(phones.get(1)), readPhones(rebuilt.getJson()));
+        Assertions.assertEquals(2, readPhones(snapshot.getJson()).size());
+
+    }
+
+    /**
+     * Test that a committed write announced by the catalog version is picked up by a background rebuild.
+     */
+    @Test
+    void rebuildOnCatalogChangedTest() throws Exception {
+
+        // Test data setup
+        phoneRepository.save(new Phone(null, "Samsung", "Galaxy S23", 128, "Black", 45000, 3));
+        CatalogSnapshotManager[] manager = new CatalogSnapshotManager[1];
+        CatalogVersion catalogVersion = new CatalogVersion(event -> manager[0].onCatalogChanged((CatalogChangedEvent) event));
+        manager[0] = newManager(catalogVersion);
+
+        // Perform the test and assert the result
+        catalogVersion.advance();
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (manager[0].current().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, manager[0].current().orElseThrow().getPhoneCount());
+        manager[0].shutdown();
+
+    }
+
+    /**
+     * Test that changes announced within the minimum rebuild interval are coalesced into a single rebuild,
+     * started once the interval since the previous rebuild has passed.
+     */
+    @Test
+    void minRebuildIntervalTest() throws Exception {
+
+        // Test data setup
+        phoneRepository.save(new Phone(null, "Samsung", "Galaxy S23", 128, "Black", 45000, 3));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CatalogSnapshotManager[] manager = new CatalogSnapshotManager[1];
+        CatalogVersion catalogVersion = new CatalogVersion(event -> manager[0].onCatalogChanged((CatalogChangedEvent) event));
+        manager[0] = newManager(catalogVersion, meterRegistry, Duration.ofSeconds(1));
+        Timer rebuilds = meterRegistry.get("phone-shop.catalog-snapshot.rebuild").timer();
+
+        // Perform the test and assert the result
+        long startNanos = System.nanoTime();
+        manager[0].rebuild();
+        phoneRepository.save(new Phone(null, "Apple", "Iphone 13", 128, "Black", 40000, 2));
+        for (int i = 0; i < 5; i++) {
+            catalogVersion.advance();
+        }
+        String latest = catalogVersion.current();
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!latest.equals(manager[0].current().orElseThrow().getVersion()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(System.nanoTime() - startNanos >= Duration.ofSeconds(1).toNanos());
+        Assertions.assertEquals(2, manager[0].current().orElseThrow().getPhoneCount());
+        Assertions.assertEquals(2, rebuilds.count());
+        manager[0].shutdown();
+
+    }
+
+    /**
+     * Compare the throughput of serving the catalog from the snapshot with reading and serializing
+     * all phones on every request.
+     */
+    @Test
+    void throughputTest() throws IOException {
+
+        // Test data setup
+        List<Phone> phones = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            phones.add(new Phone(null, "Samsung", "Galaxy S" + i, 128, "Black", 40000 + i, i % 10));
+        }
+        phoneRepository.saveAll(phones);
+        CatalogSnapshotManager manager = newManager(new CatalogVersion(event -> { }));
+        manager.rebuild();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        OutputStream client = OutputStream.nullOutputStream();
+
+        // Perform the test
+        for (int i = 0; i < REQUESTS / 4; i++) {
+            client.write(objectMapper.writeValueAsBytes(transactionTemplate.execute(status -> phoneRepository.findAll(Sort.by("id")))));
+            client.write(manager.current().orElseThrow().getJson());
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            client.write(objectMapper.writeValueAsBytes(transactionTemplate.execute(status -> phoneRepository.findAll(Sort.by("id")))));
+        }
+        long queryNanos = System.nanoTime() - startNanos;
+        startNanos = System.nanoTime();
+        for (int i = 0; i < REQUESTS * 100; i++) {
+            client.write(manager.current().orElseThrow().getJson());
+        }
+        long snapshotNanos = (System.nanoTime() - startNanos) / 100;
+        CatalogSnapshot snapshot = manager.current().orElseThrow();
+        System.out.printf("Full catalog of %d phones (%d KB, %d KB gzipped): query and serialize %.0f requests/s, "
+                        + "snapshot %.0f requests/s%n",
+                CATALOG_SIZE, snapshot.getJson().length / 1024, snapshot.getGzippedJson().length / 1024,
+                REQUESTS / (queryNanos / 1e9), REQUESTS / (snapshotNanos / 1e9));
+
+        // Assert the result
+        Assertions.assertEquals(CATALOG_SIZE, snapshot.getPhoneCount());
+        Assertions.assertTrue(snapshotNanos < queryNanos);
+
+    }
+
+    private CatalogSnapshotManager newManager(CatalogVersion catalogVersion) {
+        return newManager(catalogVersion, new SimpleMeterRegistry(), Duration.ZERO);
+    }
+
+    private CatalogSnapshotManager newManager(CatalogVersion catalogVersion, SimpleMeterRegistry meterRegistry,
+                                              Duration minRebuildInterval) {
+        return new CatalogSnapshotManager(
+                phoneRepository,
+                entityManager,
+                transactionManager,
+                catalogVersion,
+                objectMapper,
+                meterRegistry,
+                true,
+                minRebuildInterval
+        );
+    }
+
+    private List<Phone> readPhones(byte[] json) throws IOException {
+        return objectMapper.readValue(json, new TypeReference<>() { });
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.siri_hate.phone_shop_service.cache;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.repository.PhoneSpecifications;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+
+/**
+ * Integration tests for the Hibernate second-level and query caches set up by SecondLevelCacheConfiguration,
+ * run against an embedded database. Tests run without a surrounding test transaction, so that every repository
+ * call has a session of its own and can only share phones through the second-level cache.
+ */
+@DataJpaTest
+@Import(SecondLevelCacheConfiguration.class)
+@TestPropertySource(properties = "phone-shop.cache.provider=hibernate")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+    /**
+     * Autowired instance of the PhoneRepository, backed by the embedded database.
+     */
+    @Autowired
+    PhoneRepository phoneRepository;
+
+    /**
+     * Autowired entity manager factory, whose Hibernate statistics are checked.
+     */
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Autowired cache manager holding the second-level cache regions.
+     */
+    @Autowired
+    CacheManager secondLevelCacheManager;
+
+    /**
+     * Autowired transaction manager, used to run the writes in transactions of their own.
+     */
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    /**
+     * Empties the second-level cache and resets the statistics before every test.
+     */
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Removes the phones stored by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        phoneRepository.deleteAll();
+    }
+
+    /**
+     * Test that a phone read by ID is served from the entity region by later reads,
+     * and that a write empties the region, so that the next read sees the written state.
+     */
+    @Test
+    void entityRegionTest() {
+
+        // Test data setup
+        int id = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                4
+        )).getId();
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Phone.CACHE_REGION);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(4, phoneRepository.findById(id).orElseThrow().getQuantity());
+        Assertions.assertEquals(4, phoneRepository.findById(id).orElseThrow().getQuantity());
+        Assertions.assertEquals(2, region.getHitCount());
+        Assertions.assertEquals(0, region.getMissCount());
+        Assertions.assertEquals(0, statistics.getEntityLoadCount());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> phoneRepository.reserveStock(id, 1, 1)
+        );
+        Assertions.assertEquals(3, phoneRepository.findById(id).orElseThrow().getQuantity());
+        Assertions.assertEquals(1, region.getMissCount());
+        Assertions.assertEquals(1, statistics.getEntityLoadCount());
+
+    }
+
+    /**
+     * Test that a phone read back within the transaction that patched it comes from the database,
+     * although the entity region still holds its previous state until the transaction has completed.
+     */
+    @Test
+    void readBackTest() {
+
+        // Test data setup
+        int id = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                4
+        )).getId();
+        PhonePatchRequest patch = new PhonePatchRequest(null, null, null, null, 12000, null);
+
+        // Perform the test and assert the result
+        Phone readBack = new TransactionTemplate(transactionManager).execute(status -> {
+            phoneRepository.patchById(id, patch, 1);
+            Assertions.assertTrue(entityManagerFactory.getCache().contains(Phone.class, id));
+            return phoneRepository.findUncachedById(id).orElseThrow();
+        });
+        Assertions.assertEquals(12000, readBack.getCost());
+        Assertions.assertEquals(1, readBack.getVersion());
+        Assertions.assertEquals(12000, phoneRepository.findById(id).orElseThrow().getCost());
+
+    }
+
+    /**
+     * Test that a page of the phone list is served from the query region by later identical queries,
+     * and that a write invalidates it, so that the next query sees the written state.
+     */
+    @Test
+    void queryRegionTest() {
+
+        // Test data setup
+        Phone phone = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                4
+        ));
+        phoneRepository.save(new Phone(
+                null,
+                "Apple",
+                "iPhone",
+                128,
+                "White",
+                90000,
+                2
+        ));
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(2, findFirstPage().size());
+        Assertions.assertEquals(2, findFirstPage().size());
+        CacheRegionStatistics region = statistics.getQueryRegionStatistics(PhoneRepository.QUERY_CACHE_REGION);
+        Assertions.assertEquals(1, region.getHitCount());
+        Assertions.assertEquals(1, region.getMissCount());
+        Assertions.assertEquals(1, statistics.getQueryExecutionCount());
+
+        phoneRepository.deleteById(phone.getId());
+        Assertions.assertEquals(1, findFirstPage().size());
+        Assertions.assertEquals(2, statistics.getQueryExecutionCount());
+
+    }
+
+    /**
+     * Test that the statistics of the regions are published as metrics.
+     */
+    @Test
+    void metricsTest() {
+
+        // Test data setup
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SecondLevelCacheMetrics metrics = new SecondLevelCacheMetrics(
+                entityManagerFactory,
+                secondLevelCacheManager,
+                meterRegistry
+        );
+        int id = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                4
+        )).getId();
+        phoneRepository.findById(id);
+        phoneRepository.findById(id + 1);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(0.5, metrics.hitRatio(Phone.CACHE_REGION));
+        Assertions.assertEquals(0.5, meterRegistry.get("phone-shop.second-level-cache.hit-ratio")
+                .tag("region", Phone.CACHE_REGION).gauge().value());
+        Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.second-level-cache.puts")
+                .tag("region", Phone.CACHE_REGION).functionCounter().count());
+        Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.second-level-cache.requests")
+                .tag("region", Phone.CACHE_REGION).tag("result", "miss").functionCounter().count());
+        Assertions.assertTrue(Double.isNaN(metrics.hitRatio(PhoneRepository.QUERY_CACHE_REGION)));
+
+    }
+
+    private Window<Phone> findFirstPage() {
+        return phoneRepository.findBy(
+                PhoneSpecifications.all(),
+                query -> query.sortBy(Sort.by("id")).limit(10).scroll(ScrollPosition.keyset())
+        );
+    }
+
+}
@@ -0,0 +1,389 @@
+package com.siri_hate.phone_shop_service.contract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siri_hate.phone_shop_service.dto.PhoneCsvReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Functional tests of the {@code /api/v1/phones} contract, run over HTTP against a started application.
+ * The servlet and the reactive application each extend these tests, so that both stacks are held to the same
+ * responses. Every test creates the phones it needs under a manufacturer of its own, so that the tests do not
+ * depend on each other or on the order they run in.
+ */
+public abstract class PhoneApiContractTests {
+
+    private static final AtomicInteger MANUFACTURER_SEQUENCE = new AtomicInteger();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @LocalServerPort
+    int port;
+
+    private String manufacturer;
+
+    /**
+     * Picks the manufacturer of the phones created by the next test.
+     */
+    @BeforeEach
+    void setUp() {
+        manufacturer = "Contract" + MANUFACTURER_SEQUENCE.incrementAndGet() + getClass().getSimpleName().charAt(0);
+    }
+
+    /**
+     * Test that a created phone is returned with its ID, and is then served with its version as entity tag,
+     * or as not modified when the request holds that tag.
+     */
+    @Test
+    void addAndGetPhoneTest() throws Exception {
+
+        // Perform the test and assert the result
+        HttpResponse<String> created = send(post("/phones", phoneJson("Galaxy", 10000, 5)));
+        Assertions.assertEquals(201, created.statusCode());
+        JsonNode phone = json(created);
+        Assertions.assertTrue(phone.get("id").asInt() > 0);
+        Assertions.assertEquals(manufacturer, phone.get("manufacturer").asText());
+        Assertions.assertEquals("Galaxy", phone.get("model").asText());
+        Assertions.assertEquals(10000, phone.get("cost").asInt());
+        Assertions.assertEquals(5, phone.get("quantity").asInt());
+
+        HttpResponse<String> found = send(get("/phones/" + phone.get("id").asInt()));
+        Assertions.assertEquals(200, found.statusCode());
+        Assertions.assertEquals(phone, json(found));
+        String eTag = found.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> notModified = send(request("/phones/" + phone.get("id").asInt())
+                .header("If-None-Match", eTag)
+                .GET()
+                .build());
+        Assertions.assertEquals(304, notModified.statusCode());
+        Assertions.assertTrue(notModified.body().isEmpty());
+
+    }
+
+    /**
+     * Test that invalid phones are rejected, and that missing phones are answered as not found
+     * with the same message by every endpoint.
+     */
+    @Test
+    void invalidAndMissingPhoneTest() throws Exception {
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(400, send(post("/phones", phoneJson("Galaxy", -1, 5))).statusCode());
+
+        HttpResponse<String> missing = send(get("/phones/" + Integer.MAX_VALUE));
+        Assertions.assertEquals(404, missing.statusCode());
+        Assertions.assertEquals("Phone with ID " + Integer.MAX_VALUE + " not found",
+                json(missing).get("message").asText());
+
+        Assertions.assertEquals(404, send(put("/phones/" + Integer.MAX_VALUE, phoneJson("Galaxy", 1, 1))).statusCode());
+        Assertions.assertEquals(404, send(patch("/phones/" + Integer.MAX_VALUE, "{\"cost\":1}")).statusCode());
+        Assertions.assertEquals(404, send(delete("/phones/" + Integer.MAX_VALUE)).statusCode());
+        Assertions.assertEquals(404,
+                send(post("/phones/" + Integer.MAX_VALUE + "/reserve", "{\"quantity\":1}")).statusCode());
+
+        Assertions.assertEquals(400, send(get("/phones?cursor=not-a-cursor")).statusCode());
+        Assertions.assertEquals(400, send(get("/phones?sort=color")).statusCode());
+
+    }
+
+    /**
+     * Test that a full update replaces every attribute of a phone, that a partial update only changes the
+     * attributes present, and that both bump the version of the phone and return it as stored.
+     */
+    @Test
+    void updateAndPatchPhoneTest() throws Exception {
+
+        // Test data setup
+        JsonNode phone = createPhone("Galaxy", 10000, 5);
+        int id = phone.get("id").asInt();
+
+        // Perform the test and assert the result
+        HttpResponse<String> updated = send(put("/phones/" + id, phoneJson("Pixel", 20000, 7)));
+        Assertions.assertEquals(200, updated.statusCode());
+        Assertions.assertEquals("Pixel", json(updated).get("model").asText());
+        Assertions.assertEquals(20000, json(updated).get("cost").asInt());
+        JsonNode updatedPhone = json(send(get("/phones/" + id)));
+        Assertions.assertEquals("Pixel", updatedPhone.get("model").asText());
+        Assertions.assertTrue(updatedPhone.get("version").asLong() > phone.get("version").asLong());
+        Assertions.assertEquals(updatedPhone, json(updated));
+
+        HttpResponse<String> patched = send(patch("/phones/" + id, "{\"cost\":15000}"));
+        Assertions.assertEquals(200, patched.statusCode());
+        Assertions.assertEquals("Pixel", json(patched).get("model").asText());
+        Assertions.assertEquals(15000, json(patched).get("cost").asInt());
+        Assertions.assertEquals(7, json(patched).get("quantity").asInt());
+        Assertions.assertTrue(json(patched).get("version").asLong() > updatedPhone.get("version").asLong());
+
+        Assertions.assertEquals(json(patched), json(send(get("/phones/" + id))));
+
+    }
+
+    /**
+     * Test that units are reserved while in stock, that reserving more than the stock is a conflict
+     * which leaves the stock as it was, and that released units are back in stock.
+     */
+    @Test
+    void reserveAndReleaseStockTest() throws Exception {
+
+        // Test data setup
+        int id = createPhone("Galaxy", 10000, 3).get("id").asInt();
+
+        // Perform the test and assert the result
+        HttpResponse<String> reserved = send(post("/phones/" + id + "/reserve", "{\"quantity\":2}"));
+        Assertions.assertEquals(200, reserved.statusCode());
+        Assertions.assertEquals("2 units of the phone with the id = " + id + " have been successfully reserved!", json(reserved).get("message").asText());
+
+        HttpResponse<String> insufficient = send(post("/phones/" + id + "/reserve", "{\"quantity\":2}"));
+        Assertions.assertEquals(409, insufficient.statusCode());
+        Assertions.assertEquals(1, json(send(get("/phones/" + id))).get("quantity").asInt());
+
+        HttpResponse<String> released = send(post("/phones/" + id + "/release", "{\"quantity\":2}"));
+        Assertions.assertEquals(200, released.statusCode());
+        Assertions.assertEquals("2 units of the phone with the id = " + id + " have been successfully released!", json(released).get("message").asText());
+        Assertions.assertEquals(3, json(send(get("/phones/" + id))).get("quantity").asInt());
+
+        Assertions.assertEquals(400, send(post("/phones/" + id + "/reserve", "{\"quantity\":0}")).statusCode());
+
+    }
+
+    /**
+     * Test that a deleted phone is no longer found, and that deleting it again is answered as not found.
+     */
+    @Test
+    void deletePhoneTest() throws Exception {
+
+        // Test data setup
+        int id = createPhone("Galaxy", 10000, 3).get("id").asInt();
+
+        // Perform the test and assert the result
+        HttpResponse<String> deleted = send(delete("/phones/" + id));
+        Assertions.assertEquals(200, deleted.statusCode());
+        Assertions.assertEquals("The phone with the id = " + id + " has been successfully deleted!", json(deleted).get("message").asText());
+        Assertions.assertEquals(404, send(get("/phones/" + id)).statusCode());
+        Assertions.assertEquals(404, send(delete("/phones/" + id)).statusCode());
+
+    }
+
+    /**
+     * Test that a JSON and a CSV import add the valid phones and report the invalid ones by row.
+     */
+    @Test
+    void importPhonesTest() throws Exception {
+
+        // Test data setup
+        String jsonImport = "[" + phoneJson("A", 100, 1) + "," + phoneJson("B", -1, 1) + ","
+                + phoneJson("C", 300, 1) + "]";
+        String csvImport = PhoneCsvReader.HEADER + "\n"
+                + manufacturer + ",D,128,Black,400,1\n"
+                + manufacturer + ",E,128,Black,not-a-cost,1\n";
+
+        // Perform the test and assert the result
+        HttpResponse<String> jsonResponse = send(post("/phones/import", jsonImport));
+        Assertions.assertEquals(200, jsonResponse.statusCode());
+        JsonNode jsonReport = json(jsonResponse);
+        Assertions.assertEquals(3, jsonReport.get("received").asInt());
+        Assertions.assertEquals(2, jsonReport.get("imported").asInt());
+        Assertions.assertEquals(1, jsonReport.get("errors").size());
+        Assertions.assertEquals(2, jsonReport.get("errors").get(0).get("row").asInt());
+
+        HttpResponse<String> csvResponse = send(upload("/phones/import", csvImport));
+        Assertions.assertEquals(200, csvResponse.statusCode());
+        JsonNode csvReport = json(csvResponse);
+        Assertions.assertEquals(2, csvReport.get("received").asInt());
+        Assertions.assertEquals(1, csvReport.get("imported").asInt());
+        Assertions.assertEquals(1, csvReport.get("errors").size());
+
+        Assertions.assertEquals(List.of("A", "C", "D"), searchModels("sort=id", 10));
+
+    }
+
+    /**
+     * Test that a search walks every matching phone once, in sort order, page by page,
+     * and that the listing of all phones pages the same way.
+     */
+    @Test
+    void pageAndSearchPhonesTest() throws Exception {
+
+        // Test data setup
+        createPhone("A", 300, 1);
+        createSoldOutPhone("B", 100);
+        createPhone("C", 200, 1);
+        createPhone("D", 100, 1);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(List.of("A", "B", "C", "D"), searchModels("sort=id", 3));
+        Assertions.assertEquals(List.of("B", "D", "C", "A"), searchModels("sort=cost", 1));
+        Assertions.assertEquals(List.of("A", "C", "D", "B"), searchModels("sort=cost&direction=desc", 2));
+        Assertions.assertEquals(List.of("D", "C"), searchModels("sort=cost&inStock=true&maxCost=200", 2));
+
+        JsonNode firstPage = json(send(get("/phones?size=2")));
+        Assertions.assertEquals(2, firstPage.get("content").size());
+        Assertions.assertEquals(2, firstPage.get("size").asInt());
+        JsonNode secondPage = json(send(get("/phones?size=2&cursor=" + firstPage.get("nextCursor").asText())));
+        Assertions.assertTrue(secondPage.get("content").get(0).get("id").asInt()
+                > firstPage.get("content").get(1).get("id").asInt());
+
+    }
+
+    /**
+     * Test that a batch lookup answers every requested ID in request order, with the missing ones not found,
+     * and that summaries page after the given ID.
+     */
+    @Test
+    void batchAndSummariesTest() throws Exception {
+
+        // Test data setup
+        int first = createPhone("A", 100, 1).get("id").asInt();
+        int second = createSoldOutPhone("B", 200).get("id").asInt();
+
+        // Perform the test and assert the result
+        JsonNode lookups = json(send(get("/phones/batch?ids=" + second + "," + Integer.MAX_VALUE + "," + first)));
+        Assertions.assertEquals(3, lookups.size());
+        Assertions.assertEquals("B", lookups.get(0).get("phone").get("model").asText());
+        Assertions.assertFalse(lookups.get(1).get("found").asBoolean());
+        Assertions.assertEquals(Integer.MAX_VALUE, lookups.get(1).get("id").asInt());
+        Assertions.assertEquals("A", lookups.get(2).get("phone").get("model").asText());
+
+        JsonNode summaries = json(send(get("/phones/summaries?size=1&afterId=" + first)));
+        Assertions.assertEquals(1, summaries.get("content").size());
+        Assertions.assertEquals(second, summaries.get("content").get(0).get("id").asInt());
+        Assertions.assertFalse(summaries.get("content").get(0).get("inStock").asBoolean());
+
+    }
+
+    /**
+     * Test that the full listing and the export both hold every phone once, as a JSON array and as
+     * newline-delimited JSON ordered by ID respectively.
+     */
+    @Test
+    void allAndExportPhonesTest() throws Exception {
+
+        // Test data setup
+        int first = createPhone("A", 100, 1).get("id").asInt();
+        int second = createPhone("B", 200, 1).get("id").asInt();
+
+        // Perform the test and assert the result
+        HttpResponse<String> all = send(get("/phones/all"));
+        Assertions.assertEquals(200, all.statusCode());
+        List<Integer> allIds = new ArrayList<>();
+        json(all).forEach(phone -> allIds.add(phone.get("id").asInt()));
+        Assertions.assertTrue(allIds.containsAll(List.of(first, second)));
+
+        HttpResponse<String> export = send(get("/phones/export"));
+        Assertions.assertEquals(200, export.statusCode());
+        Assertions.assertTrue(export.headers().firstValue("Content-Type").orElseThrow()
+                .startsWith("application/x-ndjson"));
+        List<Integer> exportedIds = new ArrayList<>();
+        for (String line : export.body().split("\n")) {
+            exportedIds.add(objectMapper.readTree(line).get("id").asInt());
+        }
+        Assertions.assertEquals(allIds.stream().sorted().toList(), exportedIds);
+
+    }
+
+    private List<String> searchModels(String query, int size) throws IOException, InterruptedException {
+        List<String> models = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode page = json(send(get("/phones/search?manufacturer=" + manufacturer + "&size=" + size + "&"
+                    + query + (cursor == null ? "" : "&cursor=" + cursor))));
+            page.get("content").forEach(phone -> models.add(phone.get("model").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+        return models;
+    }
+
+    private JsonNode createPhone(String model, int cost, int quantity) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/phones", phoneJson(model, cost, quantity)));
+        Assertions.assertEquals(201, response.statusCode());
+        return json(response);
+    }
+
+    private JsonNode createSoldOutPhone(String model, int cost) throws IOException, InterruptedException {
+        JsonNode phone = createPhone(model, cost, 1);
+        HttpResponse<String> response = send(post("/phones/" + phone.get("id").asInt() + "/reserve", "{\"quantity\":1}"));
+        Assertions.assertEquals(200, response.statusCode());
+        return phone;
+    }
+
+    private String phoneJson(String model, int cost, int quantity) {
+        return "{\"manufacturer\":\"" + manufacturer + "\",\"model\":\"" + model
+                + "\",\"storageSize\":128,\"color\":\"Black\",\"cost\":" + cost + ",\"quantity\":" + quantity + "}";
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpRequest put(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpRequest patch(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpRequest upload(String path, String csv) {
+        String boundary = "contract-test";
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"phones.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + csv + "\r\n"
+                + "--" + boundary + "--\r\n";
+        return request(path)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1" + path))
+                .timeout(Duration.ofSeconds(30));
+    }
+
+}
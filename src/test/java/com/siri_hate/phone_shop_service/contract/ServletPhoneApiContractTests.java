@@ -0,0 +1,22 @@
+package com.siri_hate.phone_shop_service.contract;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the {@link PhoneApiContractTests} against the servlet application, on a random local port
+ * with an in-memory H2 database in PostgreSQL mode. The catalog snapshot is disabled, as it is rebuilt in
+ * the background and would make the full listing lag behind the writes of a test.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:phone-shop-contract;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "phone-shop.snapshot.enabled=false"
+        }
+)
+class ServletPhoneApiContractTests extends PhoneApiContractTests {
+}
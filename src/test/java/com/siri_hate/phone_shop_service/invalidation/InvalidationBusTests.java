@@ -0,0 +1,327 @@
+package com.siri_hate.phone_shop_service.invalidation;
+
+import com.siri_hate.phone_shop_service.cache.CatalogVersion;
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.search.PhoneSearchIndex;
+import com.siri_hate.phone_shop_service.stream.InventoryChangeStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the InvalidationBus, running several nodes in one JVM connected by the in-process transport
+ * and checking that writes propagate and that lost batches and silent nodes make the nodes drop their caches.
+ */
+class InvalidationBusTests {
+
+    private static final Duration MAX_STALENESS = Duration.ofMillis(400);
+
+    private final InProcessInvalidationTransport.Network network = new InProcessInvalidationTransport.Network();
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Stops the nodes started by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        nodes.forEach(node -> node.transport.close());
+    }
+
+    /**
+     * Test that the phones written on one node are evicted and reloaded on the other nodes in batches of bounded
+     * size, that the writing node ignores its own batches, that the propagation lag is recorded, and that a node
+     * leaving the bus is forgotten without a resync.
+     */
+    @Test
+    void propagationTest() {
+
+        // Test data setup
+        Node writer = startNode();
+        Node reader = startNode();
+        Phone phone = new Phone(1, "Samsung", "Galaxy", 128, "Black", 15000, 4);
+        writer.phoneCache.put(1, phone, writer.phoneCache.generation());
+        reader.phoneCache.put(1, phone, reader.phoneCache.generation());
+        flushAll();
+        await(() -> peers(writer) == 1 && peers(reader) == 1);
+
+        // Mock repository behavior
+        when(reader.phoneRepository.findAllById(any())).thenAnswer(invocation ->
+                invocation.<List<Integer>>getArgument(0).contains(1) ? List.of(phone) : List.of());
+
+        // Perform the test and assert the result
+        writer.bus.publish(1);
+        writer.bus.publish(2);
+        writer.bus.publish(3);
+        writer.bus.flush();
+
+        await(() -> reader.meterRegistry.get("phone-shop.invalidation.lag").timer().count() == 2);
+        verify(reader.phoneSearchIndex).put(phone);
+        verify(reader.phoneSearchIndex).remove(2);
+        verify(reader.phoneSearchIndex).remove(3);
+        verify(reader.inventoryChangeStream).publish(1);
+        Assertions.assertTrue(reader.phoneCache.get(1).isEmpty());
+        Assertions.assertTrue(writer.phoneCache.get(1).isPresent());
+        Assertions.assertEquals(3.0, writer.meterRegistry.get("phone-shop.invalidation.sent").counter().count());
+        Assertions.assertEquals(3.0, reader.meterRegistry.get("phone-shop.invalidation.received").counter().count());
+        Assertions.assertEquals(0, writer.meterRegistry.get("phone-shop.invalidation.lag").timer().count());
+
+        writer.bus.shutdown();
+        await(() -> peers(reader) == 0);
+        Assertions.assertTrue(reader.meterRegistry.find("phone-shop.invalidation.resyncs").counters().isEmpty());
+        verify(reader.phoneSearchIndex, never()).rebuild();
+
+    }
+
+    /**
+     * Test that a node missing a batch notices the gap in the sequence numbers from the next batch
+     * and drops its caches.
+     */
+    @Test
+    void gapTest() {
+
+        // Test data setup
+        Node writer = startNode();
+        Node reader = startNode();
+        Phone phone = new Phone(5, "Apple", "iPhone", 256, "White", 90000, 2);
+        flushAll();
+        await(() -> peers(reader) == 1);
+        reader.phoneCache.put(5, phone, reader.phoneCache.generation());
+
+        // Perform the test and assert the result
+        reader.transport.setConnected(false);
+        writer.bus.publish(1);
+        writer.bus.flush();
+        reader.transport.setConnected(true);
+        Assertions.assertTrue(reader.phoneCache.get(5).isPresent());
+
+        writer.bus.publish(2);
+        writer.bus.flush();
+        verify(reader.phoneSearchIndex, timeout(5000)).rebuild();
+        Assertions.assertEquals(1.0, resyncs(reader, "gap"));
+        Assertions.assertTrue(reader.phoneCache.get(5).isEmpty());
+
+    }
+
+    /**
+     * Test that a slow search index rebuild runs in the background: the node keeps applying batches and sending
+     * heartbeats meanwhile, and resyncs requested during the rebuild are coalesced into a single further rebuild.
+     */
+    @Test
+    void slowRebuildTest() throws Exception {
+
+        // Test data setup
+        Node writer = startNode();
+        Node reader = startNode();
+        flushAll();
+        await(() -> peers(reader) == 1);
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Mock search index behavior
+        doAnswer(invocation -> {
+            rebuilding.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(reader.phoneSearchIndex).rebuild();
+
+        // Perform the test and assert the result
+        try {
+            loseBatch(writer, reader, 1);
+            writer.bus.publish(2);
+            writer.bus.flush();
+            Assertions.assertTrue(rebuilding.await(5, TimeUnit.SECONDS));
+
+            writer.bus.publish(3);
+            writer.bus.flush();
+            await(() -> reader.meterRegistry.get("phone-shop.invalidation.received").counter().count() == 2.0);
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> reader.bus.flush());
+
+            loseBatch(writer, reader, 4);
+            writer.bus.publish(5);
+            writer.bus.flush();
+            loseBatch(writer, reader, 6);
+            writer.bus.publish(7);
+            writer.bus.flush();
+            await(() -> resyncs(reader, "gap") == 3.0);
+        } finally {
+            release.countDown();
+        }
+        verify(reader.phoneSearchIndex, timeout(5000).times(2)).rebuild();
+        Thread.sleep(100);
+        verify(reader.phoneSearchIndex, times(2)).rebuild();
+
+    }
+
+    /**
+     * Test that a node cut off from the bus drops its caches and keeps them empty until it hears from the bus again,
+     * while the other node notices the silence of its peer.
+     */
+    @Test
+    void silenceTest() throws Exception {
+
+        // Test data setup
+        Node healthy = startNode();
+        Node isolated = startNode();
+        Phone phone = new Phone(7, "Xiaomi", "Redmi", 64, "Blue", 12000, 9);
+        flushAll();
+        await(() -> peers(healthy) == 1 && peers(isolated) == 1);
+
+        // Perform the test and assert the result
+        isolated.transport.setConnected(false);
+        long silenceEnd = System.nanoTime() + MAX_STALENESS.toNanos() * 3 / 4;
+        while (System.nanoTime() < silenceEnd) {
+            healthy.bus.flush();
+            Thread.sleep(20);
+        }
+        healthy.bus.flush();
+        Assertions.assertEquals(1.0, resyncs(healthy, "peer-silent"));
+        Assertions.assertEquals(0, peers(healthy));
+
+        isolated.phoneCache.put(7, phone, isolated.phoneCache.generation());
+        isolated.bus.flush();
+        Assertions.assertEquals(1.0, resyncs(isolated, "bus-silent"));
+        Assertions.assertTrue(isolated.phoneCache.get(7).isEmpty());
+
+        isolated.transport.setConnected(true);
+        await(() -> {
+            healthy.bus.flush();
+            isolated.bus.flush();
+            return resyncs(isolated, "bus-recovered") == 1.0 && peers(isolated) == 1;
+        });
+        Assertions.assertEquals(1.0, resyncs(isolated, "bus-silent"));
+
+    }
+
+    /**
+     * Test that without a transport the bus keeps nothing and sends nothing.
+     */
+    @Test
+    void noTransportTest() {
+
+        // Test data setup
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InvalidationBus bus = new InvalidationBus(
+                Optional.empty(),
+                mock(PhoneCache.class),
+                mock(PhoneSearchIndex.class),
+                mock(InventoryChangeStream.class),
+                new CatalogVersion(event -> { }),
+                mock(PhoneRepository.class),
+                mock(EntityManagerFactory.class),
+                meterRegistry,
+                500,
+                MAX_STALENESS
+        );
+
+        // Perform the test and assert the result
+        bus.start();
+        bus.publish(1);
+        bus.publishAfterCommit(List.of(2, 3));
+        bus.flush();
+        bus.shutdown();
+        Assertions.assertEquals(0.0, meterRegistry.get("phone-shop.invalidation.pending").gauge().value());
+        Assertions.assertEquals(0.0, meterRegistry.get("phone-shop.invalidation.sent").counter().count());
+
+    }
+
+    private static void loseBatch(Node writer, Node reader, int id) {
+        reader.transport.setConnected(false);
+        writer.bus.publish(id);
+        writer.bus.flush();
+        reader.transport.setConnected(true);
+    }
+
+    private Node startNode() {
+        Node node = new Node(network);
+        nodes.add(node);
+        node.bus.start();
+        return node;
+    }
+
+    private void flushAll() {
+        nodes.forEach(node -> node.bus.flush());
+    }
+
+    private static double peers(Node node) {
+        return node.meterRegistry.get("phone-shop.invalidation.peers").gauge().value();
+    }
+
+    private static double resyncs(Node node, String reason) {
+        Counter counter = node.meterRegistry.find("phone-shop.invalidation.resyncs").tag("reason", reason).counter();
+        return counter != null ? counter.count() : 0.0;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Condition not met within 5 seconds");
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * A node of the service with a real cache and mocked collaborators.
+     */
+    private static class Node {
+
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        private final PhoneCache phoneCache = new PhoneCache(100, Duration.ofMinutes(1), meterRegistry, "service");
+
+        private final PhoneSearchIndex phoneSearchIndex = mock(PhoneSearchIndex.class);
+
+        private final InventoryChangeStream inventoryChangeStream = mock(InventoryChangeStream.class);
+
+        private final PhoneRepository phoneRepository = mock(PhoneRepository.class);
+
+        private final InProcessInvalidationTransport transport;
+
+        private final InvalidationBus bus;
+
+        Node(InProcessInvalidationTransport.Network network) {
+            EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+            when(entityManagerFactory.unwrap(SessionFactory.class))
+                    .thenReturn(mock(SessionFactory.class, RETURNS_DEEP_STUBS));
+            this.transport = new InProcessInvalidationTransport(network);
+            this.bus = new InvalidationBus(
+                    Optional.of(transport),
+                    phoneCache,
+                    phoneSearchIndex,
+                    inventoryChangeStream,
+                    new CatalogVersion(event -> { }),
+                    phoneRepository,
+                    entityManagerFactory,
+                    meterRegistry,
+                    2,
+                    MAX_STALENESS
+            );
+        }
+
+    }
+
+}
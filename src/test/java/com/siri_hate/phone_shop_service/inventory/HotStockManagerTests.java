@@ -0,0 +1,299 @@
+package com.siri_hate.phone_shop_service.inventory;
+
+import com.siri_hate.phone_shop_service.cache.CatalogVersion;
+import com.siri_hate.phone_shop_service.cache.PhoneCache;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.exception.InsufficientStockException;
+import com.siri_hate.phone_shop_service.invalidation.InvalidationBus;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import com.siri_hate.phone_shop_service.stream.InventoryChangeStream;
+import com.siri_hate.phone_shop_service.sync.ChangeVersions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Integration tests for the HotStockManager against an embedded database, comparing in-memory
+ * reservations of a hot phone with row-level reservations.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotStockManagerTests {
+
+    private static final int STOCK = 500;
+
+    private static final int BUYERS = 2000;
+
+    private static final int THREADS = 32;
+
+    /**
+     * Autowired instance of the PhoneRepository, backed by the embedded database.
+     */
+    @Autowired
+    PhoneRepository phoneRepository;
+
+    /**
+     * Autowired transaction manager, used to overwrite quantities the way the service does.
+     */
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final InventoryChangeStream inventoryChangeStream = mock(InventoryChangeStream.class);
+
+    /**
+     * Removes the phones stored by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        phoneRepository.deleteAll();
+    }
+
+    /**
+     * Test that many concurrent buyers of a hot phone never oversell it, as with row-level reservations,
+     * and that unreserved units go back to the row on flush.
+     */
+    @Test
+    void reserveConcurrentTest() throws Exception {
+
+        // Test data setup
+        int hotId = savePhone(STOCK).getId();
+        int coldId = savePhone(STOCK).getId();
+        HotStockManager hotStockManager = createManager(hotId);
+        ChangeVersions changeVersions = new ChangeVersions(phoneRepository, true, true);
+
+        // Perform the test and assert the result
+        runBuyers(id -> {
+            try {
+                hotStockManager.reserve(id, 1);
+                return true;
+            } catch (InsufficientStockException e) {
+                return false;
+            }
+        }, hotId);
+        runBuyers(id -> changeVersions.write(changeVersion -> phoneRepository.reserveStock(id, 1, changeVersion)) == 1, coldId);
+
+        hotStockManager.flushAllStock();
+        Assertions.assertEquals(0, phoneRepository.findQuantityById(hotId).orElseThrow());
+        Assertions.assertEquals(0, phoneRepository.findQuantityById(coldId).orElseThrow());
+
+    }
+
+    /**
+     * Test that units claimed but not reserved, and units released, go back to the row on flush.
+     */
+    @Test
+    void flushTest() {
+
+        // Test data setup
+        int id = savePhone(250).getId();
+        HotStockManager hotStockManager = createManager(id);
+
+        // Perform the test and assert the result
+        hotStockManager.reserve(id, 30);
+        Assertions.assertEquals(150, phoneRepository.findQuantityById(id).orElseThrow());
+        hotStockManager.release(id, 10);
+        Assertions.assertThrows(InsufficientStockException.class, () -> hotStockManager.reserve(id, 500));
+        hotStockManager.reserve(id, 80);
+        Assertions.assertEquals(150, phoneRepository.findQuantityById(id).orElseThrow());
+        hotStockManager.flushAllStock();
+        Assertions.assertEquals(150, phoneRepository.findQuantityById(id).orElseThrow());
+        hotStockManager.reserve(id, 100);
+        Assertions.assertEquals(50, phoneRepository.findQuantityById(id).orElseThrow());
+        hotStockManager.flushAllStock();
+        Assertions.assertEquals(50, phoneRepository.findQuantityById(id).orElseThrow());
+
+    }
+
+    /**
+     * Test that claiming a block of units and giving units back are reported to the inventory change stream,
+     * while reservations served from memory are not.
+     */
+    @Test
+    void publishTest() {
+
+        // Test data setup
+        int id = savePhone(250).getId();
+        HotStockManager hotStockManager = createManager(id);
+
+        // Perform the test and assert the result
+        hotStockManager.reserve(id, 30);
+        hotStockManager.reserve(id, 20);
+        verify(inventoryChangeStream, times(1)).publish(id);
+        hotStockManager.flushAllStock();
+        verify(inventoryChangeStream, times(2)).publish(id);
+
+    }
+
+    /**
+     * Test that claimed units are discarded, not given back, once the quantity of the phone is overwritten,
+     * and are kept if the overwrite rolls back.
+     */
+    @Test
+    void overwriteTest() {
+
+        // Test data setup
+        int id = savePhone(250).getId();
+        HotStockManager hotStockManager = createManager(id);
+
+        // Perform the test and assert the result
+        hotStockManager.reserve(id, 30);
+        Assertions.assertEquals(150, phoneRepository.findQuantityById(id).orElseThrow());
+        Assertions.assertEquals(1, overwriteQuantity(hotStockManager, id, 0, false));
+        hotStockManager.flushAllStock();
+        Assertions.assertEquals(0, phoneRepository.findQuantityById(id).orElseThrow());
+        Assertions.assertThrows(InsufficientStockException.class, () -> hotStockManager.reserve(id, 1));
+
+        overwriteQuantity(hotStockManager, id, 40, false);
+        hotStockManager.reserve(id, 10);
+        Assertions.assertEquals(0, phoneRepository.findQuantityById(id).orElseThrow());
+        overwriteQuantity(hotStockManager, id, 500, true);
+        hotStockManager.flushAllStock();
+        Assertions.assertEquals(30, phoneRepository.findQuantityById(id).orElseThrow());
+
+    }
+
+    /**
+     * Test that the stock level gauge of a deleted phone is removed, and registered anew for new stock.
+     */
+    @Test
+    void discardGaugeTest() {
+
+        // Test data setup
+        int id = savePhone(250).getId();
+        HotStockManager hotStockManager = createManager(id);
+
+        // Perform the test and assert the result
+        hotStockManager.reserve(id, 30);
+        Assertions.assertEquals(70.0, meterRegistry.get("phone-shop.hot-stock.units").tag("phone", String.valueOf(id))
+                .gauge().value());
+        hotStockManager.discardAfterCommit(id);
+        Assertions.assertNull(meterRegistry.find("phone-shop.hot-stock.units").gauge());
+        hotStockManager.reserve(id, 20);
+        Assertions.assertEquals(80.0, meterRegistry.get("phone-shop.hot-stock.units").tag("phone", String.valueOf(id))
+                .gauge().value());
+
+    }
+
+    /**
+     * Overwrites the quantity of a phone in a transaction, as a full update of the phone does.
+     *
+     * @param hotStockManager The manager of the hot phone.
+     * @param id              The ID of the phone.
+     * @param quantity        The new quantity in stock.
+     * @param rollback        Whether to roll the transaction back.
+     * @return The number of updated rows.
+     */
+    private int overwriteQuantity(HotStockManager hotStockManager, int id, int quantity, boolean rollback) {
+        ChangeVersions changeVersions = new ChangeVersions(phoneRepository, true, true);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int updatedRows = hotStockManager.overwriteStock(id, () -> phoneRepository.updateById(
+                    id,
+                    "Samsung",
+                    "Galaxy",
+                    10,
+                    "Black",
+                    15000,
+                    quantity,
+                    changeVersions.forCurrentTransaction()
+            ));
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+            return updatedRows;
+        });
+    }
+
+    /**
+     * Stores a phone with the given quantity in stock.
+     *
+     * @param quantity The quantity in stock.
+     * @return The stored phone.
+     */
+    private Phone savePhone(int quantity) {
+        return phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                quantity
+        ));
+    }
+
+    /**
+     * Creates a HotStockManager for a single hot phone, claiming blocks of 100 units.
+     *
+     * @param hotId The ID of the hot phone.
+     * @return The created manager.
+     */
+    private HotStockManager createManager(int hotId) {
+        return new HotStockManager(
+                phoneRepository,
+                mock(PhoneCache.class),
+                new CatalogVersion(event -> { }),
+                mock(InvalidationBus.class),
+                new ChangeVersions(phoneRepository, true, true),
+                inventoryChangeStream,
+                meterRegistry,
+                Set.of(hotId),
+                100,
+                8,
+                Duration.ofSeconds(30)
+        );
+    }
+
+    /**
+     * Runs concurrent buyers of a single unit each and asserts that exactly the stock was sold.
+     *
+     * @param reservation The reservation of one unit, returning whether it succeeded.
+     * @param id          The ID of the phone to buy.
+     */
+    private void runBuyers(IntPredicate reservation, int id) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                Callable<Boolean> buyer = () -> {
+                    start.await();
+                    return reservation.test(id);
+                };
+                results.add(executorService.submit(buyer));
+            }
+            start.countDown();
+            int sold = 0;
+            for (Future<Boolean> result : results) {
+                sold += result.get(60, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            Assertions.assertEquals(STOCK, sold);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
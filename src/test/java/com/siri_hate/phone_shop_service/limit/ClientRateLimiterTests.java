@@ -0,0 +1,122 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import com.siri_hate.phone_shop_service.controller.PhoneShopController;
+import com.siri_hate.phone_shop_service.controller.PhoneShopExceptionHandler;
+import com.siri_hate.phone_shop_service.exception.RateLimitExceededException;
+import com.siri_hate.phone_shop_service.model.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ClientRateLimiter and its TokenBucket, checking that every client gets its own burst
+ * and steady rate, and that requests over the limit are rejected with the time until the next allowed one.
+ */
+class ClientRateLimiterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PhoneShopController phoneShopController = mock(PhoneShopController.class);
+
+    /**
+     * Clears the request bound to the thread by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Test that a bucket allows a burst of requests at once, then one request per refill interval,
+     * and never accumulates more tokens than its capacity.
+     */
+    @Test
+    void tokenBucketTest() {
+
+        // Test data setup
+        long second = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket bucket = new TokenBucket(2, 4, 0);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(0, bucket.tryTake(0));
+        Assertions.assertEquals(0, bucket.tryTake(0));
+        Assertions.assertEquals(second / 4, bucket.tryTake(0));
+        Assertions.assertEquals(second / 8, bucket.tryTake(second / 8));
+        Assertions.assertEquals(0, bucket.tryTake(second / 4));
+
+        Assertions.assertEquals(0, bucket.tryTake(10 * second));
+        Assertions.assertEquals(0, bucket.tryTake(10 * second));
+        Assertions.assertEquals(second / 4, bucket.tryTake(10 * second));
+
+    }
+
+    /**
+     * Test that a client over its limit is rejected with 429 and a Retry-After header, while another client is not,
+     * and that clients are told apart by the configured header before their remote address.
+     */
+    @Test
+    void perClientLimitTest() {
+
+        // Test data setup
+        PhoneShopController limitedController = proxy(new ClientRateLimiter(meterRegistry, 0.5, 2, "X-Client-Id", 100));
+
+        // Mock controller behavior
+        when(phoneShopController.getPhonesFromShop(List.of(1))).thenReturn(ResponseEntity.ok(List.of()));
+
+        // Perform the test and assert the result
+        bindRequest("10.0.0.1", null);
+        limitedController.getPhonesFromShop(List.of(1));
+        limitedController.getPhonesFromShop(List.of(1));
+        RateLimitExceededException exception = Assertions.assertThrows(RateLimitExceededException.class,
+                () -> limitedController.getPhonesFromShop(List.of(1)));
+        Assertions.assertTrue(exception.getRetryAfter().compareTo(Duration.ofSeconds(2)) <= 0);
+        ResponseEntity<Message> response = new PhoneShopExceptionHandler().handleRateLimitExceeded(exception);
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        Assertions.assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        bindRequest("10.0.0.2", null);
+        Assertions.assertEquals(HttpStatus.OK, limitedController.getPhonesFromShop(List.of(1)).getStatusCode());
+
+        bindRequest("10.0.0.3", "mobile-app");
+        limitedController.getPhonesFromShop(List.of(1));
+        bindRequest("10.0.0.4", "mobile-app");
+        limitedController.getPhonesFromShop(List.of(1));
+        Assertions.assertThrows(RateLimitExceededException.class, () -> limitedController.getPhonesFromShop(List.of(1)));
+
+        Assertions.assertEquals(2.0, meterRegistry.get("phone-shop.rate-limit.rejections").counter().count());
+        Assertions.assertEquals(3.0, meterRegistry.get("phone-shop.rate-limit.clients").gauge().value());
+
+    }
+
+    private void bindRequest(String remoteAddress, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private PhoneShopController proxy(ClientRateLimiter limiter) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(phoneShopController);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(limiter);
+        return proxyFactory.getProxy();
+    }
+
+}
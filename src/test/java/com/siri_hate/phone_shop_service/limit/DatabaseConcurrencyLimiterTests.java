@@ -0,0 +1,128 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.service.PhoneShopService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Unit tests for the DatabaseConcurrencyLimiter, checking that service calls are bounded by its permits
+ * and rejected once they have waited too long.
+ */
+class DatabaseConcurrencyLimiterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PhoneShopService phoneShopService = mock(PhoneShopService.class, withSettings().stubOnly());
+
+    private final Phone phone = new Phone(
+            1,
+            "Samsung",
+            "Galaxy",
+            10,
+            "Black",
+            15000,
+            4
+    );
+
+    /**
+     * Test that no more service calls run at once than the limiter has permits, however many callers there are.
+     */
+    @Test
+    void boundedConcurrencyTest() throws Exception {
+
+        // Test data setup
+        PhoneShopService limitedService = proxy(new DatabaseConcurrencyLimiter(meterRegistry, 3, Duration.ofSeconds(30)));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // Mock repository behavior
+        when(phoneShopService.getPhoneFromShop(1)).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return phone;
+        });
+
+        // Perform the test and assert the result
+        ExecutorService callers = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<Phone>> calls = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                calls.add(callers.submit(() -> limitedService.getPhoneFromShop(1)));
+            }
+            for (Future<Phone> call : calls) {
+                Assertions.assertEquals(phone, call.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        Assertions.assertEquals(3, maxRunning.get());
+        Assertions.assertEquals(0.0, meterRegistry.get("phone-shop.db-limit.in-use").gauge().value());
+        Assertions.assertEquals(0.0, meterRegistry.get("phone-shop.db-limit.rejections").counter().count());
+
+    }
+
+    /**
+     * Test that a service call waiting for a permit longer than the maximum wait is rejected,
+     * and that the permit is released when the call holding it fails.
+     */
+    @Test
+    void rejectAfterMaxWaitTest() throws Exception {
+
+        // Test data setup
+        PhoneShopService limitedService = proxy(new DatabaseConcurrencyLimiter(meterRegistry, 1, Duration.ofMillis(50)));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Mock repository behavior
+        when(phoneShopService.getPhoneFromShop(1)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            throw new IllegalStateException("Database is down");
+        });
+        when(phoneShopService.getPhoneFromShop(2)).thenReturn(phone);
+
+        // Perform the test and assert the result
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Phone> blocked = caller.submit(() -> limitedService.getPhoneFromShop(1));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.db-limit.in-use").gauge().value());
+
+            Assertions.assertThrows(CannotGetJdbcConnectionException.class, () -> limitedService.getPhoneFromShop(2));
+            Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.db-limit.rejections").counter().count());
+
+            release.countDown();
+            Assertions.assertThrows(Exception.class, () -> blocked.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(phone, limitedService.getPhoneFromShop(2));
+        } finally {
+            caller.shutdownNow();
+        }
+
+    }
+
+    private PhoneShopService proxy(DatabaseConcurrencyLimiter limiter) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(phoneShopService);
+        proxyFactory.addAspect(limiter);
+        return proxyFactory.getProxy();
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.siri_hate.phone_shop_service.limit;
+
+import com.siri_hate.phone_shop_service.controller.PhoneShopController;
+import com.siri_hate.phone_shop_service.controller.PhoneShopExceptionHandler;
+import com.siri_hate.phone_shop_service.exception.BulkheadFullException;
+import com.siri_hate.phone_shop_service.model.Message;
+import com.siri_hate.phone_shop_service.model.PhoneSummaryPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the EndpointBulkheads, checking that a full class of endpoints rejects its requests at once
+ * without holding up the other classes, that streamed responses keep their permit until written or until their
+ * request ends, and that the classes share the connection pool less the reserved connections.
+ */
+class EndpointBulkheadsTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PhoneShopController phoneShopController = mock(PhoneShopController.class);
+
+    private final EndpointBulkheads bulkheads = new EndpointBulkheads(
+            meterRegistry,
+            5,
+            1,
+            2,
+            Duration.ofSeconds(5),
+            1,
+            Duration.ZERO,
+            1,
+            Duration.ZERO,
+            Duration.ofSeconds(2)
+    );
+
+    /**
+     * Test that a scan is rejected with 503 and a Retry-After header while another scan holds the only permit,
+     * that point reads are still admitted meanwhile, and that the permit is released when the scan completes.
+     */
+    @Test
+    void isolationTest() throws Exception {
+
+        // Test data setup
+        PhoneShopController limitedController = proxy();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PhoneSummaryPage page = new PhoneSummaryPage(List.of(), 0, null);
+
+        // Mock controller behavior
+        when(phoneShopController.getPhoneSummariesFromShop(null, 50)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return ResponseEntity.ok(page);
+        });
+        when(phoneShopController.getPhonesFromShop(List.of(1))).thenReturn(ResponseEntity.ok(List.of()));
+
+        // Perform the test and assert the result
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<PhoneSummaryPage>> blocked =
+                    caller.submit(() -> limitedController.getPhoneSummariesFromShop(null, 50));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, bulkheads.inUse(EndpointClass.SCANS));
+
+            BulkheadFullException exception = Assertions.assertThrows(BulkheadFullException.class,
+                    () -> limitedController.getPhoneSummariesFromShop(null, 50));
+            Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.bulkhead.rejections")
+                    .tag("class", "scans").counter().count());
+            ResponseEntity<Message> response = new PhoneShopExceptionHandler().handleBulkheadFull(exception);
+            Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+            Assertions.assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            Assertions.assertEquals(HttpStatus.OK, limitedController.getPhonesFromShop(List.of(1)).getStatusCode());
+            Assertions.assertEquals(0, bulkheads.inUse(EndpointClass.POINT_READS));
+
+            release.countDown();
+            Assertions.assertEquals(page, blocked.get(5, TimeUnit.SECONDS).getBody());
+            Assertions.assertEquals(0.0, meterRegistry.get("phone-shop.bulkhead.in-use")
+                    .tag("class", "scans").gauge().value());
+            Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.bulkhead.limit")
+                    .tag("class", "scans").gauge().value());
+        } finally {
+            caller.shutdownNow();
+        }
+
+    }
+
+    /**
+     * Test that an export keeps its permit after the controller has returned, until its body has been written.
+     */
+    @Test
+    void streamingTest() throws Exception {
+
+        // Test data setup
+        PhoneShopController limitedController = proxy();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamingResponseBody body = outputStream -> outputStream.write('\n');
+
+        // Mock controller behavior
+        when(phoneShopController.exportAllPhonesFromShop()).thenReturn(ResponseEntity.ok(body));
+
+        // Perform the test and assert the result
+        ResponseEntity<StreamingResponseBody> response = limitedController.exportAllPhonesFromShop();
+        Assertions.assertEquals(1, bulkheads.inUse(EndpointClass.SCANS));
+        Assertions.assertThrows(BulkheadFullException.class, limitedController::exportAllPhonesFromShop);
+
+        response.getBody().writeTo(output);
+        Assertions.assertEquals(0, bulkheads.inUse(EndpointClass.SCANS));
+        Assertions.assertEquals(1, output.size());
+
+    }
+
+    /**
+     * Test that an export whose asynchronous processing completes without writing the body releases its permit
+     * on completion, only once, and not already when the first dispatch of the request ends.
+     */
+    @Test
+    void asyncCompletionTest() throws Exception {
+
+        // Test data setup
+        PhoneShopController limitedController = proxy();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletRequestAttributes attributes = new ServletRequestAttributes(request, servletResponse);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setTaskExecutor(new TaskExecutorAdapter(Runnable::run));
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, servletResponse));
+        StreamingResponseBody body = outputStream -> outputStream.write('\n');
+
+        // Mock controller behavior
+        when(phoneShopController.exportAllPhonesFromShop()).thenReturn(ResponseEntity.ok(body));
+
+        // Perform the test and assert the result
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            ResponseEntity<StreamingResponseBody> response = limitedController.exportAllPhonesFromShop();
+            asyncManager.startCallableProcessing(() -> null);
+            attributes.requestCompleted();
+            Assertions.assertEquals(1, bulkheads.inUse(EndpointClass.SCANS));
+
+            request.getAsyncContext().complete();
+            Assertions.assertEquals(0, bulkheads.inUse(EndpointClass.SCANS));
+
+            response.getBody().writeTo(new ByteArrayOutputStream());
+            Assertions.assertEquals(0, bulkheads.inUse(EndpointClass.SCANS));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    /**
+     * Test that an export whose request ends without starting the asynchronous processing, such as when the
+     * response was replaced by an error, releases its permit when the request ends.
+     */
+    @Test
+    void requestEndTest() {
+
+        // Test data setup
+        PhoneShopController limitedController = proxy();
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        StreamingResponseBody body = outputStream -> outputStream.write('\n');
+
+        // Mock controller behavior
+        when(phoneShopController.exportAllPhonesFromShop()).thenReturn(ResponseEntity.ok(body));
+
+        // Perform the test and assert the result
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            limitedController.exportAllPhonesFromShop();
+            Assertions.assertEquals(1, bulkheads.inUse(EndpointClass.SCANS));
+
+            attributes.requestCompleted();
+            Assertions.assertEquals(0, bulkheads.inUse(EndpointClass.SCANS));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+    }
+
+    /**
+     * Test that unconfigured limits split the connection pool less the reserved connections between the classes,
+     * and that limits leaving fewer than the reserved connections free are rejected.
+     */
+    @Test
+    void poolSizeTest() {
+
+        // Test data setup
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Duration maxWait = Duration.ofMillis(100);
+
+        // Perform the test and assert the result
+        new EndpointBulkheads(registry, 10, 2, null, maxWait, null, maxWait, null, maxWait, Duration.ofSeconds(1));
+        Assertions.assertEquals(3.0, registry.get("phone-shop.bulkhead.limit").tag("class", "point-reads").gauge().value());
+        Assertions.assertEquals(2.0, registry.get("phone-shop.bulkhead.limit").tag("class", "scans").gauge().value());
+        Assertions.assertEquals(3.0, registry.get("phone-shop.bulkhead.limit").tag("class", "writes").gauge().value());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EndpointBulkheads(new SimpleMeterRegistry(),
+                10, 2, 20, maxWait, 3, maxWait, 5, maxWait, Duration.ofSeconds(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EndpointBulkheads(new SimpleMeterRegistry(),
+                10, 2, 5, maxWait, 2, maxWait, 3, maxWait, Duration.ofSeconds(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EndpointBulkheads(new SimpleMeterRegistry(),
+                10, 0, null, maxWait, null, maxWait, null, maxWait, Duration.ofSeconds(1)));
+
+    }
+
+    private PhoneShopController proxy() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(phoneShopController);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(bulkheads);
+        return proxyFactory.getProxy();
+    }
+
+}
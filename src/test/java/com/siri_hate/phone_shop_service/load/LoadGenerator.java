@@ -0,0 +1,153 @@
+package com.siri_hate.phone_shop_service.load;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link Workload} against a {@link LoadTarget} over HTTP and records the latency of every request.
+ *
+ * <p>Two load models are supported. With a fixed concurrency, a fixed number of clients each send their next request
+ * as soon as the previous one completes (closed model). With a fixed arrival rate, requests are started on a fixed
+ * schedule whatever the response times (open model); the latency of each request is measured from the time it was
+ * scheduled to start, so that requests delayed behind a slow response are not under-reported.
+ */
+class LoadGenerator {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final HttpClient httpClient;
+
+    private final LoadTarget target;
+
+    /**
+     * Constructs a new {@code LoadGenerator}.
+     *
+     * @param httpClient The client sending the requests.
+     * @param target     The application under load.
+     */
+    LoadGenerator(HttpClient httpClient, LoadTarget target) {
+        this.httpClient = httpClient;
+        this.target = target;
+    }
+
+    /**
+     * Runs the workload with a fixed number of concurrent clients.
+     *
+     * @param workload    The workload to run.
+     * @param concurrency The number of concurrent clients.
+     * @param duration    The duration of the run.
+     * @return The report of the run.
+     * @throws InterruptedException if interrupted while waiting for the clients to finish.
+     */
+    LoadReport runAtConcurrency(Workload workload, int concurrency, Duration duration) throws InterruptedException {
+        LoadReport report = new LoadReport(workload + " at concurrency " + concurrency);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        ResourceUsage.Measurement resourceUsage = ResourceUsage.start();
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + duration.toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() - deadlineNanos < 0) {
+                    send(workload, System.nanoTime(), report);
+                }
+            });
+        }
+        awaitTermination(clients);
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - startNanos));
+        report.setResourceUsage(resourceUsage.finish());
+        return report;
+    }
+
+    /**
+     * Runs the workload at a fixed arrival rate. Requests that find all clients busy wait for one,
+     * and the wait counts towards their latency.
+     *
+     * @param workload          The workload to run.
+     * @param requestsPerSecond The number of requests started per second.
+     * @param maxConcurrency    The maximum number of requests in flight.
+     * @param duration          The duration of the run.
+     * @return The report of the run.
+     * @throws InterruptedException if interrupted while waiting for the requests to finish.
+     */
+    LoadReport runAtRate(
+            Workload workload,
+            int requestsPerSecond,
+            int maxConcurrency,
+            Duration duration
+    ) throws InterruptedException {
+        LoadReport report = new LoadReport(workload + " at " + requestsPerSecond + " req/s");
+        ExecutorService clients = Executors.newFixedThreadPool(maxConcurrency);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        ResourceUsage.Measurement resourceUsage = ResourceUsage.start();
+        long startNanos = System.nanoTime();
+        long requests = duration.toNanos() / intervalNanos;
+        for (long i = 0; i < requests; i++) {
+            long scheduledNanos = startNanos + i * intervalNanos;
+            long delayNanos = scheduledNanos - System.nanoTime();
+            if (delayNanos > 0) {
+                LockSupport.parkNanos(delayNanos);
+            }
+            clients.execute(() -> send(workload, scheduledNanos, report));
+        }
+        awaitTermination(clients);
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - startNanos));
+        report.setResourceUsage(resourceUsage.finish());
+        return report;
+    }
+
+    private void send(Workload workload, long startNanos, LoadReport report) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadOperation operation = workload.next(random);
+        HttpRequest request = operation.getRequest().apply(target, random);
+        int status = 0;
+        try {
+            if (operation.isStreaming()) {
+                status = subscribe(request);
+            } else {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            }
+        } catch (IOException e) {
+            // Recorded without a status, as a failed request
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        report.record(operation.getEndpoint(), System.nanoTime() - startNanos, status);
+    }
+
+    /**
+     * Opens a streaming response and closes it once its headers have arrived. The connection is closed rather than
+     * pooled, since the rest of the stream was never read; the pooled connections of the {@link HttpClient}
+     * cannot be closed that way, so the subscription goes through its own connection.
+     *
+     * @param request The request opening the stream.
+     * @return The status code of the response.
+     * @throws IOException if the request failed.
+     */
+    private static int subscribe(HttpRequest request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) request.uri().toURL().openConnection();
+        try {
+            connection.setConnectTimeout((int) CONNECT_TIMEOUT.toMillis());
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void awaitTermination(ExecutorService clients) throws InterruptedException {
+        clients.shutdown();
+        if (!clients.awaitTermination(5, TimeUnit.MINUTES)) {
+            clients.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.siri_hate.phone_shop_service.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * A request to one endpoint of the application, drawn from a {@link Workload} in proportion to its weight.
+ */
+@Getter
+@AllArgsConstructor
+class LoadOperation {
+
+    /**
+     * The endpoint the latencies of the operation are reported under, e.g. {@code GET /phones/{id}}.
+     */
+    private final String endpoint;
+
+    /**
+     * The relative frequency of the operation within its workload.
+     */
+    private final int weight;
+
+    /**
+     * Whether the response is an endless stream, whose latency is measured up to the response headers.
+     */
+    private final boolean streaming;
+
+    /**
+     * Builds a request of the operation against the target.
+     */
+    private final BiFunction<LoadTarget, Random, HttpRequest> request;
+
+    LoadOperation(String endpoint, int weight, BiFunction<LoadTarget, Random, HttpRequest> request) {
+        this(endpoint, weight, false, request);
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.siri_hate.phone_shop_service.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies and response statuses recorded per endpoint during a load run, reported as HDR histogram
+ * percentiles and throughput, along with the memory and threads the JVM used during the run. Requests rejected
+ * by admission control, with 429 (Too Many Requests) or 503 (Service Unavailable), are counted as shed
+ * rather than as errors.
+ */
+class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentSkipListMap<>();
+
+    private volatile Duration elapsed = Duration.ZERO;
+
+    private volatile ResourceUsage resourceUsage;
+
+    /**
+     * Constructs a new, empty {@code LoadReport}.
+     *
+     * @param name The name of the run, printed in the header of the report.
+     */
+    LoadReport(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @param endpoint     The endpoint of the request.
+     * @param latencyNanos The latency of the request, in nanoseconds.
+     * @param status       The status code of the response, or 0 if no response was received.
+     */
+    void record(String endpoint, long latencyNanos, int status) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        stats.latencies.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        if (status == 0) {
+            stats.failures.increment();
+        } else if (status == 429 || status == 503) {
+            stats.shed.increment();
+        } else if (status >= 500) {
+            stats.serverErrors.increment();
+        } else if (status >= 400) {
+            stats.clientErrors.increment();
+        }
+    }
+
+    /**
+     * Sets the duration of the measured run, which throughput is computed over.
+     *
+     * @param elapsed The duration of the run.
+     */
+    void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Sets the memory and threads the JVM used during the measured run.
+     *
+     * @param resourceUsage The resource usage of the run.
+     */
+    void setResourceUsage(ResourceUsage resourceUsage) {
+        this.resourceUsage = resourceUsage;
+    }
+
+    /**
+     * Returns the total number of recorded requests.
+     *
+     * @return The number of requests.
+     */
+    long totalRequests() {
+        return endpoints.values().stream().mapToLong(stats -> stats.latencies.getTotalCount()).sum();
+    }
+
+    /**
+     * Returns the total number of requests answered with a 5xx status other than 503, or not answered at all.
+     *
+     * @return The number of failed requests.
+     */
+    long totalFailures() {
+        return endpoints.values().stream()
+                .mapToLong(stats -> stats.serverErrors.sum() + stats.failures.sum())
+                .sum();
+    }
+
+    /**
+     * Prints the report as a table with one row per endpoint and a row for all endpoints together.
+     * Latencies are in milliseconds.
+     *
+     * @param out The stream to print to.
+     */
+    void print(PrintStream out) {
+        double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+        out.printf("%n=== %s (%.1f s) ===%n", name, seconds);
+        out.printf("%-28s %9s %9s %8s %8s %8s %8s %8s %6s %6s %6s %6s%n",
+                "endpoint", "requests", "req/s", "p50", "p90", "p99", "p99.9", "max", "shed", "4xx", "5xx", "failed");
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long shed = 0;
+        long clientErrors = 0;
+        long serverErrors = 0;
+        long failures = 0;
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            all.add(stats.latencies);
+            shed += stats.shed.sum();
+            clientErrors += stats.clientErrors.sum();
+            serverErrors += stats.serverErrors.sum();
+            failures += stats.failures.sum();
+            printRow(out, entry.getKey(), stats.latencies, seconds,
+                    stats.shed.sum(), stats.clientErrors.sum(), stats.serverErrors.sum(), stats.failures.sum());
+        }
+        printRow(out, "all", all, seconds, shed, clientErrors, serverErrors, failures);
+        if (resourceUsage != null) {
+            resourceUsage.print(out);
+        }
+    }
+
+    private static void printRow(
+            PrintStream out,
+            String endpoint,
+            Histogram latencies,
+            double seconds,
+            long shed,
+            long clientErrors,
+            long serverErrors,
+            long failures
+    ) {
+        out.printf("%-28s %9d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %6d %6d %6d %6d%n",
+                endpoint,
+                latencies.getTotalCount(),
+                latencies.getTotalCount() / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                shed,
+                clientErrors,
+                serverErrors,
+                failures);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * The statistics of a single endpoint, recorded concurrently by all clients.
+     */
+    private static final class EndpointStats {
+
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+
+        private final LongAdder shed = new LongAdder();
+
+        private final LongAdder clientErrors = new LongAdder();
+
+        private final LongAdder serverErrors = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.siri_hate.phone_shop_service.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * The application under load: its base URI and the IDs of the seeded catalog, with helpers building the requests
+ * of the {@link Workload}s.
+ */
+class LoadTarget {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+
+    private final int[] phoneIds;
+
+    private final int hotPhones;
+
+    /**
+     * Constructs a new {@code LoadTarget}.
+     *
+     * @param baseUri   The URI of the API, e.g. {@code http://localhost:8080/api/v1}.
+     * @param phoneIds  The IDs of the seeded phones.
+     * @param hotPhones The number of seeded phones all stock contention goes to.
+     */
+    LoadTarget(URI baseUri, int[] phoneIds, int hotPhones) {
+        this.baseUri = baseUri;
+        this.phoneIds = phoneIds;
+        this.hotPhones = Math.min(hotPhones, phoneIds.length);
+    }
+
+    /**
+     * Returns the ID of a random seeded phone.
+     *
+     * @param random The random generator of the calling thread.
+     * @return The ID of the phone.
+     */
+    int randomPhoneId(Random random) {
+        return phoneIds[random.nextInt(phoneIds.length)];
+    }
+
+    /**
+     * Returns the ID of a random hot phone.
+     *
+     * @param random The random generator of the calling thread.
+     * @return The ID of the phone.
+     */
+    int hotPhoneId(Random random) {
+        return phoneIds[random.nextInt(hotPhones)];
+    }
+
+    HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    HttpRequest post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    HttpRequest put(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    HttpRequest patch(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Builds a multipart request uploading a file in the form field {@code file}.
+     *
+     * @param path     The path of the endpoint.
+     * @param fileName The name of the uploaded file.
+     * @param content  The content of the uploaded file.
+     * @return The request.
+     */
+    HttpRequest upload(String path, String fileName, String content) {
+        String boundary = "load-test-" + Long.toHexString(System.nanoTime());
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + content + "\r\n"
+                + "--" + boundary + "--\r\n";
+        return request(path)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.siri_hate.phone_shop_service.load;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * End-to-end load test of the application. The application is started on a random local port against an in-memory
+ * H2 database in PostgreSQL mode, seeded with a catalog of {@code phone-shop.load-test.catalog-size} phones before
+ * it reports ready, and every configured {@link Workload} is then driven against it over HTTP, printing a latency
+ * and throughput report per endpoint. No network access or external service is needed.
+ *
+ * <p>The test only runs when {@code phone-shop.load-test.enabled} is {@code true}, which the {@code load-test}
+ * Maven profile sets. The load is tuned with the {@code phone-shop.load-test.*} properties of the
+ * {@code loadtest} Spring profile, which can be overridden on the command line.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@EnabledIfSystemProperty(named = "phone-shop.load-test.enabled", matches = "true")
+class PhoneShopLoadTests {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    SeededCatalog seededCatalog;
+
+    @Value("${phone-shop.load-test.workloads}")
+    List<Workload> workloads;
+
+    @Value("${phone-shop.load-test.concurrency}")
+    int concurrency;
+
+    @Value("${phone-shop.load-test.arrival-rate}")
+    int arrivalRate;
+
+    @Value("${phone-shop.load-test.hot-phones}")
+    int hotPhones;
+
+    @Value("${phone-shop.load-test.warmup}")
+    Duration warmup;
+
+    @Value("${phone-shop.load-test.duration}")
+    Duration duration;
+
+    /**
+     * Runs every configured workload after a warm-up, at the configured arrival rate if one is set and at the
+     * configured concurrency otherwise, and prints its report. Fails if a request got no response.
+     */
+    @Test
+    void loadTest() throws InterruptedException {
+
+        // Test data setup
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LoadTarget target = new LoadTarget(URI.create("http://localhost:" + port + "/api/v1"),
+                seededCatalog.getPhoneIds(), hotPhones);
+        LoadGenerator loadGenerator = new LoadGenerator(httpClient, target);
+
+        // Perform the test and assert the result
+        for (Workload workload : workloads) {
+            run(loadGenerator, workload, warmup);
+            LoadReport report = run(loadGenerator, workload, duration);
+            report.print(System.out);
+            Assertions.assertTrue(report.totalRequests() > 0);
+            Assertions.assertEquals(0, report.totalFailures(), workload + " had failed requests");
+        }
+
+    }
+
+    private LoadReport run(LoadGenerator loadGenerator, Workload workload, Duration duration)
+            throws InterruptedException {
+        if (arrivalRate > 0) {
+            return loadGenerator.runAtRate(workload, arrivalRate, concurrency, duration);
+        }
+        return loadGenerator.runAtConcurrency(workload, concurrency, duration);
+    }
+
+    /**
+     * The IDs of the phones seeded into the catalog.
+     */
+    static class SeededCatalog {
+
+        private final int[] phoneIds;
+
+        SeededCatalog(int[] phoneIds) {
+            this.phoneIds = phoneIds;
+        }
+
+        int[] getPhoneIds() {
+            return phoneIds;
+        }
+
+    }
+
+    /**
+     * Seeds the catalog while the application starts, so that the search index and the catalog snapshot,
+     * built once the application is ready, include the seeded phones.
+     */
+    @TestConfiguration
+    static class CatalogSeeding {
+
+        private static final int SEED_BATCH_SIZE = 1000;
+
+        @Bean
+        SeededCatalog seededCatalog(
+                PhoneRepository phoneRepository,
+                @Value("${phone-shop.load-test.catalog-size}") int catalogSize
+        ) {
+            Random random = new Random(42);
+            int[] phoneIds = new int[catalogSize];
+            int seeded = 0;
+            while (seeded < catalogSize) {
+                List<Phone> batch = new ArrayList<>(SEED_BATCH_SIZE);
+                for (int i = seeded; i < Math.min(seeded + SEED_BATCH_SIZE, catalogSize); i++) {
+                    batch.add(new Phone(
+                            null,
+                            Workload.MANUFACTURERS[random.nextInt(Workload.MANUFACTURERS.length)],
+                            "Model " + i,
+                            64 << random.nextInt(4),
+                            random.nextBoolean() ? "Black" : "White",
+                            10000 + random.nextInt(90000),
+                            i % 10 == 9 ? 0 : 1000
+                    ));
+                }
+                for (Phone phone : phoneRepository.saveAll(batch)) {
+                    phoneIds[seeded++] = phone.getId();
+                }
+            }
+            return new SeededCatalog(phoneIds);
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.siri_hate.phone_shop_service.load;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * The memory and threads used by the JVM over a load run. The load generator runs in the same JVM as the
+ * application, so its clients are included; they are the same whatever application is under load, which keeps
+ * the figures comparable between runs.
+ *
+ * @param peakHeapBytes The highest heap usage, summed over the peaks of the heap memory pools.
+ * @param gcCount       The number of garbage collections.
+ * @param gcMillis      The time spent in garbage collections, in milliseconds.
+ * @param peakThreads   The highest number of live threads.
+ */
+record ResourceUsage(long peakHeapBytes, long gcCount, long gcMillis, int peakThreads) {
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    /**
+     * Starts measuring the resource usage of a run, resetting the peaks recorded by the JVM.
+     *
+     * @return The measurement, to be finished once the run has completed.
+     */
+    static Measurement start() {
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        return new Measurement(totalGcCount(), totalGcMillis());
+    }
+
+    /**
+     * Prints the resource usage as a single line below the table of a report.
+     *
+     * @param out The stream to print to.
+     */
+    void print(PrintStream out) {
+        out.printf("peak heap %.1f MB, %d GCs (%d ms), peak threads %d%n",
+                peakHeapBytes / MEGABYTE,
+                gcCount,
+                gcMillis,
+                peakThreads);
+    }
+
+    private static long totalGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .sum();
+    }
+
+    private static long totalGcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+
+    /**
+     * A measurement in progress, holding the cumulative counters at its start.
+     */
+    static final class Measurement {
+
+        private final long startGcCount;
+
+        private final long startGcMillis;
+
+        private Measurement(long startGcCount, long startGcMillis) {
+            this.startGcCount = startGcCount;
+            this.startGcMillis = startGcMillis;
+        }
+
+        /**
+         * Finishes the measurement.
+         *
+         * @return The resource usage since the measurement started.
+         */
+        ResourceUsage finish() {
+            long peakHeapBytes = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                    .sum();
+            return new ResourceUsage(
+                    peakHeapBytes,
+                    totalGcCount() - startGcCount,
+                    totalGcMillis() - startGcMillis,
+                    ManagementFactory.getThreadMXBean().getPeakThreadCount()
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.siri_hate.phone_shop_service.load;
+
+import com.siri_hate.phone_shop_service.dto.PhoneCsvReader;
+
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * The mixes of requests the load generator drives against the application. Together they cover every endpoint
+ * of the {@code PhoneShopController}; {@link #CATALOG_READS} only uses those the reactive application serves too.
+ */
+enum Workload {
+
+    /**
+     * Read-heavy browsing of the catalog, with an occasional price change.
+     */
+    BROWSING(List.of(
+            new LoadOperation("GET /phones/{id}", 30,
+                    (target, random) -> target.get("/phones/" + target.randomPhoneId(random))),
+            new LoadOperation("GET /phones", 10,
+                    (target, random) -> target.get("/phones?size=20&sort=" + randomSort(random))),
+            new LoadOperation("GET /phones/search", 10,
+                    (target, random) -> target.get("/phones/search?manufacturer=" + randomManufacturer(random)
+                            + "&maxCost=" + (20000 + random.nextInt(80000)) + "&inStock=true&size=20")),
+            new LoadOperation("GET /phones/suggest", 10,
+                    (target, random) -> target.get("/phones/suggest?q="
+                            + randomManufacturer(random).substring(0, 3).toLowerCase())),
+            new LoadOperation("GET /phones/summaries", 10,
+                    (target, random) -> target.get("/phones/summaries?size=50&afterId="
+                            + target.randomPhoneId(random))),
+            new LoadOperation("GET /phones/batch", 10,
+                    (target, random) -> target.get("/phones/batch?ids=" + randomIds(target, random, 20))),
+            new LoadOperation("GET /phones/changes", 5,
+                    (target, random) -> target.get("/phones/changes?size=100&since=" + random.nextInt(100))),
+            new LoadOperation("PATCH /phones/{id}", 3,
+                    (target, random) -> target.patch("/phones/" + target.randomPhoneId(random),
+                            "{\"cost\":" + (10000 + random.nextInt(90000)) + "}")),
+            new LoadOperation("GET /phones/all", 1,
+                    (target, random) -> target.get("/phones/all")),
+            new LoadOperation("GET /phones/export", 1,
+                    (target, random) -> target.get("/phones/export")),
+            new LoadOperation("GET /phones/stream", 1, true,
+                    (target, random) -> target.get("/phones/stream"))
+    )),
+
+    /**
+     * Read-heavy browsing like {@link #BROWSING}, limited to the endpoints both the servlet and the reactive
+     * application serve, so that the two can be compared under the same load.
+     */
+    CATALOG_READS(List.of(
+            new LoadOperation("GET /phones/{id}", 30,
+                    (target, random) -> target.get("/phones/" + target.randomPhoneId(random))),
+            new LoadOperation("GET /phones", 10,
+                    (target, random) -> target.get("/phones?size=20&sort=" + randomSort(random))),
+            new LoadOperation("GET /phones/search", 10,
+                    (target, random) -> target.get("/phones/search?manufacturer=" + randomManufacturer(random)
+                            + "&maxCost=" + (20000 + random.nextInt(80000)) + "&inStock=true&size=20")),
+            new LoadOperation("GET /phones/summaries", 10,
+                    (target, random) -> target.get("/phones/summaries?size=50&afterId="
+                            + target.randomPhoneId(random))),
+            new LoadOperation("GET /phones/batch", 10,
+                    (target, random) -> target.get("/phones/batch?ids=" + randomIds(target, random, 20))),
+            new LoadOperation("PATCH /phones/{id}", 3,
+                    (target, random) -> target.patch("/phones/" + target.randomPhoneId(random),
+                            "{\"cost\":" + (10000 + random.nextInt(90000)) + "}")),
+            new LoadOperation("GET /phones/all", 1,
+                    (target, random) -> target.get("/phones/all")),
+            new LoadOperation("GET /phones/export", 1,
+                    (target, random) -> target.get("/phones/export"))
+    )),
+
+    /**
+     * Bursts of catalog writes: creations, imports, full and partial updates and deletions.
+     * Deleted phones are picked among the seeded ones, so later deletions and updates of them answer 404.
+     */
+    WRITE_BURST(List.of(
+            new LoadOperation("POST /phones", 30,
+                    (target, random) -> target.post("/phones", randomPhoneJson(random))),
+            new LoadOperation("PUT /phones/{id}", 25,
+                    (target, random) -> target.put("/phones/" + target.randomPhoneId(random),
+                            randomPhoneJson(random))),
+            new LoadOperation("PATCH /phones/{id}", 25,
+                    (target, random) -> target.patch("/phones/" + target.randomPhoneId(random),
+                            "{\"quantity\":" + random.nextInt(100) + ",\"color\":\"Blue\"}")),
+            new LoadOperation("POST /phones/import (JSON)", 5,
+                    (target, random) -> target.post("/phones/import", randomPhonesJson(random, 20))),
+            new LoadOperation("POST /phones/import (CSV)", 5,
+                    (target, random) -> target.upload("/phones/import", "phones.csv", randomPhonesCsv(random, 20))),
+            new LoadOperation("DELETE /phones/{id}", 5,
+                    (target, random) -> target.delete("/phones/" + target.randomPhoneId(random))),
+            new LoadOperation("GET /phones/{id}", 5,
+                    (target, random) -> target.get("/phones/" + target.randomPhoneId(random)))
+    )),
+
+    /**
+     * Reservations and releases of a few hot phones from every client at once.
+     */
+    STOCK_CONTENTION(List.of(
+            new LoadOperation("POST /phones/{id}/reserve", 45,
+                    (target, random) -> target.post("/phones/" + target.hotPhoneId(random) + "/reserve",
+                            "{\"quantity\":1}")),
+            new LoadOperation("POST /phones/{id}/release", 45,
+                    (target, random) -> target.post("/phones/" + target.hotPhoneId(random) + "/release",
+                            "{\"quantity\":1}")),
+            new LoadOperation("GET /phones/{id}", 10,
+                    (target, random) -> target.get("/phones/" + target.hotPhoneId(random)))
+    ));
+
+    static final String[] MANUFACTURERS = {"Samsung", "Apple", "Xiaomi", "Google", "Nokia", "Motorola"};
+
+    private static final String[] COLORS = {"Black", "White", "Blue", "Green", "Gold"};
+
+    private static final String[] SORTS = {"id", "cost", "storageSize"};
+
+    private final List<LoadOperation> operations;
+
+    private final int totalWeight;
+
+    Workload(List<LoadOperation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(LoadOperation::getWeight).sum();
+    }
+
+    /**
+     * Draws the next operation, in proportion to the weights of the operations.
+     *
+     * @param random The random generator of the calling thread.
+     * @return The operation.
+     */
+    LoadOperation next(Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (LoadOperation operation : operations) {
+            draw -= operation.getWeight();
+            if (draw < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights changed while drawing");
+    }
+
+    private static String randomManufacturer(Random random) {
+        return MANUFACTURERS[random.nextInt(MANUFACTURERS.length)];
+    }
+
+    private static String randomSort(Random random) {
+        return SORTS[random.nextInt(SORTS.length)];
+    }
+
+    private static String randomIds(LoadTarget target, Random random, int count) {
+        StringJoiner ids = new StringJoiner(",");
+        for (int i = 0; i < count; i++) {
+            ids.add(Integer.toString(target.randomPhoneId(random)));
+        }
+        return ids.toString();
+    }
+
+    private static String randomPhoneJson(Random random) {
+        return "{\"manufacturer\":\"" + randomManufacturer(random) + "\",\"model\":\"Load " + random.nextInt(1000)
+                + "\",\"storageSize\":128,\"color\":\"" + COLORS[random.nextInt(COLORS.length)]
+                + "\",\"cost\":" + (10000 + random.nextInt(90000)) + ",\"quantity\":" + (1 + random.nextInt(100)) + "}";
+    }
+
+    private static String randomPhonesJson(Random random, int count) {
+        StringJoiner phones = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < count; i++) {
+            phones.add(randomPhoneJson(random));
+        }
+        return phones.toString();
+    }
+
+    private static String randomPhonesCsv(Random random, int count) {
+        StringBuilder csv = new StringBuilder(PhoneCsvReader.HEADER).append('\n');
+        for (int i = 0; i < count; i++) {
+            csv.append(randomManufacturer(random)).append(",Load ").append(random.nextInt(1000)).append(",128,")
+                    .append(COLORS[random.nextInt(COLORS.length)]).append(',')
+                    .append(10000 + random.nextInt(90000)).append(',')
+                    .append(1 + random.nextInt(100)).append('\n');
+        }
+        return csv.toString();
+    }
+
+}
@@ -0,0 +1,340 @@
+package com.siri_hate.phone_shop_service.repository;
+
+import com.siri_hate.phone_shop_service.dto.PhonePatchRequest;
+import com.siri_hate.phone_shop_service.dto.PhoneSearchCriteria;
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.entity.PhoneTombstone;
+import com.siri_hate.phone_shop_service.model.PhoneSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Integration tests for the PhoneRepository queries that run against an embedded database.
+ * Tests run without a surrounding test transaction, so that concurrent callers see each other's commits.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PhoneRepositoryTests {
+
+    /**
+     * Autowired instance of the PhoneRepository under test, backed by the embedded database.
+     */
+    @Autowired
+    PhoneRepository phoneRepository;
+
+    /**
+     * Autowired instance of the PhoneTombstoneRepository under test, backed by the embedded database.
+     */
+    @Autowired
+    PhoneTombstoneRepository phoneTombstoneRepository;
+
+    /**
+     * Autowired transaction manager, used to run every concurrent call in its own transaction.
+     */
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * Removes the phones and tombstones stored by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        phoneRepository.deleteAll();
+        phoneTombstoneRepository.deleteAll();
+    }
+
+    /**
+     * Test that hundreds of concurrent buyers reserving the same phone never oversell it:
+     * exactly as many reservations succeed as there were units in stock, and the quantity ends at zero.
+     */
+    @Test
+    void reserveStockConcurrentTest() throws Exception {
+
+        // Test data setup
+        int stock = 100;
+        int buyers = 300;
+        int threads = 32;
+
+        Phone phone = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                stock
+        ));
+        int id = phone.getId();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Perform the test
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> results = new ArrayList<>();
+        long startTime;
+        try {
+            for (int i = 0; i < buyers; i++) {
+                results.add(executorService.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> phoneRepository.reserveStock(id, 1, 1));
+                }));
+            }
+            startTime = System.nanoTime();
+            start.countDown();
+            int reserved = 0;
+            for (Future<Integer> result : results) {
+                reserved += result.get(30, TimeUnit.SECONDS);
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            System.out.printf("Reserved %d of %d units for %d buyers in %.1f ms (%.0f reservations/s)%n",
+                    reserved, stock, buyers, elapsedNanos / 1e6, buyers / (elapsedNanos / 1e9));
+
+            // Assert the result
+            Assertions.assertEquals(stock, reserved);
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assertions.assertEquals(0, phoneRepository.findById(id).orElseThrow().getQuantity());
+
+    }
+
+    /**
+     * Test that releasing units puts them back into stock and that reserving more units than in stock changes nothing.
+     */
+    @Test
+    void releaseStockTest() {
+
+        // Test data setup
+        Phone phone = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                2
+        ));
+        int id = phone.getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(0, (int) transactionTemplate.execute(status -> phoneRepository.reserveStock(id, 3, 1)));
+        Assertions.assertEquals(1, (int) transactionTemplate.execute(status -> phoneRepository.releaseStock(id, 3, 1)));
+        Assertions.assertEquals(1, (int) transactionTemplate.execute(status -> phoneRepository.reserveStock(id, 5, 1)));
+        Assertions.assertEquals(0, phoneRepository.findById(id).orElseThrow().getQuantity());
+        Assertions.assertEquals(0, (int) transactionTemplate.execute(status -> phoneRepository.releaseStock(id + 1000, 1, 1)));
+
+    }
+
+    /**
+     * Test that every single-statement update increments the version of the phone, and that the version
+     * can be read without loading the phone.
+     */
+    @Test
+    void versionTest() {
+
+        // Test data setup
+        Phone phone = phoneRepository.save(new Phone(
+                null,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                5
+        ));
+        int id = phone.getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(0L, phoneRepository.findVersionById(id).orElseThrow());
+        transactionTemplate.execute(status -> phoneRepository.updateById(id, "Samsung", "Galaxy", 10, "White", 14000, 5, 1));
+        transactionTemplate.execute(status -> phoneRepository.patchById(id, new PhonePatchRequest(null, null, null, null, 13000, null), 1));
+        transactionTemplate.execute(status -> phoneRepository.patchById(id, new PhonePatchRequest(null, null, null, null, null, null), 1));
+        transactionTemplate.execute(status -> phoneRepository.reserveStock(id, 2, 1));
+        transactionTemplate.execute(status -> phoneRepository.reserveStock(id, 10, 1));
+        transactionTemplate.execute(status -> phoneRepository.releaseStock(id, 1, 1));
+        Assertions.assertEquals(4L, phoneRepository.findVersionById(id).orElseThrow());
+        Assertions.assertEquals(4L, phoneRepository.findById(id).orElseThrow().getVersion());
+        Assertions.assertTrue(phoneRepository.findVersionById(id + 1000).isEmpty());
+
+    }
+
+    /**
+     * Test that changed phones and tombstones are found in {@code (change version, id)} order after a position
+     * inside a change version, and never above the given upper change version.
+     */
+    @Test
+    void changedSinceTest() {
+
+        // Test data setup
+        List<Phone> phones = phoneRepository.saveAll(List.of(
+                new Phone(null, "Samsung", "Galaxy S23", 128, "Black", 45000, 3, 0, 2),
+                new Phone(null, "Samsung", "Galaxy A54", 128, "Black", 30000, 0, 0, 2),
+                new Phone(null, "Apple", "Iphone 13", 128, "Black", 40000, 2, 0, 3)
+        ));
+        int firstId = phones.get(0).getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> phoneTombstoneRepository.insertTombstone(firstId + 1000, 3));
+        PageRequest limit = PageRequest.of(0, 2);
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(
+                List.of(phones.get(0).getId(), phones.get(1).getId()),
+                phoneRepository.findChangedSince(0, 0, 10, limit).stream().map(Phone::getId).toList()
+        );
+        Assertions.assertEquals(
+                List.of(phones.get(1).getId(), phones.get(2).getId()),
+                phoneRepository.findChangedSince(2, firstId, 10, limit).stream().map(Phone::getId).toList()
+        );
+        Assertions.assertEquals(1, phoneRepository.findChangedSince(2, firstId, 2, limit).size());
+        Assertions.assertEquals(
+                List.of(firstId + 1000),
+                phoneTombstoneRepository.findRecordedSince(2, 0, 3, limit).stream().map(PhoneTombstone::getPhoneId).toList()
+        );
+        Assertions.assertTrue(phoneTombstoneRepository.findRecordedSince(2, 0, 2, limit).isEmpty());
+        Assertions.assertTrue(phoneTombstoneRepository.findRecordedSince(3, firstId + 1000, 3, limit).isEmpty());
+
+    }
+
+    /**
+     * Test that phone summaries are paged by ID with the in-stock flag computed by the query.
+     */
+    @Test
+    void summariesTest() {
+
+        // Test data setup
+        List<Phone> phones = phoneRepository.saveAll(List.of(
+                new Phone(null, "Samsung", "Galaxy S23", 128, "Black", 45000, 3),
+                new Phone(null, "Samsung", "Galaxy A54", 128, "Black", 30000, 0),
+                new Phone(null, "Apple", "Iphone 13", 128, "Black", 40000, 2)
+        ));
+        int firstId = phones.get(0).getId();
+        int secondId = phones.get(1).getId();
+
+        // Perform the test and assert the result
+        Assertions.assertEquals(
+                List.of(
+                        new PhoneSummary(secondId, "Samsung", "Galaxy A54", 30000, false),
+                        new PhoneSummary(phones.get(2).getId(), "Apple", "Iphone 13", 40000, true)
+                ),
+                phoneRepository.findSummariesAfter(firstId, PageRequest.of(0, 10))
+        );
+        Assertions.assertEquals(1, phoneRepository.findSummariesAfter(0, PageRequest.of(0, 1)).size());
+
+    }
+
+    /**
+     * Measures the latency and the bytes allocated per page of 1000 phones when reading entities in a read-write
+     * transaction, entities in a read-only transaction, and summary projections, and checks that the projection
+     * allocates less than the read-write entity read.
+     */
+    @Test
+    void readPathAllocationTest() {
+
+        // Test data setup
+        List<Phone> phones = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            phones.add(new Phone(null, "Samsung", "Galaxy " + i, 128, "Black", 30000 + i, i % 4));
+        }
+        phoneRepository.saveAll(phones);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Runnable entityPage = () -> phoneRepository.findBy(
+                PhoneSpecifications.all(),
+                query -> query.sortBy(Sort.by("id")).limit(1000).scroll(ScrollPosition.keyset())
+        );
+
+        // Perform the test and assert the result
+        long[] readWriteCost = measure(() -> readWrite.executeWithoutResult(status -> entityPage.run()));
+        long[] readOnlyCost = measure(() -> readOnly.executeWithoutResult(status -> entityPage.run()));
+        long[] summaryCost = measure(() -> readOnly.executeWithoutResult(
+                status -> phoneRepository.findSummariesAfter(0, PageRequest.of(0, 1000))));
+        System.out.printf("Entities (read-write): %d us, %d KB; entities (read-only): %d us, %d KB; "
+                        + "summaries: %d us, %d KB per page of 1000 phones%n",
+                readWriteCost[0] / 1000, readWriteCost[1] / 1024,
+                readOnlyCost[0] / 1000, readOnlyCost[1] / 1024,
+                summaryCost[0] / 1000, summaryCost[1] / 1024);
+        Assertions.assertTrue(summaryCost[1] < readWriteCost[1]);
+
+    }
+
+    /**
+     * Test that a search combining several filters finds exactly the phones satisfying all of them.
+     */
+    @Test
+    void searchSpecificationTest() {
+
+        // Test data setup
+        phoneRepository.saveAll(List.of(
+                new Phone(null, "Samsung", "Galaxy S23", 128, "Black", 45000, 3),
+                new Phone(null, "Samsung", "Galaxy S23", 256, "Black", 52000, 3),
+                new Phone(null, "Samsung", "Galaxy A54", 128, "Black", 30000, 0),
+                new Phone(null, "Samsung", "Galaxy A54", 64, "Black", 25000, 7),
+                new Phone(null, "Samsung", "Galaxy A54", 128, "White", 30000, 7),
+                new Phone(null, "Apple", "Iphone 13", 128, "Black", 40000, 2)
+        ));
+
+        PhoneSearchCriteria criteria = new PhoneSearchCriteria();
+        criteria.setManufacturer("Samsung");
+        criteria.setColor("Black");
+        criteria.setMinStorageSize(128);
+        criteria.setMaxCost(50000);
+        criteria.setInStock(true);
+
+        // Perform the test and assert the result
+        List<Phone> phones = phoneRepository.findAll(PhoneSpecifications.matching(criteria), Sort.by("id"));
+        Assertions.assertEquals(1, phones.size());
+        Assertions.assertEquals("Galaxy S23", phones.get(0).getModel());
+        Assertions.assertEquals(128, phones.get(0).getStorageSize());
+        Assertions.assertEquals(6, phoneRepository.findAll(PhoneSpecifications.matching(new PhoneSearchCriteria())).size());
+
+    }
+
+    /**
+     * Runs a read repeatedly after a warm-up and measures its median latency and mean allocation on this thread.
+     *
+     * @param read The read to measure.
+     * @return The median latency in nanoseconds and the mean number of bytes allocated per read.
+     */
+    private static long[] measure(Runnable read) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20; i++) {
+            read.run();
+        }
+        int runs = 50;
+        long[] nanos = new long[runs];
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            read.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(nanos);
+        return new long[] {nanos[runs / 2], allocated / runs};
+    }
+
+}
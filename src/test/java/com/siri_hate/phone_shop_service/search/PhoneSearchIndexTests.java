@@ -0,0 +1,146 @@
+package com.siri_hate.phone_shop_service.search;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.PhoneSuggestion;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the PhoneSearchIndex, including a catalog of 100,000 synthetic phones.
+ */
+class PhoneSearchIndexTests {
+
+    private static final String[] MANUFACTURERS = {
+            "Apple", "Samsung", "Google", "Xiaomi", "OnePlus", "Sony", "Motorola", "Nokia", "Huawei", "Oppo"
+    };
+
+    private static final String[] MODELS = {
+            "Galaxy", "Pixel", "iPhone", "Redmi", "Nord", "Xperia", "Edge", "Lumia", "Mate", "Reno"
+    };
+
+    private static final String[] SUFFIXES = {"", " Pro", " Max", " Ultra", " Lite", " Plus", " Mini", " FE"};
+
+    private static final String[] COLORS = {"Black", "White", "Blue", "Red", "Green", "Gold", "Silver", "Purple"};
+
+    private static final int CATALOG_SIZE = 100_000;
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+
+    /**
+     * Test that every query word must start a word of the phone, that exact words rank first
+     * and that changes and removals are reflected.
+     */
+    @Test
+    void suggestTest() {
+        // Test data setup
+        PhoneRepository phoneRepository = mock(PhoneRepository.class);
+        when(phoneRepository.streamAllOrderById()).thenReturn(Stream.of(
+                new Phone(1, "Samsung", "Galaxy S24", 256, "Black", 900, 10),
+                new Phone(2, "Samsung", "Galaxy S24 Ultra", 512, "Titanium Gray", 1300, 5),
+                new Phone(3, "Apple", "iPhone 15", 128, "Blue", 800, 7),
+                new Phone(4, "Google", "Pixel 8", 128, "Obsidian", 700, 3)
+        ));
+        PhoneSearchIndex index = new PhoneSearchIndex(phoneRepository, entityManager, new SimpleMeterRegistry());
+        index.rebuild();
+
+        // Perform the test and assert the result
+        verify(entityManager, times(4)).detach(any(Phone.class));
+        Assertions.assertEquals(List.of(1, 2), ids(index.suggest("gal", 10)));
+        Assertions.assertEquals(List.of(2), ids(index.suggest("Samsung ULT", 10)));
+        Assertions.assertEquals(List.of(1, 2), ids(index.suggest("s24 galaxy", 10)));
+        Assertions.assertEquals(List.of(3), ids(index.suggest("iphone 15 blue", 10)));
+        Assertions.assertEquals(List.of(1), ids(index.suggest("s", 1)));
+        Assertions.assertEquals(List.of(), ids(index.suggest("galaxy pixel", 10)));
+        Assertions.assertEquals(List.of(), ids(index.suggest(" -- ", 10)));
+
+        index.put(new Phone(5, "Samsung", "Galaxy A55", 128, "Lilac", 450, 20));
+        index.put(new Phone(1, "Samsung", "Note 10", 256, "Black", 500, 10));
+        index.remove(2);
+        Assertions.assertEquals(List.of(5), ids(index.suggest("galaxy", 10)));
+        Assertions.assertEquals(List.of(1), ids(index.suggest("note", 10)));
+        Assertions.assertEquals(4, index.phoneCount());
+    }
+
+    /**
+     * Test that changes applied while a rebuild is streaming the catalog survive the rebuild.
+     */
+    @Test
+    void rebuildReplaysConcurrentChangesTest() {
+        // Test data setup
+        PhoneRepository phoneRepository = mock(PhoneRepository.class);
+        PhoneSearchIndex index = new PhoneSearchIndex(phoneRepository, entityManager, new SimpleMeterRegistry());
+
+        // Mock repository behavior
+        when(phoneRepository.streamAllOrderById()).thenReturn(Stream.of(
+                new Phone(1, "Apple", "iPhone 14", 128, "Black", 700, 1),
+                new Phone(2, "Apple", "iPhone 15", 128, "Black", 800, 1)
+        ).peek(phone -> {
+            if (phone.getId() == 2) {
+                index.put(new Phone(1, "Apple", "iPhone 14 Plus", 128, "Black", 750, 1));
+                index.put(new Phone(3, "Apple", "iPhone 16", 128, "White", 900, 1));
+            }
+        }));
+
+        // Perform the test and assert the result
+        index.rebuild();
+        Assertions.assertEquals(List.of(1), ids(index.suggest("plus", 10)));
+        Assertions.assertEquals(List.of(3), ids(index.suggest("16", 10)));
+        Assertions.assertEquals(3, index.phoneCount());
+    }
+
+    /**
+     * Test suggestions against 100,000 synthetic phones, comparing them with a brute-force scan.
+     */
+    @Test
+    void suggestLargeCatalogTest() {
+        // Test data setup
+        Random random = new Random(42);
+        List<Phone> phones = new ArrayList<>(CATALOG_SIZE);
+        for (int id = 1; id <= CATALOG_SIZE; id++) {
+            phones.add(new Phone(
+                    id,
+                    MANUFACTURERS[random.nextInt(MANUFACTURERS.length)],
+                    MODELS[random.nextInt(MODELS.length)] + " " + random.nextInt(1000)
+                            + SUFFIXES[random.nextInt(SUFFIXES.length)],
+                    128,
+                    COLORS[random.nextInt(COLORS.length)],
+                    500,
+                    1
+            ));
+        }
+        PhoneRepository phoneRepository = mock(PhoneRepository.class);
+        when(phoneRepository.streamAllOrderById()).thenReturn(phones.stream());
+        PhoneSearchIndex index = new PhoneSearchIndex(phoneRepository, entityManager, new SimpleMeterRegistry());
+        index.rebuild();
+        String[] queries = {"gal", "pixel 4", "apple iphone 12", "red ultra", "xi re 99", "sony", "g", "mate 1 gold"};
+
+        // Perform the test and assert the result
+        for (String query : queries) {
+            String[] tokens = InvertedIndex.tokenize(query);
+            long expected = phones.stream()
+                    .filter(phone -> Arrays.stream(tokens).allMatch(token -> Arrays.stream(InvertedIndex.tokenize(
+                            phone.getManufacturer() + " " + phone.getModel() + " " + phone.getColor()))
+                            .anyMatch(term -> term.startsWith(token))))
+                    .count();
+            Assertions.assertEquals(Math.min(expected, 10), index.suggest(query, 10).size(), query);
+        }
+    }
+
+    private static List<Integer> ids(List<PhoneSuggestion> suggestions) {
+        return suggestions.stream().map(PhoneSuggestion::getId).toList();
+    }
+
+}
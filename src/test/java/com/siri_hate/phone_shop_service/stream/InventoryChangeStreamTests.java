@@ -0,0 +1,293 @@
+package com.siri_hate.phone_shop_service.stream;
+
+import com.siri_hate.phone_shop_service.entity.Phone;
+import com.siri_hate.phone_shop_service.model.InventoryChange;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the InventoryChangeStream, checking that changes coalesce per phone, that a slow subscriber
+ * is told to resync without holding up the others, and that a stalled subscriber is dropped.
+ */
+class InventoryChangeStreamTests {
+
+    private final PhoneRepository phoneRepository = mock(PhoneRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final InventoryChangeStream inventoryChangeStream = new InventoryChangeStream(
+            phoneRepository,
+            meterRegistry,
+            2,
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(1),
+            2,
+            4,
+            false
+    );
+
+    /**
+     * Closes the subscriptions opened by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        inventoryChangeStream.shutdown();
+    }
+
+    /**
+     * Test that repeated changes of the same phone are sent once with its latest state,
+     * and that a deleted phone is sent as deleted.
+     */
+    @Test
+    void coalesceTest() throws Exception {
+
+        // Test data setup
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        Phone phone = new Phone(
+                1,
+                "Samsung",
+                "Galaxy",
+                10,
+                "Black",
+                15000,
+                4
+        );
+
+        // Mock repository behavior
+        when(phoneRepository.findAllById(any())).thenReturn(List.of(phone));
+
+        // Perform the test and assert the result
+        inventoryChangeStream.publish(3);
+        inventoryChangeStream.flush();
+        verify(phoneRepository, never()).findAllById(any());
+
+        inventoryChangeStream.subscribe(emitter);
+        inventoryChangeStream.publish(1);
+        inventoryChangeStream.publish(2);
+        inventoryChangeStream.publish(1);
+        inventoryChangeStream.publish(1);
+        inventoryChangeStream.flush();
+        Set<ResponseBodyEmitter.DataWithMediaType> event = emitter.events.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(event);
+        Assertions.assertTrue(textOf(event).startsWith("event:inventory\n"));
+        Assertions.assertEquals(
+                Set.of(new InventoryChange(1, 4, 15000, false), new InventoryChange(2, null, null, true)),
+                Set.copyOf((List<?>) payloadOf(event))
+        );
+        verify(phoneRepository, times(1)).findAllById(any());
+
+    }
+
+    /**
+     * Test that a subscriber falling behind by more phones than its buffer holds is told to resync,
+     * while another subscriber keeps receiving every change.
+     */
+    @Test
+    void slowSubscriberTest() throws Exception {
+
+        // Test data setup
+        CountDownLatch slowConsumer = new CountDownLatch(1);
+        RecordingEmitter slowEmitter = new RecordingEmitter(slowConsumer);
+        RecordingEmitter fastEmitter = new RecordingEmitter(new CountDownLatch(0));
+        inventoryChangeStream.subscribe(slowEmitter);
+        inventoryChangeStream.subscribe(fastEmitter);
+
+        // Mock repository behavior
+        when(phoneRepository.findAllById(any())).thenReturn(List.of());
+
+        // Perform the test and assert the result
+        inventoryChangeStream.publish(1);
+        inventoryChangeStream.flush();
+        Assertions.assertNotNull(fastEmitter.events.poll(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(slowEmitter.sendStarted.await(5, TimeUnit.SECONDS));
+
+        inventoryChangeStream.publish(2);
+        inventoryChangeStream.publish(3);
+        inventoryChangeStream.flush();
+        Assertions.assertEquals(2, ((List<?>) payloadOf(fastEmitter.events.poll(5, TimeUnit.SECONDS))).size());
+        Assertions.assertEquals(0.0, meterRegistry.get("phone-shop.inventory-stream.overflows").counter().count());
+
+        inventoryChangeStream.publish(4);
+        inventoryChangeStream.flush();
+        Assertions.assertEquals(1, ((List<?>) payloadOf(fastEmitter.events.poll(5, TimeUnit.SECONDS))).size());
+        Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.inventory-stream.overflows").counter().count());
+
+        slowConsumer.countDown();
+        Assertions.assertTrue(textOf(slowEmitter.events.poll(5, TimeUnit.SECONDS)).startsWith("event:inventory\n"));
+        Assertions.assertTrue(textOf(slowEmitter.events.poll(5, TimeUnit.SECONDS)).startsWith("event:resync\n"));
+
+    }
+
+    /**
+     * Test that a subscriber not taking an event within the send timeout is dropped, and that the drop itself
+     * unblocks the stalled write, while another subscriber keeps receiving every change.
+     */
+    @Test
+    void sendTimeoutTest() throws Exception {
+
+        // Test data setup
+        InventoryChangeStream stream = createStream(Duration.ofMillis(50), 2);
+        CountDownLatch stalledConsumer = new CountDownLatch(1);
+        RecordingEmitter stalledEmitter = new RecordingEmitter(stalledConsumer);
+        RecordingEmitter fastEmitter = new RecordingEmitter(new CountDownLatch(0));
+        stream.subscribe(stalledEmitter);
+        stream.subscribe(fastEmitter);
+
+        // Mock repository behavior
+        when(phoneRepository.findAllById(any())).thenReturn(List.of());
+
+        // Perform the test and assert the result
+        try {
+            stream.publish(1);
+            stream.flush();
+            Assertions.assertNotNull(fastEmitter.events.poll(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(stalledEmitter.sendStarted.await(5, TimeUnit.SECONDS));
+
+            Thread.sleep(100);
+            stream.publish(2);
+            stream.flush();
+            Assertions.assertTrue(stalledEmitter.sendAborted.await(5, TimeUnit.SECONDS));
+            Assertions.assertNotNull(fastEmitter.events.poll(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.inventory-stream.dropped")
+                    .tag("reason", "send-timeout")
+                    .counter()
+                    .count());
+            Assertions.assertEquals(0, stalledEmitter.events.size());
+        } finally {
+            stalledConsumer.countDown();
+            stream.shutdown();
+        }
+
+    }
+
+    /**
+     * Test that a subscriber finding every sending thread busy is dropped and completed at once,
+     * instead of starting another thread.
+     */
+    @Test
+    void sendThreadsBusyTest() throws Exception {
+
+        // Test data setup
+        InventoryChangeStream stream = createStream(Duration.ofMinutes(1), 1);
+        CountDownLatch stalledConsumer = new CountDownLatch(1);
+        RecordingEmitter stalledEmitter = new RecordingEmitter(stalledConsumer);
+        RecordingEmitter otherEmitter = new RecordingEmitter(new CountDownLatch(0));
+
+        // Mock repository behavior
+        when(phoneRepository.findAllById(any())).thenReturn(List.of());
+
+        // Perform the test and assert the result
+        try {
+            stream.subscribe(stalledEmitter);
+            stream.publish(1);
+            stream.flush();
+            Assertions.assertTrue(stalledEmitter.sendStarted.await(5, TimeUnit.SECONDS));
+
+            stream.subscribe(otherEmitter);
+            stream.publish(2);
+            stream.flush();
+            Assertions.assertTrue(otherEmitter.completed.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, otherEmitter.events.size());
+            Assertions.assertEquals(1.0, meterRegistry.get("phone-shop.inventory-stream.dropped")
+                    .tag("reason", "no-send-thread")
+                    .counter()
+                    .count());
+        } finally {
+            stalledConsumer.countDown();
+            stream.shutdown();
+        }
+
+    }
+
+    private InventoryChangeStream createStream(Duration sendTimeout, int maxSendThreads) {
+        return new InventoryChangeStream(
+                phoneRepository,
+                meterRegistry,
+                2,
+                Duration.ofMinutes(1),
+                sendTimeout,
+                1,
+                maxSendThreads,
+                false
+        );
+    }
+
+    private static String textOf(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        return event.stream()
+                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                .filter(String.class::isInstance)
+                .map(String.class::cast)
+                .collect(Collectors.joining());
+    }
+
+    private static Object payloadOf(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        return event.stream()
+                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                .filter(data -> !(data instanceof String))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * An emitter recording the events sent through it, which waits for a latch before every send
+     * to simulate a slow consumer, and records its completion and the sends aborted by an interrupt.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> events = new LinkedBlockingQueue<>();
+
+        private final CountDownLatch consumer;
+
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private final CountDownLatch sendAborted = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            try {
+                consumer.await();
+            } catch (InterruptedException e) {
+                sendAborted.countDown();
+                throw new IOException(e);
+            }
+            events.add(builder.build());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+
+    }
+
+}
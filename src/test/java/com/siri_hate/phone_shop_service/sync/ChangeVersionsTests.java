@@ -0,0 +1,101 @@
+package com.siri_hate.phone_shop_service.sync;
+
+import com.siri_hate.phone_shop_service.exception.DeltaSyncDisabledException;
+import com.siri_hate.phone_shop_service.repository.PhoneRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ChangeVersions, checking that the safe change version never passes a write still in flight,
+ * and that the delta sync cannot run while other instances write to the catalog.
+ */
+class ChangeVersionsTests {
+
+    /**
+     * Clears the transaction synchronization opened by a test.
+     */
+    @AfterEach
+    void cleanUp() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Test that a write completed while an older one is still in flight is held back until the older one completes.
+     */
+    @Test
+    void safeVersionWriteTest() {
+
+        // Test data setup
+        PhoneRepository phoneRepository = mock(PhoneRepository.class);
+        ChangeVersions changeVersions = new ChangeVersions(phoneRepository, true, true);
+
+        // Mock repository behavior
+        when(phoneRepository.nextChangeVersion()).thenReturn(1L, 2L);
+
+        // Perform the test and assert the result
+        changeVersions.write(olderVersion -> {
+            Assertions.assertEquals(1L, olderVersion);
+            changeVersions.write(newerVersion -> 1);
+            Assertions.assertEquals(0L, changeVersions.safeVersion());
+            return 1;
+        });
+        Assertions.assertEquals(2L, changeVersions.safeVersion());
+
+    }
+
+    /**
+     * Test that a transaction takes a single change version, which stays in flight until the transaction completes.
+     */
+    @Test
+    void safeVersionTransactionTest() {
+
+        // Test data setup
+        PhoneRepository phoneRepository = mock(PhoneRepository.class);
+        ChangeVersions changeVersions = new ChangeVersions(phoneRepository, true, true);
+
+        // Mock repository behavior
+        when(phoneRepository.nextChangeVersion()).thenReturn(5L, 6L);
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(IllegalStateException.class, changeVersions::forCurrentTransaction);
+        Assertions.assertEquals(5L, changeVersions.safeVersion());
+        TransactionSynchronizationManager.initSynchronization();
+        Assertions.assertEquals(6L, changeVersions.forCurrentTransaction());
+        Assertions.assertEquals(6L, changeVersions.forCurrentTransaction());
+        Assertions.assertEquals(5L, changeVersions.safeVersion());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        Assertions.assertEquals(6L, changeVersions.safeVersion());
+
+    }
+
+    /**
+     * Test that the delta sync refuses to start alongside other writers, and that with the sync disabled
+     * change versions are still allocated while the safe version is refused.
+     */
+    @Test
+    void multipleWritersTest() {
+
+        // Test data setup
+        PhoneRepository phoneRepository = mock(PhoneRepository.class);
+
+        // Mock repository behavior
+        when(phoneRepository.nextChangeVersion()).thenReturn(3L);
+
+        // Perform the test and assert the result
+        Assertions.assertThrows(IllegalStateException.class, () -> new ChangeVersions(phoneRepository, true, false));
+        ChangeVersions changeVersions = new ChangeVersions(phoneRepository, false, false);
+        Assertions.assertEquals(3L, changeVersions.write(changeVersion -> (int) changeVersion));
+        Assertions.assertThrows(DeltaSyncDisabledException.class, changeVersions::safeVersion);
+
+    }
+
+}